@@ -19,11 +19,13 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.http.SdkHttpFullRequest;
 import software.amazon.awssdk.services.elasticloadbalancingv2.ElasticLoadBalancingV2Client;
 import software.amazon.awssdk.services.elasticloadbalancingv2.model.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AlbSetListenerRule implements RequestHandler<Map<String, Object>, Object> {
 
@@ -31,7 +33,26 @@ public class AlbSetListenerRule implements RequestHandler<Map<String, Object>, O
     private final static String API_GATEWAY_HOST = System.getenv("API_GATEWAY_HOST");
     private final static String API_GATEWAY_STAGE = System.getenv("API_GATEWAY_STAGE");
     private final static String API_TRUST_ROLE = System.getenv("API_TRUST_ROLE");
+    private final static int MAX_CONCURRENCY = 5;
+    // Tenant ids per bulk settings request, which keeps the query string well under API Gateway's limit
+    static final int SETTINGS_BATCH_SIZE = 50;
+    static final int SETTINGS_MAX_CONCURRENCY = 4;
+    private final static Action DISABLED_ACTION = Action.builder()
+            .fixedResponseConfig(FixedResponseActionConfig.builder()
+                    .messageBody("<html><body>Access to your application is disabled. Contact our support if you have questions.</body></html>")
+                    .contentType("text/html")
+                    .statusCode("200")
+                    .build())
+            .type(ActionTypeEnum.FIXED_RESPONSE)
+            .build();
+    private final static RuleCondition PATH_PATTERN_ALL = RuleCondition.builder()
+            .field("path-pattern")
+            .values("*")
+            .build();
     private final ElasticLoadBalancingV2Client elb;
+    private final AlbTopology topology;
+    // A tenant's load balancer doesn't change once it's provisioned so this is kept while the container is warm
+    private final Map<String, String> tenantAlbNames = new ConcurrentHashMap<>();
 
     public AlbSetListenerRule() {
         long startTimeMillis = System.currentTimeMillis();
@@ -46,114 +67,188 @@ public class AlbSetListenerRule implements RequestHandler<Map<String, Object>, O
         }
         LOGGER.info("Version Info: {}", Utils.version(this.getClass()));
         this.elb = Utils.sdkClient(ElasticLoadBalancingV2Client.builder(), ElasticLoadBalancingV2Client.SERVICE_NAME);
+        this.topology = new AlbTopology(elb);
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
 
+    AlbSetListenerRule(ElasticLoadBalancingV2Client elb) {
+        this.elb = elb;
+        this.topology = new AlbTopology(elb);
+    }
+
     @Override
     public Object handleRequest(Map<String, Object> event, Context context) {
         Utils.logRequestEvent(event);
+        long startTimeMillis = System.currentTimeMillis();
 
         String source = (String) event.get("source");
         Map<String, Object> detail = (Map<String, Object>) event.get("detail");
-        String tenantId = (String) detail.get("tenantId");
-        Boolean enable = (Boolean) detail.get("status");
-        LOGGER.info("Processing Tenant Update of Tenant: {} with Status {}", tenantId, enable);
-
-        // ALB id will look like app/tenant-ae928191/2531796b463f0de7
-        // so index 1 from the split will have the ALB name
-        String albId = getAlbId(tenantId);
-        List<String> albNames = Arrays.asList(albId.split("/")[1]);
-
         if ("saas-boost".equals(source)) {
-            DescribeLoadBalancersResponse loadBalancersResponse = elb.describeLoadBalancers(request -> request.names(albNames));
-            LoadBalancer loadBalancer = loadBalancersResponse.loadBalancers().get(0);
-            LOGGER.info("Updating tenant load balancer {}", loadBalancer.toString());
-
-            DescribeListenersResponse listenersResponse = elb.describeListeners(request -> request.loadBalancerArn(loadBalancer.loadBalancerArn()));
-            Listener listener = listenersResponse.listeners().get(0);
-            //In case SSL then we have more than 1 listener and want to pick the SSL listener.
-            if (listenersResponse.listeners().size() > 1) {
-                for (Listener listenerRecord : listenersResponse.listeners()) {
-                    if (listenerRecord.port() == 443) {
-                        listener = listenerRecord;
-                        break;
-                    }
+            // Bulk enable and disable send many tenants in one event
+            Map<String, Boolean> statuses = new LinkedHashMap<>();
+            if (detail.containsKey("tenants")) {
+                for (Map<String, Object> tenant : (List<Map<String, Object>>) detail.get("tenants")) {
+                    statuses.put((String) tenant.get("tenantId"), (Boolean) tenant.get("status"));
                 }
+            } else {
+                statuses.put((String) detail.get("tenantId"), (Boolean) detail.get("status"));
             }
-            LOGGER.info("Updating load balancer listener {}", listener.toString());
+            LOGGER.info("Processing Tenant Update of {} Tenants: {}", statuses.size(), statuses);
 
-            Listener finalListener = listener;
-            DescribeRulesResponse rulesResponse = elb.describeRules(request -> request.listenerArn(finalListener.listenerArn()));
-            Action action = null;
-            if (!enable) {
-                // Disabled tenant. Set to fixed response with HTML.
-                action = Action.builder()
-                        .fixedResponseConfig(FixedResponseActionConfig.builder()
-                                .messageBody("<html><body>Access to your application is disabled. Contact our support if you have questions.</body></html>")
-                                .contentType("text/html")
-                                .statusCode("200")
-                                .build())
-                        .type(ActionTypeEnum.FIXED_RESPONSE)
-                        .build();
-            } else {
-                // Enabled tenant. Set the target group ARN as the forward action
-                DescribeTargetGroupsResponse targetGroupsResponse = elb.describeTargetGroups(request -> request
-                        .names(albNames) // target group names same as ALB names in format of tenant-shortid
-                );
-                TargetGroup targetGroup = targetGroupsResponse.targetGroups().get(0);
-                TargetGroupTuple tgTuple = TargetGroupTuple.builder()
-                        .targetGroupArn(targetGroup.targetGroupArn())
-                        .weight(1)
-                        .build();
-                action = Action.builder()
-                        .forwardConfig(ForwardActionConfig.builder()
-                                .targetGroups(tgTuple)
-                                .build())
-                        .type(ActionTypeEnum.FORWARD)
-                        .build();
+            Map<String, String> failed = setListenerRules(statuses);
+            LOGGER.info("AlbSetListenerRule::handleRequest exec " + (System.currentTimeMillis() - startTimeMillis));
+            if (!failed.isEmpty()) {
+                // Don't fail the event. A retry would replay these statuses for every tenant in the batch
+                // and could undo a newer enable or disable made in the meantime.
+                LOGGER.error("Error updating listener rules for {} of {} tenants {}", failed.size(),
+                        statuses.size(), failed);
             }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("tenants", statuses.size());
+            result.put("failed", failed);
+            return result;
+        }
 
-            for (Rule rule : rulesResponse.rules()) {
-                if (!rule.isDefault()) {
-                    LOGGER.info("Updating listener rule {}", rule.toString());
-                    RuleCondition condition = RuleCondition.builder()
-                            .field("path-pattern")
-                            .values("*")
-                            .build();
-                    elb.modifyRule(ModifyRuleRequest.builder()
-                            .ruleArn(rule.ruleArn())
-                            .conditions(condition)
-                            .actions(action)
-                            .build()
-                    );
+        return null;
+    }
+
+    /**
+     * Points the listener rules of each tenant's ALB at either its target group or the disabled page.
+     * Returns the tenants that couldn't be updated along with why.
+     */
+    protected Map<String, String> setListenerRules(Map<String, Boolean> statuses) {
+        Map<String, String> failed = new ConcurrentHashMap<>();
+        Map<String, String> albNames = new LinkedHashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String tenantId : statuses.keySet()) {
+            if (!tenantAlbNames.containsKey(tenantId)) {
+                unknown.add(tenantId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            List<List<String>> batches = ParallelExecutor.partition(unknown, SETTINGS_BATCH_SIZE);
+            ParallelExecutor.map(batches, SETTINGS_MAX_CONCURRENCY, batch -> {
+                try {
+                    tenantAlbNames.putAll(getAlbNames(batch));
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error loading the load balancers of {} tenants", batch.size());
                 }
+                return batch;
+            });
+        }
+        for (String tenantId : statuses.keySet()) {
+            String albName = tenantAlbNames.get(tenantId);
+            if (albName != null) {
+                albNames.put(tenantId, albName);
+            } else {
+                failed.put(tenantId, "Can't find the tenant load balancer");
             }
         }
 
-        return null;
+        Map<String, AlbTopology.TenantAlb> albs = topology.get(albNames.values());
+        List<String> updates = new ArrayList<>(albNames.keySet());
+        ParallelExecutor.map(updates, MAX_CONCURRENCY, tenantId -> {
+            String albName = albNames.get(tenantId);
+            try {
+                AlbTopology.TenantAlb alb = albs.get(albName);
+                try {
+                    modifyRules(alb, statuses.get(tenantId));
+                } catch (RuleNotFoundException | ListenerNotFoundException | TargetGroupNotFoundException stale) {
+                    // The cached rules are out of date so reload just this tenant and try again
+                    LOGGER.warn("Reloading topology for load balancer {} {}", albName, stale.getMessage());
+                    topology.evict(albName);
+                    alb = topology.get(Collections.singletonList(albName)).get(albName);
+                    modifyRules(alb, statuses.get(tenantId));
+                }
+            } catch (SdkServiceException | IllegalStateException e) {
+                LOGGER.error("Error updating listener rules for tenant {}", tenantId);
+                LOGGER.error(Utils.getFullStackTrace(e));
+                failed.put(tenantId, String.valueOf(e.getMessage()));
+            }
+            return tenantId;
+        });
+        return failed;
     }
 
-    private String getAlbId(String tenantId) {
-        // Invoke SaaS Boost private API to get Tenant ALB id
-        String albId = null;
-        final String resource = "settings/tenant/" + tenantId + "/ALB";
+    private void modifyRules(AlbTopology.TenantAlb alb, Boolean enable) {
+        if (alb == null) {
+            throw new IllegalStateException("Load balancer not found");
+        }
+        if (alb.getRuleArns().isEmpty()) {
+            // Still being provisioned, so report the tenant as failed
+            throw new IllegalStateException("Listener rules not found for " + alb.getAlbName());
+        }
+        LOGGER.info("Updating tenant load balancer {}", alb);
+        Action action;
+        if (!enable) {
+            // Disabled tenant. Set to fixed response with HTML.
+            action = DISABLED_ACTION;
+        } else {
+            // Enabled tenant. Set the target group ARN as the forward action
+            if (alb.getTargetGroupArn() == null) {
+                throw new IllegalStateException("Target group not found for " + alb.getAlbName());
+            }
+            TargetGroupTuple tgTuple = TargetGroupTuple.builder()
+                    .targetGroupArn(alb.getTargetGroupArn())
+                    .weight(1)
+                    .build();
+            action = Action.builder()
+                    .forwardConfig(ForwardActionConfig.builder()
+                            .targetGroups(tgTuple)
+                            .build())
+                    .type(ActionTypeEnum.FORWARD)
+                    .build();
+        }
+        for (String ruleArn : alb.getRuleArns()) {
+            LOGGER.info("Updating listener rule {}", ruleArn);
+            ParallelExecutor.withThrottlingRetry(() -> elb.modifyRule(ModifyRuleRequest.builder()
+                    .ruleArn(ruleArn)
+                    .conditions(PATH_PATTERN_ALL)
+                    .actions(action)
+                    .build()
+            ));
+        }
+    }
+
+    /**
+     * Looks up the load balancer name of each tenant in one call to the bulk tenant settings API.
+     * Tenants that don't have a load balancer yet are left out.
+     */
+    protected Map<String, String> getAlbNames(List<String> tenantIds) {
+        StringBuilder resource = new StringBuilder("settings/tenant?setting=ALB");
+        for (String tenantId : tenantIds) {
+            resource.append("&id=").append(tenantId);
+        }
+        Map<String, String> albNames = new HashMap<>();
         try {
             ApiRequest request = ApiRequest.builder()
-                    .resource(resource)
+                    .resource(resource.toString())
                     .method("GET")
                     .build();
             SdkHttpFullRequest apiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST, API_GATEWAY_STAGE, request);
             String responseBody = ApiGatewayHelper.signAndExecuteApiRequest(apiRequest, API_TRUST_ROLE, "AlbUpdate");
-            Map<String, String> getSettingResponse = Utils.fromJson(responseBody, HashMap.class);
-            if (null == getSettingResponse) {
+            Map<String, List<Map<String, String>>> settingsByTenant = Utils.fromJson(responseBody, HashMap.class);
+            if (null == settingsByTenant) {
                 throw new RuntimeException("responseBody is invalid");
             }
-            albId = getSettingResponse.get("value");
+            for (Map.Entry<String, List<Map<String, String>>> tenant : settingsByTenant.entrySet()) {
+                for (Map<String, String> setting : tenant.getValue()) {
+                    if ("ALB".equals(setting.get("name")) && Utils.isNotBlank(setting.get("value"))) {
+                        albNames.put(tenant.getKey(), albName(setting.get("value")));
+                    }
+                }
+            }
         } catch (Exception e) {
-            LOGGER.error("getAlbId: Can't invoke API for {}", resource);
+            LOGGER.error("getAlbNames: Can't invoke API for {} tenants", tenantIds.size());
             LOGGER.error(Utils.getFullStackTrace(e));
             throw new RuntimeException(e);
         }
-        return albId;
+        return albNames;
+    }
+
+    // ALB id will look like app/tenant-ae928191/2531796b463f0de7
+    // so index 1 from the split will have the ALB name
+    static String albName(String albId) {
+        return albId.split("/")[1];
     }
-}
\ No newline at end of file
+}
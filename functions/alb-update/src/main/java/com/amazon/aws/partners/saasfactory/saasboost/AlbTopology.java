@@ -0,0 +1,222 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.elasticloadbalancingv2.ElasticLoadBalancingV2Client;
+import software.amazon.awssdk.services.elasticloadbalancingv2.model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached view of the tenant load balancers: for each ALB the listener we route through, its
+ * non-default rules and the tenant's target group. Tenant load balancers don't change once they're
+ * provisioned so the snapshot is kept across invocations of a warm container. Entries are loaded for
+ * many tenants at once, and a single tenant can be evicted and reloaded when its rules have changed.
+ * A load balancer caught before its listener rules or target group were created is loaded again
+ * the next time it's asked for.
+ */
+public class AlbTopology {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AlbTopology.class);
+    // DescribeLoadBalancers and DescribeTargetGroups take at most 20 names per call
+    static final int DESCRIBE_BATCH_SIZE = 20;
+    static final int MAX_CONCURRENCY = 5;
+    static final long TTL_MILLIS = 15 * 60 * 1000L;
+    private final ElasticLoadBalancingV2Client elb;
+    private final Map<String, TenantAlb> cache = new ConcurrentHashMap<>();
+
+    public AlbTopology(ElasticLoadBalancingV2Client elb) {
+        this.elb = elb;
+    }
+
+    /**
+     * Returns the topology of each named ALB, describing only the ones that aren't cached. ALBs that
+     * can't be found are left out of the result.
+     */
+    public Map<String, TenantAlb> get(Collection<String> albNames) {
+        Map<String, TenantAlb> topology = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String albName : new LinkedHashSet<>(albNames)) {
+            TenantAlb cached = cache.get(albName);
+            if (cached != null && now - cached.loaded < TTL_MILLIS && cached.isComplete()) {
+                topology.put(albName, cached);
+            } else {
+                missing.add(albName);
+            }
+        }
+        if (!missing.isEmpty()) {
+            LOGGER.info("Loading topology for {} of {} load balancers", missing.size(),
+                    topology.size() + missing.size());
+            for (TenantAlb loaded : load(missing)) {
+                cache.put(loaded.albName, loaded);
+                topology.put(loaded.albName, loaded);
+            }
+        }
+        return topology;
+    }
+
+    public void evict(String albName) {
+        cache.remove(albName);
+    }
+
+    private List<TenantAlb> load(List<String> albNames) {
+        // Target group names are the same as the ALB names in the format of tenant-shortid
+        Map<String, String> loadBalancers = new HashMap<>();
+        Map<String, String> targetGroups = new HashMap<>();
+        for (List<String> batch : ParallelExecutor.partition(albNames, DESCRIBE_BATCH_SIZE)) {
+            for (LoadBalancer loadBalancer : describeLoadBalancers(batch)) {
+                loadBalancers.put(loadBalancer.loadBalancerName(), loadBalancer.loadBalancerArn());
+            }
+            for (TargetGroup targetGroup : describeTargetGroups(batch)) {
+                targetGroups.put(targetGroup.targetGroupName(), targetGroup.targetGroupArn());
+            }
+        }
+
+        List<String> found = new ArrayList<>(loadBalancers.keySet());
+        List<TenantAlb> loaded = ParallelExecutor.map(found, MAX_CONCURRENCY, albName -> {
+            try {
+                return ParallelExecutor.withThrottlingRetry(() -> describeTenantAlb(albName,
+                        loadBalancers.get(albName), targetGroups.get(albName)));
+            } catch (SdkServiceException elbError) {
+                // Leave this tenant out rather than failing everyone else in the batch
+                LOGGER.error("Error loading topology for load balancer {}", albName);
+                LOGGER.error(Utils.getFullStackTrace(elbError));
+                return null;
+            }
+        });
+        loaded.removeIf(Objects::isNull);
+        return loaded;
+    }
+
+    private TenantAlb describeTenantAlb(String albName, String loadBalancerArn, String targetGroupArn) {
+        List<Listener> listeners = elb.describeListeners(request -> request
+                .loadBalancerArn(loadBalancerArn)
+        ).listeners();
+        if (listeners.isEmpty()) {
+            LOGGER.warn("Load balancer {} has no listeners", albName);
+            return null;
+        }
+        Listener listener = listeners.get(0);
+        //In case SSL then we have more than 1 listener and want to pick the SSL listener.
+        if (listeners.size() > 1) {
+            for (Listener listenerRecord : listeners) {
+                if (listenerRecord.port() == 443) {
+                    listener = listenerRecord;
+                    break;
+                }
+            }
+        }
+        String listenerArn = listener.listenerArn();
+        List<String> ruleArns = new ArrayList<>();
+        for (Rule rule : elb.describeRules(request -> request.listenerArn(listenerArn)).rules()) {
+            if (!rule.isDefault()) {
+                ruleArns.add(rule.ruleArn());
+            }
+        }
+        return new TenantAlb(albName, loadBalancerArn, listenerArn, ruleArns, targetGroupArn);
+    }
+
+    private List<LoadBalancer> describeLoadBalancers(List<String> albNames) {
+        try {
+            return ParallelExecutor.withThrottlingRetry(() -> elb.describeLoadBalancers(request -> request
+                    .names(albNames)
+            ).loadBalancers());
+        } catch (LoadBalancerNotFoundException notFound) {
+            // One missing name fails the whole batch so fall back to asking for each of them
+            if (albNames.size() == 1) {
+                LOGGER.warn("Load balancer {} not found", albNames.get(0));
+                return Collections.emptyList();
+            }
+            List<LoadBalancer> loadBalancers = new ArrayList<>();
+            for (String albName : albNames) {
+                loadBalancers.addAll(describeLoadBalancers(Collections.singletonList(albName)));
+            }
+            return loadBalancers;
+        }
+    }
+
+    private List<TargetGroup> describeTargetGroups(List<String> names) {
+        try {
+            return ParallelExecutor.withThrottlingRetry(() -> elb.describeTargetGroups(request -> request
+                    .names(names)
+            ).targetGroups());
+        } catch (TargetGroupNotFoundException notFound) {
+            if (names.size() == 1) {
+                LOGGER.warn("Target group {} not found", names.get(0));
+                return Collections.emptyList();
+            }
+            List<TargetGroup> targetGroups = new ArrayList<>();
+            for (String name : names) {
+                targetGroups.addAll(describeTargetGroups(Collections.singletonList(name)));
+            }
+            return targetGroups;
+        }
+    }
+
+    public static final class TenantAlb {
+        private final String albName;
+        private final String loadBalancerArn;
+        private final String listenerArn;
+        private final List<String> ruleArns;
+        private final String targetGroupArn;
+        private final long loaded = System.currentTimeMillis();
+
+        TenantAlb(String albName, String loadBalancerArn, String listenerArn, List<String> ruleArns,
+                  String targetGroupArn) {
+            this.albName = albName;
+            this.loadBalancerArn = loadBalancerArn;
+            this.listenerArn = listenerArn;
+            this.ruleArns = Collections.unmodifiableList(ruleArns);
+            this.targetGroupArn = targetGroupArn;
+        }
+
+        public String getAlbName() {
+            return albName;
+        }
+
+        public String getLoadBalancerArn() {
+            return loadBalancerArn;
+        }
+
+        public String getListenerArn() {
+            return listenerArn;
+        }
+
+        public List<String> getRuleArns() {
+            return ruleArns;
+        }
+
+        // Null if the tenant's target group couldn't be found
+        public String getTargetGroupArn() {
+            return targetGroupArn;
+        }
+
+        // Without rules or a target group there's nothing to point at the tenant yet
+        boolean isComplete() {
+            return !ruleArns.isEmpty() && targetGroupArn != null;
+        }
+
+        @Override
+        public String toString() {
+            return Utils.toJson(this);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.elasticloadbalancingv2.model.ActionTypeEnum;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AlbSetListenerRuleTest {
+
+    // Looks up each tenant's load balancer by naming convention instead of through the settings API.
+    // Tenant 3 never got a load balancer.
+    private static AlbSetListenerRule handler(AlbTopologyTest.FakeElb elb, List<List<String>> lookups) {
+        return new AlbSetListenerRule(elb) {
+            @Override
+            protected Map<String, String> getAlbNames(List<String> tenantIds) {
+                lookups.add(tenantIds);
+                Map<String, String> albNames = new HashMap<>();
+                for (String tenantId : tenantIds) {
+                    if (!"3".equals(tenantId)) {
+                        albNames.put(tenantId, albName("app/tenant-" + tenantId + "/2531796b463f0de7"));
+                    }
+                }
+                return albNames;
+            }
+        };
+    }
+
+    private static AlbSetListenerRule handler(AlbTopologyTest.FakeElb elb) {
+        return handler(elb, Collections.synchronizedList(new ArrayList<>()));
+    }
+
+    private static Map<String, Object> event(Map<String, Boolean> statuses) {
+        List<Map<String, Object>> tenants = new ArrayList<>();
+        for (Map.Entry<String, Boolean> status : statuses.entrySet()) {
+            Map<String, Object> tenant = new HashMap<>();
+            tenant.put("tenantId", status.getKey());
+            tenant.put("status", status.getValue());
+            tenants.add(tenant);
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("source", "saas-boost");
+        event.put("detail", Collections.singletonMap("tenants", tenants));
+        return event;
+    }
+
+    @Test
+    public void testBulkTenants() {
+        AlbTopologyTest.FakeElb elb = new AlbTopologyTest.FakeElb();
+        Map<String, Boolean> statuses = new LinkedHashMap<>();
+        for (int i = 0; i < 120; i++) {
+            if (i != 3) {
+                elb.alb("tenant-" + i, 2);
+            }
+            statuses.put(String.valueOf(i), i % 2 == 0);
+        }
+        List<List<String>> lookups = Collections.synchronizedList(new ArrayList<>());
+        AlbSetListenerRule handler = handler(elb, lookups);
+        Map<String, Object> result = (Map<String, Object>) handler.handleRequest(event(statuses), null);
+
+        // Load balancer names are looked up 50 tenants at a time
+        assertEquals(3, lookups.size());
+        assertEquals(Collections.singleton("3"), ((Map<String, String>) result.get("failed")).keySet());
+        assertEquals(238, elb.modified.size());
+
+        String enabled = elb.albs.get("tenant-4").get(1);
+        String disabled = elb.albs.get("tenant-5").get(0);
+        assertTrue(elb.modified.contains(enabled + " " + ActionTypeEnum.FORWARD));
+        assertTrue(elb.modified.contains(disabled + " " + ActionTypeEnum.FIXED_RESPONSE));
+        // All 119 load balancers described in batches of 20
+        assertEquals(6, elb.describeLoadBalancers.get());
+
+        // Names are kept while the container is warm, only the missing one is looked up again
+        handler.handleRequest(event(statuses), null);
+        assertEquals(4, lookups.size());
+        assertEquals(Collections.singletonList("3"), lookups.get(3));
+    }
+
+    @Test
+    public void testStaleRulesReloaded() {
+        AlbTopologyTest.FakeElb elb = new AlbTopologyTest.FakeElb();
+        elb.alb("tenant-1", 1);
+        elb.alb("tenant-2", 1);
+        AlbSetListenerRule handler = handler(elb);
+        Map<String, Boolean> statuses = new LinkedHashMap<>();
+        statuses.put("1", false);
+        statuses.put("2", false);
+        assertTrue(handler.setListenerRules(statuses).isEmpty());
+
+        // tenant-2's rule is replaced after it was cached
+        elb.alb("tenant-2", 1);
+        statuses.put("2", true);
+        assertTrue(handler.setListenerRules(statuses).isEmpty());
+        assertTrue(elb.modified.contains(elb.albs.get("tenant-2").get(0) + " " + ActionTypeEnum.FORWARD));
+    }
+
+    @Test
+    public void testFailedTenantsReported() {
+        AlbTopologyTest.FakeElb elb = new AlbTopologyTest.FakeElb();
+        elb.alb("tenant-1", 1);
+        // Not provisioned far enough to have a listener rule
+        elb.alb("tenant-2", 0);
+        Map<String, Boolean> statuses = new LinkedHashMap<>();
+        statuses.put("1", true);
+        statuses.put("2", true);
+        statuses.put("3", true);
+        Map<String, String> failed = handler(elb).setListenerRules(statuses);
+        assertEquals(new HashSet<>(Arrays.asList("2", "3")), failed.keySet());
+        assertEquals(1, elb.modified.size());
+
+        // The tenants that couldn't be updated are reported instead of failing the whole event, which
+        // would replay every tenant's status when it's retried
+        Map<String, Object> result = (Map<String, Object>) handler(elb).handleRequest(event(statuses), null);
+        assertEquals(3, result.get("tenants"));
+        assertEquals(failed.keySet(), ((Map<String, String>) result.get("failed")).keySet());
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.elasticloadbalancingv2.ElasticLoadBalancingV2Client;
+import software.amazon.awssdk.services.elasticloadbalancingv2.model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AlbTopologyTest {
+
+    @Test
+    public void testGetCaches() {
+        FakeElb elb = new FakeElb();
+        for (int i = 0; i < 25; i++) {
+            elb.alb("tenant-" + i, 2);
+        }
+        AlbTopology topology = new AlbTopology(elb);
+        List<String> names = new ArrayList<>(elb.albs.keySet());
+        Map<String, AlbTopology.TenantAlb> albs = topology.get(names);
+        assertEquals(25, albs.size());
+        assertEquals(2, albs.get("tenant-3").getRuleArns().size());
+        assertEquals("arn:tg/tenant-3", albs.get("tenant-3").getTargetGroupArn());
+        // Names are described in batches
+        assertEquals(2, elb.describeLoadBalancers.get());
+
+        topology.get(names);
+        assertEquals(2, elb.describeLoadBalancers.get());
+        assertEquals(25, elb.describeRules.get());
+    }
+
+    @Test
+    public void testMissingLoadBalancerLeftOut() {
+        FakeElb elb = new FakeElb();
+        elb.alb("tenant-1", 1);
+        elb.alb("tenant-2", 1);
+        Map<String, AlbTopology.TenantAlb> albs = new AlbTopology(elb)
+                .get(Arrays.asList("tenant-1", "tenant-2", "tenant-gone"));
+        assertEquals(new HashSet<>(Arrays.asList("tenant-1", "tenant-2")), albs.keySet());
+    }
+
+    @Test
+    public void testEvictReloads() {
+        FakeElb elb = new FakeElb();
+        elb.alb("tenant-1", 1);
+        AlbTopology topology = new AlbTopology(elb);
+        String rule = topology.get(Collections.singletonList("tenant-1")).get("tenant-1").getRuleArns().get(0);
+
+        elb.alb("tenant-1", 1);
+        assertEquals(rule, topology.get(Collections.singletonList("tenant-1")).get("tenant-1").getRuleArns().get(0));
+        topology.evict("tenant-1");
+        assertNotEquals(rule, topology.get(Collections.singletonList("tenant-1")).get("tenant-1").getRuleArns()
+                .get(0));
+    }
+
+    @Test
+    public void testIncompleteReloaded() {
+        FakeElb elb = new FakeElb();
+        // The tenant stack hasn't created the listener rule yet
+        elb.alb("tenant-1", 0);
+        AlbTopology topology = new AlbTopology(elb);
+        assertTrue(topology.get(Collections.singletonList("tenant-1")).get("tenant-1").getRuleArns().isEmpty());
+
+        elb.alb("tenant-1", 1);
+        assertEquals(1, topology.get(Collections.singletonList("tenant-1")).get("tenant-1").getRuleArns().size());
+        assertEquals(2, elb.describeRules.get());
+        // Complete entries come from the cache
+        topology.get(Collections.singletonList("tenant-1"));
+        assertEquals(2, elb.describeRules.get());
+    }
+
+    // Tenant load balancers by name, each with one listener and a target group of the same name
+    static class FakeElb implements ElasticLoadBalancingV2Client {
+        final Map<String, List<String>> albs = new ConcurrentHashMap<>();
+        final Set<String> modified = ConcurrentHashMap.newKeySet();
+        final AtomicInteger describeLoadBalancers = new AtomicInteger();
+        final AtomicInteger describeRules = new AtomicInteger();
+        final AtomicInteger ruleIds = new AtomicInteger();
+
+        // Replaces the tenant's listener rules with new ones
+        void alb(String name, int rules) {
+            List<String> ruleArns = new ArrayList<>();
+            for (int i = 0; i < rules; i++) {
+                ruleArns.add("arn:rule/" + name + "/" + ruleIds.incrementAndGet());
+            }
+            albs.put(name, ruleArns);
+        }
+
+        @Override
+        public DescribeLoadBalancersResponse describeLoadBalancers(DescribeLoadBalancersRequest request) {
+            describeLoadBalancers.incrementAndGet();
+            assertTrue(request.names().size() <= AlbTopology.DESCRIBE_BATCH_SIZE);
+            List<LoadBalancer> loadBalancers = new ArrayList<>();
+            for (String name : request.names()) {
+                if (!albs.containsKey(name)) {
+                    throw LoadBalancerNotFoundException.builder().message("One or more not found").build();
+                }
+                loadBalancers.add(LoadBalancer.builder().loadBalancerName(name).loadBalancerArn("arn:lb/" + name)
+                        .build());
+            }
+            return DescribeLoadBalancersResponse.builder().loadBalancers(loadBalancers).build();
+        }
+
+        @Override
+        public DescribeTargetGroupsResponse describeTargetGroups(DescribeTargetGroupsRequest request) {
+            List<TargetGroup> targetGroups = new ArrayList<>();
+            for (String name : request.names()) {
+                if (!albs.containsKey(name)) {
+                    throw TargetGroupNotFoundException.builder().message("One or more not found").build();
+                }
+                targetGroups.add(TargetGroup.builder().targetGroupName(name).targetGroupArn("arn:tg/" + name)
+                        .build());
+            }
+            return DescribeTargetGroupsResponse.builder().targetGroups(targetGroups).build();
+        }
+
+        @Override
+        public DescribeListenersResponse describeListeners(DescribeListenersRequest request) {
+            String name = request.loadBalancerArn().substring("arn:lb/".length());
+            return DescribeListenersResponse.builder()
+                    .listeners(Listener.builder().listenerArn("arn:listener/" + name).port(80).build())
+                    .build();
+        }
+
+        @Override
+        public DescribeRulesResponse describeRules(DescribeRulesRequest request) {
+            describeRules.incrementAndGet();
+            String name = request.listenerArn().substring("arn:listener/".length());
+            List<Rule> rules = new ArrayList<>();
+            rules.add(Rule.builder().ruleArn("arn:rule/" + name + "/default").isDefault(true).build());
+            for (String ruleArn : albs.get(name)) {
+                rules.add(Rule.builder().ruleArn(ruleArn).isDefault(false).build());
+            }
+            return DescribeRulesResponse.builder().rules(rules).build();
+        }
+
+        @Override
+        public ModifyRuleResponse modifyRule(ModifyRuleRequest request) {
+            String name = request.ruleArn().split("/")[1];
+            if (!albs.getOrDefault(name, Collections.emptyList()).contains(request.ruleArn())) {
+                throw RuleNotFoundException.builder().message("Rule not found").build();
+            }
+            modified.add(request.ruleArn() + " " + request.actions().get(0).type());
+            return ModifyRuleResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return ElasticLoadBalancingV2Client.SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
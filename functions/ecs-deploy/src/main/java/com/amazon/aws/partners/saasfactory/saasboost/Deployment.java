@@ -0,0 +1,57 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class Deployment {
+
+    private final String tenantId;
+    private final String imageUri;
+    private final String pipeline;
+
+    public Deployment(String tenantId, String imageUri, String pipeline) {
+        this.tenantId = tenantId;
+        this.imageUri = imageUri;
+        this.pipeline = pipeline;
+    }
+
+    public static Deployment fromMap(Map<String, Object> deployment) {
+        return new Deployment((String) deployment.get("tenantId"), (String) deployment.get("imageUri"),
+                (String) deployment.get("pipeline"));
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> deployment = new LinkedHashMap<>();
+        deployment.put("tenantId", tenantId);
+        deployment.put("imageUri", imageUri);
+        deployment.put("pipeline", pipeline);
+        return deployment;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getImageUri() {
+        return imageUri;
+    }
+
+    public String getPipeline() {
+        return pipeline;
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Rolls a deployment out to the tenant fleet a wave at a time. The tenants in a wave are deployed
+ * concurrently, throttled requests are retried, and a tenant that fails doesn't stop the rest of
+ * its wave. The rollout stops early when a whole wave fails, since the next wave would most likely
+ * fail the same way, or when there isn't enough time left to finish another wave. Either way the
+ * deployments that weren't attempted are returned so the rollout can be resumed from there.
+ */
+public class DeploymentWaves {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeploymentWaves.class);
+    // Time kept back for reporting and handing off the rest of the rollout
+    static final long RESERVE_MILLIS = 30 * 1000L;
+    private final int waveSize;
+    private final int maxConcurrency;
+    private final Consumer<Deployment> deploy;
+
+    public DeploymentWaves(int waveSize, int maxConcurrency, Consumer<Deployment> deploy) {
+        if (waveSize < 1 || maxConcurrency < 1) {
+            throw new IllegalArgumentException("Wave size and concurrency must be greater than 0");
+        }
+        this.waveSize = waveSize;
+        this.maxConcurrency = maxConcurrency;
+        this.deploy = deploy;
+    }
+
+    /**
+     * Deploys the waves in order. The wave numbers start at firstWave so a resumed rollout keeps
+     * numbering where the last one stopped.
+     */
+    public Rollout run(List<Deployment> deployments, int firstWave, LongSupplier remainingMillis) {
+        Rollout rollout = new Rollout();
+        List<List<Deployment>> waves = ParallelExecutor.partition(deployments, waveSize);
+        long slowestWaveMillis = 0L;
+        int wave = 0;
+        for (; wave < waves.size(); wave++) {
+            if (wave > 0 && remainingMillis.getAsLong() < RESERVE_MILLIS + slowestWaveMillis) {
+                LOGGER.warn("Not enough time left for wave {}, stopping the rollout", firstWave + wave);
+                break;
+            }
+            WaveReport report = deployWave(firstWave + wave, waves.get(wave));
+            rollout.waves.add(report);
+            slowestWaveMillis = Math.max(slowestWaveMillis, report.millis);
+            LOGGER.info(Utils.toJson(report));
+            if (report.succeeded == 0) {
+                LOGGER.error("Every deployment in wave {} failed, stopping the rollout", report.wave);
+                rollout.halted = true;
+                wave++;
+                break;
+            }
+        }
+        for (; wave < waves.size(); wave++) {
+            rollout.remaining.addAll(waves.get(wave));
+        }
+        rollout.nextWave = firstWave + rollout.waves.size();
+        return rollout;
+    }
+
+    private WaveReport deployWave(int waveNumber, List<Deployment> wave) {
+        long startTimeMillis = System.currentTimeMillis();
+        List<String> errors = ParallelExecutor.map(wave, maxConcurrency, deployment -> {
+            try {
+                ParallelExecutor.withThrottlingRetry(() -> {
+                    deploy.accept(deployment);
+                    return null;
+                });
+                return null;
+            } catch (RuntimeException e) {
+                LOGGER.error("Deployment failed for tenant {}", deployment.getTenantId());
+                LOGGER.error(Utils.getFullStackTrace(e));
+                return String.valueOf(e.getMessage());
+            }
+        });
+        WaveReport report = new WaveReport(waveNumber, wave.size());
+        for (int i = 0; i < wave.size(); i++) {
+            if (errors.get(i) != null) {
+                report.failed.put(wave.get(i).getTenantId(), errors.get(i));
+            }
+        }
+        report.succeeded = wave.size() - report.failed.size();
+        report.millis = System.currentTimeMillis() - startTimeMillis;
+        return report;
+    }
+
+    public static class Rollout {
+        private final List<WaveReport> waves = new ArrayList<>();
+        private final List<Deployment> remaining = new ArrayList<>();
+        private int nextWave;
+        private boolean halted;
+
+        public List<WaveReport> getWaves() {
+            return waves;
+        }
+
+        // Deployments that weren't attempted
+        public List<Deployment> getRemaining() {
+            return remaining;
+        }
+
+        public int getNextWave() {
+            return nextWave;
+        }
+
+        public boolean isHalted() {
+            return halted;
+        }
+
+        public Map<String, String> getFailed() {
+            Map<String, String> failed = new LinkedHashMap<>();
+            waves.forEach(wave -> failed.putAll(wave.failed));
+            return failed;
+        }
+    }
+
+    public static class WaveReport {
+        private final int wave;
+        private final int tenants;
+        private int succeeded;
+        private final Map<String, String> failed = new LinkedHashMap<>();
+        private long millis;
+
+        WaveReport(int wave, int tenants) {
+            this.wave = wave;
+            this.tenants = tenants;
+        }
+
+        public int getWave() {
+            return wave;
+        }
+
+        public int getTenants() {
+            return tenants;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        // Error message by tenant id
+        public Map<String, String> getFailed() {
+            return failed;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
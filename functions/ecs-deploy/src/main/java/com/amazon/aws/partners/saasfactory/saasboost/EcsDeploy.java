@@ -19,6 +19,7 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.http.SdkHttpFullRequest;
@@ -26,15 +27,15 @@ import software.amazon.awssdk.services.codepipeline.CodePipelineClient;
 import software.amazon.awssdk.services.codepipeline.model.StartPipelineExecutionResponse;
 import software.amazon.awssdk.services.ecr.EcrClient;
 import software.amazon.awssdk.services.ecr.model.ListImagesResponse;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.InvocationType;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
 
@@ -44,10 +45,18 @@ public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
     private final static String API_GATEWAY_HOST = System.getenv("API_GATEWAY_HOST");
     private final static String API_GATEWAY_STAGE = System.getenv("API_GATEWAY_STAGE");
     private final static String API_TRUST_ROLE = System.getenv("API_TRUST_ROLE");
+    private final static String DEPLOY_WAVE_SIZE = System.getenv("DEPLOY_WAVE_SIZE");
+    private final static String DEPLOY_MAX_CONCURRENCY = System.getenv("DEPLOY_MAX_CONCURRENCY");
+    // Event source we use to hand the rest of a rollout to a fresh invocation
+    static final String CHECKPOINT_SOURCE = "saas-boost-deployment-checkpoint";
+    private static final int MAX_CACHED_ARTIFACTS = 16;
     private S3Client s3;
     private CodePipelineClient codepipeline;
     private EcrClient ecr;
+    private LambdaClient lambda;
+    private final Map<String, ImageDefinitionsArtifact> artifacts = new ConcurrentHashMap<>();
     private String codePipelineBucket;
+    private RolloutCheckpoints checkpoints;
 
     public EcsDeploy() {
         long startTimeMillis = System.currentTimeMillis();
@@ -70,6 +79,7 @@ public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
         this.s3 = Utils.sdkClient(S3Client.builder(), S3Client.SERVICE_NAME);
         this.codepipeline = Utils.sdkClient(CodePipelineClient.builder(), CodePipelineClient.SERVICE_NAME);
         this.ecr = Utils.sdkClient(EcrClient.builder(), EcrClient.SERVICE_NAME);
+        this.lambda = Utils.sdkClient(LambdaClient.builder(), LambdaClient.SERVICE_NAME);
 
         // Get the CodePipeline artifact bucket
         Map<String, String> settings = null;
@@ -100,6 +110,7 @@ public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
         if (Utils.isBlank(codePipelineBucket)) {
             throw new RuntimeException("Missing required SaaS Boost parameter CODE_PIPELINE_BUCKET");
         }
+        checkpoints = new RolloutCheckpoints(s3, codePipelineBucket);
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
 
@@ -111,7 +122,15 @@ public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
         String source = (String) event.get("source");
 
         List<Deployment> deployments = new ArrayList<>();
-        if ("aws.ecr".equals(source)) {
+        int firstWave = 1;
+        Map<String, Object> resumedCheckpoint = null;
+        if (CHECKPOINT_SOURCE.equals(source)) {
+            // Pick up a rollout where an earlier invocation left off
+            resumedCheckpoint = (Map<String, Object>) event.get("detail");
+            firstWave = ((Number) resumedCheckpoint.get("wave")).intValue();
+            deployments.addAll(checkpoints.load(resumedCheckpoint));
+            LOGGER.info("Resuming rollout at wave {} with {} tenants left", firstWave, deployments.size());
+        } else if ("aws.ecr".equals(source)) {
             String imageUri = parseEcrEvent(event);
             // We will deploy the image tagged as latest to every provisioned tenant
             if (imageUri != null && imageUri.endsWith("latest")) {
@@ -179,17 +198,26 @@ public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
 
         if (!deployments.isEmpty()) {
             LOGGER.info("Deploying for " + deployments.size() + " tenants");
-            for (Deployment deployment : deployments) {
-                String tenantId = deployment.getTenantId();
-
-                // Create an imagedefinitions.json document for the newly pushed image
-                byte[] zip = codePipelineArtifact(tenantId, deployment.getImageUri());
-
-                // Write the imagedefinitions.json document to the artifact bucket
-                writeToArtifactBucket(tenantId, zip);
+            DeploymentWaves waves = new DeploymentWaves(
+                    intSetting(DEPLOY_WAVE_SIZE, 20), intSetting(DEPLOY_MAX_CONCURRENCY, 5), this::deploy);
+            DeploymentWaves.Rollout rollout = waves.run(deployments, firstWave, context::getRemainingTimeInMillis);
+            if (!rollout.getRemaining().isEmpty() && !rollout.isHalted()) {
+                checkpoint(rollout, context);
+            }
+            if (resumedCheckpoint != null) {
+                checkpoints.delete(resumedCheckpoint);
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("message", "Tenant Deploy Rollout");
+            summary.put("waves", rollout.getWaves().size());
+            summary.put("failed", rollout.getFailed());
+            summary.put("remaining", rollout.getRemaining().size());
+            summary.put("halted", rollout.isHalted());
+            LOGGER.info(Utils.toJson(summary));
 
-                // Trigger CodePipeline for this tenant
-                triggerPipeline(tenantId, deployment.getPipeline());
+            // A single tenant deployment fails the invocation like it always has so Lambda retries it
+            if (deployments.size() == 1 && !rollout.getFailed().isEmpty()) {
+                throw new RuntimeException("Deployment failed for tenant " + deployments.get(0).getTenantId());
             }
         } else {
             LOGGER.info("No active, provisioned tenants to deploy to {}", deployments.size());
@@ -198,6 +226,53 @@ public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
         return null;
     }
 
+    private void deploy(Deployment deployment) {
+        String tenantId = deployment.getTenantId();
+
+        // Create an imagedefinitions.json document for the newly pushed image
+        byte[] zip = codePipelineArtifact(tenantId, deployment.getImageUri());
+
+        // Write the imagedefinitions.json document to the artifact bucket
+        writeToArtifactBucket(tenantId, zip);
+
+        // Trigger CodePipeline for this tenant
+        triggerPipeline(tenantId, deployment.getPipeline());
+    }
+
+    // Hands the deployments we didn't get to over to a new invocation of this function. They're
+    // saved to S3 because a large fleet won't fit in an asynchronous invoke payload.
+    private void checkpoint(DeploymentWaves.Rollout rollout, Context context) {
+        Map<String, Object> detail = checkpoints.save(rollout.getNextWave(), rollout.getRemaining());
+        Map<String, Object> checkpoint = new LinkedHashMap<>();
+        checkpoint.put("source", CHECKPOINT_SOURCE);
+        checkpoint.put("detail", detail);
+        LOGGER.info("Checkpointing rollout at wave {} with {} tenants left to {}", rollout.getNextWave(),
+                rollout.getRemaining().size(), detail.get("key"));
+        try {
+            lambda.invoke(request -> request
+                    .functionName(context.getFunctionName())
+                    .invocationType(InvocationType.EVENT)
+                    .payload(SdkBytes.fromString(Utils.toJson(checkpoint), StandardCharsets.UTF_8))
+            );
+        } catch (SdkServiceException lambdaError) {
+            LOGGER.error("lambda:Invoke");
+            LOGGER.error(Utils.getFullStackTrace(lambdaError));
+            throw lambdaError;
+        }
+    }
+
+    private static int intSetting(String value, int defaultValue) {
+        int setting = defaultValue;
+        if (Utils.isNotBlank(value)) {
+            try {
+                setting = Integer.parseInt(value.trim());
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Ignoring invalid number {}, using {}", value, defaultValue);
+            }
+        }
+        return setting > 0 ? setting : defaultValue;
+    }
+
     private String parseEcrEvent(Map<String, Object> event) {
         String imageUri = null;
         Map<String, String> detail = (Map<String, String>) event.get("detail");
@@ -230,37 +305,19 @@ public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
     }
 
     private byte[] codePipelineArtifact(String tenantId, String imageUri) {
-        LOGGER.info("Creating imagedefinitions.json");
-        String imageName = "tenant-" + tenantId.substring(0, tenantId.indexOf("-"));
-        String imageDefinitions = String.format("[{\"name\":\"%s\",\"imageUri\":\"%s\"}]", imageName, imageUri);
-        LOGGER.info(imageDefinitions);
+        // Every tenant in a rollout shares the image, so they share the artifact template too
+        if (artifacts.size() > MAX_CACHED_ARTIFACTS) {
+            artifacts.clear();
+        }
+        ImageDefinitionsArtifact artifact = artifacts.computeIfAbsent(imageUri, ImageDefinitionsArtifact::new);
+        LOGGER.info(artifact.imageDefinitions(tenantId));
 
         // CodePipeline expects source input artifacts to be in a ZIP file
-        LOGGER.info("Creating ZIP archive for CodePipeline");
-        byte[] zip = zip(imageDefinitions);
-        return zip;
-    }
-
-    private byte[] zip(String imagedefinitions) {
-        byte[] archive = null;
-        try {
-            ByteArrayOutputStream stream = new ByteArrayOutputStream();
-            ZipOutputStream zip = new ZipOutputStream(stream);
-            ZipEntry entry = new ZipEntry("imagedefinitions.json");
-            zip.putNextEntry(entry);
-            zip.write(imagedefinitions.getBytes());
-            zip.closeEntry();
-            zip.close();
-            archive = stream.toByteArray();
-        } catch (IOException ioe) {
-            LOGGER.error("Zip archive generation failed");
-            throw new RuntimeException(Utils.getFullStackTrace(ioe));
-        }
-        return archive;
+        return artifact.zip(tenantId);
     }
 
     private void writeToArtifactBucket(String tenantId, byte[] artifact) {
-        String key = tenantId + "/tenant-" + tenantId.substring(0, tenantId.indexOf("-"));
+        String key = tenantId + "/" + ImageDefinitionsArtifact.containerName(tenantId);
         LOGGER.info("Putting CodePipeline source artifact to S3 " + codePipelineBucket + "/" + key);
         try {
             s3.putObject(PutObjectRequest.builder()
@@ -293,28 +350,4 @@ public class EcsDeploy implements RequestHandler<Map<String, Object>, Object> {
         return empty;
     }
 
-    private static class Deployment {
-        private final String tenantId;
-        private final String imageUri;
-        private final String pipeline;
-
-        public Deployment(String tenantId, String imageUri, String pipeline) {
-            this.tenantId = tenantId;
-            this.imageUri = imageUri;
-            this.pipeline = pipeline;
-        }
-
-        public String getTenantId() {
-            return tenantId;
-        }
-
-        public String getImageUri() {
-            return imageUri;
-        }
-
-        public String getPipeline() {
-            return pipeline;
-        }
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32;
+
+/**
+ * Builds the CodePipeline source artifact for an image: a ZIP archive holding a single
+ * imagedefinitions.json document. Every tenant gets the same document apart from its container
+ * name, so the JSON is templated around the name and the archive is a precomputed single entry
+ * layout with the entry stored rather than deflated. Building a tenant's artifact is one CRC over
+ * a couple hundred bytes and a few array copies.
+ */
+public class ImageDefinitionsArtifact {
+
+    static final String ENTRY_NAME = "imagedefinitions.json";
+    private static final byte[] ENTRY = ENTRY_NAME.getBytes(StandardCharsets.US_ASCII);
+    private static final int LOCAL_HEADER_LENGTH = 30 + ENTRY.length;
+    private static final int CENTRAL_HEADER_LENGTH = 46 + ENTRY.length;
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    // Offsets of the CRC and the sizes, which are the same in both headers apart from where they start
+    private static final int LOCAL_CRC_OFFSET = 14;
+    private static final int CENTRAL_CRC_OFFSET = 16;
+    private static final int CENTRAL_DIRECTORY_OFFSET = 16;
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private final byte[] localHeader;
+    private final byte[] centralHeader;
+    private final byte[] endOfCentralDirectory;
+
+    public ImageDefinitionsArtifact(String imageUri) {
+        this(imageUri, LocalDateTime.now());
+    }
+
+    ImageDefinitionsArtifact(String imageUri, LocalDateTime modified) {
+        this.prefix = "[{\"name\":\"".getBytes(StandardCharsets.UTF_8);
+        this.suffix = ("\",\"imageUri\":\"" + imageUri + "\"}]").getBytes(StandardCharsets.UTF_8);
+        short time = (short) ((modified.getHour() << 11) | (modified.getMinute() << 5) | (modified.getSecond() / 2));
+        short date = (short) (((modified.getYear() - 1980) << 9) | (modified.getMonthValue() << 5)
+                | modified.getDayOfMonth());
+
+        // Version 2.0, no flags, stored, no extra field
+        localHeader = ByteBuffer.allocate(LOCAL_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0x04034b50)
+                .putShort((short) 20)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort(time)
+                .putShort(date)
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) ENTRY.length)
+                .putShort((short) 0)
+                .put(ENTRY)
+                .array();
+        // The entry's local header is at the start of the archive
+        centralHeader = ByteBuffer.allocate(CENTRAL_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0x02014b50)
+                .putShort((short) 20)
+                .putShort((short) 20)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort(time)
+                .putShort(date)
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) ENTRY.length)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt(0)
+                .put(ENTRY)
+                .array();
+        endOfCentralDirectory = ByteBuffer.allocate(END_OF_CENTRAL_DIRECTORY_LENGTH).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0x06054b50)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 1)
+                .putShort((short) 1)
+                .putInt(CENTRAL_HEADER_LENGTH)
+                .putInt(0)
+                .putShort((short) 0)
+                .array();
+    }
+
+    public static String containerName(String tenantId) {
+        return "tenant-" + tenantId.substring(0, tenantId.indexOf("-"));
+    }
+
+    public String imageDefinitions(String tenantId) {
+        return new String(prefix, StandardCharsets.UTF_8) + containerName(tenantId)
+                + new String(suffix, StandardCharsets.UTF_8);
+    }
+
+    public byte[] zip(String tenantId) {
+        byte[] name = containerName(tenantId).getBytes(StandardCharsets.UTF_8);
+        int length = prefix.length + name.length + suffix.length;
+        CRC32 crc = new CRC32();
+        crc.update(prefix);
+        crc.update(name);
+        crc.update(suffix);
+        int centralDirectory = LOCAL_HEADER_LENGTH + length;
+
+        byte[] archive = new byte[centralDirectory + CENTRAL_HEADER_LENGTH + END_OF_CENTRAL_DIRECTORY_LENGTH];
+        ByteBuffer zip = ByteBuffer.wrap(archive).order(ByteOrder.LITTLE_ENDIAN);
+        zip.put(localHeader)
+                .put(prefix)
+                .put(name)
+                .put(suffix)
+                .put(centralHeader)
+                .put(endOfCentralDirectory);
+        putCrcAndSizes(zip, LOCAL_CRC_OFFSET, (int) crc.getValue(), length);
+        putCrcAndSizes(zip, centralDirectory + CENTRAL_CRC_OFFSET, (int) crc.getValue(), length);
+        zip.putInt(centralDirectory + CENTRAL_HEADER_LENGTH + CENTRAL_DIRECTORY_OFFSET, centralDirectory);
+        return archive;
+    }
+
+    // Stored entries have the same compressed and uncompressed size
+    private static void putCrcAndSizes(ByteBuffer zip, int offset, int crc, int length) {
+        zip.putInt(offset, crc)
+                .putInt(offset + 4, length)
+                .putInt(offset + 8, length);
+    }
+}
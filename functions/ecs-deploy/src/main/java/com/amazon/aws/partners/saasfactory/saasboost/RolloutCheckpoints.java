@@ -0,0 +1,124 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Keeps the part of a rollout that hasn't been deployed yet in S3 so a fresh invocation can pick it
+ * up. The invocation payload only carries the object key, which keeps it well under the 256 KB
+ * limit for asynchronous invokes no matter how many tenants are left.
+ */
+public class RolloutCheckpoints {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RolloutCheckpoints.class);
+    static final String KEY_PREFIX = "rollout-checkpoints/";
+    private final S3Client s3;
+    private final String bucket;
+
+    public RolloutCheckpoints(S3Client s3, String bucket) {
+        this.s3 = s3;
+        this.bucket = bucket;
+    }
+
+    /**
+     * Saves the deployments still to do and returns the event detail that points at them.
+     */
+    public Map<String, Object> save(int nextWave, List<Deployment> remaining) {
+        List<Map<String, Object>> deployments = new ArrayList<>(remaining.size());
+        for (Deployment deployment : remaining) {
+            deployments.add(deployment.toMap());
+        }
+        Map<String, Object> checkpoint = new LinkedHashMap<>();
+        checkpoint.put("wave", nextWave);
+        checkpoint.put("deployments", deployments);
+        String key = KEY_PREFIX + UUID.randomUUID() + ".json";
+        try {
+            s3.putObject(request -> request
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType("application/json"),
+                    RequestBody.fromString(Utils.toJson(checkpoint), StandardCharsets.UTF_8)
+            );
+        } catch (SdkServiceException s3Error) {
+            LOGGER.error("s3:PutObject " + Utils.getFullStackTrace(s3Error));
+            throw s3Error;
+        }
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("wave", nextWave);
+        detail.put("tenants", remaining.size());
+        detail.put("bucket", bucket);
+        detail.put("key", key);
+        return detail;
+    }
+
+    /**
+     * The deployments a checkpoint event points at. Events that still carry the deployments inline
+     * are read as they are.
+     */
+    public List<Deployment> load(Map<String, Object> detail) {
+        List<Map<String, Object>> deployments = (List<Map<String, Object>>) detail.get("deployments");
+        if (deployments == null) {
+            String json;
+            try {
+                json = s3.getObjectAsBytes(request -> request
+                        .bucket((String) detail.get("bucket"))
+                        .key((String) detail.get("key"))
+                ).asUtf8String();
+            } catch (SdkServiceException s3Error) {
+                LOGGER.error("s3:GetObject " + Utils.getFullStackTrace(s3Error));
+                throw s3Error;
+            }
+            Map<String, Object> checkpoint = Utils.fromJson(json, LinkedHashMap.class);
+            if (checkpoint == null) {
+                throw new RuntimeException("Invalid rollout checkpoint " + detail.get("key"));
+            }
+            deployments = (List<Map<String, Object>>) checkpoint.get("deployments");
+        }
+        List<Deployment> remaining = new ArrayList<>(deployments.size());
+        for (Map<String, Object> deployment : deployments) {
+            remaining.add(Deployment.fromMap(deployment));
+        }
+        return remaining;
+    }
+
+    /**
+     * Removes a checkpoint once the invocation that picked it up has finished with it. Left until
+     * then so a retried invocation can still read it.
+     */
+    public void delete(Map<String, Object> detail) {
+        String key = (String) detail.get("key");
+        if (key == null) {
+            return;
+        }
+        try {
+            s3.deleteObject(request -> request
+                    .bucket((String) detail.get("bucket"))
+                    .key(key)
+            );
+        } catch (SdkServiceException s3Error) {
+            // Not worth failing the rollout over
+            LOGGER.warn("s3:DeleteObject {} {}", key, s3Error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DeploymentWavesTest {
+
+    private static List<Deployment> fleet(int tenants) {
+        List<Deployment> deployments = new ArrayList<>();
+        for (int i = 0; i < tenants; i++) {
+            String tenantId = String.format("%08d-0000-0000-0000-000000000000", i);
+            deployments.add(new Deployment(tenantId, "image:latest", "tenant-" + tenantId.substring(0, 8)));
+        }
+        return deployments;
+    }
+
+    @Test
+    public void testRolloutInWaves() {
+        Queue<String> deployed = new ConcurrentLinkedQueue<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        DeploymentWaves waves = new DeploymentWaves(10, 3, deployment -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            if (deployment.getTenantId().startsWith("00000007")) {
+                throw new RuntimeException("Pipeline not found");
+            }
+            deployed.add(deployment.getTenantId());
+        });
+
+        DeploymentWaves.Rollout rollout = waves.run(fleet(25), 1, () -> Long.MAX_VALUE);
+        assertEquals(3, rollout.getWaves().size());
+        assertEquals(Arrays.asList(10, 10, 5), Arrays.asList(rollout.getWaves().get(0).getTenants(),
+                rollout.getWaves().get(1).getTenants(), rollout.getWaves().get(2).getTenants()));
+        assertEquals(9, rollout.getWaves().get(0).getSucceeded());
+        assertEquals(Collections.singletonMap("00000007-0000-0000-0000-000000000000", "Pipeline not found"),
+                rollout.getFailed());
+        assertEquals(24, deployed.size());
+        assertTrue(rollout.getRemaining().isEmpty());
+        assertFalse(rollout.isHalted());
+        assertEquals(4, rollout.getNextWave());
+        assertTrue("Concurrency " + maxInFlight.get(), maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testStopsWhenOutOfTime() {
+        AtomicInteger waveChecks = new AtomicInteger();
+        DeploymentWaves waves = new DeploymentWaves(4, 4, deployment -> { });
+        // Plenty of time for the first two waves, then we're inside the reserve
+        DeploymentWaves.Rollout rollout = waves.run(fleet(10), 5, () -> waveChecks.incrementAndGet() < 2
+                ? Long.MAX_VALUE : DeploymentWaves.RESERVE_MILLIS - 1);
+        assertEquals(2, rollout.getWaves().size());
+        assertEquals(5, rollout.getWaves().get(0).getWave());
+        assertEquals(7, rollout.getNextWave());
+        assertEquals(2, rollout.getRemaining().size());
+        assertEquals("00000008-0000-0000-0000-000000000000", rollout.getRemaining().get(0).getTenantId());
+        assertFalse(rollout.isHalted());
+    }
+
+    @Test
+    public void testHaltsWhenWholeWaveFails() {
+        DeploymentWaves waves = new DeploymentWaves(5, 5, deployment -> {
+            throw new RuntimeException("Access Denied");
+        });
+        DeploymentWaves.Rollout rollout = waves.run(fleet(12), 1, () -> Long.MAX_VALUE);
+        assertTrue(rollout.isHalted());
+        assertEquals(1, rollout.getWaves().size());
+        assertEquals(5, rollout.getFailed().size());
+        assertEquals(7, rollout.getRemaining().size());
+    }
+
+    @Test
+    public void testCheckpointRoundTrip() {
+        Deployment deployment = fleet(1).get(0);
+        Map<String, Object> json = Utils.fromJson(Utils.toJson(deployment.toMap()), HashMap.class);
+        Deployment resumed = Deployment.fromMap(json);
+        assertEquals(deployment.getTenantId(), resumed.getTenantId());
+        assertEquals(deployment.getImageUri(), resumed.getImageUri());
+        assertEquals(deployment.getPipeline(), resumed.getPipeline());
+    }
+}
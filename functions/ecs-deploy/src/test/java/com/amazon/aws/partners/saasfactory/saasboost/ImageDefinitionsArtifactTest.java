@@ -0,0 +1,81 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+public class ImageDefinitionsArtifactTest {
+
+    private static final String IMAGE_URI = "111111111111.dkr.ecr.cn-north-1.amazonaws.com.cn/saas-boost:latest";
+
+    @Test
+    public void testImageDefinitions() {
+        ImageDefinitionsArtifact artifact = new ImageDefinitionsArtifact(IMAGE_URI);
+        String json = artifact.imageDefinitions("1d733861-ebb8-11ea-9b5a-0a8a148431ae");
+        List<Map<String, String>> imageDefinitions = Utils.fromJson(json, List.class);
+        assertEquals(1, imageDefinitions.size());
+        assertEquals("tenant-1d733861", imageDefinitions.get(0).get("name"));
+        assertEquals(IMAGE_URI, imageDefinitions.get(0).get("imageUri"));
+    }
+
+    @Test
+    public void testZipStream() throws Exception {
+        ImageDefinitionsArtifact artifact = new ImageDefinitionsArtifact(IMAGE_URI);
+        for (String tenantId : new String[] {"1d733861-ebb8-11ea-9b5a-0a8a148431ae", "abc-def"}) {
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(artifact.zip(tenantId)))) {
+                ZipEntry entry = zip.getNextEntry();
+                assertEquals(ImageDefinitionsArtifact.ENTRY_NAME, entry.getName());
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                String json = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(artifact.imageDefinitions(tenantId), json);
+                assertNull(zip.getNextEntry());
+            }
+        }
+    }
+
+    @Test
+    public void testZipFile() throws Exception {
+        // ZipFile reads the central directory, so this checks the parts ZipInputStream skips
+        ImageDefinitionsArtifact artifact = new ImageDefinitionsArtifact(IMAGE_URI);
+        String tenantId = "5ff91f82-ebb8-11ea-9b5a-0a8a148431ae";
+        File file = File.createTempFile("imagedefinitions", ".zip");
+        try {
+            Files.write(file.toPath(), artifact.zip(tenantId));
+            try (ZipFile zip = new ZipFile(file)) {
+                assertEquals(1, zip.size());
+                ZipEntry entry = zip.getEntry(ImageDefinitionsArtifact.ENTRY_NAME);
+                assertNotNull(entry);
+                String json = new String(zip.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(artifact.imageDefinitions(tenantId), json);
+                assertEquals(json.length(), entry.getSize());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
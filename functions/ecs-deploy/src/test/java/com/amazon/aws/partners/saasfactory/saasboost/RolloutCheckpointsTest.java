@@ -0,0 +1,130 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RolloutCheckpointsTest {
+
+    // The most an asynchronous Lambda invoke will take
+    private static final int MAX_ASYNC_PAYLOAD = 256 * 1024;
+
+    private static List<Deployment> fleet(int tenants) {
+        List<Deployment> deployments = new ArrayList<>();
+        for (int i = 0; i < tenants; i++) {
+            String tenantId = String.format("%08d-0000-0000-0000-000000000000", i);
+            deployments.add(new Deployment(tenantId,
+                    "123456789012.dkr.ecr.us-east-1.amazonaws.com/sb-prod-workload-repository:latest",
+                    "tenant-" + tenantId.substring(0, 8)));
+        }
+        return deployments;
+    }
+
+    @Test
+    public void testLargeRollout() {
+        FakeS3 s3 = new FakeS3();
+        RolloutCheckpoints checkpoints = new RolloutCheckpoints(s3, "pipeline-bucket");
+        List<Deployment> remaining = fleet(10000);
+        Map<String, Object> detail = checkpoints.save(3, remaining);
+
+        // The deployments themselves are far bigger than an invoke payload, the event isn't
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("source", EcsDeploy.CHECKPOINT_SOURCE);
+        event.put("detail", detail);
+        assertTrue(s3.objects.get(detail.get("key")).length > MAX_ASYNC_PAYLOAD);
+        assertTrue(Utils.toJson(event).getBytes(StandardCharsets.UTF_8).length < 1024);
+        assertEquals(3, detail.get("wave"));
+        assertTrue(((String) detail.get("key")).startsWith(RolloutCheckpoints.KEY_PREFIX));
+
+        // The next invocation gets the event back as JSON
+        Map<String, Object> resumed = Utils.fromJson(Utils.toJson(detail), LinkedHashMap.class);
+        List<Deployment> loaded = checkpoints.load(resumed);
+        assertEquals(remaining.size(), loaded.size());
+        assertEquals(remaining.get(9999).getTenantId(), loaded.get(9999).getTenantId());
+        assertEquals(remaining.get(9999).getImageUri(), loaded.get(9999).getImageUri());
+        assertEquals(remaining.get(9999).getPipeline(), loaded.get(9999).getPipeline());
+
+        checkpoints.delete(resumed);
+        assertTrue(s3.objects.isEmpty());
+    }
+
+    @Test
+    public void testInlineDeployments() {
+        // Checkpoints sent before they were saved to S3 carry the deployments in the event
+        FakeS3 s3 = new FakeS3();
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("wave", 2);
+        detail.put("deployments", Arrays.asList(fleet(2).get(0).toMap(), fleet(2).get(1).toMap()));
+        RolloutCheckpoints checkpoints = new RolloutCheckpoints(s3, "pipeline-bucket");
+        List<Deployment> loaded = checkpoints.load(detail);
+        assertEquals(2, loaded.size());
+        assertEquals("tenant-00000001", loaded.get(1).getPipeline());
+        checkpoints.delete(detail);
+        assertEquals(0, s3.deletes);
+    }
+
+    static class FakeS3 implements S3Client {
+        final Map<String, byte[]> objects = new HashMap<>();
+        int deletes;
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            try (InputStream content = body.contentStreamProvider().newStream()) {
+                objects.put(request.key(), content.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public ResponseBytes<GetObjectResponse> getObjectAsBytes(GetObjectRequest request) {
+            byte[] object = objects.get(request.key());
+            if (object == null) {
+                throw NoSuchKeyException.builder().statusCode(404).build();
+            }
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), object);
+        }
+
+        @Override
+        public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+            deletes++;
+            objects.remove(request.key());
+            return DeleteObjectResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return S3Client.SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -19,14 +19,9 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.services.ecs.EcsClient;
-import software.amazon.awssdk.services.ecs.model.DescribeServicesResponse;
-import software.amazon.awssdk.services.ecs.model.Service;
-import software.amazon.awssdk.services.ecs.model.UpdateServiceResponse;
 
-import java.util.ArrayList;
-import java.util.Map;
+import java.util.*;
 
 public class EcsShutdownServices implements RequestHandler<Map<String, Object>, Object> {
 
@@ -36,7 +31,7 @@ public class EcsShutdownServices implements RequestHandler<Map<String, Object>,
     private final static String API_GATEWAY_HOST = System.getenv("API_GATEWAY_HOST");
     private final static String API_GATEWAY_STAGE = System.getenv("API_GATEWAY_STAGE");
     private final static String API_TRUST_ROLE = System.getenv("API_TRUST_ROLE");
-    private final EcsClient ecs;
+    private final EcsServiceScaler scaler;
 
     public EcsShutdownServices() {
         long startTimeMillis = System.currentTimeMillis();
@@ -57,7 +52,7 @@ public class EcsShutdownServices implements RequestHandler<Map<String, Object>,
         }
         LOGGER.info("Version Info: {}", Utils.version(this.getClass()));
 
-        this.ecs = Utils.sdkClient(EcsClient.builder(), EcsClient.SERVICE_NAME);
+        this.scaler = new EcsServiceScaler(Utils.sdkClient(EcsClient.builder(), EcsClient.SERVICE_NAME));
 
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
@@ -65,48 +60,46 @@ public class EcsShutdownServices implements RequestHandler<Map<String, Object>,
     @Override
     public Object handleRequest(Map<String, Object> event, Context context) {
         Utils.logRequestEvent(event);
+        long startTimeMillis = System.currentTimeMillis();
 
         ArrayList<Map<String, Object>> provisionedTenants = getProvisionedTenants(context);
+        Map<String, Object> scaled = null;
         if (provisionedTenants != null) {
             LOGGER.info("{} provisioned tenants to process", provisionedTenants.size());
+            List<String> services = new ArrayList<>();
             for (Map<String, Object> tenant : provisionedTenants) {
                 // The ECS Cluster and Service for each tenant is named with their short id
                 // We could save this info in parameter store with the other tenant infra
                 // pieces so we're not relying on naming convention
-                String cluster = "tenant-" + ((String) tenant.get("id")).substring(0, 8);
-                String service = cluster;
-                Integer count = 0; // Setting the service's desired count to 0 will gracefully remove all running tasks
-
-                try {
-                    DescribeServicesResponse existingServiceSettings = ecs.describeServices(r -> r
-                            .cluster(cluster)
-                            .services(service)
-                    );
-                    for (Service ecsService : existingServiceSettings.services()) {
-                        if (ecsService.desiredCount() > count) {
-                            LOGGER.info("Updating desired count for service " + service + " to " + count);
-                            try {
-                                UpdateServiceResponse updateServiceResponse = ecs.updateService(r -> r
-                                        .cluster(cluster)
-                                        .service(service)
-                                        .desiredCount(count)
-                                );
-                            } catch (SdkServiceException ecsError) {
-                                LOGGER.error("ecs::UpdateService", ecsError);
-                                LOGGER.error(Utils.getFullStackTrace(ecsError));
-                                throw ecsError;
-                            }
-                        }
-                    }
-                } catch (SdkServiceException ecsError) {
-                    LOGGER.error("ecs::DescribeServices", ecsError);
-                    LOGGER.error(Utils.getFullStackTrace(ecsError));
-                    throw ecsError;
-                }
+                services.add("tenant-" + ((String) tenant.get("id")).substring(0, 8));
             }
+            scaled = scaleDown(services);
+            LOGGER.info(Utils.toJson(scaled));
         }
 
-        return null;
+        LOGGER.info("EcsShutdownServices::handleRequest exec " + (System.currentTimeMillis() - startTimeMillis));
+        return scaled;
+    }
+
+    /**
+     * Sets the desired count of every running service to 0, which gracefully removes all its running
+     * tasks. A tenant whose calls fail is reported instead of keeping the rest of the fleet running.
+     */
+    protected Map<String, Object> scaleDown(List<String> services) {
+        Map<String, Integer> desiredCounts = new LinkedHashMap<>();
+        for (String service : services) {
+            desiredCounts.put(service, 0);
+        }
+        // Each tenant's service lives in a cluster of the same name
+        return result(services.size(), scaler.scaleDown(desiredCounts, service -> service));
+    }
+
+    private static Map<String, Object> result(int tenants, EcsServiceScaler.Result scaled) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tenants", tenants);
+        result.put("scaled", scaled.getScaled());
+        result.put("failed", scaled.getFailed());
+        return result;
     }
 
     protected ArrayList<Map<String, Object>> getProvisionedTenants(Context context) {
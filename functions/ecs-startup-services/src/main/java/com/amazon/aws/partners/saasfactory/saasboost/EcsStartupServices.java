@@ -19,15 +19,9 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.services.ecs.EcsClient;
-import software.amazon.awssdk.services.ecs.model.DescribeServicesResponse;
-import software.amazon.awssdk.services.ecs.model.Service;
-import software.amazon.awssdk.services.ecs.model.UpdateServiceRequest;
-import software.amazon.awssdk.services.ecs.model.UpdateServiceResponse;
 
-import java.util.ArrayList;
-import java.util.Map;
+import java.util.*;
 
 public class EcsStartupServices implements RequestHandler<Map<String, Object>, Object> {
 
@@ -37,7 +31,7 @@ public class EcsStartupServices implements RequestHandler<Map<String, Object>, O
     private final static String API_GATEWAY_HOST = System.getenv("API_GATEWAY_HOST");
     private final static String API_GATEWAY_STAGE = System.getenv("API_GATEWAY_STAGE");
     private final static String API_TRUST_ROLE = System.getenv("API_TRUST_ROLE");
-    private final EcsClient ecs;
+    private final EcsServiceScaler scaler;
     
     public EcsStartupServices() {
         long startTimeMillis = System.currentTimeMillis();
@@ -58,7 +52,7 @@ public class EcsStartupServices implements RequestHandler<Map<String, Object>, O
         }
         LOGGER.info("Version Info: {}", Utils.version(this.getClass()));
 
-        this.ecs = Utils.sdkClient(EcsClient.builder(), EcsClient.SERVICE_NAME);
+        this.scaler = new EcsServiceScaler(Utils.sdkClient(EcsClient.builder(), EcsClient.SERVICE_NAME));
 
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
@@ -66,60 +60,55 @@ public class EcsStartupServices implements RequestHandler<Map<String, Object>, O
     @Override
 	public Object handleRequest(Map<String, Object> event, Context context) {
         Utils.logRequestEvent(event);
+        long startTimeMillis = System.currentTimeMillis();
 
         Integer defaultMinCount = getDefaultMinCount(context);
         ArrayList<Map<String, Object>> provisionedTenants = getProvisionedTenants(context);
+        Map<String, Object> scaled = null;
         if (provisionedTenants != null) {
             LOGGER.info("{} provisioned tenants to process", provisionedTenants.size());
+            Map<String, Integer> minCounts = new LinkedHashMap<>();
             for (Map<String, Object> tenant : provisionedTenants) {
                 // The ECS Cluster and Service for each tenant is named with their short id
                 // We could save this info in parameter store with the other tenant infra
                 // pieces so we're not relying on naming convention
-                String cluster = "tenant-" + ((String) tenant.get("id")).substring(0, 8);
-                String service = cluster;
+                String service = "tenant-" + ((String) tenant.get("id")).substring(0, 8);
                 Integer count = null;
                 if (Boolean.TRUE.equals(tenant.get("overrideDefaults")) && tenant.containsKey("minCount") && tenant.get("minCount") != null) {
                     try {
                         count = (Integer) tenant.get("minCount");
-                    } catch (NumberFormatException nfe) {
+                    } catch (ClassCastException | NumberFormatException nfe) {
                         LOGGER.error("Error parsing minCount from tenant {}", tenant.get("id"));
                         count = defaultMinCount;
                     }
                 } else {
                     count = defaultMinCount;
                 }
-
-                try {
-                    DescribeServicesResponse existingServiceSettings = ecs.describeServices(r -> r
-                            .cluster(cluster)
-                            .services(service)
-                    );
-                    for (Service ecsService : existingServiceSettings.services()) {
-                        if (ecsService.desiredCount() < count) {
-                            LOGGER.info("Updating desired count for service {} from {} to {}", service, ecsService.desiredCount(), count);
-                            try {
-                                UpdateServiceResponse updateServiceResponse = ecs.updateService(UpdateServiceRequest.builder()
-                                        .cluster(cluster)
-                                        .service(service)
-                                        .desiredCount(count)
-                                        .build()
-                                );
-                            } catch (SdkServiceException ecsError) {
-                                LOGGER.error("ecs::UpdateService", ecsError);
-                                LOGGER.error(Utils.getFullStackTrace(ecsError));
-                                throw ecsError;
-                            }
-                        }
-                    }
-                } catch (SdkServiceException ecsError) {
-                    LOGGER.error("ecs::DescribeServices", ecsError);
-                    LOGGER.error(Utils.getFullStackTrace(ecsError));
-                    throw ecsError;
-                }
+                minCounts.put(service, count);
             }
+            scaled = scaleUp(minCounts);
+            LOGGER.info(Utils.toJson(scaled));
         }
 
-        return null;
+        LOGGER.info("EcsStartupServices::handleRequest exec " + (System.currentTimeMillis() - startTimeMillis));
+        return scaled;
+    }
+
+    /**
+     * Raises the desired count of every service running below its tenant's minimum. A tenant whose
+     * calls fail is reported instead of stopping the rest of the fleet from starting up.
+     */
+    protected Map<String, Object> scaleUp(Map<String, Integer> minCounts) {
+        // Each tenant's service lives in a cluster of the same name
+        return result(minCounts.size(), scaler.scaleUp(minCounts, service -> service));
+    }
+
+    private static Map<String, Object> result(int tenants, EcsServiceScaler.Result scaled) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tenants", tenants);
+        result.put("scaled", scaled.getScaled());
+        result.put("failed", scaled.getFailed());
+        return result;
     }
 
     protected ArrayList<Map<String, Object>> getProvisionedTenants(Context context) {
@@ -0,0 +1,78 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The stack event CloudFormation publishes to SNS. The message is one Key='Value' pair per line,
+ * for example ResourceStatus='CREATE_COMPLETE'.
+ */
+public class CloudFormationNotification {
+
+    private final Map<String, String> values;
+
+    private CloudFormationNotification(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    public static CloudFormationNotification parse(String message) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (message != null) {
+            int start = 0;
+            while (start < message.length()) {
+                int end = message.indexOf('\n', start);
+                if (end < 0) {
+                    end = message.length();
+                }
+                int equals = message.indexOf('=', start);
+                // Skip blank lines or anything else that isn't a key value pair
+                if (equals > start && equals < end) {
+                    String key = message.substring(start, equals).trim();
+                    String value = message.substring(equals + 1, end).trim();
+                    if (value.length() > 1 && value.charAt(0) == '\'' && value.charAt(value.length() - 1) == '\'') {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    values.put(key, value);
+                }
+                start = end + 1;
+            }
+        }
+        return new CloudFormationNotification(values);
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public String getStackId() {
+        return values.get("StackId");
+    }
+
+    public String getResourceType() {
+        return values.get("ResourceType");
+    }
+
+    public String getResourceStatus() {
+        return values.get("ResourceStatus");
+    }
+
+    public String getLogicalResourceId() {
+        return values.get("LogicalResourceId");
+    }
+}
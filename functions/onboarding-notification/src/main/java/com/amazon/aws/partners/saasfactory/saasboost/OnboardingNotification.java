@@ -37,7 +37,6 @@ import java.util.HashMap;
 import java.util.IllegalFormatException;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 
 public class OnboardingNotification implements RequestHandler<SNSEvent, Object> {
 
@@ -50,7 +49,7 @@ public class OnboardingNotification implements RequestHandler<SNSEvent, Object>
     private static final String BILLING_SETUP = "Billing Tenant Setup";
     private static final String BILLING_DISABLE = "Billing Tenant Disable";
     private static final String EVENT_SOURCE = "saas-boost";
-    private final CloudFormationClient cfn;
+    private final TenantStackInspector stackInspector;
     private final LambdaClient lambda;
     private final EventBridgeClient eventBridge;
 
@@ -65,7 +64,8 @@ public class OnboardingNotification implements RequestHandler<SNSEvent, Object>
         if (Utils.isBlank(TENANT_DEPLOY_LAMBDA)) {
             throw new IllegalStateException("Missing required environment variable TENANT_DEPLOY_LAMBDA");
         }
-        this.cfn = Utils.sdkClient(CloudFormationClient.builder(), CloudFormationClient.SERVICE_NAME);
+        this.stackInspector = new TenantStackInspector(
+                Utils.sdkClient(CloudFormationClient.builder(), CloudFormationClient.SERVICE_NAME), AWS_REGION);
         this.lambda = Utils.sdkClient(LambdaClient.builder(), LambdaClient.SERVICE_NAME);
         this.eventBridge = Utils.sdkClient(EventBridgeClient.builder(), EventBridgeClient.SERVICE_NAME);
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
@@ -74,39 +74,13 @@ public class OnboardingNotification implements RequestHandler<SNSEvent, Object>
     @Override
 	public Object handleRequest(SNSEvent event, Context context) {
         //LOGGER.info(Utils.toJson(event));
-        String type = null;
-        String stackId = null;
-        String stackName = null;
-        String stackStatus = null;
-
         List<SNSEvent.SNSRecord> records = event.getRecords();
         SNSEvent.SNS sns = records.get(0).getSNS();
-        String message = sns.getMessage();
-
-        // Raw SNS message values are escaped JSON strings with \n instead of newlines and
-        // single quotes instead of doubles around values
-        for (String keyValue : message.split("\\n")) {
-            // Each line will look like Key='Value'
-            // For example ResourceStatus='CREATE_COMPLETE'
-            // We'll be reckless and use substring instead of a regex to break it apart.
-            String key = keyValue.substring(0, keyValue.indexOf("="));
-            String value = keyValue.substring(keyValue.indexOf("=") + 2, keyValue.length() - 1);
-            //LOGGER.info(key + " => " + value);
-            switch (key) {
-                case "ResourceType":
-                    type = value;
-                    break;
-                case "ResourceStatus":
-                    stackStatus = value;
-                    break;
-                case "LogicalResourceId":
-                    stackName = value;
-                    break;
-                case "StackId":
-                    stackId = value;
-                    break;
-            }
-        }
+        CloudFormationNotification notification = CloudFormationNotification.parse(sns.getMessage());
+        String type = notification.getResourceType();
+        String stackId = notification.getStackId();
+        String stackName = notification.getLogicalResourceId();
+        String stackStatus = notification.getResourceStatus();
 
         // CloudFormation sends SNS notifications for every resource in a stack going through each status change.
         // We're only interested in the stack complete event. Now that we have nested stacks for the optional
@@ -116,15 +90,10 @@ public class OnboardingNotification implements RequestHandler<SNSEvent, Object>
                         || "UPDATE_COMPLETE".equals(stackStatus)
                         || "DELETE_COMPLETE".equals(stackStatus)
                         || "DELETE_FAILED".equals(stackStatus))
-                && stackName.startsWith("Tenant-")) {
+                && stackName != null && stackName.startsWith("Tenant-")) {
             LOGGER.info(Utils.toJson(event));
             LOGGER.info("Beginning post-onboarding flow. Stack " + stackName + " is in status " + stackStatus);
-            DescribeStacksResponse stacks = cfn.describeStacks(DescribeStacksRequest
-                    .builder()
-                    .stackName(stackId)
-                    .build()
-            );
-            Stack stack = stacks.stacks().get(0);
+            Stack stack = stackInspector.describeStack(stackId);
             String tenantId = null;
             for (Parameter parameter : stack.parameters()) {
                 if ("TenantId".equals(parameter.parameterKey())) {
@@ -139,10 +108,7 @@ public class OnboardingNotification implements RequestHandler<SNSEvent, Object>
                 String dbHost = null;
                 String albName = null;
                 String billingPlan = null;
-
-                // Gather up the AWS Console URLs for the resources we're interested in
-                Map<String, String> consoleResources = new HashMap<>();
-                consoleResources.put(AwsConsoleUrl.CLOUDFORMATION.name(), AwsConsoleUrl.CLOUDFORMATION.formatUrl(AWS_REGION, stack.stackId()));
+                String albDnsName = null;
 
                 for (Parameter parameter : stack.parameters()) {
                     if ("ContainerRepository".equals(parameter.parameterKey())) {
@@ -165,7 +131,7 @@ public class OnboardingNotification implements RequestHandler<SNSEvent, Object>
                     }
                     if ("DNSName".equals(output.outputKey())) {
                         if (Utils.isNotBlank(output.outputValue())) {
-                            consoleResources.put("LOAD_BALANCER_DNSNAME", output.outputValue());
+                            albDnsName = output.outputValue();
                         }
                     }
                     if ("BillingPlan".equals(output.outputKey())) {
@@ -176,42 +142,21 @@ public class OnboardingNotification implements RequestHandler<SNSEvent, Object>
                 }
 
                 // And we need the resources from the stack
-                ListStackResourcesResponse resources = cfn.listStackResources(ListStackResourcesRequest
-                        .builder()
-                        .stackName(stackId)
-                        .build()
-                );
+                List<StackResourceSummary> resources = stackInspector.listResources(stackId);
                 String pipeline = null;
-                for (StackResourceSummary resource : resources.stackResourceSummaries()) {
-                    String resourceType = resource.resourceType();
-                    String physicalResourceId = resource.physicalResourceId();
-                    String resourceStatus = resource.resourceStatusAsString();
-                    String logicalId = resource.logicalResourceId();
-                    LOGGER.debug(("processing resource type: " + resourceType));
-                    //LOGGER.info(String.format("%s  %s   %s", resourceType, physicalResourceId, resourceStatus));
-                    if ("AWS::CodePipeline::Pipeline".equals(resourceType) && "CREATE_COMPLETE".equals(resourceStatus)) {
-                        pipeline = physicalResourceId;
-                        consoleResources.put(AwsConsoleUrl.CODE_PIPELINE.name(), AwsConsoleUrl.CODE_PIPELINE.formatUrl(AWS_REGION, pipeline));
-                    } else if ("AWS::CloudFormation::Stack".equals(resourceType) && "rds".equals(logicalId)) {
-                        //this is the rds sub-stack so get the cluster and instance ids
-                        getRdsResources(physicalResourceId, consoleResources);
-                    } else {
-                        //match on the resource type and build url
-                        for (AwsConsoleUrl consoleUrl : AwsConsoleUrl.values()) {
-                            if (consoleUrl.getResourceType().equalsIgnoreCase(resourceType)) {
-                                if ("AWS::ElasticLoadBalancingV2::Listener".equals(resourceType)) {
-                                    //the ALB physical id is the short tenant id
-                                    physicalResourceId = "tenant-" + tenantId.split("-")[0];
-                                } else if ("AWS::Logs::LogGroup".equals(resourceType)) {
-                                    //need to replace / with $252F for the url path
-                                    physicalResourceId = physicalResourceId.replaceAll("/", Matcher.quoteReplacement("$252F"));
-                                }
-                                consoleResources.put(consoleUrl.name(), consoleUrl.formatUrl(AWS_REGION, physicalResourceId));
-                            }
-                        }
+                for (StackResourceSummary resource : resources) {
+                    if ("AWS::CodePipeline::Pipeline".equals(resource.resourceType())
+                            && "CREATE_COMPLETE".equals(resource.resourceStatusAsString())) {
+                        pipeline = resource.physicalResourceId();
                     }
                 }
 
+                // Gather up the AWS Console URLs for the resources we're interested in
+                Map<String, String> consoleResources = stackInspector.consoleResources(stack, tenantId, resources);
+                if (albDnsName != null) {
+                    consoleResources.put("LOAD_BALANCER_DNSNAME", albDnsName);
+                }
+
                 // Persist the tenant specific things as tenant settings
                 if (dbHost != null) {
                     LOGGER.info("Saving tenant database host setting");
@@ -343,29 +288,6 @@ public class OnboardingNotification implements RequestHandler<SNSEvent, Object>
         return null;
     }
 
-    private void getRdsResources(String stackId, Map<String, String> consoleResources) {
-        try {
-            ListStackResourcesResponse resources = cfn.listStackResources(request -> request.stackName(stackId));
-            for (StackResourceSummary resource : resources.stackResourceSummaries()) {
-                String resourceType = resource.resourceType();
-                String physicalResourceId = resource.physicalResourceId();
-                AwsConsoleUrl url = null;
-                if (resourceType.equalsIgnoreCase(AwsConsoleUrl.RDS_INSTANCE.getResourceType())) {
-                    url = AwsConsoleUrl.RDS_INSTANCE;
-                } else if (resourceType.equalsIgnoreCase(AwsConsoleUrl.RDS_CLUSTER.getResourceType())) {
-                    url = AwsConsoleUrl.RDS_CLUSTER;
-                }
-                if (url != null) {
-                    consoleResources.put(url.name(), url.formatUrl(AWS_REGION, physicalResourceId));
-                }
-            }
-        } catch (SdkServiceException cfnError) {
-            LOGGER.error("cfn:ListStackResources error", cfnError);
-            LOGGER.error(Utils.getFullStackTrace(cfnError));
-            throw cfnError;
-        }
-    }
-
     private void publishEvent(Map<String, Object> eventBridgeDetail, String detailType) {
         try {
             PutEventsRequestEntry systemEvent = PutEventsRequestEntry.builder()
@@ -0,0 +1,135 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import com.amazon.aws.partners.saasfactory.saasboost.OnboardingNotification.AwsConsoleUrl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
+import software.amazon.awssdk.services.cloudformation.model.Stack;
+import software.amazon.awssdk.services.cloudformation.model.StackResourceSummary;
+
+import java.util.*;
+import java.util.regex.Matcher;
+
+/**
+ * Reads a tenant's CloudFormation stack and the nested stacks for the optional extensions like RDS
+ * and EFS, and builds the AWS console links for the resources we show in the admin web app.
+ */
+public class TenantStackInspector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TenantStackInspector.class);
+    static final int MAX_CONCURRENCY = 5;
+    // Resource type to console URL. The tenant stack itself is linked separately so a nested stack
+    // doesn't overwrite it.
+    static final Map<String, AwsConsoleUrl> CONSOLE_URLS;
+    static {
+        Map<String, AwsConsoleUrl> consoleUrls = new HashMap<>();
+        for (AwsConsoleUrl consoleUrl : AwsConsoleUrl.values()) {
+            if (consoleUrl != AwsConsoleUrl.CLOUDFORMATION) {
+                consoleUrls.put(consoleUrl.getResourceType().toLowerCase(), consoleUrl);
+            }
+        }
+        CONSOLE_URLS = Collections.unmodifiableMap(consoleUrls);
+    }
+    private final CloudFormationClient cfn;
+    private final String region;
+
+    public TenantStackInspector(CloudFormationClient cfn, String region) {
+        this.cfn = cfn;
+        this.region = region;
+    }
+
+    public Stack describeStack(String stackId) {
+        try {
+            return ParallelExecutor.withThrottlingRetry(() -> cfn.describeStacks(request -> request
+                    .stackName(stackId)
+            ).stacks().get(0));
+        } catch (SdkServiceException cfnError) {
+            LOGGER.error("cfn:DescribeStacks error", cfnError);
+            LOGGER.error(Utils.getFullStackTrace(cfnError));
+            throw cfnError;
+        }
+    }
+
+    // Every resource in the stack, not just the first page
+    public List<StackResourceSummary> listResources(String stackId) {
+        try {
+            return ParallelExecutor.withThrottlingRetry(() -> {
+                List<StackResourceSummary> resources = new ArrayList<>();
+                cfn.listStackResourcesPaginator(request -> request.stackName(stackId))
+                        .stackResourceSummaries()
+                        .forEach(resources::add);
+                return resources;
+            });
+        } catch (SdkServiceException cfnError) {
+            LOGGER.error("cfn:ListStackResources error", cfnError);
+            LOGGER.error(Utils.getFullStackTrace(cfnError));
+            throw cfnError;
+        }
+    }
+
+    /**
+     * Console links for the tenant stack, its resources and the resources of its nested stacks. The
+     * nested stacks are listed concurrently and only fill in resource types the tenant stack doesn't
+     * have itself.
+     */
+    public Map<String, String> consoleResources(Stack stack, String tenantId, List<StackResourceSummary> resources) {
+        Map<String, String> consoleResources = new HashMap<>();
+        consoleResources.put(AwsConsoleUrl.CLOUDFORMATION.name(),
+                AwsConsoleUrl.CLOUDFORMATION.formatUrl(region, stack.stackId()));
+
+        List<String> nestedStacks = new ArrayList<>();
+        for (StackResourceSummary resource : resources) {
+            if ("AWS::CloudFormation::Stack".equals(resource.resourceType())) {
+                if (Utils.isNotBlank(resource.physicalResourceId())) {
+                    nestedStacks.add(resource.physicalResourceId());
+                }
+            } else {
+                addConsoleUrl(consoleResources, resource, tenantId, false);
+            }
+        }
+        List<List<StackResourceSummary>> nestedResources = ParallelExecutor.map(nestedStacks, MAX_CONCURRENCY,
+                this::listResources);
+        for (List<StackResourceSummary> nested : nestedResources) {
+            for (StackResourceSummary resource : nested) {
+                addConsoleUrl(consoleResources, resource, tenantId, true);
+            }
+        }
+        return consoleResources;
+    }
+
+    private void addConsoleUrl(Map<String, String> consoleResources, StackResourceSummary resource, String tenantId,
+                               boolean ifAbsent) {
+        String resourceType = resource.resourceType();
+        AwsConsoleUrl consoleUrl = resourceType != null ? CONSOLE_URLS.get(resourceType.toLowerCase()) : null;
+        if (consoleUrl == null || (ifAbsent && consoleResources.containsKey(consoleUrl.name()))) {
+            return;
+        }
+        String physicalResourceId = resource.physicalResourceId();
+        if (AwsConsoleUrl.CODE_PIPELINE == consoleUrl && !"CREATE_COMPLETE".equals(resource.resourceStatusAsString())) {
+            return;
+        } else if (AwsConsoleUrl.ALB == consoleUrl) {
+            //the ALB physical id is the short tenant id
+            physicalResourceId = "tenant-" + tenantId.split("-")[0];
+        } else if (AwsConsoleUrl.ECS_CLUSTER_LOG_GROUP == consoleUrl) {
+            //need to replace / with $252F for the url path
+            physicalResourceId = physicalResourceId.replaceAll("/", Matcher.quoteReplacement("$252F"));
+        }
+        consoleResources.put(consoleUrl.name(), consoleUrl.formatUrl(region, physicalResourceId));
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CloudFormationNotificationTest {
+
+    @Test
+    public void testParse() {
+        String message = "StackId='arn:aws-cn:cloudformation:cn-north-1:111111111111:stack/Tenant-1d733861/abc'\n"
+                + "Timestamp='2021-02-04T18:40:22.613Z'\n"
+                + "LogicalResourceId='Tenant-1d733861'\n"
+                + "ResourceStatusReason=''\n"
+                + "ResourceStatus='CREATE_COMPLETE'\n"
+                + "ResourceProperties='{\"Key\":\"a=b\"}'\n"
+                + "ResourceType='AWS::CloudFormation::Stack'\n";
+        CloudFormationNotification notification = CloudFormationNotification.parse(message);
+        assertEquals("arn:aws-cn:cloudformation:cn-north-1:111111111111:stack/Tenant-1d733861/abc",
+                notification.getStackId());
+        assertEquals("Tenant-1d733861", notification.getLogicalResourceId());
+        assertEquals("CREATE_COMPLETE", notification.getResourceStatus());
+        assertEquals("AWS::CloudFormation::Stack", notification.getResourceType());
+        assertEquals("", notification.get("ResourceStatusReason"));
+        assertEquals("{\"Key\":\"a=b\"}", notification.get("ResourceProperties"));
+    }
+
+    @Test
+    public void testParseMalformed() {
+        CloudFormationNotification notification = CloudFormationNotification.parse(
+                "\nnot a pair\n=orphan\nResourceStatus=DELETE_COMPLETE");
+        assertEquals("DELETE_COMPLETE", notification.getResourceStatus());
+        assertNull(notification.getResourceType());
+        assertNull(CloudFormationNotification.parse(null).getStackId());
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+
+/**
+ * Status of a global secondary index for the services that fall back to table scans while the index
+ * is still being built after a stack update. An index that isn't active yet is checked again every
+ * so often so a warm Lambda doesn't keep scanning once the build has finished. Once active it stays
+ * active.
+ */
+public class DynamoDbIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDbIndex.class);
+    static final long RECHECK_MILLIS = 60 * 1000L;
+    private final DynamoDbClient ddb;
+    private final String table;
+    private final String indexName;
+    private final long recheckMillis;
+    private volatile boolean active;
+    private volatile long checkedUntil;
+
+    public DynamoDbIndex(DynamoDbClient ddb, String table, String indexName) {
+        this(ddb, table, indexName, RECHECK_MILLIS);
+    }
+
+    DynamoDbIndex(DynamoDbClient ddb, String table, String indexName, long recheckMillis) {
+        this.ddb = ddb;
+        this.table = table;
+        this.indexName = indexName;
+        this.recheckMillis = recheckMillis;
+    }
+
+    public boolean isActive() {
+        if (!active && System.currentTimeMillis() >= checkedUntil) {
+            synchronized (this) {
+                if (!active && System.currentTimeMillis() >= checkedUntil) {
+                    try {
+                        active = isActive(ddb.describeTable(request -> request.tableName(table)).table(), indexName);
+                    } catch (DynamoDbException e) {
+                        // Scanning is slower but still correct, so try again next time around
+                        LOGGER.error("dynamodb::DescribeTable " + Utils.getFullStackTrace(e));
+                    }
+                    checkedUntil = System.currentTimeMillis() + recheckMillis;
+                    if (!active) {
+                        LOGGER.warn("Index {} on {} is not active, falling back to table scans", indexName, table);
+                    }
+                }
+            }
+        }
+        return active;
+    }
+
+    public static boolean isActive(TableDescription table, String indexName) {
+        boolean active = false;
+        if (table != null && table.hasGlobalSecondaryIndexes()) {
+            for (GlobalSecondaryIndexDescription index : table.globalSecondaryIndexes()) {
+                if (indexName.equals(index.indexName()) && IndexStatus.ACTIVE == index.indexStatus()) {
+                    active = true;
+                    break;
+                }
+            }
+        }
+        return active;
+    }
+}
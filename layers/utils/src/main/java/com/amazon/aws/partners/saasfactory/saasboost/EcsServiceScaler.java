@@ -0,0 +1,174 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.ecs.EcsClient;
+import software.amazon.awssdk.services.ecs.model.DescribeServicesResponse;
+import software.amazon.awssdk.services.ecs.model.Failure;
+import software.amazon.awssdk.services.ecs.model.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Sets the desired count of many ECS services. The services are described in batches per cluster
+ * and only the ones that need to change are updated, a few at a time. A service whose calls fail is
+ * reported instead of stopping the rest from being scaled.
+ */
+public class EcsServiceScaler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EcsServiceScaler.class);
+    // DescribeServices takes up to 10 services as long as they're all in the same cluster
+    static final int DESCRIBE_BATCH_SIZE = 10;
+    // UpdateService has a much smaller request rate than the describe calls
+    static final int MAX_CONCURRENCY = 5;
+    private final EcsClient ecs;
+    private final int maxConcurrency;
+
+    public EcsServiceScaler(EcsClient ecs) {
+        this(ecs, MAX_CONCURRENCY);
+    }
+
+    public EcsServiceScaler(EcsClient ecs, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be greater than 0");
+        }
+        this.ecs = ecs;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Raises every service running fewer than its desired count of tasks. Services are keyed by name
+     * and cluster maps each one to the cluster it runs in.
+     */
+    public Result scaleUp(Map<String, Integer> desiredCounts, Function<String, String> cluster) {
+        return scale(desiredCounts, cluster, (current, desired) -> current < desired);
+    }
+
+    /**
+     * Lowers every service running more than its desired count of tasks. A desired count of 0 stops
+     * all of a service's tasks gracefully.
+     */
+    public Result scaleDown(Map<String, Integer> desiredCounts, Function<String, String> cluster) {
+        return scale(desiredCounts, cluster, (current, desired) -> current > desired);
+    }
+
+    private Result scale(Map<String, Integer> desiredCounts, Function<String, String> cluster,
+                         BiPredicate<Integer, Integer> needsUpdate) {
+        Map<String, String> failed = new ConcurrentHashMap<>();
+
+        Map<String, List<String>> servicesByCluster = new LinkedHashMap<>();
+        for (String service : desiredCounts.keySet()) {
+            servicesByCluster.computeIfAbsent(cluster.apply(service), key -> new ArrayList<>()).add(service);
+        }
+        List<Map.Entry<String, List<String>>> batches = new ArrayList<>();
+        for (Map.Entry<String, List<String>> services : servicesByCluster.entrySet()) {
+            for (List<String> batch : ParallelExecutor.partition(services.getValue(), DESCRIBE_BATCH_SIZE)) {
+                batches.add(new AbstractMap.SimpleImmutableEntry<>(services.getKey(), batch));
+            }
+        }
+        List<List<Service>> described = ParallelExecutor.map(batches, maxConcurrency, batch -> {
+            try {
+                DescribeServicesResponse response = ParallelExecutor.withThrottlingRetry(() ->
+                        ecs.describeServices(request -> request
+                                .cluster(batch.getKey())
+                                .services(batch.getValue())
+                        )
+                );
+                for (Failure failure : response.failures()) {
+                    LOGGER.warn("ecs::DescribeServices {} {}", failure.arn(), failure.reason());
+                    failed.put(serviceName(failure.arn(), batch.getValue()), String.valueOf(failure.reason()));
+                }
+                return response.services();
+            } catch (SdkServiceException ecsError) {
+                LOGGER.error("ecs::DescribeServices {}", Utils.getFullStackTrace(ecsError));
+                batch.getValue().forEach(service -> failed.put(service, String.valueOf(ecsError.getMessage())));
+                return Collections.<Service>emptyList();
+            }
+        });
+
+        List<Service> outOfRange = new ArrayList<>();
+        for (List<Service> services : described) {
+            for (Service ecsService : services) {
+                Integer desired = desiredCounts.get(ecsService.serviceName());
+                if (desired != null && needsUpdate.test(ecsService.desiredCount(), desired)) {
+                    outOfRange.add(ecsService);
+                }
+            }
+        }
+        List<String> updated = ParallelExecutor.map(outOfRange, maxConcurrency, ecsService -> {
+            String service = ecsService.serviceName();
+            Integer desired = desiredCounts.get(service);
+            LOGGER.info("Updating desired count for service {} from {} to {}", service, ecsService.desiredCount(),
+                    desired);
+            try {
+                ParallelExecutor.withThrottlingRetry(() -> ecs.updateService(request -> request
+                        .cluster(ecsService.clusterArn())
+                        .service(service)
+                        .desiredCount(desired)
+                ));
+                return service;
+            } catch (SdkServiceException ecsError) {
+                LOGGER.error("ecs::UpdateService {}", Utils.getFullStackTrace(ecsError));
+                failed.put(service, String.valueOf(ecsError.getMessage()));
+                return null;
+            }
+        });
+
+        List<String> scaled = new ArrayList<>();
+        for (String service : updated) {
+            if (service != null) {
+                scaled.add(service);
+            }
+        }
+        return new Result(scaled, new TreeMap<>(failed));
+    }
+
+    // Failures name the service by ARN, which ends in the service name
+    static String serviceName(String arn, List<String> services) {
+        if (arn != null) {
+            String name = arn.substring(arn.lastIndexOf('/') + 1);
+            if (services.contains(name)) {
+                return name;
+            }
+        }
+        return String.valueOf(arn);
+    }
+
+    public static final class Result {
+        private final List<String> scaled;
+        private final Map<String, String> failed;
+
+        Result(List<String> scaled, Map<String, String> failed) {
+            this.scaled = Collections.unmodifiableList(scaled);
+            this.failed = Collections.unmodifiableMap(failed);
+        }
+
+        public List<String> getScaled() {
+            return scaled;
+        }
+
+        // Error message for each service that couldn't be described or updated
+        public Map<String, String> getFailed() {
+            return failed;
+        }
+    }
+}
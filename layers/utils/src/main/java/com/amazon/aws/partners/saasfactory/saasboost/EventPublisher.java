@@ -0,0 +1,170 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Buffers EventBridge entries and sends them with as few PutEvents calls as possible. Entries that
+ * EventBridge reports as failed are retried on their own with backoff instead of resending the batch.
+ * Use flushAsync to overlap publishing with the rest of a request and join before returning from the
+ * Lambda handler, work left running after the handler returns may never finish.
+ */
+public class EventPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventPublisher.class);
+    // PutEvents accepts at most 10 entries and 256 KB per request
+    static final int MAX_BATCH_SIZE = 10;
+    static final int MAX_BATCH_BYTES = 256 * 1024;
+    static final int MAX_CONCURRENCY = 4;
+    private final EventBridgeClient eventBridge;
+    private final List<PutEventsRequestEntry> buffer = new ArrayList<>();
+
+    public EventPublisher(EventBridgeClient eventBridge) {
+        this.eventBridge = eventBridge;
+    }
+
+    public void add(PutEventsRequestEntry entry) {
+        synchronized (buffer) {
+            buffer.add(entry);
+        }
+    }
+
+    /**
+     * Sends everything buffered so far. Returns the entries that still failed after retrying.
+     */
+    public List<PutEventsRequestEntry> flush() {
+        List<PutEventsRequestEntry> entries;
+        synchronized (buffer) {
+            entries = new ArrayList<>(buffer);
+            buffer.clear();
+        }
+        return publish(entries);
+    }
+
+    public CompletableFuture<List<PutEventsRequestEntry>> flushAsync() {
+        List<PutEventsRequestEntry> entries;
+        synchronized (buffer) {
+            entries = new ArrayList<>(buffer);
+            buffer.clear();
+        }
+        return CompletableFuture.supplyAsync(() -> publish(entries), ParallelExecutor.POOL);
+    }
+
+    public List<PutEventsRequestEntry> publish(PutEventsRequestEntry entry) {
+        return publish(Collections.singletonList(entry));
+    }
+
+    public List<PutEventsRequestEntry> publish(Collection<PutEventsRequestEntry> entries) {
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<PutEventsRequestEntry> undelivered = new ArrayList<>();
+        ParallelExecutor.map(batches(entries), MAX_CONCURRENCY, this::putEvents).forEach(undelivered::addAll);
+        if (!undelivered.isEmpty()) {
+            LOGGER.error("Failed to put {} of {} events {}", undelivered.size(), entries.size(), undelivered);
+        }
+        return undelivered;
+    }
+
+    // Puts one batch, resending only the entries EventBridge didn't accept
+    private List<PutEventsRequestEntry> putEvents(List<PutEventsRequestEntry> batch) {
+        List<PutEventsRequestEntry> pending = batch;
+        int attempt = 0;
+        while (!pending.isEmpty() && attempt < ParallelExecutor.MAX_ATTEMPTS) {
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(ParallelExecutor.backoffMillis(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            attempt++;
+            final List<PutEventsRequestEntry> request = pending;
+            PutEventsResponse response = ParallelExecutor.withThrottlingRetry(() ->
+                    eventBridge.putEvents(r -> r.entries(request))
+            );
+            if (response.failedEntryCount() == null || response.failedEntryCount() == 0) {
+                LOGGER.info("Put {} events", request.size());
+                pending = Collections.emptyList();
+            } else {
+                // Result entries are in the same order as the request entries
+                List<PutEventsRequestEntry> failed = new ArrayList<>();
+                List<PutEventsResultEntry> results = response.entries();
+                for (int i = 0; i < request.size(); i++) {
+                    PutEventsResultEntry result = i < results.size() ? results.get(i) : null;
+                    if (result == null || result.eventId() == null || result.eventId().isEmpty()) {
+                        LOGGER.warn("Put event failed {}", result);
+                        failed.add(request.get(i));
+                    }
+                }
+                pending = failed;
+            }
+        }
+        return pending;
+    }
+
+    static List<List<PutEventsRequestEntry>> batches(Collection<PutEventsRequestEntry> entries) {
+        List<List<PutEventsRequestEntry>> batches = new ArrayList<>();
+        List<PutEventsRequestEntry> batch = new ArrayList<>();
+        int batchBytes = 0;
+        for (PutEventsRequestEntry entry : entries) {
+            int entryBytes = entrySize(entry);
+            if (!batch.isEmpty() && (batch.size() == MAX_BATCH_SIZE || batchBytes + entryBytes > MAX_BATCH_BYTES)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(entry);
+            batchBytes += entryBytes;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    // How EventBridge sizes an entry against the request limit
+    static int entrySize(PutEventsRequestEntry entry) {
+        int size = entry.time() != null ? 14 : 0;
+        size += utf8Length(entry.source());
+        size += utf8Length(entry.detailType());
+        size += utf8Length(entry.detail());
+        if (entry.hasResources()) {
+            for (String resource : entry.resources()) {
+                size += utf8Length(resource);
+            }
+        }
+        return size;
+    }
+
+    private static int utf8Length(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+}
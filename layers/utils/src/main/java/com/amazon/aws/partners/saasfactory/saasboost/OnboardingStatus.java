@@ -15,6 +15,8 @@
  */
 package com.amazon.aws.partners.saasfactory.saasboost;
 
+// Shared by the onboarding service, which moves onboardings through these, and the tenant
+// service, which finds tenants by the status copied to them
 public enum OnboardingStatus {
     created,
     provisioning,
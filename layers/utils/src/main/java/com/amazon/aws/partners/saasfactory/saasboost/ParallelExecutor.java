@@ -0,0 +1,169 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fans AWS API calls out over a shared thread pool with a bounded number of requests in flight.
+ * Throttling errors are retried with jittered exponential backoff and each throttle shrinks the
+ * concurrency of the running batch so we back off the API instead of hammering it.
+ */
+public final class ParallelExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelExecutor.class);
+    static final int MAX_ATTEMPTS = 8;
+    static final long BASE_DELAY_MILLIS = 100L;
+    static final long MAX_DELAY_MILLIS = 5000L;
+    // Threads are reused across invocations of a warm Lambda container
+    static final ExecutorService POOL = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "saas-boost-parallel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // We shouldn't be instantiated by callers
+    private ParallelExecutor() {
+    }
+
+    public static <T> List<List<T>> partition(Collection<T> items, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+        List<List<T>> batches = new ArrayList<>();
+        List<T> batch = new ArrayList<>(batchSize);
+        for (T item : items) {
+            batch.add(item);
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Applies the request function to every input with at most maxConcurrency requests in flight.
+     * Results are returned in the same order as the inputs regardless of completion order. The first
+     * non-throttling failure cancels the outstanding requests and is rethrown to the caller.
+     */
+    public static <T, R> List<R> map(List<T> inputs, int maxConcurrency, Function<T, R> request) {
+        if (inputs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (inputs.size() == 1 || maxConcurrency < 2) {
+            List<R> results = new ArrayList<>(inputs.size());
+            for (T input : inputs) {
+                results.add(withThrottlingRetry(() -> request.apply(input)));
+            }
+            return results;
+        }
+
+        final Semaphore permits = new Semaphore(maxConcurrency);
+        final AtomicInteger concurrency = new AtomicInteger(maxConcurrency);
+        // Give up one slot for every throttle until we're down to serial requests
+        final Runnable onThrottle = () -> {
+            if (concurrency.get() > 1 && permits.tryAcquire()) {
+                LOGGER.warn("ParallelExecutor::map throttled, reducing concurrency to {}",
+                        concurrency.decrementAndGet());
+            }
+        };
+        List<Future<R>> futures = new ArrayList<>(inputs.size());
+        try {
+            for (T input : inputs) {
+                permits.acquire();
+                futures.add(POOL.submit(() -> {
+                    try {
+                        return invoke(() -> request.apply(input), onThrottle);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<R> results = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException(interrupted);
+        } catch (ExecutionException executionError) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = executionError.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Starts a request on the shared pool so independent calls can overlap. Callers must join the
+     * future before their handler returns since Lambda may freeze work still running after that.
+     */
+    public static <R> CompletableFuture<R> supplyAsync(Supplier<R> request) {
+        return CompletableFuture.supplyAsync(() -> withThrottlingRetry(request), POOL);
+    }
+
+    public static <R> R withThrottlingRetry(Supplier<R> request) {
+        return invoke(request, () -> { });
+    }
+
+    private static <R> R invoke(Supplier<R> request, Runnable onThrottle) {
+        int attempt = 0;
+        while (true) {
+            try {
+                return request.get();
+            } catch (SdkServiceException serviceError) {
+                attempt++;
+                if (!serviceError.isThrottlingException() || attempt >= MAX_ATTEMPTS) {
+                    throw serviceError;
+                }
+                onThrottle.run();
+                long delay = backoffMillis(attempt);
+                LOGGER.warn("Request throttled on attempt {}, retrying in {}ms", attempt, delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw serviceError;
+                }
+            }
+        }
+    }
+
+    // Exponential backoff with full jitter
+    static long backoffMillis(int attempt) {
+        long ceiling = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS * (1L << Math.min(attempt, 16)));
+        return ThreadLocalRandom.current().nextLong(BASE_DELAY_MILLIS, ceiling + 1);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DynamoDbIndexTest {
+
+    @Test
+    public void testIsActive() {
+        TableDescription table = TableDescription.builder()
+                .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder()
+                        .indexName("onboarding")
+                        .indexStatus(IndexStatus.CREATING)
+                        .build())
+                .build();
+        assertFalse(DynamoDbIndex.isActive(table, "onboarding"));
+        assertFalse(DynamoDbIndex.isActive(TableDescription.builder().build(), "onboarding"));
+        assertFalse(DynamoDbIndex.isActive(null, "onboarding"));
+        table = table.toBuilder()
+                .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder()
+                        .indexName("onboarding")
+                        .indexStatus(IndexStatus.ACTIVE)
+                        .build())
+                .build();
+        assertTrue(DynamoDbIndex.isActive(table, "onboarding"));
+        assertFalse(DynamoDbIndex.isActive(table, "tenant_short_id"));
+    }
+
+    @Test
+    public void testRecheckedUntilActive() throws Exception {
+        AtomicInteger describes = new AtomicInteger();
+        IndexStatus[] status = {IndexStatus.CREATING};
+        boolean[] fail = {false};
+        DynamoDbClient ddb = new DynamoDbClient() {
+            @Override
+            public DescribeTableResponse describeTable(DescribeTableRequest request) {
+                describes.incrementAndGet();
+                if (fail[0]) {
+                    throw DynamoDbException.builder().statusCode(500).message("Internal error").build();
+                }
+                return DescribeTableResponse.builder()
+                        .table(TableDescription.builder()
+                                .tableName(request.tableName())
+                                .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder()
+                                        .indexName("onboarding")
+                                        .indexStatus(status[0])
+                                        .build())
+                                .build())
+                        .build();
+            }
+
+            @Override
+            public String serviceName() {
+                return DynamoDbClient.SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        DynamoDbIndex index = new DynamoDbIndex(ddb, "tenants", "onboarding", 50L);
+        assertFalse(index.isActive());
+        // Not looked up again until the recheck interval is up
+        status[0] = IndexStatus.ACTIVE;
+        assertFalse(index.isActive());
+        assertEquals(1, describes.get());
+
+        Thread.sleep(60L);
+        fail[0] = true;
+        assertFalse(index.isActive());
+        assertEquals(2, describes.get());
+
+        Thread.sleep(60L);
+        fail[0] = false;
+        assertTrue(index.isActive());
+        // Once active it's never looked up again
+        Thread.sleep(60L);
+        assertTrue(index.isActive());
+        assertEquals(3, describes.get());
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.ecs.EcsClient;
+import software.amazon.awssdk.services.ecs.model.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class EcsServiceScalerTest {
+
+    @Test
+    public void testScaleUp() {
+        FakeEcs ecs = new FakeEcs();
+        ecs.service("tenant-1", "tenant-1", 0);
+        ecs.service("tenant-2", "tenant-2", 2);
+        ecs.service("tenant-3", "tenant-3", 1);
+        Map<String, Integer> minCounts = new LinkedHashMap<>();
+        minCounts.put("tenant-1", 1);
+        minCounts.put("tenant-2", 1);
+        minCounts.put("tenant-3", 3);
+
+        EcsServiceScaler.Result result = new EcsServiceScaler(ecs, 2).scaleUp(minCounts, Function.identity());
+        assertEquals(Arrays.asList("tenant-1", "tenant-3"), result.getScaled());
+        assertTrue(result.getFailed().isEmpty());
+        // Services already at or above their minimum are left alone
+        assertEquals(Integer.valueOf(1), ecs.desiredCounts.get("tenant-1"));
+        assertEquals(Integer.valueOf(2), ecs.desiredCounts.get("tenant-2"));
+        assertEquals(Integer.valueOf(3), ecs.desiredCounts.get("tenant-3"));
+    }
+
+    @Test
+    public void testScaleDown() {
+        FakeEcs ecs = new FakeEcs();
+        ecs.service("tenant-1", "tenant-1", 2);
+        ecs.service("tenant-2", "tenant-2", 0);
+        Map<String, Integer> desiredCounts = new LinkedHashMap<>();
+        desiredCounts.put("tenant-1", 0);
+        desiredCounts.put("tenant-2", 0);
+
+        EcsServiceScaler.Result result = new EcsServiceScaler(ecs).scaleDown(desiredCounts, Function.identity());
+        assertEquals(Collections.singletonList("tenant-1"), result.getScaled());
+        assertEquals(1, ecs.updates.size());
+        assertEquals(Integer.valueOf(0), ecs.desiredCounts.get("tenant-1"));
+    }
+
+    @Test
+    public void testDescribeBatchedByCluster() {
+        FakeEcs ecs = new FakeEcs();
+        Map<String, Integer> desiredCounts = new LinkedHashMap<>();
+        for (int i = 0; i < 25; i++) {
+            ecs.service("shared-" + i, "shared", 0);
+            desiredCounts.put("shared-" + i, 1);
+        }
+        ecs.service("tenant-1", "tenant-1", 0);
+        desiredCounts.put("tenant-1", 1);
+        Map<String, String> clusters = new HashMap<>();
+        for (String service : desiredCounts.keySet()) {
+            clusters.put(service, service.startsWith("shared") ? "shared" : service);
+        }
+
+        EcsServiceScaler.Result result = new EcsServiceScaler(ecs).scaleUp(desiredCounts, clusters::get);
+        assertEquals(26, result.getScaled().size());
+        // Services in the same cluster share describe calls, services in other clusters don't
+        List<Integer> batchSizes = new ArrayList<>(ecs.describeBatches.get("shared"));
+        Collections.sort(batchSizes);
+        assertEquals(Arrays.asList(5, 10, 10), batchSizes);
+        assertEquals(Collections.singletonList(1), ecs.describeBatches.get("tenant-1"));
+    }
+
+    @Test
+    public void testFailuresReported() {
+        FakeEcs ecs = new FakeEcs();
+        ecs.service("tenant-1", "tenant-1", 0);
+        ecs.service("tenant-3", "tenant-3", 0);
+        ecs.failUpdate = "tenant-3";
+        Map<String, Integer> minCounts = new LinkedHashMap<>();
+        minCounts.put("tenant-1", 1);
+        // Not in the cluster, so DescribeServices returns it as a failure
+        minCounts.put("tenant-2", 1);
+        minCounts.put("tenant-3", 1);
+
+        EcsServiceScaler.Result result = new EcsServiceScaler(ecs).scaleUp(minCounts, Function.identity());
+        assertEquals(Collections.singletonList("tenant-1"), result.getScaled());
+        assertEquals(new HashSet<>(Arrays.asList("tenant-2", "tenant-3")), result.getFailed().keySet());
+        assertEquals("MISSING", result.getFailed().get("tenant-2"));
+    }
+
+    @Test
+    public void testServiceName() {
+        List<String> services = Arrays.asList("tenant-1", "tenant-2");
+        assertEquals("tenant-2", EcsServiceScaler.serviceName(
+                "arn:aws:ecs:us-east-1:123456789012:service/tenant-2/tenant-2", services));
+        assertEquals("tenant-1", EcsServiceScaler.serviceName(
+                "arn:aws:ecs:us-east-1:123456789012:service/tenant-1", services));
+        assertEquals("null", EcsServiceScaler.serviceName(null, services));
+    }
+
+    // Keeps services by name and the cluster they run in
+    static class FakeEcs implements EcsClient {
+        final Map<String, String> clusters = new ConcurrentHashMap<>();
+        final Map<String, Integer> desiredCounts = new ConcurrentHashMap<>();
+        final Map<String, List<Integer>> describeBatches = new ConcurrentHashMap<>();
+        final List<String> updates = Collections.synchronizedList(new ArrayList<>());
+        volatile String failUpdate;
+
+        void service(String service, String cluster, int desiredCount) {
+            clusters.put(service, cluster);
+            desiredCounts.put(service, desiredCount);
+        }
+
+        @Override
+        public DescribeServicesResponse describeServices(DescribeServicesRequest request) {
+            assertTrue(request.services().size() <= EcsServiceScaler.DESCRIBE_BATCH_SIZE);
+            describeBatches.computeIfAbsent(request.cluster(), cluster -> Collections.synchronizedList(
+                    new ArrayList<>())).add(request.services().size());
+            List<Service> services = new ArrayList<>();
+            List<Failure> failures = new ArrayList<>();
+            for (String service : request.services()) {
+                if (request.cluster().equals(clusters.get(service))) {
+                    services.add(Service.builder()
+                            .serviceName(service)
+                            .clusterArn("arn:aws:ecs:us-east-1:123456789012:cluster/" + request.cluster())
+                            .desiredCount(desiredCounts.get(service))
+                            .build());
+                } else {
+                    failures.add(Failure.builder()
+                            .arn("arn:aws:ecs:us-east-1:123456789012:service/" + request.cluster() + "/" + service)
+                            .reason("MISSING")
+                            .build());
+                }
+            }
+            return DescribeServicesResponse.builder().services(services).failures(failures).build();
+        }
+
+        @Override
+        public UpdateServiceResponse updateService(UpdateServiceRequest request) {
+            if (request.service().equals(failUpdate)) {
+                throw SdkServiceException.builder().statusCode(400).message("Service not active").build();
+            }
+            assertTrue(request.cluster().endsWith("cluster/" + clusters.get(request.service())));
+            updates.add(request.service());
+            desiredCounts.put(request.service(), request.desiredCount());
+            return UpdateServiceResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return EcsClient.SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
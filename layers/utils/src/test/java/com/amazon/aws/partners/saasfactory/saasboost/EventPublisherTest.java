@@ -0,0 +1,109 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class EventPublisherTest {
+
+    private static PutEventsRequestEntry entry(int i) {
+        return PutEventsRequestEntry.builder()
+                .eventBusName("test")
+                .source("saas-boost")
+                .detailType("Test Event")
+                .detail("{\"i\":" + i + "}")
+                .build();
+    }
+
+    @Test
+    public void testBatches() {
+        List<PutEventsRequestEntry> entries = IntStream.range(0, 25).mapToObj(EventPublisherTest::entry)
+                .collect(Collectors.toList());
+        List<List<PutEventsRequestEntry>> batches = EventPublisher.batches(entries);
+        assertEquals(3, batches.size());
+        assertEquals(10, batches.get(0).size());
+        assertEquals(5, batches.get(2).size());
+
+        // Large events split batches before the entry count does
+        String detail = "{\"data\":\"" + String.join("", Collections.nCopies(100 * 1024, "x")) + "\"}";
+        List<PutEventsRequestEntry> large = IntStream.range(0, 5)
+                .mapToObj(i -> entry(i).toBuilder().detail(detail).build())
+                .collect(Collectors.toList());
+        batches = EventPublisher.batches(large);
+        assertEquals(3, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(1, batches.get(2).size());
+    }
+
+    @Test
+    public void testFlushRetriesOnlyFailedEntries() {
+        List<Integer> requestSizes = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger(2);
+        EventBridgeClient eventBridge = new EventBridgeClient() {
+            @Override
+            public PutEventsResponse putEvents(PutEventsRequest request) {
+                requestSizes.add(request.entries().size());
+                List<PutEventsResultEntry> results = new ArrayList<>();
+                int failed = 0;
+                for (PutEventsRequestEntry ignored : request.entries()) {
+                    if (failures.getAndDecrement() > 0) {
+                        results.add(PutEventsResultEntry.builder().errorCode("InternalFailure").build());
+                        failed++;
+                    } else {
+                        results.add(PutEventsResultEntry.builder().eventId("id").build());
+                    }
+                }
+                return PutEventsResponse.builder().entries(results).failedEntryCount(failed).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return "events";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        EventPublisher publisher = new EventPublisher(eventBridge);
+        for (int i = 0; i < 10; i++) {
+            publisher.add(entry(i));
+        }
+        assertTrue(publisher.flush().isEmpty());
+        assertEquals(2, requestSizes.size());
+        assertEquals(Integer.valueOf(10), requestSizes.get(0));
+        assertEquals(Integer.valueOf(2), requestSizes.get(1));
+
+        // Nothing left in the buffer
+        requestSizes.clear();
+        assertTrue(publisher.flushAsync().join().isEmpty());
+        assertTrue(requestSizes.isEmpty());
+    }
+}
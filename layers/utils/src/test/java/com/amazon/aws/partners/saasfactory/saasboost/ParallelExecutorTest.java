@@ -0,0 +1,112 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelExecutorTest {
+
+    @Test
+    public void testPartition() {
+        List<Integer> items = IntStream.range(0, 25).boxed().collect(Collectors.toList());
+        List<List<Integer>> batches = ParallelExecutor.partition(items, 10);
+        assertEquals(3, batches.size());
+        assertEquals(10, batches.get(0).size());
+        assertEquals(10, batches.get(1).size());
+        assertEquals(5, batches.get(2).size());
+        assertEquals(Integer.valueOf(20), batches.get(2).get(0));
+
+        assertTrue(ParallelExecutor.partition(new ArrayList<Integer>(), 10).isEmpty());
+        assertEquals(1, ParallelExecutor.partition(items.subList(0, 10), 10).size());
+        assertThrows(IllegalArgumentException.class, () -> ParallelExecutor.partition(items, 0));
+    }
+
+    @Test
+    public void testMapPreservesOrderAndBoundsConcurrency() {
+        List<Integer> inputs = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> results = ParallelExecutor.map(inputs, 4, input -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            return input * 2;
+        });
+        assertEquals(inputs.size(), results.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            assertEquals(Integer.valueOf(i * 2), results.get(i));
+        }
+        assertTrue("At most 4 requests in flight", maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testMapRetriesThrottling() {
+        List<Integer> inputs = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        AtomicInteger throttles = new AtomicInteger(3);
+        List<Integer> results = ParallelExecutor.map(inputs, 5, input -> {
+            if (throttles.getAndDecrement() > 0) {
+                throw SdkServiceException.builder().statusCode(429).message("Rate exceeded").build();
+            }
+            return input;
+        });
+        assertEquals(inputs, results);
+    }
+
+    @Test
+    public void testMapRethrowsFailures() {
+        List<Integer> inputs = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        assertThrows(IllegalStateException.class, () -> ParallelExecutor.map(inputs, 5, input -> {
+            if (input == 7) {
+                throw new IllegalStateException("boom");
+            }
+            return input;
+        }));
+        assertThrows(SdkServiceException.class, () -> ParallelExecutor.map(inputs, 5, input -> {
+            throw SdkServiceException.builder().statusCode(500).message("Internal error").build();
+        }));
+    }
+
+    @Test
+    public void testSupplyAsyncRetriesThrottling() {
+        AtomicInteger throttles = new AtomicInteger(2);
+        CompletableFuture<String> result = ParallelExecutor.supplyAsync(() -> {
+            if (throttles.getAndDecrement() > 0) {
+                throw SdkServiceException.builder().statusCode(429).message("Rate exceeded").build();
+            }
+            return "done";
+        });
+        assertEquals("done", result.join());
+        assertThrows(CompletionException.class, () -> ParallelExecutor.supplyAsync(() -> {
+            throw new IllegalStateException("boom");
+        }).join());
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+/**
+ * Fills the CIDR table with the blocks tenant VPCs are allocated from. Running it again only adds
+ * the blocks that aren't in the table yet, so blocks already claimed by tenants are never written
+ * over and a bigger address plan can be added to an existing table. Blocks written before the
+ * allocation index existed are backfilled so the onboarding service finds them through the index.
+ */
+public class CidrBlockSeeder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CidrBlockSeeder.class);
+    // The most items BatchWriteItem takes in one request
+    static final int MAX_BATCH_SIZE = 25;
+    static final int MAX_CONCURRENCY = 8;
+    static final int MAX_ATTEMPTS = 8;
+    static final long RETRY_DELAY_MILLIS = 50L;
+    // The onboarding service claims available blocks through the allocation index
+    static final String AVAILABLE = "available";
+    // VPCs can be anywhere from /16 to /28
+    static final int MIN_BLOCK_PREFIX_LENGTH = 16;
+    static final int MAX_BLOCK_PREFIX_LENGTH = 28;
+    static final int MAX_BLOCKS = 65536;
+    private final DynamoDbClient ddb;
+    private final String table;
+    private final int maxConcurrency;
+
+    public CidrBlockSeeder(DynamoDbClient ddb, String table, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be greater than 0");
+        }
+        this.ddb = ddb;
+        this.table = table;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Every block of the given prefix length in the address space, for example the 256 /16 blocks
+     * of 10.0.0.0/8 or the 4096 /20 blocks. Blocks are written as the network address without the
+     * prefix length like 10.1.0.0.
+     */
+    public static List<String> cidrBlocks(String addressSpace, int blockPrefixLength) {
+        String[] cidr = addressSpace.trim().split("/");
+        if (cidr.length != 2) {
+            throw new IllegalArgumentException("Invalid address space " + addressSpace);
+        }
+        String[] octets = cidr[0].split("\\.");
+        int prefixLength = Integer.parseInt(cidr[1]);
+        if (octets.length != 4 || prefixLength < 1 || blockPrefixLength < prefixLength
+                || blockPrefixLength < MIN_BLOCK_PREFIX_LENGTH || blockPrefixLength > MAX_BLOCK_PREFIX_LENGTH
+                || blockPrefixLength - prefixLength > Integer.numberOfTrailingZeros(MAX_BLOCKS)) {
+            throw new IllegalArgumentException("Can't divide " + addressSpace + " into /" + blockPrefixLength
+                    + " blocks");
+        }
+        long network = 0;
+        for (String octet : octets) {
+            int value = Integer.parseInt(octet);
+            if (value < 0 || value > 255) {
+                throw new IllegalArgumentException("Invalid address space " + addressSpace);
+            }
+            network = (network << 8) | value;
+        }
+        // Ignore any host bits so 10.1.2.3/8 is the same as 10.0.0.0/8
+        network &= 0xFFFFFFFFL << (32 - prefixLength) & 0xFFFFFFFFL;
+        long blockSize = 1L << (32 - blockPrefixLength);
+        int blocks = 1 << (blockPrefixLength - prefixLength);
+        List<String> cidrBlocks = new ArrayList<>(blocks);
+        for (int i = 0; i < blocks; i++) {
+            long block = network + i * blockSize;
+            cidrBlocks.add(String.format("%d.%d.%d.%d", block >> 24 & 0xFF, block >> 16 & 0xFF, block >> 8 & 0xFF,
+                    block & 0xFF));
+        }
+        return cidrBlocks;
+    }
+
+    /**
+     * Adds any of the blocks that aren't already in the table as available and returns how many were
+     * added. An empty table, which is the usual case at install, is checked with a single item read
+     * instead of a scan.
+     */
+    public int seed(List<String> cidrBlocks) {
+        long startTimeMillis = System.currentTimeMillis();
+        List<String> missing = new ArrayList<>(new LinkedHashSet<>(cidrBlocks));
+        ScanResponse first = ddb.scan(request -> request
+                .tableName(table)
+                .projectionExpression("cidr_block")
+                .limit(1)
+        );
+        if (!first.items().isEmpty()) {
+            Set<String> existing = new HashSet<>();
+            for (Map<String, AttributeValue> item : ddb.scanPaginator(request -> request
+                    .tableName(table)
+                    .projectionExpression("cidr_block")
+            ).items()) {
+                existing.add(item.get("cidr_block").s());
+            }
+            missing.removeAll(existing);
+            LOGGER.info("CIDR table {} is already populated with {} items, {} to add", table, existing.size(),
+                    missing.size());
+        }
+        List<WriteRequest> writes = new ArrayList<>(missing.size());
+        for (String cidrBlock : missing) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("cidr_block", AttributeValue.builder().s(cidrBlock).build());
+            item.put("allocation", AttributeValue.builder().s(AVAILABLE).build());
+            writes.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+        }
+        ParallelExecutor.map(ParallelExecutor.partition(writes, MAX_BATCH_SIZE), maxConcurrency, this::batchWrite);
+        LOGGER.info("Added {} CIDR blocks to {} in {} ms", writes.size(), table,
+                System.currentTimeMillis() - startTimeMillis);
+        return writes.size();
+    }
+
+    /**
+     * Gives every block without an allocation one, available if no tenant has claimed it and
+     * otherwise the tenant's id, and returns how many were updated. Blocks claimed in the meantime
+     * are left alone.
+     */
+    public int backfillAllocations() {
+        long startTimeMillis = System.currentTimeMillis();
+        List<Map<String, AttributeValue>> legacy = new ArrayList<>();
+        for (Map<String, AttributeValue> item : ddb.scanPaginator(request -> request
+                .tableName(table)
+                .filterExpression("attribute_not_exists(allocation)")
+                .projectionExpression("cidr_block, tenant_id")
+        ).items()) {
+            legacy.add(item);
+        }
+        List<Boolean> updated = ParallelExecutor.map(legacy, maxConcurrency, this::backfillAllocation);
+        int count = (int) updated.stream().filter(Boolean.TRUE::equals).count();
+        LOGGER.info("Backfilled the allocation of {} CIDR blocks in {} in {} ms", count, table,
+                System.currentTimeMillis() - startTimeMillis);
+        return count;
+    }
+
+    private Boolean backfillAllocation(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> key = Collections.singletonMap("cidr_block", item.get("cidr_block"));
+        try {
+            if (item.containsKey("tenant_id")) {
+                ParallelExecutor.withThrottlingRetry(() -> ddb.updateItem(request -> request
+                        .tableName(table)
+                        .key(key)
+                        .updateExpression("SET allocation = tenant_id")
+                        .conditionExpression("attribute_exists(tenant_id) AND attribute_not_exists(allocation)")
+                ));
+            } else {
+                ParallelExecutor.withThrottlingRetry(() -> ddb.updateItem(request -> request
+                        .tableName(table)
+                        .key(key)
+                        .updateExpression("SET allocation = :available")
+                        .conditionExpression("attribute_exists(cidr_block) AND attribute_not_exists(tenant_id) "
+                                + "AND attribute_not_exists(allocation)")
+                        .expressionAttributeValues(Collections.singletonMap(":available",
+                                AttributeValue.builder().s(AVAILABLE).build()))
+                ));
+            }
+            return Boolean.TRUE;
+        } catch (ConditionalCheckFailedException claimed) {
+            return Boolean.FALSE;
+        }
+    }
+
+    // BatchWriteItem can succeed without writing everything, so keep sending what's left. Only the
+    // unprocessed items are sent again because the others may have been claimed already.
+    private Integer batchWrite(List<WriteRequest> batch) {
+        Map<String, List<WriteRequest>> requestItems = Collections.singletonMap(table, batch);
+        for (int attempt = 1; ; attempt++) {
+            final Map<String, List<WriteRequest>> items = requestItems;
+            BatchWriteItemResponse response = ParallelExecutor.withThrottlingRetry(() -> ddb.batchWriteItem(
+                    request -> request.requestItems(items)
+            ));
+            if (response.unprocessedItems().isEmpty()) {
+                return batch.size();
+            }
+            requestItems = response.unprocessedItems();
+            int unprocessed = requestItems.values().stream().mapToInt(List::size).sum();
+            if (attempt >= MAX_ATTEMPTS) {
+                throw new RuntimeException("Unable to write " + unprocessed + " CIDR blocks to " + table);
+            }
+            LOGGER.warn("Retrying {} unprocessed CIDR blocks for {}", unprocessed, table);
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS * (1L << attempt));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(interrupted);
+            }
+        }
+    }
+}
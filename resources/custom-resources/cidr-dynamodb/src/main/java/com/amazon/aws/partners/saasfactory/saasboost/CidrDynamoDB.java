@@ -22,7 +22,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
@@ -30,12 +30,13 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class CidrDynamoDB implements RequestHandler<Map<String, Object>, Object> {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(CidrDynamoDB.class);
+    static final String DEFAULT_ADDRESS_SPACE = "10.0.0.0/8";
+    // The tenant stack builds a /16 VPC from the first two octets of the block
+    static final int TENANT_VPC_PREFIX_LENGTH = 16;
     private DynamoDbClient ddb;
 
     public CidrDynamoDB() {
@@ -51,6 +52,11 @@ public class CidrDynamoDB implements RequestHandler<Map<String, Object>, Object>
         final String requestType = (String) event.get("RequestType");
         Map<String, Object> resourceProperties = (Map<String, Object>) event.get("ResourceProperties");
         final String table = (String) resourceProperties.get("Table");
+        // Comma separated list of address spaces to carve tenant VPCs out of
+        final String addressSpaces = Utils.isNotBlank((String) resourceProperties.get("AddressSpaces"))
+                ? (String) resourceProperties.get("AddressSpaces") : DEFAULT_ADDRESS_SPACE;
+        // Onboardings from before the tenant index need the short id it's keyed on
+        final String onboardingTable = (String) resourceProperties.get("OnboardingTable");
 
         ExecutorService service = Executors.newSingleThreadExecutor();
         ObjectNode responseData = JsonNodeFactory.instance.objectNode();
@@ -59,43 +65,33 @@ public class CidrDynamoDB implements RequestHandler<Map<String, Object>, Object>
                 if ("Create".equalsIgnoreCase(requestType) || "Update".equalsIgnoreCase(requestType)) {
                     LOGGER.info("CREATE or UPDATE");
                     try {
-                        ScanResponse scan = ddb.scan(request -> request.tableName(table));
-                        if (scan.hasItems() && !scan.items().isEmpty()) { // ScanResponse::hasItems will return true even with an empty list
-                            LOGGER.info("CIDR table {} is already populated with {} items", table, scan.count());
-                        } else {
-                            LOGGER.info("Populating CIDR table");
-                            final int batchWriteItemLimit = 25;
-                            final int maxOctet = 255;
-                            int octet = -1;
-                            List<WriteRequest> batch = new ArrayList<>();
-                            while (octet <= maxOctet) {
-                                octet++;
-                                if (batch.size() == batchWriteItemLimit || octet > maxOctet) {
-                                    try {
-                                        Map<String, Collection<WriteRequest>> putRequests = new HashMap<>();
-                                        putRequests.put(table, batch);
-                                        BatchWriteItemResponse write = ddb.batchWriteItem(request -> request.requestItems(putRequests));
-                                        batch.clear();
-                                    } catch (Exception e) {
-                                        LOGGER.error(Utils.getFullStackTrace(e));
-                                        responseData.put("Reason", "DynamoDB::BatchWriteItem Error " + e.getMessage());
-                                        sendResponse(event, context, "FAILED", responseData);
-                                    }
-                                }
-                                String cidr = String.format("10.%d.0.0", octet);
-                                WriteRequest putRequest = WriteRequest.builder()
-                                        .putRequest(request -> request.item(Stream
-                                                .of(new AbstractMap.SimpleEntry<String, AttributeValue>("cidr_block", AttributeValue.builder().s(cidr).build()))
-                                                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
-                                        ).build();
-                                batch.add(putRequest);
-                            }
+                        List<String> cidrBlocks = new ArrayList<>();
+                        for (String addressSpace : addressSpaces.split(",")) {
+                            cidrBlocks.addAll(CidrBlockSeeder.cidrBlocks(addressSpace, TENANT_VPC_PREFIX_LENGTH));
+                        }
+                        CidrBlockSeeder seeder = new CidrBlockSeeder(ddb, table, CidrBlockSeeder.MAX_CONCURRENCY);
+                        int added = seeder.seed(cidrBlocks);
+                        responseData.put("CidrBlocks", cidrBlocks.size());
+                        responseData.put("Added", added);
+                        // Blocks from before the allocation index aren't in it until they have an allocation
+                        responseData.put("Backfilled", seeder.backfillAllocations());
+                        if (Utils.isNotBlank(onboardingTable)) {
+                            int backfilled = new OnboardingBackfill(ddb, onboardingTable,
+                                    OnboardingBackfill.MAX_CONCURRENCY).backfill();
+                            responseData.put("Onboardings", backfilled);
                         }
                     } catch (DynamoDbException e) {
-                        LOGGER.error("DynamoDB::Scan Error " + e.getMessage());
+                        LOGGER.error("DynamoDB::Scan | DynamoDB::BatchWriteItem | DynamoDB::UpdateItem Error "
+                                + e.getMessage());
                         LOGGER.error(Utils.getFullStackTrace(e));
-                        responseData.put("Reason", "DynamoDB::Scan Error " + e.getMessage());
+                        responseData.put("Reason", "DynamoDB Error " + e.getMessage());
+                        sendResponse(event, context, "FAILED", responseData);
+                        return;
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.error(e.getMessage());
+                        responseData.put("Reason", e.getMessage());
                         sendResponse(event, context, "FAILED", responseData);
+                        return;
                     }
                     sendResponse(event, context, "SUCCESS", responseData);
                 } else if ("Delete".equalsIgnoreCase(requestType)) {
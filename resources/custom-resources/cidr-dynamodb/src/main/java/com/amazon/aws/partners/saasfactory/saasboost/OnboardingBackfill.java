@@ -0,0 +1,91 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.util.*;
+
+/**
+ * Gives onboardings written before the onboarding table had its tenant index the tenant short id
+ * the index is keyed on. The onboarding service only queries the index once it's active, so this
+ * runs on every stack update rather than waiting for each tenant to be looked up.
+ */
+public class OnboardingBackfill {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OnboardingBackfill.class);
+    static final int MAX_CONCURRENCY = 8;
+    private final DynamoDbClient ddb;
+    private final String table;
+    private final int maxConcurrency;
+
+    public OnboardingBackfill(DynamoDbClient ddb, String table, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be greater than 0");
+        }
+        this.ddb = ddb;
+        this.table = table;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    // The first group of the tenant id, which is all a tenant's CodePipeline name carries
+    static String tenantShortId(String tenantId) {
+        int dash = tenantId.indexOf('-');
+        return dash < 0 ? tenantId : tenantId.substring(0, dash);
+    }
+
+    /**
+     * Adds the short id to every onboarding with a tenant id but no short id and returns how many
+     * were updated. An onboarding written by the service in the meantime already has one and is
+     * left alone.
+     */
+    public int backfill() {
+        long startTimeMillis = System.currentTimeMillis();
+        List<Map<String, AttributeValue>> legacy = new ArrayList<>();
+        for (Map<String, AttributeValue> item : ddb.scanPaginator(request -> request
+                .tableName(table)
+                .filterExpression("attribute_exists(tenant_id) AND attribute_not_exists(tenant_short_id)")
+                .projectionExpression("id, tenant_id")
+        ).items()) {
+            legacy.add(item);
+        }
+        List<Boolean> updated = ParallelExecutor.map(legacy, maxConcurrency, item -> {
+            Map<String, AttributeValue> key = Collections.singletonMap("id", item.get("id"));
+            try {
+                ParallelExecutor.withThrottlingRetry(() -> ddb.updateItem(request -> request
+                        .tableName(table)
+                        .key(key)
+                        .updateExpression("SET tenant_short_id = :shortId")
+                        .conditionExpression("attribute_exists(id) AND attribute_not_exists(tenant_short_id)")
+                        .expressionAttributeValues(Collections.singletonMap(":shortId",
+                                AttributeValue.builder().s(tenantShortId(item.get("tenant_id").s())).build()))
+                ));
+                return Boolean.TRUE;
+            } catch (ConditionalCheckFailedException e) {
+                // Deleted or updated since the scan
+                return Boolean.FALSE;
+            }
+        });
+        int count = (int) updated.stream().filter(Boolean.TRUE::equals).count();
+        LOGGER.info("Added tenant short ids to {} onboardings in {} in {} ms", count, table,
+                System.currentTimeMillis() - startTimeMillis);
+        return count;
+    }
+}
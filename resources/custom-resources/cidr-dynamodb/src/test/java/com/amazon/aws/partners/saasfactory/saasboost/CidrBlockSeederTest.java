@@ -0,0 +1,216 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanIterable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CidrBlockSeederTest {
+
+    @Test
+    public void testCidrBlocks() {
+        List<String> blocks = CidrBlockSeeder.cidrBlocks("10.0.0.0/8", 16);
+        assertEquals(256, blocks.size());
+        assertEquals("10.0.0.0", blocks.get(0));
+        assertEquals("10.255.0.0", blocks.get(255));
+
+        blocks = CidrBlockSeeder.cidrBlocks("10.0.0.0/8", 20);
+        assertEquals(4096, blocks.size());
+        assertEquals("10.0.16.0", blocks.get(1));
+        assertEquals("10.255.240.0", blocks.get(4095));
+
+        assertEquals(Arrays.asList("172.16.0.0", "172.17.0.0"), CidrBlockSeeder.cidrBlocks(" 172.16.1.1/15", 16));
+    }
+
+    @Test
+    public void testInvalidAddressSpace() {
+        for (String addressSpace : new String[] {"10.0.0.0", "10.0.0/8", "10.0.0.256/8", "ten/8"}) {
+            try {
+                CidrBlockSeeder.cidrBlocks(addressSpace, 16);
+                fail("Expected " + addressSpace + " to be invalid");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+        try {
+            // Smaller than the address space
+            CidrBlockSeeder.cidrBlocks("10.0.0.0/16", 8);
+            fail("Expected /8 blocks of a /16 to be invalid");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testSeedEmptyTable() {
+        FakeDynamoDb ddb = new FakeDynamoDb();
+        ddb.partialWrites.set(5);
+        List<String> blocks = CidrBlockSeeder.cidrBlocks("10.0.0.0/8", 20);
+        assertEquals(4096, new CidrBlockSeeder(ddb, "cidr", 8).seed(blocks));
+        assertEquals(4096, ddb.items.size());
+        assertEquals("available", ddb.items.get("10.0.16.0").get("allocation").s());
+        // An empty table is only checked with a single item read
+        assertEquals(0, ddb.fullScans.get());
+        assertTrue(ddb.maxInFlight.get() <= 8);
+    }
+
+    @Test
+    public void testSeedIsIdempotent() {
+        FakeDynamoDb ddb = new FakeDynamoDb();
+        List<String> blocks = CidrBlockSeeder.cidrBlocks("10.0.0.0/8", 16);
+        CidrBlockSeeder seeder = new CidrBlockSeeder(ddb, "cidr", 4);
+        assertEquals(256, seeder.seed(blocks));
+
+        // A tenant claims a block and the resource is updated
+        Map<String, AttributeValue> claimed = new HashMap<>(ddb.items.get("10.1.0.0"));
+        claimed.put("allocation", AttributeValue.builder().s("tenant-1").build());
+        ddb.items.put("10.1.0.0", claimed);
+        int writes = ddb.writeCalls.get();
+        assertEquals(0, seeder.seed(blocks));
+        assertEquals(writes, ddb.writeCalls.get());
+        assertEquals("tenant-1", ddb.items.get("10.1.0.0").get("allocation").s());
+
+        // Growing the pool only adds the new blocks
+        List<String> more = new ArrayList<>(blocks);
+        more.addAll(CidrBlockSeeder.cidrBlocks("172.16.0.0/12", 16));
+        assertEquals(16, seeder.seed(more));
+        assertEquals(272, ddb.items.size());
+        assertEquals("tenant-1", ddb.items.get("10.1.0.0").get("allocation").s());
+    }
+
+    @Test
+    public void testBackfillAllocations() {
+        FakeDynamoDb ddb = new FakeDynamoDb();
+        CidrBlockSeeder seeder = new CidrBlockSeeder(ddb, "cidr", 4);
+        seeder.seed(CidrBlockSeeder.cidrBlocks("10.0.0.0/8", 16));
+        // Written before the allocation index, one of them claimed by a tenant
+        Map<String, AttributeValue> unclaimed = new HashMap<>(ddb.items.get("10.1.0.0"));
+        unclaimed.remove("allocation");
+        ddb.items.put("10.1.0.0", unclaimed);
+        Map<String, AttributeValue> claimed = new HashMap<>(ddb.items.get("10.2.0.0"));
+        claimed.remove("allocation");
+        claimed.put("tenant_id", AttributeValue.builder().s("tenant-1").build());
+        ddb.items.put("10.2.0.0", claimed);
+
+        assertEquals(2, seeder.backfillAllocations());
+        assertEquals(CidrBlockSeeder.AVAILABLE, ddb.items.get("10.1.0.0").get("allocation").s());
+        assertEquals("tenant-1", ddb.items.get("10.2.0.0").get("allocation").s());
+        assertEquals(CidrBlockSeeder.AVAILABLE, ddb.items.get("10.3.0.0").get("allocation").s());
+
+        // Nothing left to do on the next stack update
+        assertEquals(0, seeder.backfillAllocations());
+    }
+
+    // Leaves the last item of the first few requests unprocessed like a throttled table
+    static class FakeDynamoDb implements DynamoDbClient {
+        final Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+        final AtomicInteger partialWrites = new AtomicInteger();
+        final AtomicInteger writeCalls = new AtomicInteger();
+        final AtomicInteger fullScans = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+            writeCalls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Map<String, List<WriteRequest>> unprocessed = new HashMap<>();
+                for (Map.Entry<String, List<WriteRequest>> table : request.requestItems().entrySet()) {
+                    assertTrue(table.getValue().size() <= 25);
+                    List<WriteRequest> writes = table.getValue();
+                    if (writes.size() > 1 && partialWrites.getAndDecrement() > 0) {
+                        unprocessed.put(table.getKey(), writes.subList(writes.size() - 1, writes.size()));
+                        writes = writes.subList(0, writes.size() - 1);
+                    }
+                    for (WriteRequest write : writes) {
+                        Map<String, AttributeValue> item = write.putRequest().item();
+                        items.put(item.get("cidr_block").s(), item);
+                    }
+                }
+                return BatchWriteItemResponse.builder().unprocessedItems(unprocessed).build();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public ScanResponse scan(ScanRequest request) {
+            if ("attribute_not_exists(allocation)".equals(request.filterExpression())) {
+                List<Map<String, AttributeValue>> page = new ArrayList<>();
+                for (Map<String, AttributeValue> item : items.values()) {
+                    if (!item.containsKey("allocation")) {
+                        Map<String, AttributeValue> projected = new HashMap<>();
+                        projected.put("cidr_block", item.get("cidr_block"));
+                        if (item.containsKey("tenant_id")) {
+                            projected.put("tenant_id", item.get("tenant_id"));
+                        }
+                        page.add(projected);
+                    }
+                }
+                return ScanResponse.builder().items(page).count(page.size()).build();
+            }
+            List<Map<String, AttributeValue>> page = new ArrayList<>();
+            for (Map<String, AttributeValue> item : items.values()) {
+                if (request.limit() != null && page.size() == request.limit()) {
+                    break;
+                }
+                page.add(Collections.singletonMap("cidr_block", item.get("cidr_block")));
+            }
+            if (request.limit() == null) {
+                fullScans.incrementAndGet();
+            }
+            return ScanResponse.builder().items(page).count(page.size()).build();
+        }
+
+        @Override
+        public synchronized UpdateItemResponse updateItem(UpdateItemRequest request) {
+            Map<String, AttributeValue> item = items.get(request.key().get("cidr_block").s());
+            if (item == null || item.containsKey("allocation")) {
+                throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+            }
+            if ("SET allocation = tenant_id".equals(request.updateExpression())) {
+                item.put("allocation", item.get("tenant_id"));
+            } else {
+                assertFalse(item.containsKey("tenant_id"));
+                item.put("allocation", request.expressionAttributeValues().get(":available"));
+            }
+            return UpdateItemResponse.builder().build();
+        }
+
+        @Override
+        public ScanIterable scanPaginator(ScanRequest request) {
+            return new ScanIterable(this, request);
+        }
+
+        @Override
+        public String serviceName() {
+            return DynamoDbClient.SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
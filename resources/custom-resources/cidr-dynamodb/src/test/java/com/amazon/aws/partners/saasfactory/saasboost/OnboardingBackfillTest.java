@@ -0,0 +1,114 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanIterable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class OnboardingBackfillTest {
+
+    @Test
+    public void testTenantShortId() {
+        assertEquals("d1c1e3cc", OnboardingBackfill.tenantShortId("d1c1e3cc-962f-4f03-b4a8-d8a7c1f986c3"));
+        assertEquals("d1c1e3cc", OnboardingBackfill.tenantShortId("d1c1e3cc"));
+    }
+
+    @Test
+    public void testBackfill() {
+        FakeDynamoDb ddb = new FakeDynamoDb();
+        ddb.onboarding("1", "d1c1e3cc-962f-4f03-b4a8-d8a7c1f986c3", null);
+        ddb.onboarding("2", "a8e2c0d1-4f1e-4d7b-9d0c-2f3b9e1c7a55", "a8e2c0d1");
+        // Not far enough along to have a tenant yet
+        ddb.onboarding("3", null, null);
+        ddb.onboarding("4", "5b0f4c2e-1d3a-4e8f-8c7b-6a9d2e1f0b3c", null);
+
+        OnboardingBackfill backfill = new OnboardingBackfill(ddb, "onboarding", 2);
+        assertEquals(2, backfill.backfill());
+        assertEquals("d1c1e3cc", ddb.items.get("1").get("tenant_short_id").s());
+        assertEquals("5b0f4c2e", ddb.items.get("4").get("tenant_short_id").s());
+        assertFalse(ddb.items.get("3").containsKey("tenant_short_id"));
+
+        // Running it again on the next stack update has nothing to do
+        assertEquals(0, backfill.backfill());
+        assertEquals(2, ddb.updates);
+    }
+
+    // Applies the backfill's scan filter and update condition to onboarding items kept by id
+    static class FakeDynamoDb implements DynamoDbClient {
+        final Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+        volatile int updates;
+
+        void onboarding(String id, String tenantId, String shortId) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("id", AttributeValue.builder().s(id).build());
+            if (tenantId != null) {
+                item.put("tenant_id", AttributeValue.builder().s(tenantId).build());
+            }
+            if (shortId != null) {
+                item.put("tenant_short_id", AttributeValue.builder().s(shortId).build());
+            }
+            items.put(id, item);
+        }
+
+        @Override
+        public ScanResponse scan(ScanRequest request) {
+            assertEquals("attribute_exists(tenant_id) AND attribute_not_exists(tenant_short_id)",
+                    request.filterExpression());
+            List<Map<String, AttributeValue>> page = new ArrayList<>();
+            for (Map<String, AttributeValue> item : items.values()) {
+                if (item.containsKey("tenant_id") && !item.containsKey("tenant_short_id")) {
+                    Map<String, AttributeValue> projected = new HashMap<>();
+                    projected.put("id", item.get("id"));
+                    projected.put("tenant_id", item.get("tenant_id"));
+                    page.add(projected);
+                }
+            }
+            return ScanResponse.builder().items(page).count(page.size()).build();
+        }
+
+        @Override
+        public ScanIterable scanPaginator(ScanRequest request) {
+            return new ScanIterable(this, request);
+        }
+
+        @Override
+        public synchronized UpdateItemResponse updateItem(UpdateItemRequest request) {
+            Map<String, AttributeValue> item = items.get(request.key().get("id").s());
+            if (item == null || item.containsKey("tenant_short_id")) {
+                throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+            }
+            updates++;
+            item.put("tenant_short_id", request.expressionAttributeValues().get(":shortId"));
+            return UpdateItemResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return DynamoDbClient.SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
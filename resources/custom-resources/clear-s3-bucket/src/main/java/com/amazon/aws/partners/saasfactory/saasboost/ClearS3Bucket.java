@@ -29,14 +29,13 @@ import java.io.OutputStreamWriter;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 
 public class ClearS3Bucket implements RequestHandler<Map<String, Object>, Object> {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(ClearS3Bucket.class);
+    private final static int MAX_CONCURRENT_DELETES = 4;
     private final S3Client s3;
 
     public ClearS3Bucket() throws URISyntaxException {
@@ -64,95 +63,17 @@ public class ClearS3Bucket implements RequestHandler<Map<String, Object>, Object
                 } else if ("Delete".equalsIgnoreCase(requestType)) {
                     LOGGER.info("DELETE");
 
-                    // The list of objects in the bucket to delete
-                    List<ObjectIdentifier> toDelete = new ArrayList<>();
-
                     // Is the bucket versioned?
                     GetBucketVersioningResponse versioningResponse = s3.getBucketVersioning(request -> request.bucket(bucket));
-                    if (BucketVersioningStatus.ENABLED == versioningResponse.status() || BucketVersioningStatus.SUSPENDED == versioningResponse.status()) {
-                        LOGGER.info("Bucket " + bucket + " is versioned (" + versioningResponse.status() + ")");
-                        ListObjectVersionsResponse response;
-                        String keyMarker = null;
-                        String versionIdMarker = null;
-                        do {
-                            ListObjectVersionsRequest request;
-                            if (Utils.isNotBlank(keyMarker) && Utils.isNotBlank(versionIdMarker)) {
-                                request = ListObjectVersionsRequest.builder()
-                                        .bucket(bucket)
-                                        .keyMarker(keyMarker)
-                                        .versionIdMarker(versionIdMarker)
-                                        .build();
-                            } else if (Utils.isNotBlank(keyMarker)) {
-                                request = ListObjectVersionsRequest.builder()
-                                        .bucket(bucket)
-                                        .keyMarker(keyMarker)
-                                        .build();
-                            } else {
-                                request = ListObjectVersionsRequest.builder()
-                                        .bucket(bucket)
-                                        .build();
-                            }
-                            response = s3.listObjectVersions(request);
-                            keyMarker = response.nextKeyMarker();
-                            versionIdMarker = response.nextVersionIdMarker();
-                            response.versions()
-                                    .stream()
-                                    .map(version ->
-                                        ObjectIdentifier.builder()
-                                                .key(version.key())
-                                                .versionId(version.versionId())
-                                                .build()
-                                    )
-                                    .forEachOrdered(toDelete::add);
-                        } while (response.isTruncated());
-                    } else {
-                        LOGGER.info("Bucket " + bucket + " is not versioned (" + versioningResponse.status() + ")");
-                        ListObjectsV2Response response;
-                        String token = null;
-                        do {
-                            ListObjectsV2Request request;
-                            if (Utils.isNotBlank(token)) {
-                                request = ListObjectsV2Request.builder()
-                                        .bucket(bucket)
-                                        .continuationToken(token)
-                                        .build();
-                            } else {
-                                request = ListObjectsV2Request.builder()
-                                        .bucket(bucket)
-                                        .build();
-                            }
-                            response = s3.listObjectsV2(request);
-                            token = response.nextContinuationToken();
-                            response.contents()
-                                    .stream()
-                                    .map(obj ->
-                                            ObjectIdentifier.builder()
-                                                    .key(obj.key())
-                                                    .build()
-                                    )
-                                    .forEachOrdered(toDelete::add);
-                        } while (response.isTruncated());
-                    }
-                    if (!toDelete.isEmpty()) {
-                        LOGGER.info("Deleting " + toDelete.size() + " objects");
-                        final int maxBatchSize = 1000;
-                        int batchStart = 0;
-                        int batchEnd = 0;
-                        while (batchEnd < toDelete.size()) {
-                            batchStart = batchEnd;
-                            batchEnd += maxBatchSize;
-                            if (batchEnd > toDelete.size()) {
-                                batchEnd = toDelete.size();
-                            }
-                            Delete delete = Delete.builder()
-                                    .objects(toDelete.subList(batchStart, batchEnd))
-                                    .build();
-                            DeleteObjectsResponse deleteResponse = s3.deleteObjects(builder -> builder
-                                    .bucket(bucket)
-                                    .delete(delete)
-                            );
-                            LOGGER.info("Cleaned up " + deleteResponse.deleted().size() + " objects in bucket " + bucket);
-                        }
+                    boolean versioned = BucketVersioningStatus.ENABLED == versioningResponse.status()
+                            || BucketVersioningStatus.SUSPENDED == versioningResponse.status();
+                    LOGGER.info("Bucket " + bucket + " is " + (versioned ? "" : "not ") + "versioned ("
+                            + versioningResponse.status() + ")");
+
+                    // Each page of the bucket listing is deleted while the next one is listed
+                    long deleted = new S3BucketPurger(s3, MAX_CONCURRENT_DELETES).purge(bucket, versioned);
+                    if (deleted > 0) {
+                        LOGGER.info("Cleaned up " + deleted + " objects in bucket " + bucket);
                     } else {
                         LOGGER.info("Bucket " + bucket + " is empty. No objects to clean up.");
                     }
@@ -0,0 +1,187 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Empties a bucket so CloudFormation can delete it. Each page of the listing is at most 1000 keys,
+ * which is also the most DeleteObjects takes, so every page is deleted as soon as it's listed while
+ * the next page is fetched. Only a few pages are held in memory at once no matter how big the bucket.
+ */
+public class S3BucketPurger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(S3BucketPurger.class);
+    // The most keys DeleteObjects takes in one request
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int MAX_ATTEMPTS = 5;
+    static final long RETRY_DELAY_MILLIS = 200L;
+    private final S3Client s3;
+    private final int maxConcurrency;
+
+    public S3BucketPurger(S3Client s3, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be greater than 0");
+        }
+        this.s3 = s3;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Deletes every object in the bucket, or every version and delete marker if the bucket has ever
+     * been versioned. Returns how many were deleted.
+     */
+    public long purge(String bucket, boolean versioned) {
+        final AtomicLong deleted = new AtomicLong();
+        final Semaphore inFlight = new Semaphore(maxConcurrency);
+        final List<CompletableFuture<Integer>> batches = new ArrayList<>();
+        try {
+            if (versioned) {
+                for (ListObjectVersionsResponse page : s3.listObjectVersionsPaginator(request -> request
+                        .bucket(bucket))) {
+                    List<ObjectIdentifier> objects = new ArrayList<>();
+                    for (ObjectVersion version : page.versions()) {
+                        objects.add(ObjectIdentifier.builder()
+                                .key(version.key())
+                                .versionId(version.versionId())
+                                .build());
+                    }
+                    // A bucket with delete markers left in it can't be deleted either
+                    for (DeleteMarkerEntry marker : page.deleteMarkers()) {
+                        objects.add(ObjectIdentifier.builder()
+                                .key(marker.key())
+                                .versionId(marker.versionId())
+                                .build());
+                    }
+                    submit(bucket, objects, inFlight, deleted, batches);
+                }
+            } else {
+                for (ListObjectsV2Response page : s3.listObjectsV2Paginator(request -> request.bucket(bucket))) {
+                    List<ObjectIdentifier> objects = new ArrayList<>();
+                    for (S3Object object : page.contents()) {
+                        objects.add(ObjectIdentifier.builder().key(object.key()).build());
+                    }
+                    submit(bucket, objects, inFlight, deleted, batches);
+                }
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(interrupted);
+        } finally {
+            // Let any batches still running finish before we report back
+            for (CompletableFuture<Integer> batch : batches) {
+                batch.handle((count, error) -> count).join();
+            }
+        }
+        for (CompletableFuture<Integer> batch : batches) {
+            join(batch);
+        }
+        return deleted.get();
+    }
+
+    private void submit(String bucket, List<ObjectIdentifier> page, Semaphore inFlight, AtomicLong deleted,
+                        List<CompletableFuture<Integer>> batches) throws InterruptedException {
+        for (List<ObjectIdentifier> objects : ParallelExecutor.partition(page, MAX_BATCH_SIZE)) {
+            submitBatch(bucket, objects, inFlight, deleted, batches);
+        }
+    }
+
+    private void submitBatch(String bucket, List<ObjectIdentifier> objects, Semaphore inFlight, AtomicLong deleted,
+                             List<CompletableFuture<Integer>> batches) throws InterruptedException {
+        // Stop listing until a delete finishes so we never hold more than a few pages
+        inFlight.acquire();
+        CompletableFuture<Integer> batch = ParallelExecutor.supplyAsync(() -> deleteObjects(bucket, objects))
+                .whenComplete((count, error) -> {
+                    inFlight.release();
+                    if (count != null) {
+                        deleted.addAndGet(count);
+                    }
+                });
+        // Drop the finished ones so the futures don't pile up on a very large bucket, and stop listing
+        // as soon as a batch has failed
+        batches.removeIf(previous -> previous.isDone() && !previous.isCompletedExceptionally());
+        for (CompletableFuture<Integer> previous : batches) {
+            if (previous.isCompletedExceptionally()) {
+                join(previous);
+            }
+        }
+        batches.add(batch);
+    }
+
+    private static void join(CompletableFuture<Integer> batch) {
+        try {
+            batch.join();
+        } catch (CompletionException failed) {
+            Throwable cause = failed.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Deletes up to 1000 objects, retrying just the keys S3 reports errors for since DeleteObjects can
+     * partially succeed.
+     */
+    int deleteObjects(String bucket, List<ObjectIdentifier> objects) {
+        List<ObjectIdentifier> remaining = objects;
+        for (int attempt = 1; ; attempt++) {
+            final List<ObjectIdentifier> batch = remaining;
+            DeleteObjectsResponse response = s3.deleteObjects(request -> request
+                    .bucket(bucket)
+                    .delete(Delete.builder().objects(batch).quiet(true).build())
+            );
+            if (response.errors().isEmpty()) {
+                LOGGER.info("Cleaned up {} objects in bucket {}", objects.size(), bucket);
+                return objects.size();
+            }
+            S3Error error = response.errors().get(0);
+            if (attempt >= MAX_ATTEMPTS) {
+                throw new RuntimeException("Error deleting " + response.errors().size() + " objects from bucket "
+                        + bucket + " " + error.key() + " " + error.code() + " " + error.message());
+            }
+            LOGGER.warn("Retrying {} of {} objects in bucket {} {}", response.errors().size(), batch.size(),
+                    bucket, error.code());
+            Set<String> failed = new HashSet<>();
+            for (S3Error s3Error : response.errors()) {
+                failed.add(s3Error.key() + "\n" + s3Error.versionId());
+            }
+            remaining = new ArrayList<>();
+            for (ObjectIdentifier object : batch) {
+                if (failed.contains(object.key() + "\n" + object.versionId())) {
+                    remaining.add(object);
+                }
+            }
+            if (remaining.isEmpty()) {
+                throw new RuntimeException("Error deleting objects from bucket " + bucket + " " + error.code()
+                        + " " + error.message());
+            }
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS * (1L << attempt));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(interrupted);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectVersionsIterable;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class S3BucketPurgerTest {
+
+    @Test
+    public void testPurge() {
+        FakeS3 s3 = new FakeS3(2500, 0);
+        long deleted = new S3BucketPurger(s3, 2).purge("bucket", false);
+        assertEquals(2500, deleted);
+        assertEquals(2500, s3.deleted.size());
+        assertEquals(3, s3.deleteCalls.get());
+        assertTrue(s3.maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void testPurgeVersioned() {
+        FakeS3 s3 = new FakeS3(1200, 300);
+        long deleted = new S3BucketPurger(s3, 4).purge("bucket", true);
+        assertEquals(1500, deleted);
+        assertTrue(s3.deleted.contains("marker-0\nm0"));
+        assertTrue(s3.deleted.contains("key-0\nv0"));
+    }
+
+    @Test
+    public void testPurgeEmpty() {
+        FakeS3 s3 = new FakeS3(0, 0);
+        assertEquals(0, new S3BucketPurger(s3, 4).purge("bucket", false));
+        assertEquals(0, s3.deleteCalls.get());
+    }
+
+    @Test
+    public void testPartialFailureRetried() {
+        FakeS3 s3 = new FakeS3(10, 0);
+        s3.failOnce.add("key-3\nnull");
+        s3.failOnce.add("key-7\nnull");
+        S3BucketPurger purger = new S3BucketPurger(s3, 1);
+        assertEquals(10, purger.purge("bucket", false));
+        assertEquals(10, s3.deleted.size());
+        assertEquals(2, s3.deleteCalls.get());
+    }
+
+    @Test
+    public void testPersistentFailure() {
+        FakeS3 s3 = new FakeS3(5, 0);
+        s3.alwaysFail.add("key-1\nnull");
+        try {
+            new S3BucketPurger(s3, 1).deleteObjects("bucket", Collections.singletonList(
+                    ObjectIdentifier.builder().key("key-1").build()));
+            fail("Expected the delete to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("AccessDenied"));
+        }
+        assertEquals(S3BucketPurger.MAX_ATTEMPTS, s3.deleteCalls.get());
+    }
+
+    // Lists objects 1000 per page like S3 does and records what gets deleted
+    static class FakeS3 implements S3Client {
+        final int objects;
+        final int markers;
+        final Set<String> deleted = ConcurrentHashMap.newKeySet();
+        final Set<String> failOnce = ConcurrentHashMap.newKeySet();
+        final Set<String> alwaysFail = ConcurrentHashMap.newKeySet();
+        final AtomicInteger deleteCalls = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        FakeS3(int objects, int markers) {
+            this.objects = objects;
+            this.markers = markers;
+        }
+
+        @Override
+        public ListObjectsV2Iterable listObjectsV2Paginator(ListObjectsV2Request request) {
+            return new ListObjectsV2Iterable(this, request);
+        }
+
+        @Override
+        public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+            int start = request.continuationToken() != null ? Integer.parseInt(request.continuationToken()) : 0;
+            int end = Math.min(objects, start + 1000);
+            List<S3Object> contents = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                contents.add(S3Object.builder().key("key-" + i).build());
+            }
+            return ListObjectsV2Response.builder()
+                    .contents(contents)
+                    .isTruncated(end < objects)
+                    .nextContinuationToken(end < objects ? String.valueOf(end) : null)
+                    .build();
+        }
+
+        @Override
+        public ListObjectVersionsIterable listObjectVersionsPaginator(ListObjectVersionsRequest request) {
+            return new ListObjectVersionsIterable(this, request);
+        }
+
+        @Override
+        public ListObjectVersionsResponse listObjectVersions(ListObjectVersionsRequest request) {
+            // Everything fits on one page per 1000 versions, delete markers all come on the first page
+            int start = request.keyMarker() != null ? Integer.parseInt(request.keyMarker()) : 0;
+            int end = Math.min(objects, start + 1000);
+            List<ObjectVersion> versions = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                versions.add(ObjectVersion.builder().key("key-" + i).versionId("v" + i).build());
+            }
+            List<DeleteMarkerEntry> deleteMarkers = new ArrayList<>();
+            if (start == 0) {
+                for (int i = 0; i < markers; i++) {
+                    deleteMarkers.add(DeleteMarkerEntry.builder().key("marker-" + i).versionId("m" + i).build());
+                }
+            }
+            return ListObjectVersionsResponse.builder()
+                    .versions(versions)
+                    .deleteMarkers(deleteMarkers)
+                    .isTruncated(end < objects)
+                    .nextKeyMarker(end < objects ? String.valueOf(end) : null)
+                    .nextVersionIdMarker(end < objects ? "v" + end : null)
+                    .build();
+        }
+
+        @Override
+        public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+            deleteCalls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                assertTrue(request.delete().objects().size() <= 1000);
+                Thread.sleep(20);
+                List<S3Error> errors = new ArrayList<>();
+                for (ObjectIdentifier object : request.delete().objects()) {
+                    String id = object.key() + "\n" + object.versionId();
+                    if (alwaysFail.contains(id) || failOnce.remove(id)) {
+                        errors.add(S3Error.builder()
+                                .key(object.key())
+                                .versionId(object.versionId())
+                                .code("AccessDenied")
+                                .message("Access Denied")
+                                .build());
+                    } else {
+                        deleted.add(id);
+                    }
+                }
+                return DeleteObjectsResponse.builder().errors(errors).build();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
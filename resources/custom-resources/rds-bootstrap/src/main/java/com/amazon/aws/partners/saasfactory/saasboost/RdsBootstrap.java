@@ -24,7 +24,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
-import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.SdkSystemSetting;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.core.exception.SdkServiceException;
@@ -39,6 +39,7 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.*;
@@ -96,6 +97,10 @@ public class RdsBootstrap implements RequestHandler<Map<String, Object>, Object>
         final String type = typeFromPort(port);
         final boolean createAndBootstrap = (bootstrapFileBucket != null && !bootstrapFileBucket.isBlank()
                 && bootstrapFileKey != null && !bootstrapFileKey.isBlank());
+        final Object batchSizeProperty = resourceProperties.get("BatchSize");
+        // Send runs of single row inserts as multi-row inserts or COPY unless turned off
+        final boolean bulkLoad = resourceProperties.get("BulkLoad") == null
+                || Boolean.parseBoolean(String.valueOf(resourceProperties.get("BulkLoad")));
 
         ExecutorService service = Executors.newSingleThreadExecutor();
         ObjectNode responseData = JsonNodeFactory.instance.objectNode();
@@ -104,6 +109,22 @@ public class RdsBootstrap implements RequestHandler<Map<String, Object>, Object>
                 if ("Create".equalsIgnoreCase(requestType)) {
                     LOGGER.info("CREATE");
 
+                    // How many statements to commit at a time
+                    final int batchSize;
+                    try {
+                        batchSize = batchSizeProperty != null
+                                ? Integer.parseInt(String.valueOf(batchSizeProperty).trim())
+                                : SqlBootstrapExecutor.DEFAULT_BATCH_SIZE;
+                        if (batchSize < 1) {
+                            throw new NumberFormatException("BatchSize must be greater than 0");
+                        }
+                    } catch (NumberFormatException e) {
+                        LOGGER.error("FAILED invalid BatchSize " + batchSizeProperty);
+                        responseData.put("Reason", "Invalid BatchSize " + batchSizeProperty);
+                        sendResponse(event, context, "FAILED", responseData);
+                        return;
+                    }
+
                     LOGGER.info("Getting database password secret from Parameter Store");
                     String password = null;
                     try {
@@ -149,39 +170,33 @@ public class RdsBootstrap implements RequestHandler<Map<String, Object>, Object>
 
                     if (createAndBootstrap) {
                         LOGGER.info("Getting SQL file from S3 s3://{}/{}", bootstrapFileBucket, bootstrapFileKey);
-                        InputStream bootstrapSQL = null;
+                        // Stream the file instead of reading it all into memory. Seed data files can be big.
+                        ResponseInputStream<GetObjectResponse> bootstrapSQL = null;
                         try {
-                            ResponseBytes<GetObjectResponse> responseBytes = s3.getObjectAsBytes(request -> request
+                            bootstrapSQL = s3.getObject(request -> request
                                     .bucket(bootstrapFileBucket)
                                     .key(bootstrapFileKey));
-                            bootstrapSQL = responseBytes.asInputStream();
                         } catch (SdkServiceException s3Error) {
                             LOGGER.error("s3:GetObject error", s3Error.getMessage());
                             throw s3Error;
                         }
                         // We have a database. Execute the SQL commands in the bootstrap file stored in
                         // S3.
-                        LOGGER.info("Executing bootstrap SQL");
+                        LOGGER.info("Executing bootstrap SQL ({} bytes) in batches of {}",
+                                bootstrapSQL.response().contentLength(), batchSize);
+                        SqlStatementReader.Dialect dialect = SqlStatementReader.Dialect.fromType(type);
+                        String scriptName = "s3://" + bootstrapFileBucket + "/" + bootstrapFileKey;
                         try (Connection conn = DriverManager.getConnection(
                                 jdbcUrl(type, driverClassName, host, port, database), username, password);
-                                Statement sql = conn.createStatement()) {
-                            conn.setAutoCommit(false);
-                            Scanner sqlScanner = new Scanner(bootstrapSQL, "UTF-8");
-                            sqlScanner.useDelimiter(";");
-                            int batch = 0;
-                            while (sqlScanner.hasNext()) {
-                                String ddl = sqlScanner.next().trim();
-                                if (!ddl.isEmpty()) {
-                                    // LOGGER.info(String.format("%02d %s", ++batch, ddl));
-                                    sql.addBatch(ddl);
-                                }
-                            }
-                            sql.executeBatch();
-                            conn.commit();
+                                SqlStatementReader sqlReader = new SqlStatementReader(
+                                        new InputStreamReader(bootstrapSQL, StandardCharsets.UTF_8), dialect)) {
+                            long executed = new SqlBootstrapExecutor(conn, dialect, batchSize, bulkLoad)
+                                    .execute(sqlReader, scriptName, bootstrapSQL.response().eTag());
+                            responseData.put("Statements", executed);
 
                             LOGGER.info("Finished initializing database");
                             sendResponse(event, context, "SUCCESS", responseData);
-                        } catch (SQLException e) {
+                        } catch (SQLException | IOException e) {
                             LOGGER.error("Error executing bootstrap SQL", e.getMessage());
                             throw new RuntimeException(e);
                         }
@@ -202,7 +217,13 @@ public class RdsBootstrap implements RequestHandler<Map<String, Object>, Object>
                 }
             };
             Future<?> f = service.submit(r);
-            f.get(context.getRemainingTimeInMillis() - 1000, TimeUnit.MILLISECONDS);
+            try {
+                f.get(context.getRemainingTimeInMillis() - 1000, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException timeout) {
+                // Stop after the batch in progress and tell CloudFormation the Create failed so it rolls back
+                f.cancel(true);
+                throw timeout;
+            }
         } catch (final TimeoutException | InterruptedException | ExecutionException e) {
             // Timed out
             LOGGER.error("FAILED unexpected error or request timed out " + e.getMessage());
@@ -0,0 +1,256 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import com.amazon.aws.partners.saasfactory.saasboost.SqlStatementReader.Dialect;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.*;
+
+/**
+ * Runs a bootstrap script against a database as it's read, committing every batchSize statements
+ * instead of running the whole script as one transaction. How far the script got is saved in the
+ * database in the same transaction as each batch, and the progress table is dropped again once the
+ * script finishes. The only time a run finds progress left behind is when Lambda retries the same
+ * custom resource event after the function died without answering CloudFormation, for example when
+ * it ran out of time or memory, and that retry picks up after the last committed batch. A failed
+ * Create rolls back and deletes the database, so there's nothing to resume. Keep in mind that MySQL
+ * and Oracle commit DDL statements as soon as they run, so DDL in a batch that fails isn't rolled
+ * back on those engines.
+ * <p>
+ * With bulk loading on, runs of INSERT statements into the same table are sent as one multi-row
+ * INSERT, or loaded with COPY on PostgreSQL, instead of one round trip per row. Batches and progress
+ * are still counted in statements of the script so a bulk loaded script resumes at the same place.
+ */
+public class SqlBootstrapExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlBootstrapExecutor.class);
+    static final String PROGRESS_TABLE = "sb_bootstrap_progress";
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    // Fewer rows than this aren't worth flushing the statement batch for a COPY
+    static final int MIN_COPY_ROWS = 100;
+    private final Connection conn;
+    private final Dialect dialect;
+    private final int batchSize;
+    private final boolean bulkLoad;
+    private long bulkRows;
+
+    public SqlBootstrapExecutor(Connection conn, Dialect dialect, int batchSize) {
+        this(conn, dialect, batchSize, false);
+    }
+
+    public SqlBootstrapExecutor(Connection conn, Dialect dialect, int batchSize, boolean bulkLoad) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+        this.conn = conn;
+        this.dialect = dialect;
+        this.batchSize = batchSize;
+        this.bulkLoad = bulkLoad;
+    }
+
+    /**
+     * Executes the script's statements. The script name and version identify the script in the
+     * progress table. A script that changed after part of it was committed isn't run on top of those
+     * rows, it fails instead. Returns how many statements were executed by this run.
+     */
+    public long execute(SqlStatementReader script, String scriptName, String version) throws IOException, SQLException {
+        long startTimeMillis = System.currentTimeMillis();
+        boolean resumable = dialect != Dialect.ORACLE;
+        long completed = 0;
+        bulkRows = 0;
+        if (resumable) {
+            createProgressTable();
+            completed = completedStatements(scriptName, version);
+            if (completed > 0) {
+                LOGGER.info("Resuming {} after {} statements already committed", scriptName, completed);
+            }
+        }
+
+        conn.setAutoCommit(false);
+        long executed = 0;
+        try (Statement sql = conn.createStatement()) {
+            int pending = 0;
+            // Inserts waiting for more rows into the same table
+            SqlBulkInsert rows = null;
+            String statement;
+            while ((statement = script.next()) != null) {
+                if (script.getStatements() <= completed) {
+                    continue;
+                }
+                SqlBulkInsert insert = bulkLoad ? SqlBulkInsert.parse(statement, dialect) : null;
+                if (insert == null || rows == null || !rows.add(insert)) {
+                    flush(sql, rows);
+                    rows = insert;
+                    if (insert == null) {
+                        sql.addBatch(statement);
+                    }
+                }
+                pending++;
+                if (pending == batchSize) {
+                    flush(sql, rows);
+                    rows = null;
+                    commit(sql, resumable, scriptName, version, script.getStatements());
+                    executed += pending;
+                    pending = 0;
+                    LOGGER.info("Committed {} statements of {} in {} ms", script.getStatements(), scriptName,
+                            System.currentTimeMillis() - startTimeMillis);
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new SQLException("Bootstrap cancelled after " + script.getStatements() + " statements");
+                    }
+                }
+            }
+            if (pending > 0) {
+                flush(sql, rows);
+                commit(sql, resumable, scriptName, version, script.getStatements());
+                executed += pending;
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            LOGGER.error("Error at statement {} of {}, rolling back to the last committed batch",
+                    script.getStatements(), scriptName);
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                LOGGER.error("Error rolling back", rollbackError);
+            }
+            throw e;
+        }
+        if (resumable) {
+            // Nothing to resume once the script is done, so don't leave our table in the tenant's database
+            try {
+                dropProgressTable();
+            } catch (SQLException e) {
+                LOGGER.warn("Error dropping {} {}", PROGRESS_TABLE, e.getMessage());
+            }
+        }
+        if (bulkRows > 0) {
+            LOGGER.info("Bulk loaded {} rows of {}", bulkRows, scriptName);
+        }
+        LOGGER.info("Executed {} of {} statements of {} in {} ms", executed, script.getStatements(), scriptName,
+                System.currentTimeMillis() - startTimeMillis);
+        return executed;
+    }
+
+    /**
+     * Sends the collected inserts. Big enough runs of literal rows go to PostgreSQL as a COPY right
+     * away, after the statements batched ahead of them so the table is there to copy into.
+     */
+    private void flush(Statement sql, SqlBulkInsert rows) throws SQLException {
+        if (rows == null) {
+            return;
+        }
+        if (rows.getStatements() > 1) {
+            bulkRows += rows.getRows();
+        }
+        if (dialect == Dialect.POSTGRESQL && rows.getRows() >= MIN_COPY_ROWS) {
+            String csv = rows.toCsv();
+            if (csv != null) {
+                sql.executeBatch();
+                Savepoint beforeCopy = conn.setSavepoint();
+                try {
+                    copyIn(rows.toCopy(), csv);
+                    conn.releaseSavepoint(beforeCopy);
+                    return;
+                } catch (SQLException e) {
+                    // COPY is stricter about some values than INSERT, so send the rows the way they were written
+                    LOGGER.warn("Inserting {} rows instead of copying them {}", rows.getRows(), e.getMessage());
+                    conn.rollback(beforeCopy);
+                }
+            }
+        }
+        sql.addBatch(rows.toSql());
+    }
+
+    void copyIn(String copy, String csv) throws SQLException {
+        try {
+            conn.unwrap(PGConnection.class).getCopyAPI().copyIn(copy, new StringReader(csv));
+        } catch (IOException e) {
+            throw new SQLException("Error copying rows into the database", e);
+        }
+    }
+
+    private void commit(Statement sql, boolean resumable, String scriptName, String version, long statements)
+            throws SQLException {
+        sql.executeBatch();
+        if (resumable) {
+            saveProgress(scriptName, version, statements);
+        }
+        conn.commit();
+    }
+
+    private void createProgressTable() throws SQLException {
+        String ddl;
+        if (dialect == Dialect.SQLSERVER) {
+            ddl = "IF OBJECT_ID('" + PROGRESS_TABLE + "', 'U') IS NULL CREATE TABLE " + PROGRESS_TABLE
+                    + " (script NVARCHAR(512) NOT NULL PRIMARY KEY, version NVARCHAR(256), statements BIGINT NOT NULL)";
+        } else {
+            ddl = "CREATE TABLE IF NOT EXISTS " + PROGRESS_TABLE
+                    + " (script VARCHAR(512) NOT NULL PRIMARY KEY, version VARCHAR(256), statements BIGINT NOT NULL)";
+        }
+        conn.setAutoCommit(true);
+        try (Statement create = conn.createStatement()) {
+            create.execute(ddl);
+        }
+    }
+
+    private void dropProgressTable() throws SQLException {
+        conn.setAutoCommit(true);
+        try (Statement drop = conn.createStatement()) {
+            drop.execute("DROP TABLE " + PROGRESS_TABLE);
+        }
+    }
+
+    private long completedStatements(String scriptName, String version) throws SQLException {
+        try (PreparedStatement select = conn.prepareStatement(
+                "SELECT version, statements FROM " + PROGRESS_TABLE + " WHERE script = ?")) {
+            select.setString(1, scriptName);
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) {
+                    String savedVersion = rs.getString("version");
+                    if (version == null || !version.equals(savedVersion)) {
+                        throw new SQLException("Bootstrap script " + scriptName + " changed after "
+                                + rs.getLong("statements") + " of its statements were committed");
+                    }
+                    return rs.getLong("statements");
+                }
+            }
+        }
+        return 0;
+    }
+
+    private void saveProgress(String scriptName, String version, long statements) throws SQLException {
+        try (PreparedStatement update = conn.prepareStatement(
+                "UPDATE " + PROGRESS_TABLE + " SET version = ?, statements = ? WHERE script = ?")) {
+            update.setString(1, version);
+            update.setLong(2, statements);
+            update.setString(3, scriptName);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO " + PROGRESS_TABLE + " (script, version, statements) VALUES (?, ?, ?)")) {
+            insert.setString(1, scriptName);
+            insert.setString(2, version);
+            insert.setLong(3, statements);
+            insert.executeUpdate();
+        }
+    }
+}
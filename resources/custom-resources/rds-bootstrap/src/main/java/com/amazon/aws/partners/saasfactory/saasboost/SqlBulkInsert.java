@@ -0,0 +1,276 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import com.amazon.aws.partners.saasfactory.saasboost.SqlStatementReader.Dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The rows of one or more INSERT ... VALUES statements for the same table and columns. Seed data is
+ * usually written as one INSERT per row, and sending each of those to the database on its own is most
+ * of the time it takes to bootstrap a tenant database. Consecutive inserts into the same table are
+ * collected here and sent as a single multi-row INSERT, or as a COPY on PostgreSQL.
+ */
+final class SqlBulkInsert {
+
+    // SQL Server takes at most 1000 rows in a VALUES list
+    static final int MAX_ROWS = 1000;
+    // Stay well under MySQL's max_allowed_packet, which can be as low as 4 MB
+    static final int MAX_LENGTH = 1024 * 1024;
+    private static final Pattern INSERT = Pattern.compile(
+            "^(INSERT\\s+(IGNORE\\s+)?INTO\\s+([\\w.$\"`\\[\\]]+))\\s*(\\([^()]*\\))?\\s*VALUES\\s*(?=\\()",
+            Pattern.CASE_INSENSITIVE);
+    // COPY won't cast a decimal or exponent like 1.0 or 1e5 into an integer column the way INSERT does,
+    // so only whole numbers are copied as they are
+    private static final Pattern INTEGER = Pattern.compile("[-+]?\\d+");
+    private final String table;
+    private final String columns;
+    private final String key;
+    private final boolean ignore;
+    private final String original;
+    private final List<String> rows;
+    private int length;
+    private int statements;
+
+    private SqlBulkInsert(String table, String columns, String key, boolean ignore, String original,
+                          List<String> rows) {
+        this.table = table;
+        this.columns = columns;
+        this.key = key;
+        this.ignore = ignore;
+        this.original = original;
+        this.rows = rows;
+        this.statements = 1;
+        for (String row : rows) {
+            this.length += row.length() + 2;
+        }
+    }
+
+    /**
+     * Returns the rows of a plain INSERT INTO table [(columns)] VALUES (...), (...) statement, or null
+     * for any other statement, including inserts with ON CONFLICT, ON DUPLICATE KEY, RETURNING or a
+     * SELECT since those can't be combined with other rows.
+     */
+    static SqlBulkInsert parse(String statement, Dialect dialect) {
+        // Oracle doesn't take more than one row in a VALUES list
+        if (dialect == Dialect.ORACLE || !statement.regionMatches(true, 0, "INSERT", 0, 6)) {
+            return null;
+        }
+        Matcher insert = INSERT.matcher(statement);
+        if (!insert.find()) {
+            return null;
+        }
+        List<String> rows = tuples(statement, insert.end(), dialect == Dialect.MYSQL);
+        if (rows == null) {
+            return null;
+        }
+        boolean ignore = insert.group(2) != null;
+        String columns = insert.group(4) != null ? insert.group(4).replaceAll("\\s+", " ") : "";
+        String key = (ignore ? "IGNORE " : "") + insert.group(3) + " " + columns;
+        return new SqlBulkInsert(insert.group(3), columns, key, ignore, statement, rows);
+    }
+
+    /**
+     * Adds the other insert's rows if it's for the same table and columns and there's room for them.
+     */
+    boolean add(SqlBulkInsert other) {
+        if (!key.equals(other.key) || rows.size() + other.rows.size() > MAX_ROWS
+                || length + other.length > MAX_LENGTH) {
+            return false;
+        }
+        rows.addAll(other.rows);
+        length += other.length;
+        statements += other.statements;
+        return true;
+    }
+
+    int getRows() {
+        return rows.size();
+    }
+
+    int getStatements() {
+        return statements;
+    }
+
+    // One multi-row INSERT. A single statement is left exactly as it was written.
+    String toSql() {
+        if (statements == 1) {
+            return original;
+        }
+        StringBuilder sql = new StringBuilder(length + key.length() + 16);
+        sql.append("INSERT ");
+        if (ignore) {
+            sql.append("IGNORE ");
+        }
+        sql.append("INTO ").append(table);
+        if (!columns.isEmpty()) {
+            sql.append(' ').append(columns);
+        }
+        sql.append(" VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(rows.get(i));
+        }
+        return sql.toString();
+    }
+
+    // PostgreSQL COPY that loads these rows from CSV
+    String toCopy() {
+        return "COPY " + table + (columns.isEmpty() ? "" : " " + columns) + " FROM STDIN WITH (FORMAT csv)";
+    }
+
+    /**
+     * The rows as CSV for COPY, or null if any value is something other than a string, integer, boolean
+     * or NULL literal. Expressions like now() or '2020-01-01'::date and unquoted decimals have to go
+     * through INSERT.
+     */
+    String toCsv() {
+        if (ignore) {
+            return null;
+        }
+        StringBuilder csv = new StringBuilder(length);
+        for (String row : rows) {
+            List<String> values = values(row);
+            if (values == null) {
+                return null;
+            }
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+                String value = values.get(i);
+                if (value.length() > 1 && value.charAt(0) == '\'' && value.charAt(value.length() - 1) == '\'') {
+                    String string = value.substring(1, value.length() - 1);
+                    if (string.replace("''", "").indexOf('\'') >= 0) {
+                        return null;
+                    }
+                    // An empty quoted value is an empty string, an unquoted one is NULL
+                    csv.append('"').append(string.replace("''", "'").replace("\"", "\"\"")).append('"');
+                } else if ("NULL".equalsIgnoreCase(value)) {
+                    // Nothing
+                } else if (INTEGER.matcher(value).matches() || "TRUE".equalsIgnoreCase(value)
+                        || "FALSE".equalsIgnoreCase(value)) {
+                    csv.append(value);
+                } else {
+                    return null;
+                }
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Splits a VALUES list starting at the given position into its rows, keeping the parentheses. The
+     * list has to run to the end of the statement.
+     */
+    private static List<String> tuples(String statement, int start, boolean backslashEscapes) {
+        List<String> rows = new ArrayList<>();
+        int i = start;
+        while (true) {
+            int end = closingParenthesis(statement, i, backslashEscapes);
+            if (end < 0) {
+                return null;
+            }
+            rows.add(statement.substring(i, end + 1));
+            i = skipWhitespace(statement, end + 1);
+            if (i == statement.length()) {
+                return rows;
+            }
+            if (statement.charAt(i) != ',') {
+                return null;
+            }
+            i = skipWhitespace(statement, i + 1);
+            if (i == statement.length() || statement.charAt(i) != '(') {
+                return null;
+            }
+        }
+    }
+
+    // The values in a row at the top level, trimmed
+    private static List<String> values(String row) {
+        List<String> values = new ArrayList<>();
+        int depth = 0;
+        int start = 1;
+        for (int i = 1; i < row.length() - 1; i++) {
+            char c = row.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = closingQuote(row, i, false);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                values.add(row.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        values.add(row.substring(start, row.length() - 1).trim());
+        return values;
+    }
+
+    private static int closingParenthesis(String statement, int open, boolean backslashEscapes) {
+        int depth = 0;
+        for (int i = open; i < statement.length(); i++) {
+            char c = statement.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = closingQuote(statement, i, backslashEscapes);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Where the quoted string starting at open ends. A doubled quote is an escaped quote.
+    private static int closingQuote(String statement, int open, boolean backslashEscapes) {
+        char quote = statement.charAt(open);
+        for (int i = open + 1; i < statement.length(); i++) {
+            char c = statement.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i++;
+            } else if (c == quote) {
+                if (i + 1 < statement.length() && statement.charAt(i + 1) == quote) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(String statement, int i) {
+        while (i < statement.length() && Character.isWhitespace(statement.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,398 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+
+/**
+ * Reads one SQL statement at a time from a script without loading the whole script into memory.
+ * Semicolons inside string literals, quoted identifiers and comments don't end a statement, and
+ * each database's way of writing procedure bodies is understood: PostgreSQL dollar quoting, the
+ * MySQL client's DELIMITER command, SQL Server's GO batch separator and Oracle's / terminator after
+ * a PL/SQL block.
+ */
+public class SqlStatementReader implements Closeable {
+
+    // Longest line we'll look at for a client command like GO or DELIMITER
+    static final int MAX_COMMAND_LENGTH = 256;
+    // How much of a statement we look at to decide if it's a procedure body
+    static final int BLOCK_PREFIX_LENGTH = 64;
+
+    public enum Dialect {
+        POSTGRESQL, MYSQL, SQLSERVER, ORACLE;
+
+        // Same as the JDBC URL types we connect with
+        public static Dialect fromType(String type) {
+            if (type == null) {
+                throw new IllegalArgumentException("Unknown database type");
+            }
+            if (type.startsWith("postgresql")) {
+                return POSTGRESQL;
+            } else if (type.startsWith("mysql") || type.startsWith("mariadb")) {
+                return MYSQL;
+            } else if (type.startsWith("sqlserver")) {
+                return SQLSERVER;
+            } else if (type.startsWith("oracle")) {
+                return ORACLE;
+            }
+            throw new IllegalArgumentException("Unknown database type " + type);
+        }
+    }
+
+    private final Reader reader;
+    private final Dialect dialect;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private boolean eof;
+    private int marked = -1;
+    private String delimiter = ";";
+    private long statements;
+
+    public SqlStatementReader(Reader reader, Dialect dialect) {
+        this.reader = reader;
+        this.dialect = dialect;
+    }
+
+    /**
+     * Returns the next statement without its terminator, or null at the end of the script.
+     */
+    public String next() throws IOException {
+        StringBuilder statement = new StringBuilder();
+        // Procedure bodies have semicolons in them. In Oracle they're only ended by a / on its own
+        // line and in SQL Server by the GO that ends the batch.
+        boolean block = false;
+        boolean lineStart = true;
+        int c;
+        while ((c = read()) != -1) {
+            if (lineStart && isBlank(statement)) {
+                String command = clientCommand((char) c);
+                if (command != null) {
+                    statement.setLength(0);
+                    continue;
+                }
+            }
+            if (lineStart && dialect == Dialect.SQLSERVER && (c == 'G' || c == 'g')
+                    && separatorLine((char) c, "GO")) {
+                if (!isBlank(statement)) {
+                    return statement(statement);
+                }
+                statement.setLength(0);
+                continue;
+            }
+            if (lineStart && block && c == '/' && separatorLine((char) c, "/")) {
+                return statement(statement);
+            }
+            lineStart = false;
+            switch (c) {
+                case '\'':
+                    quoted(statement, '\'', dialect == Dialect.MYSQL);
+                    break;
+                case '"':
+                    quoted(statement, '"', dialect == Dialect.MYSQL);
+                    break;
+                case '`':
+                    quoted(statement, '`', false);
+                    break;
+                case '[':
+                    if (dialect == Dialect.SQLSERVER) {
+                        quoted(statement, ']', false, '[');
+                    } else {
+                        statement.append('[');
+                    }
+                    break;
+                case '-':
+                    if (peek() == '-') {
+                        skipLine();
+                        statement.append('\n');
+                        lineStart = true;
+                    } else {
+                        statement.append('-');
+                    }
+                    break;
+                case '#':
+                    if (dialect == Dialect.MYSQL) {
+                        skipLine();
+                        statement.append('\n');
+                        lineStart = true;
+                    } else {
+                        statement.append('#');
+                    }
+                    break;
+                case '/':
+                    if (peek() == '*') {
+                        blockComment(statement);
+                    } else {
+                        statement.append('/');
+                    }
+                    break;
+                case '$':
+                    if (dialect == Dialect.POSTGRESQL) {
+                        dollarQuoted(statement);
+                    } else {
+                        statement.append('$');
+                    }
+                    break;
+                case '\n':
+                    statement.append('\n');
+                    lineStart = true;
+                    break;
+                default:
+                    statement.append((char) c);
+            }
+            if (!block && statement.length() <= BLOCK_PREFIX_LENGTH) {
+                block = startsBlock(statement);
+            }
+            if (!block && endsWithDelimiter(statement)) {
+                statement.setLength(statement.length() - delimiter.length());
+                if (!isBlank(statement)) {
+                    return statement(statement);
+                }
+                statement.setLength(0);
+                lineStart = false;
+            }
+        }
+        if (!isBlank(statement)) {
+            return statement(statement);
+        }
+        return null;
+    }
+
+    // How many statements have been returned so far
+    public long getStatements() {
+        return statements;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String statement(StringBuilder statement) {
+        statements++;
+        return statement.toString().trim();
+    }
+
+    // MySQL client scripts change the statement delimiter so procedure bodies can contain semicolons
+    private String clientCommand(char first) throws IOException {
+        if (dialect != Dialect.MYSQL || (first != 'D' && first != 'd')) {
+            return null;
+        }
+        String keyword = "DELIMITER";
+        String command = lookAheadLine(first);
+        if (command != null && command.length() > keyword.length()
+                && command.substring(0, keyword.length()).equalsIgnoreCase(keyword)
+                && Character.isWhitespace(command.charAt(keyword.length()))) {
+            delimiter = command.substring(keyword.length()).trim();
+            unmark();
+            return command;
+        }
+        reset();
+        return null;
+    }
+
+    // True if the rest of the line is only the separator, e.g. GO on its own line
+    private boolean separatorLine(char first, String separator) throws IOException {
+        String line = lookAheadLine(first);
+        if (line != null && line.equalsIgnoreCase(separator)) {
+            unmark();
+            return true;
+        }
+        reset();
+        return false;
+    }
+
+    /**
+     * Reads the rest of a short line so it can be checked for a client command. Returns null for a
+     * line too long to be one. The caller either resets if it doesn't use the line or unmarks if it
+     * does, otherwise the buffer can't be refilled.
+     */
+    private String lookAheadLine(char first) throws IOException {
+        mark();
+        StringBuilder line = new StringBuilder().append(first);
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            if (line.length() == MAX_COMMAND_LENGTH) {
+                return null;
+            }
+            line.append((char) c);
+        }
+        return line.toString().trim();
+    }
+
+    private void quoted(StringBuilder statement, char quote, boolean backslashEscapes) throws IOException {
+        quoted(statement, quote, backslashEscapes, quote);
+    }
+
+    private void quoted(StringBuilder statement, char close, boolean backslashEscapes, char open) throws IOException {
+        statement.append(open);
+        int c;
+        while ((c = read()) != -1) {
+            statement.append((char) c);
+            if (backslashEscapes && c == '\\') {
+                int escaped = read();
+                if (escaped != -1) {
+                    statement.append((char) escaped);
+                }
+            } else if (c == close) {
+                // A doubled quote is an escaped quote, not the end of the literal
+                if (peek() == close) {
+                    statement.append((char) read());
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dollarQuoted(StringBuilder statement) throws IOException {
+        // $tag$ ... $tag$ where the tag can be empty. A $ followed by anything else is a parameter
+        // like $1 or part of an identifier.
+        StringBuilder tag = new StringBuilder("$");
+        mark();
+        int c;
+        while ((c = read()) != -1 && (Character.isLetterOrDigit(c) || c == '_')) {
+            tag.append((char) c);
+        }
+        if (c != '$' || (tag.length() > 1 && Character.isDigit(tag.charAt(1)))) {
+            reset();
+            statement.append('$');
+            return;
+        }
+        unmark();
+        tag.append('$');
+        statement.append(tag);
+        String closing = tag.toString();
+        while ((c = read()) != -1) {
+            statement.append((char) c);
+            if (c == '$' && statement.length() >= closing.length() * 2
+                    && statement.substring(statement.length() - closing.length()).equals(closing)) {
+                return;
+            }
+        }
+    }
+
+    private void blockComment(StringBuilder statement) throws IOException {
+        read();
+        // MySQL runs /*! ... */ comments (mysqldump puts session settings in them) and Oracle
+        // reads optimizer hints from /*+ ... */ so those stay in the statement
+        boolean keep = peek() == '!' || peek() == '+';
+        statement.append(keep ? "/*" : " ");
+        int previous = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (keep) {
+                statement.append((char) c);
+            }
+            if (previous == '*' && c == '/') {
+                break;
+            }
+            previous = c;
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            // Comments run to the end of the line
+        }
+    }
+
+    private boolean endsWithDelimiter(StringBuilder statement) {
+        int length = delimiter.length();
+        return statement.length() >= length && statement.substring(statement.length() - length).equals(delimiter);
+    }
+
+    private boolean startsBlock(StringBuilder statement) {
+        if (dialect != Dialect.ORACLE && dialect != Dialect.SQLSERVER) {
+            return false;
+        }
+        String start = statement.toString().trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+        if (dialect == Dialect.ORACLE) {
+            return start.startsWith("BEGIN ") || start.startsWith("DECLARE ")
+                    || start.matches("CREATE (OR REPLACE )?(EDITIONABLE |NONEDITIONABLE )?"
+                            + "(PROCEDURE|FUNCTION|PACKAGE|TRIGGER|TYPE BODY) .*");
+        }
+        return start.matches("(CREATE (OR ALTER )?|ALTER )(PROCEDURE|PROC|FUNCTION|TRIGGER) .*");
+    }
+
+    private static boolean isBlank(StringBuilder statement) {
+        for (int i = 0; i < statement.length(); i++) {
+            if (!Character.isWhitespace(statement.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A small buffered reader of our own so we can look ahead a line without reading ahead the file
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private void mark() {
+        // Keep whatever is left in the buffer so we can go back to this point
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        marked = 0;
+    }
+
+    private void reset() {
+        position = marked;
+        marked = -1;
+    }
+
+    // The look ahead was used so the buffer can be refilled from the start again
+    private void unmark() {
+        marked = -1;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (marked < 0) {
+            position = 0;
+            limit = 0;
+        } else if (limit == buffer.length) {
+            // Look ahead is limited to a short line so this can't happen
+            throw new IOException("SQL script look ahead is longer than " + buffer.length + " characters");
+        }
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
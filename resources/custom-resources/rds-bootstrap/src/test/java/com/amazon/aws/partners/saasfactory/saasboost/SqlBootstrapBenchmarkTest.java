@@ -0,0 +1,116 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import com.amazon.aws.partners.saasfactory.saasboost.SqlStatementReader.Dialect;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringReader;
+import java.sql.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Times seeding a table one insert at a time against bulk loading it. Only runs when pointed at a
+ * database, for example a local container:
+ * <pre>
+ * docker run -d -p 5432:5432 -e POSTGRES_PASSWORD=postgres postgres:12
+ * BENCHMARK_JDBC_URL=jdbc:postgresql://localhost:5432/postgres BENCHMARK_USER=postgres \
+ *     BENCHMARK_PASSWORD=postgres mvn test -Dtest=SqlBootstrapBenchmarkTest
+ * </pre>
+ * MySQL/MariaDB (jdbc:mariadb://localhost:3306/mysql) and SQL Server
+ * (jdbc:sqlserver://localhost:1433;databaseName=master) work the same way.
+ */
+public class SqlBootstrapBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlBootstrapBenchmarkTest.class);
+    private static final int ROWS = 50000;
+    private Connection conn;
+
+    private static String seedData(int rows) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 1; i <= rows; i++) {
+            // Prices are quoted so PostgreSQL can still COPY them into the DECIMAL column
+            sql.append("INSERT INTO sb_benchmark (id, name, price) VALUES (")
+                    .append(i).append(", 'Product ").append(i).append("', '").append(i % 1000).append(".99');\n");
+        }
+        return sql.toString();
+    }
+
+    private long time(Dialect dialect, String sql, boolean bulkLoad) throws Exception {
+        try (Statement ddl = conn.createStatement()) {
+            conn.setAutoCommit(true);
+            try {
+                ddl.execute("DROP TABLE sb_benchmark");
+            } catch (SQLException notThere) {
+                // First run
+            }
+            ddl.execute("CREATE TABLE sb_benchmark (id INT PRIMARY KEY, name VARCHAR(64), price DECIMAL(9,2))");
+        }
+        long startTimeMillis = System.currentTimeMillis();
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql), dialect)) {
+            String scriptName = "benchmark-" + bulkLoad + "-" + startTimeMillis;
+            new SqlBootstrapExecutor(conn, dialect, SqlBootstrapExecutor.DEFAULT_BATCH_SIZE, bulkLoad)
+                    .execute(reader, scriptName, "v1");
+        }
+        long elapsed = System.currentTimeMillis() - startTimeMillis;
+        try (Statement count = conn.createStatement(); ResultSet rs = count.executeQuery(
+                "SELECT COUNT(*) FROM sb_benchmark")) {
+            rs.next();
+            assertEquals(ROWS, rs.getInt(1));
+        }
+        return elapsed;
+    }
+
+    @Test
+    public void benchmarkBulkLoad() throws Exception {
+        String url = System.getenv("BENCHMARK_JDBC_URL");
+        assumeTrue("Set BENCHMARK_JDBC_URL to run the bootstrap benchmark", url != null && !url.isEmpty());
+        Dialect dialect = Dialect.fromType(url.substring("jdbc:".length()));
+        String sql = seedData(ROWS);
+        conn = DriverManager.getConnection(url, System.getenv("BENCHMARK_USER"), System.getenv("BENCHMARK_PASSWORD"));
+        long statementByStatement = time(dialect, sql, false);
+        long bulkLoad = time(dialect, sql, true);
+        LOGGER.info("{} {} rows: {} ms one insert at a time, {} ms bulk loaded", dialect, ROWS,
+                statementByStatement, bulkLoad);
+    }
+
+    @After
+    public void cleanUp() throws SQLException {
+        if (conn == null) {
+            return;
+        }
+        try (Connection db = conn; Statement ddl = db.createStatement()) {
+            db.setAutoCommit(true);
+            try {
+                ddl.execute("DROP TABLE sb_benchmark");
+            } catch (SQLException notThere) {
+                // Failed before creating it
+            }
+            try {
+                // A run that failed part way leaves its progress behind
+                ddl.executeUpdate("DELETE FROM " + SqlBootstrapExecutor.PROGRESS_TABLE
+                        + " WHERE script LIKE 'benchmark-%'");
+            } catch (SQLException notThere) {
+                // Every run finished and dropped the table
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import com.amazon.aws.partners.saasfactory.saasboost.SqlStatementReader.Dialect;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SqlBootstrapExecutorTest {
+
+    private static String script(int statements, int failAt) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 1; i <= statements; i++) {
+            sql.append("INSERT INTO t VALUES (").append(i == failAt ? "FAIL" : String.valueOf(i)).append(");\n");
+        }
+        return sql.toString();
+    }
+
+    private static long run(FakeDatabase db, String sql, String version) throws Exception {
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql), Dialect.POSTGRESQL)) {
+            return new SqlBootstrapExecutor(db.connection(), Dialect.POSTGRESQL, 10)
+                    .execute(reader, "s3://bucket/bootstrap.sql", version);
+        }
+    }
+
+    private static long bulkLoad(FakeDatabase db, String sql) throws Exception {
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql), Dialect.MYSQL)) {
+            return new SqlBootstrapExecutor(db.connection(), Dialect.MYSQL, 10, true)
+                    .execute(reader, "s3://bucket/bootstrap.sql", "v1");
+        }
+    }
+
+    @Test
+    public void testCommitsInBatches() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        assertEquals(25, run(db, script(25, 0), "v1"));
+        assertEquals(25, db.committed.size());
+        assertEquals(3, db.commits);
+        // The progress table isn't left behind in the tenant's database
+        assertTrue(db.progressDropped);
+        assertTrue(db.progress.isEmpty());
+    }
+
+    @Test
+    public void testResumeAfterFailure() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        try {
+            run(db, script(25, 15), "v1");
+            fail("Expected the bad statement to fail");
+        } catch (SQLException e) {
+            // The batch with the bad statement is rolled back
+        }
+        assertEquals(10, db.committed.size());
+        assertEquals(10L, db.progress.get("s3://bucket/bootstrap.sql")[1]);
+        assertFalse(db.progressDropped);
+
+        // Lambda retrying the same event only executes what wasn't committed
+        assertEquals(15, run(db, script(25, 0), "v1"));
+        assertEquals(25, db.committed.size());
+        assertEquals(25, new HashSet<>(db.committed).size());
+        assertTrue(db.progressDropped);
+    }
+
+    @Test
+    public void testChangedScriptNotResumed() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        try {
+            run(db, script(25, 15), "v1");
+            fail("Expected the bad statement to fail");
+        } catch (SQLException e) {
+            // The first batch is committed
+        }
+        try {
+            run(db, script(25, 0), "v2");
+            fail("Expected a changed script not to run on top of the committed batch");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("changed"));
+        }
+        assertEquals(10, db.committed.size());
+    }
+
+    @Test
+    public void testBulkLoadCombinesInserts() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        String sql = "CREATE TABLE t (id INT);\n" + script(24, 0) + "UPDATE t SET id = 0 WHERE id = 1;\n";
+        assertEquals(26, bulkLoad(db, sql));
+        // Each batch of 10 script statements is sent as at most one multi-row insert and the others
+        assertEquals(Arrays.asList(
+                "CREATE TABLE t (id INT)",
+                "INSERT INTO t VALUES (1), (2), (3), (4), (5), (6), (7), (8), (9)",
+                "INSERT INTO t VALUES (10), (11), (12), (13), (14), (15), (16), (17), (18), (19)",
+                "INSERT INTO t VALUES (20), (21), (22), (23), (24)",
+                "UPDATE t SET id = 0 WHERE id = 1"), db.committed);
+        assertEquals(3, db.commits);
+        assertTrue(db.progressDropped);
+    }
+
+    @Test
+    public void testBulkLoadResumesByStatement() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        try {
+            bulkLoad(db, script(25, 15));
+            fail("Expected the bad statement to fail");
+        } catch (SQLException e) {
+            // The combined insert with the bad row is rolled back
+        }
+        assertEquals(10L, db.progress.get("s3://bucket/bootstrap.sql")[1]);
+        assertEquals(15, bulkLoad(db, script(25, 0)));
+        assertEquals("INSERT INTO t VALUES (11), (12), (13), (14), (15), (16), (17), (18), (19), (20)",
+                db.committed.get(1));
+    }
+
+    private static long copy(FakeDatabase db, String sql, boolean copyFails) throws Exception {
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql), Dialect.POSTGRESQL)) {
+            return new SqlBootstrapExecutor(db.connection(), Dialect.POSTGRESQL, 200, true) {
+                @Override
+                void copyIn(String copy, String csv) throws SQLException {
+                    db.transaction.add(copy);
+                    if (copyFails) {
+                        throw new SQLException("invalid input syntax for type integer");
+                    }
+                }
+            }.execute(reader, "s3://bucket/bootstrap.sql", "v1");
+        }
+    }
+
+    @Test
+    public void testBulkLoadCopiesRows() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        assertEquals(150, copy(db, script(150, 0), false));
+        assertEquals(Collections.singletonList("COPY t FROM STDIN WITH (FORMAT csv)"), db.committed);
+    }
+
+    @Test
+    public void testBulkLoadInsertsWhenCopyFails() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        assertEquals(150, copy(db, script(150, 0), true));
+        // Whatever the COPY did is rolled back and the rows are inserted instead
+        assertEquals(1, db.committed.size());
+        assertTrue(db.committed.get(0).startsWith("INSERT INTO t VALUES (1), (2), (3)"));
+        assertTrue(db.committed.get(0).endsWith("(150)"));
+    }
+
+    // Just enough of a JDBC connection with transactions to check what gets committed
+    static class FakeDatabase {
+        final List<String> committed = new ArrayList<>();
+        final Map<String, Object[]> progress = new HashMap<>();
+        final List<String> transaction = new ArrayList<>();
+        Map<String, Object[]> pendingProgress = new HashMap<>();
+        int commits;
+        int savepoint;
+        boolean progressDropped;
+
+        Connection connection() {
+            return proxy(Connection.class, (method, args) -> {
+                switch (method) {
+                    case "createStatement":
+                        return statement();
+                    case "prepareStatement":
+                        return preparedStatement((String) args[0]);
+                    case "commit":
+                        committed.addAll(transaction);
+                        transaction.clear();
+                        progress.putAll(pendingProgress);
+                        pendingProgress = new HashMap<>();
+                        commits++;
+                        return null;
+                    case "setSavepoint":
+                        savepoint = transaction.size();
+                        return proxy(Savepoint.class, (name, none) -> null);
+                    case "rollback":
+                        if (args != null) {
+                            transaction.subList(savepoint, transaction.size()).clear();
+                            return null;
+                        }
+                        transaction.clear();
+                        pendingProgress = new HashMap<>();
+                        return null;
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        Statement statement() {
+            List<String> batch = new ArrayList<>();
+            return proxy(Statement.class, (method, args) -> {
+                switch (method) {
+                    case "addBatch":
+                        batch.add((String) args[0]);
+                        return null;
+                    case "executeBatch":
+                        for (String sql : batch) {
+                            if (sql.contains("FAIL")) {
+                                batch.clear();
+                                throw new SQLException("syntax error at " + sql);
+                            }
+                            transaction.add(sql);
+                        }
+                        int[] counts = new int[batch.size()];
+                        batch.clear();
+                        return counts;
+                    case "execute":
+                        if (((String) args[0]).startsWith("DROP TABLE " + SqlBootstrapExecutor.PROGRESS_TABLE)) {
+                            progress.clear();
+                            progressDropped = true;
+                        }
+                        return false;
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        PreparedStatement preparedStatement(String sql) {
+            Map<Integer, Object> params = new HashMap<>();
+            return proxy(PreparedStatement.class, (method, args) -> {
+                switch (method) {
+                    case "setString":
+                    case "setLong":
+                        params.put((Integer) args[0], args[1]);
+                        return null;
+                    case "executeQuery":
+                        Object[] row = progress.get((String) params.get(1));
+                        return resultSet(row);
+                    case "executeUpdate":
+                        if (sql.startsWith("UPDATE")) {
+                            String script = (String) params.get(3);
+                            if (!progress.containsKey(script) && !pendingProgress.containsKey(script)) {
+                                return 0;
+                            }
+                            pendingProgress.put(script, new Object[] {params.get(1), params.get(2)});
+                        } else {
+                            pendingProgress.put((String) params.get(1), new Object[] {params.get(2), params.get(3)});
+                        }
+                        return 1;
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        ResultSet resultSet(Object[] row) {
+            boolean[] read = {false};
+            return proxy(ResultSet.class, (method, args) -> {
+                switch (method) {
+                    case "next":
+                        boolean hasRow = row != null && !read[0];
+                        read[0] = true;
+                        return hasRow;
+                    case "getString":
+                        return row[0];
+                    case "getLong":
+                        return row[1];
+                    default:
+                        return null;
+                }
+            });
+        }
+    }
+
+    interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> handler.invoke(method.getName(), args));
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import com.amazon.aws.partners.saasfactory.saasboost.SqlStatementReader.Dialect;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SqlBulkInsertTest {
+
+    @Test
+    public void testCombinesSameTable() {
+        SqlBulkInsert rows = SqlBulkInsert.parse(
+                "INSERT INTO category (category_id, category) VALUES (1, 'Books')", Dialect.POSTGRESQL);
+        assertNotNull(rows);
+        assertTrue(rows.add(SqlBulkInsert.parse(
+                "insert into category (category_id,\n category) values (2, 'Toys, Games'), (3, 'A (B)')",
+                Dialect.POSTGRESQL)));
+        assertFalse(rows.add(SqlBulkInsert.parse(
+                "INSERT INTO product (category_id, category) VALUES (4, 'x')", Dialect.POSTGRESQL)));
+        assertFalse(rows.add(SqlBulkInsert.parse(
+                "INSERT INTO category (category) VALUES ('x')", Dialect.POSTGRESQL)));
+        assertEquals(3, rows.getRows());
+        assertEquals(2, rows.getStatements());
+        assertEquals("INSERT INTO category (category_id, category) VALUES (1, 'Books'), (2, 'Toys, Games'), "
+                + "(3, 'A (B)')", rows.toSql());
+    }
+
+    @Test
+    public void testSingleStatementUnchanged() {
+        String sql = "INSERT INTO t(a) VALUES(1)";
+        assertEquals(sql, SqlBulkInsert.parse(sql, Dialect.MYSQL).toSql());
+    }
+
+    @Test
+    public void testOnlyPlainInserts() {
+        assertNull(SqlBulkInsert.parse("INSERT INTO t VALUES (1) ON CONFLICT DO NOTHING", Dialect.POSTGRESQL));
+        assertNull(SqlBulkInsert.parse("INSERT INTO t VALUES (1) RETURNING id", Dialect.POSTGRESQL));
+        assertNull(SqlBulkInsert.parse("INSERT INTO t (a) SELECT a FROM s", Dialect.POSTGRESQL));
+        assertNull(SqlBulkInsert.parse("INSERT INTO t SET a = 1", Dialect.MYSQL));
+        assertNull(SqlBulkInsert.parse("INSERT INTO t VALUES (1)", Dialect.ORACLE));
+        assertNull(SqlBulkInsert.parse("UPDATE t SET a = 1", Dialect.POSTGRESQL));
+        // The parenthesis in the string doesn't end the row
+        assertNull(SqlBulkInsert.parse("INSERT INTO t VALUES ('a)') ON DUPLICATE KEY UPDATE a = 1", Dialect.MYSQL));
+        assertNotNull(SqlBulkInsert.parse("INSERT INTO t VALUES ('it\\'s)')", Dialect.MYSQL));
+    }
+
+    @Test
+    public void testLimits() {
+        SqlBulkInsert rows = SqlBulkInsert.parse("INSERT INTO t VALUES (0)", Dialect.SQLSERVER);
+        for (int i = 1; i < SqlBulkInsert.MAX_ROWS; i++) {
+            assertTrue(rows.add(SqlBulkInsert.parse("INSERT INTO t VALUES (" + i + ")", Dialect.SQLSERVER)));
+        }
+        assertFalse(rows.add(SqlBulkInsert.parse("INSERT INTO t VALUES (1000)", Dialect.SQLSERVER)));
+    }
+
+    @Test
+    public void testCsv() {
+        SqlBulkInsert rows = SqlBulkInsert.parse(
+                "INSERT INTO t (a, b, c, d) VALUES (1, 'it''s \"quoted\"', NULL, TRUE), (-25, '', null, false)",
+                Dialect.POSTGRESQL);
+        assertEquals("COPY t (a, b, c, d) FROM STDIN WITH (FORMAT csv)", rows.toCopy());
+        assertEquals("1,\"it's \"\"quoted\"\"\",,TRUE\n-25,\"\",,false\n", rows.toCsv());
+
+        // Anything but a literal has to be inserted
+        assertNull(SqlBulkInsert.parse("INSERT INTO t VALUES (now())", Dialect.POSTGRESQL).toCsv());
+        assertNull(SqlBulkInsert.parse("INSERT INTO t VALUES ('2020-01-01'::date)", Dialect.POSTGRESQL).toCsv());
+        assertNull(SqlBulkInsert.parse("INSERT INTO t VALUES (E'a\\nb')", Dialect.POSTGRESQL).toCsv());
+        assertNull(SqlBulkInsert.parse("INSERT INTO t VALUES ('a' || 'b')", Dialect.POSTGRESQL).toCsv());
+    }
+
+    @Test
+    public void testCsvDecimalIntoInteger() {
+        // INSERT casts these into an integer column but COPY rejects them
+        assertNull(SqlBulkInsert.parse("INSERT INTO t (id) VALUES (1), (1.0)", Dialect.POSTGRESQL).toCsv());
+        assertNull(SqlBulkInsert.parse("INSERT INTO t (id) VALUES (1), (.5)", Dialect.POSTGRESQL).toCsv());
+        assertNull(SqlBulkInsert.parse("INSERT INTO t (id) VALUES (1), (1e5)", Dialect.POSTGRESQL).toCsv());
+        assertNull(SqlBulkInsert.parse("INSERT INTO t (id) VALUES (-2.5e3)", Dialect.POSTGRESQL).toCsv());
+        // As strings they're sent the way they were written
+        assertEquals("\"1.0\"\n+7\n", SqlBulkInsert.parse("INSERT INTO t (id) VALUES ('1.0'), (+7)",
+                Dialect.POSTGRESQL).toCsv());
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import com.amazon.aws.partners.saasfactory.saasboost.SqlStatementReader.Dialect;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SqlStatementReaderTest {
+
+    private static List<String> statements(String sql, Dialect dialect) throws IOException {
+        List<String> statements = new ArrayList<>();
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql), dialect)) {
+            String statement;
+            while ((statement = reader.next()) != null) {
+                statements.add(statement);
+            }
+            assertEquals(statements.size(), reader.getStatements());
+        }
+        return statements;
+    }
+
+    // Enough statements to run through the reader's buffer several times
+    private static String inserts(int count) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sql.append("INSERT INTO t VALUES (").append(i).append(", 'some padding text');\n");
+        }
+        return sql.toString();
+    }
+
+    @Test
+    public void testLongScriptAfterDollarQuote() throws IOException {
+        String sql = "CREATE FUNCTION f() RETURNS int AS $$ BEGIN RETURN 1; END; $$ LANGUAGE plpgsql;\n"
+                + inserts(2000);
+        List<String> statements = statements(sql, Dialect.POSTGRESQL);
+        assertEquals(2001, statements.size());
+        assertEquals("INSERT INTO t VALUES (1999, 'some padding text')", statements.get(2000));
+    }
+
+    @Test
+    public void testLongScriptAfterGo() throws IOException {
+        String sql = "CREATE TABLE t (id INT)\nGO\n" + inserts(2000);
+        List<String> statements = statements(sql, Dialect.SQLSERVER);
+        assertEquals(2001, statements.size());
+        assertEquals("INSERT INTO t VALUES (1999, 'some padding text')", statements.get(2000));
+    }
+
+    @Test
+    public void testLongScriptAfterDelimiter() throws IOException {
+        String sql = "DELIMITER //\nCREATE PROCEDURE p() BEGIN SELECT 1; END//\nDELIMITER ;\n" + inserts(2000);
+        List<String> statements = statements(sql, Dialect.MYSQL);
+        assertEquals(2001, statements.size());
+        assertEquals("INSERT INTO t VALUES (1999, 'some padding text')", statements.get(2000));
+    }
+
+    @Test
+    public void testBootstrapFile() throws IOException {
+        List<String> statements = new ArrayList<>();
+        try (SqlStatementReader reader = new SqlStatementReader(new InputStreamReader(
+                getClass().getClassLoader().getResourceAsStream("bootstrap.sql"), StandardCharsets.UTF_8),
+                Dialect.MYSQL)) {
+            String statement;
+            while ((statement = reader.next()) != null) {
+                statements.add(statement);
+            }
+        }
+        assertEquals(6, statements.size());
+        assertTrue(statements.get(0).startsWith("CREATE TABLE IF NOT EXISTS category"));
+        assertFalse(statements.get(0).contains("Copyright"));
+    }
+
+    @Test
+    public void testQuotesAndComments() throws IOException {
+        String sql = "INSERT INTO t VALUES ('a;b', 'it''s; here'); -- trailing; comment\n"
+                + "/* block; comment */ INSERT INTO \"odd;name\" VALUES (1);\n"
+                + "\n"
+                + "SELECT 1";
+        List<String> statements = statements(sql, Dialect.POSTGRESQL);
+        assertEquals(3, statements.size());
+        assertEquals("INSERT INTO t VALUES ('a;b', 'it''s; here')", statements.get(0));
+        assertEquals("INSERT INTO \"odd;name\" VALUES (1)", statements.get(1));
+        assertEquals("SELECT 1", statements.get(2));
+    }
+
+    @Test
+    public void testMySqlDelimiterAndEscapes() throws IOException {
+        String sql = "/*!40014 SET FOREIGN_KEY_CHECKS=0 */;\n"
+                + "INSERT INTO t VALUES ('don\\'t; stop'); # comment;\n"
+                + "DELIMITER //\n"
+                + "CREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END//\n"
+                + "DELIMITER ;\n"
+                + "DELETE FROM t;\n";
+        List<String> statements = statements(sql, Dialect.MYSQL);
+        assertEquals(4, statements.size());
+        assertEquals("/*!40014 SET FOREIGN_KEY_CHECKS=0 */", statements.get(0));
+        assertEquals("INSERT INTO t VALUES ('don\\'t; stop')", statements.get(1));
+        assertEquals("CREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END", statements.get(2));
+        assertEquals("DELETE FROM t", statements.get(3));
+    }
+
+    @Test
+    public void testPostgresDollarQuoting() throws IOException {
+        String sql = "CREATE FUNCTION f() RETURNS int AS $body$ BEGIN RETURN 1; END; $body$ LANGUAGE plpgsql;\n"
+                + "DO $$ BEGIN PERFORM 1; END $$;\n"
+                + "PREPARE q AS SELECT $1;";
+        List<String> statements = statements(sql, Dialect.POSTGRESQL);
+        assertEquals(3, statements.size());
+        assertEquals("CREATE FUNCTION f() RETURNS int AS $body$ BEGIN RETURN 1; END; $body$ LANGUAGE plpgsql",
+                statements.get(0));
+        assertEquals("DO $$ BEGIN PERFORM 1; END $$", statements.get(1));
+        assertEquals("PREPARE q AS SELECT $1", statements.get(2));
+    }
+
+    @Test
+    public void testSqlServerBatches() throws IOException {
+        String sql = "CREATE TABLE [a;b] (id INT);\n"
+                + "GO\n"
+                + "CREATE PROCEDURE p AS\n"
+                + "BEGIN\n"
+                + "  SELECT 1;\n"
+                + "  SELECT 2;\n"
+                + "END\n"
+                + "go\n"
+                + "GOTO_TABLE_INSERT;\n";
+        List<String> statements = statements(sql, Dialect.SQLSERVER);
+        assertEquals(3, statements.size());
+        assertEquals("CREATE TABLE [a;b] (id INT)", statements.get(0));
+        assertEquals("CREATE PROCEDURE p AS\nBEGIN\n  SELECT 1;\n  SELECT 2;\nEND", statements.get(1));
+        assertEquals("GOTO_TABLE_INSERT", statements.get(2));
+    }
+
+    @Test
+    public void testOraclePlsqlBlocks() throws IOException {
+        String sql = "CREATE TABLE t (id NUMBER);\n"
+                + "CREATE OR REPLACE PROCEDURE p IS\n"
+                + "BEGIN\n"
+                + "  INSERT INTO t VALUES (1);\n"
+                + "END;\n"
+                + "/\n"
+                + "SELECT 4 / 2 FROM dual;\n";
+        List<String> statements = statements(sql, Dialect.ORACLE);
+        assertEquals(3, statements.size());
+        assertEquals("CREATE TABLE t (id NUMBER)", statements.get(0));
+        assertEquals("CREATE OR REPLACE PROCEDURE p IS\nBEGIN\n  INSERT INTO t VALUES (1);\nEND;", statements.get(1));
+        assertEquals("SELECT 4 / 2 FROM dual", statements.get(2));
+    }
+
+    @Test
+    public void testLongLines() throws IOException {
+        // A line much longer than the read buffer that starts like a DELIMITER or GO command
+        StringBuilder sql = new StringBuilder("DELETE FROM t WHERE v IN (");
+        for (int i = 0; i < 5000; i++) {
+            sql.append(i > 0 ? "," : "").append("'v;").append(i).append("'");
+        }
+        sql.append(");\nGOTO_TABLE_INSERT;");
+        for (Dialect dialect : Dialect.values()) {
+            List<String> statements = statements(sql.toString(), dialect);
+            assertEquals(2, statements.size());
+            assertTrue(statements.get(0).endsWith("'v;4999')"));
+            assertEquals("GOTO_TABLE_INSERT", statements.get(1));
+        }
+    }
+}
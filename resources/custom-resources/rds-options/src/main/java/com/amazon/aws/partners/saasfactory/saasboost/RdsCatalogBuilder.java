@@ -0,0 +1,155 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.rds.RdsClient;
+import software.amazon.awssdk.services.rds.model.DBEngineVersion;
+import software.amazon.awssdk.services.rds.model.OrderableDBInstanceOption;
+
+import java.util.*;
+
+/**
+ * Builds the catalog of RDS engines, instance classes and engine versions that can be ordered in
+ * this region. Every engine and instance class pair is looked up concurrently, then the details of
+ * each distinct engine version are looked up once no matter how many instance classes offer it.
+ */
+public class RdsCatalogBuilder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RdsCatalogBuilder.class);
+    static final int MAX_CONCURRENCY = 8;
+    static final int MAX_RECORDS = 100;
+    private final RdsClient rds;
+    private final String region;
+    private final int maxConcurrency;
+
+    public RdsCatalogBuilder(RdsClient rds, String region, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be greater than 0");
+        }
+        this.rds = rds;
+        this.region = region;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Returns the details of each engine with at least one orderable instance class. Instance classes
+     * without any orderable versions are left out. Any error other than throttling fails the build.
+     */
+    public Map<Database.RDS_ENGINE, Map<String, Object>> build() {
+        long startTimeMillis = System.currentTimeMillis();
+        List<Map.Entry<Database.RDS_ENGINE, Database.RDS_INSTANCE>> instances = new ArrayList<>();
+        for (Database.RDS_ENGINE engine : Database.RDS_ENGINE.values()) {
+            for (Database.RDS_INSTANCE instance : Database.RDS_INSTANCE.values()) {
+                instances.add(new AbstractMap.SimpleImmutableEntry<>(engine, instance));
+            }
+        }
+        List<Set<String>> orderableVersions = ParallelExecutor.map(instances, maxConcurrency,
+                instance -> orderableVersions(instance.getKey(), instance.getValue()));
+
+        // The same engine version is orderable on lots of instance classes
+        Set<Map.Entry<Database.RDS_ENGINE, String>> uniqueVersions = new LinkedHashSet<>();
+        for (int i = 0; i < instances.size(); i++) {
+            for (String version : orderableVersions.get(i)) {
+                uniqueVersions.add(new AbstractMap.SimpleImmutableEntry<>(instances.get(i).getKey(), version));
+            }
+        }
+        List<Map.Entry<Database.RDS_ENGINE, String>> versionLookups = new ArrayList<>(uniqueVersions);
+        List<List<Map<String, Object>>> versionResults = ParallelExecutor.map(versionLookups, maxConcurrency,
+                version -> engineVersions(version.getKey(), version.getValue()));
+        Map<Map.Entry<Database.RDS_ENGINE, String>, List<Map<String, Object>>> versionDetails = new HashMap<>();
+        for (int i = 0; i < versionLookups.size(); i++) {
+            versionDetails.put(versionLookups.get(i), versionResults.get(i));
+        }
+        LOGGER.info("{} looked up {} instance classes and {} engine versions in {} ms", region, instances.size(),
+                versionLookups.size(), System.currentTimeMillis() - startTimeMillis);
+
+        Map<Database.RDS_ENGINE, Map<String, Object>> catalog = new EnumMap<>(Database.RDS_ENGINE.class);
+        for (int i = 0; i < instances.size(); i++) {
+            Database.RDS_ENGINE engine = instances.get(i).getKey();
+            Database.RDS_INSTANCE instance = instances.get(i).getValue();
+            // describeDBEngineVersions can bring back the same version more than once so we only
+            // keep the first of each
+            Map<String, Map<String, Object>> versions = new LinkedHashMap<>();
+            for (String orderableVersion : orderableVersions.get(i)) {
+                for (Map<String, Object> version : versionDetails.get(
+                        new AbstractMap.SimpleImmutableEntry<>(engine, orderableVersion))) {
+                    versions.putIfAbsent((String) version.get("version"), version);
+                }
+            }
+            if (versions.isEmpty()) {
+                continue;
+            }
+            LOGGER.info("{} {} {} has {} available versions", region, engine.getEngine(),
+                    instance.getInstanceClass(), versions.size());
+
+            Map<String, Object> instanceDetails = new HashMap<>();
+            instanceDetails.put("class", instance.getInstanceClass());
+            instanceDetails.put("description", instance.getDescription());
+            instanceDetails.put("versions", new ArrayList<>(versions.values()));
+
+            Map<String, Object> engineDetails = catalog.computeIfAbsent(engine, key -> {
+                Map<String, Object> details = new HashMap<>();
+                details.put("name", key.getEngine());
+                details.put("description", key.getDescription());
+                details.put("instances", new EnumMap<Database.RDS_INSTANCE, Map<String, Object>>(
+                        Database.RDS_INSTANCE.class));
+                return details;
+            });
+            ((Map<Database.RDS_INSTANCE, Map<String, Object>>) engineDetails.get("instances"))
+                    .put(instance, instanceDetails);
+        }
+        for (Database.RDS_ENGINE engine : Database.RDS_ENGINE.values()) {
+            if (!catalog.containsKey(engine)) {
+                LOGGER.info("Removing unavailable engine {} in {}", engine.getEngine(), region);
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * The distinct engine versions for an engine and instance class. We can get more orderable
+     * options than versions due to storage, IOPs, security, networking, and other options.
+     */
+    Set<String> orderableVersions(Database.RDS_ENGINE engine, Database.RDS_INSTANCE instance) {
+        Set<String> versions = new LinkedHashSet<>();
+        for (OrderableDBInstanceOption orderable : rds.describeOrderableDBInstanceOptionsPaginator(request -> request
+                .engine(engine.getEngine())
+                .dbInstanceClass(instance.getInstanceClass())
+                .vpc(Boolean.TRUE)
+                .maxRecords(MAX_RECORDS)
+        ).orderableDBInstanceOptions()) {
+            versions.add(orderable.engineVersion());
+        }
+        return versions;
+    }
+
+    List<Map<String, Object>> engineVersions(Database.RDS_ENGINE engine, String engineVersion) {
+        List<Map<String, Object>> versions = new ArrayList<>();
+        for (DBEngineVersion dbVersion : rds.describeDBEngineVersionsPaginator(request -> request
+                .engine(engine.getEngine())
+                .engineVersion(engineVersion)
+        ).dbEngineVersions()) {
+            Map<String, Object> version = new HashMap<>();
+            version.put("version", dbVersion.engineVersion());
+            version.put("description", dbVersion.dbEngineVersionDescription());
+            version.put("family", dbVersion.dbParameterGroupFamily());
+            versions.add(version);
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.*;
+
+/**
+ * Saves the RDS options catalog to the options table, one item per engine for this region, for the
+ * settings service to look up.
+ */
+public class RdsOptionsTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RdsOptionsTable.class);
+    // The most items BatchWriteItem takes in one request
+    static final int MAX_BATCH_SIZE = 25;
+    static final int MAX_ATTEMPTS = 8;
+    static final long RETRY_DELAY_MILLIS = 100L;
+    // Sort key of the item holding the version of the whole catalog so readers can check it with one read
+    static final String VERSION_ENGINE = "CATALOG_VERSION";
+    private final DynamoDbClient ddb;
+    private final String table;
+
+    public RdsOptionsTable(DynamoDbClient ddb, String table) {
+        this.ddb = ddb;
+        this.table = table;
+    }
+
+    /**
+     * Writes every engine in the catalog stamped with the same version so readers caching the catalog
+     * know when it has been rebuilt. The version is also written to its own item once every engine
+     * is saved, so a reader that sees the new version can load the whole catalog. Returns how many
+     * engines were written.
+     */
+    public int save(String region, Map<Database.RDS_ENGINE, Map<String, Object>> catalog, String version) {
+        List<WriteRequest> writes = new ArrayList<>();
+        for (Map.Entry<Database.RDS_ENGINE, Map<String, Object>> engine : catalog.entrySet()) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("region", AttributeValue.builder().s(region).build());
+            item.put("engine", AttributeValue.builder().s(engine.getKey().name()).build());
+            item.put("options", AttributeValue.builder().m(toAttributeValueMap(engine.getValue())).build());
+            item.put("version", AttributeValue.builder().n(version).build());
+            writes.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+        }
+        for (List<WriteRequest> batch : ParallelExecutor.partition(writes, MAX_BATCH_SIZE)) {
+            batchWrite(batch);
+        }
+        Map<String, AttributeValue> catalogVersion = new HashMap<>();
+        catalogVersion.put("region", AttributeValue.builder().s(region).build());
+        catalogVersion.put("engine", AttributeValue.builder().s(VERSION_ENGINE).build());
+        catalogVersion.put("version", AttributeValue.builder().n(version).build());
+        ParallelExecutor.withThrottlingRetry(() -> ddb.putItem(request -> request
+                .tableName(table)
+                .item(catalogVersion)
+        ));
+        LOGGER.info("Saved {} RDS engines for {} to {}", writes.size(), region, table);
+        return writes.size();
+    }
+
+    // BatchWriteItem can succeed without writing everything, so keep sending what's left
+    private void batchWrite(List<WriteRequest> batch) {
+        Map<String, List<WriteRequest>> requestItems = Collections.singletonMap(table, batch);
+        for (int attempt = 1; ; attempt++) {
+            final Map<String, List<WriteRequest>> items = requestItems;
+            BatchWriteItemResponse response = ParallelExecutor.withThrottlingRetry(() -> ddb.batchWriteItem(
+                    request -> request.requestItems(items)
+            ));
+            if (response.unprocessedItems().isEmpty()) {
+                return;
+            }
+            requestItems = response.unprocessedItems();
+            int unprocessed = requestItems.values().stream().mapToInt(List::size).sum();
+            if (attempt >= MAX_ATTEMPTS) {
+                throw new RuntimeException("Unable to write " + unprocessed + " items to " + table);
+            }
+            LOGGER.warn("Retrying {} unprocessed items for {}", unprocessed, table);
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS * (1L << attempt));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(interrupted);
+            }
+        }
+    }
+
+    // Convert our data to DynamoDB attribute values
+    static Map<String, AttributeValue> toAttributeValueMap(Map<String, Object> engineDetails) {
+        Map<String, AttributeValue> options = new HashMap<>();
+        options.put("name", AttributeValue.builder().s((String) engineDetails.get("name")).build());
+        options.put("description", AttributeValue.builder().s((String) engineDetails.get("description")).build());
+
+        Map<String, AttributeValue> instances = new HashMap<>();
+        for (Map.Entry<Database.RDS_INSTANCE, Map<String, Object>> instance
+                : ((Map<Database.RDS_INSTANCE, Map<String, Object>>) engineDetails.get("instances")).entrySet()) {
+            Map<String, Object> instanceDetails = instance.getValue();
+
+            Map<String, AttributeValue> versions = new HashMap<>();
+            versions.put("class", AttributeValue.builder().s((String) instanceDetails.get("class")).build());
+            versions.put("description", AttributeValue.builder()
+                    .s((String) instanceDetails.get("description")).build());
+
+            List<AttributeValue> instanceVersions = new ArrayList<>();
+            for (Map<String, Object> instanceVersion : (List<Map<String, Object>>) instanceDetails.get("versions")) {
+                Map<String, AttributeValue> version = new HashMap<>();
+                for (Map.Entry<String, Object> entry : instanceVersion.entrySet()) {
+                    version.put(entry.getKey(), AttributeValue.builder().s((String) entry.getValue()).build());
+                }
+                instanceVersions.add(AttributeValue.builder().m(version).build());
+            }
+            versions.put("versions", AttributeValue.builder().l(instanceVersions).build());
+
+            instances.put(instance.getKey().name(), AttributeValue.builder().m(versions).build());
+        }
+        options.put("instances", AttributeValue.builder().m(instances).build());
+
+        return options;
+    }
+}
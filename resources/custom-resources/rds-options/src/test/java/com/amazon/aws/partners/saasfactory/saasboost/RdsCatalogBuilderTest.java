@@ -0,0 +1,255 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+import software.amazon.awssdk.services.rds.RdsClient;
+import software.amazon.awssdk.services.rds.model.*;
+import software.amazon.awssdk.services.rds.paginators.DescribeDBEngineVersionsIterable;
+import software.amazon.awssdk.services.rds.paginators.DescribeOrderableDBInstanceOptionsIterable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RdsCatalogBuilderTest {
+
+    private static StubRds stubRds() {
+        StubRds rds = new StubRds();
+        rds.orderable("postgres", "db.t3.medium", "12.4", "12.4", "11.9", "10.14");
+        rds.orderable("postgres", "db.r5.large", "12.4", "11.9");
+        rds.orderable("mysql", "db.t3.micro", "8.0.20");
+        return rds;
+    }
+
+    @Test
+    public void testBuild() {
+        StubRds rds = stubRds();
+        Map<Database.RDS_ENGINE, Map<String, Object>> catalog = new RdsCatalogBuilder(rds, "us-east-1", 4).build();
+
+        // Only engines with orderable instances are in the catalog
+        assertEquals(EnumSet.of(Database.RDS_ENGINE.MYSQL, Database.RDS_ENGINE.POSTGRES), catalog.keySet());
+        Map<String, Object> postgres = catalog.get(Database.RDS_ENGINE.POSTGRES);
+        assertEquals("postgres", postgres.get("name"));
+        Map<Database.RDS_INSTANCE, Map<String, Object>> instances =
+                (Map<Database.RDS_INSTANCE, Map<String, Object>>) postgres.get("instances");
+        assertEquals(EnumSet.of(Database.RDS_INSTANCE.T3_MEDIUM, Database.RDS_INSTANCE.R5_LARGE), instances.keySet());
+
+        List<Map<String, Object>> versions = (List<Map<String, Object>>) instances
+                .get(Database.RDS_INSTANCE.T3_MEDIUM).get("versions");
+        assertEquals(3, versions.size());
+        assertEquals("12.4", versions.get(0).get("version"));
+        assertEquals("postgres12", versions.get(0).get("family"));
+        assertEquals("10.14", versions.get(2).get("version"));
+    }
+
+    @Test
+    public void testVersionsLookedUpOnce() {
+        StubRds rds = stubRds();
+        new RdsCatalogBuilder(rds, "us-east-1", 4).build();
+
+        // Every engine and instance class pair is checked, but each version only once
+        assertEquals(Database.RDS_ENGINE.values().length * Database.RDS_INSTANCE.values().length,
+                rds.orderableCalls.get());
+        assertEquals(4, rds.versionCalls.size());
+        for (AtomicInteger calls : rds.versionCalls.values()) {
+            assertEquals(1, calls.get());
+        }
+    }
+
+    @Test
+    public void testThrottlingRetried() {
+        StubRds rds = stubRds();
+        rds.throttles.set(3);
+        Map<Database.RDS_ENGINE, Map<String, Object>> catalog = new RdsCatalogBuilder(rds, "us-east-1", 4).build();
+        assertEquals(2, catalog.size());
+        assertEquals(0, rds.throttles.get());
+    }
+
+    @Test
+    public void testErrorFailsBuild() {
+        StubRds rds = stubRds();
+        rds.failVersion = "11.9";
+        try {
+            new RdsCatalogBuilder(rds, "us-east-1", 4).build();
+            fail("Expected the build to fail");
+        } catch (SdkServiceException e) {
+            assertEquals(400, e.statusCode());
+        }
+    }
+
+    @Test
+    public void testSaveCatalog() {
+        StubDynamoDb ddb = new StubDynamoDb(1);
+        Map<Database.RDS_ENGINE, Map<String, Object>> catalog = new RdsCatalogBuilder(stubRds(), "us-east-1", 4)
+                .build();
+        assertEquals(2, new RdsOptionsTable(ddb, "options").save("us-east-1", catalog, "12345"));
+
+        // The first attempt leaves an item unprocessed which is sent again
+        assertEquals(2, ddb.calls);
+        assertEquals(2, ddb.items.size());
+        Map<String, AttributeValue> item = ddb.items.get("POSTGRES");
+        assertEquals("us-east-1", item.get("region").s());
+        assertEquals("12345", item.get("version").n());
+        assertEquals(2, item.get("options").m().get("instances").m().size());
+        assertEquals("11.9", item.get("options").m().get("instances").m().get("R5_LARGE").m().get("versions").l()
+                .get(1).m().get("version").s());
+
+        // The catalog version is written on its own once every engine is saved
+        assertEquals(RdsOptionsTable.VERSION_ENGINE, ddb.catalogVersion.get("engine").s());
+        assertEquals("12345", ddb.catalogVersion.get("version").n());
+        assertEquals(2, ddb.itemsBeforeCatalogVersion);
+    }
+
+    // Leaves the last item of the first few requests unprocessed like a throttled table
+    static class StubDynamoDb implements DynamoDbClient {
+        final Map<String, Map<String, AttributeValue>> items = new HashMap<>();
+        int partialWrites;
+        int calls;
+        Map<String, AttributeValue> catalogVersion;
+        int itemsBeforeCatalogVersion;
+
+        StubDynamoDb(int partialWrites) {
+            this.partialWrites = partialWrites;
+        }
+
+        @Override
+        public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+            calls++;
+            Map<String, List<WriteRequest>> unprocessed = new HashMap<>();
+            for (Map.Entry<String, List<WriteRequest>> table : request.requestItems().entrySet()) {
+                List<WriteRequest> writes = table.getValue();
+                if (partialWrites > 0) {
+                    partialWrites--;
+                    unprocessed.put(table.getKey(), writes.subList(writes.size() - 1, writes.size()));
+                    writes = writes.subList(0, writes.size() - 1);
+                }
+                for (WriteRequest write : writes) {
+                    Map<String, AttributeValue> item = write.putRequest().item();
+                    items.put(item.get("engine").s(), item);
+                }
+            }
+            return BatchWriteItemResponse.builder().unprocessedItems(unprocessed).build();
+        }
+
+        @Override
+        public PutItemResponse putItem(PutItemRequest request) {
+            catalogVersion = request.item();
+            itemsBeforeCatalogVersion = items.size();
+            return PutItemResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return DynamoDbClient.SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Stands in for the RDS endpoint with a fixed set of orderable instances
+    static class StubRds implements RdsClient {
+        final Map<String, List<String>> orderable = new HashMap<>();
+        final AtomicInteger orderableCalls = new AtomicInteger();
+        final Map<String, AtomicInteger> versionCalls = new ConcurrentHashMap<>();
+        final AtomicInteger throttles = new AtomicInteger();
+        volatile String failVersion;
+
+        void orderable(String engine, String instanceClass, String... versions) {
+            orderable.put(engine + " " + instanceClass, Arrays.asList(versions));
+        }
+
+        @Override
+        public DescribeOrderableDbInstanceOptionsResponse describeOrderableDBInstanceOptions(
+                DescribeOrderableDbInstanceOptionsRequest request) {
+            if (throttles.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                throw SdkServiceException.builder().statusCode(429).message("Rate exceeded").build();
+            }
+            List<String> versions = orderable.getOrDefault(request.engine() + " " + request.dbInstanceClass(),
+                    Collections.emptyList());
+            // Two options per page so paging is exercised
+            int start = request.marker() != null ? Integer.parseInt(request.marker()) : 0;
+            if (start == 0) {
+                orderableCalls.incrementAndGet();
+            }
+            int end = Math.min(start + 2, versions.size());
+            List<OrderableDBInstanceOption> options = new ArrayList<>();
+            for (String version : versions.subList(start, end)) {
+                options.add(OrderableDBInstanceOption.builder()
+                        .engine(request.engine())
+                        .engineVersion(version)
+                        .dbInstanceClass(request.dbInstanceClass())
+                        .build());
+            }
+            return DescribeOrderableDbInstanceOptionsResponse.builder()
+                    .orderableDBInstanceOptions(options)
+                    .marker(end < versions.size() ? String.valueOf(end) : null)
+                    .build();
+        }
+
+        @Override
+        public DescribeOrderableDBInstanceOptionsIterable describeOrderableDBInstanceOptionsPaginator(
+                DescribeOrderableDbInstanceOptionsRequest request) {
+            return new DescribeOrderableDBInstanceOptionsIterable(this, request);
+        }
+
+        @Override
+        public DescribeDbEngineVersionsResponse describeDBEngineVersions(DescribeDbEngineVersionsRequest request) {
+            if (request.engineVersion().equals(failVersion)) {
+                throw SdkServiceException.builder().statusCode(400).message("Bad request").build();
+            }
+            versionCalls.computeIfAbsent(request.engine() + " " + request.engineVersion(),
+                    key -> new AtomicInteger()).incrementAndGet();
+            DBEngineVersion version = DBEngineVersion.builder()
+                    .engine(request.engine())
+                    .engineVersion(request.engineVersion())
+                    .dbEngineVersionDescription(request.engine() + " " + request.engineVersion())
+                    .dbParameterGroupFamily(request.engine() + request.engineVersion().split("\\.")[0])
+                    .build();
+            // The same version can come back more than once
+            return DescribeDbEngineVersionsResponse.builder()
+                    .dbEngineVersions(version, version)
+                    .build();
+        }
+
+        @Override
+        public DescribeDBEngineVersionsIterable describeDBEngineVersionsPaginator(
+                DescribeDbEngineVersionsRequest request) {
+            return new DescribeDBEngineVersionsIterable(this, request);
+        }
+
+        @Override
+        public String serviceName() {
+            return RdsClient.SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
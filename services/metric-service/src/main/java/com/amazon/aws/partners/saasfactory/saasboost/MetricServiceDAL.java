@@ -60,6 +60,9 @@ public class MetricServiceDAL {
     private final static String API_GATEWAY_HOST = System.getenv("API_GATEWAY_HOST");
     private final static String API_GATEWAY_STAGE = System.getenv("API_GATEWAY_STAGE");
     private final static String API_TRUST_ROLE = System.getenv("API_TRUST_ROLE");
+    // Tenant ids per settings request, which keeps the query string well under API Gateway's limit
+    static final int TENANT_SETTINGS_BATCH_SIZE = 50;
+    static final int TENANT_SETTINGS_MAX_CONCURRENCY = 4;
     private final ApplicationAutoScalingClient autoScaling;
     private final CloudWatchClient cloudWatch;
     private final S3Client s3;
@@ -633,7 +636,7 @@ public class MetricServiceDAL {
         List<String> tenantList = new ArrayList<>();
 
         ApiRequest tenantsRequest = ApiRequest.builder()
-                .resource("tenants")
+                .resource("tenants?fields=id")
                 .method("GET")
                 .build();
         SdkHttpFullRequest apiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST, API_GATEWAY_STAGE,
@@ -687,29 +690,28 @@ public class MetricServiceDAL {
         if (Utils.isBlank(API_TRUST_ROLE)) {
             throw new IllegalStateException("Missing required environment variable API_TRUST_ROLE");
         }
-        LOGGER.info("Loading parameters from settings service for tenant {}", tenantId);
-        ApiRequest tenantSettings = ApiRequest.builder()
-                .resource("settings/tenant/" + tenantId)
-                .method("GET")
-                .build();
-        SdkHttpFullRequest apiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST, API_GATEWAY_STAGE,
-                tenantSettings);
-        String responseBody = null;
+        // Queries usually span many tenants, so fill the cache with every tenant's ALB at once. Asking
+        // for the tenants by id lets the settings service fetch just the ALB parameter for each one with
+        // batched GetParameters calls instead of walking every tenant's parameters.
+        Set<String> tenantIds = new LinkedHashSet<>();
+        tenantIds.add(tenantId);
         try {
-            responseBody = ApiGatewayHelper.signAndExecuteApiRequest(apiRequest, API_TRUST_ROLE,
-                    "MetricsService-LoadParams");
-            List<Map<String, String>> settings = Utils.fromJson(responseBody, ArrayList.class);
-            if (null == settings) {
-                throw new RuntimeException(("responseBody not valid list of Strings"));
-            }
-            for (Map<String, String> setting : settings) {
-                LOGGER.info("Caching {} => {}", tenantId + "/" + setting.get("name"), setting.get("value"));
-                parameterStore.put(tenantId + "/" + setting.get("name"), setting.get("value"));
-            }
+            tenantIds.addAll(getTenants());
         } catch (Exception e) {
-            LOGGER.error("Error invoking API settings/tenant/" + tenantId);
+            LOGGER.error("Error listing tenants, only loading ALB parameter for tenant {}", tenantId);
             LOGGER.error(Utils.getFullStackTrace(e));
-            throw new RuntimeException(e);
+        }
+        LOGGER.info("Loading ALB parameters from settings service for {} tenants", tenantIds.size());
+        List<List<String>> batches = ParallelExecutor.partition(new ArrayList<>(tenantIds), TENANT_SETTINGS_BATCH_SIZE);
+        List<Map<String, List<Map<String, String>>>> responses = ParallelExecutor.map(batches,
+                TENANT_SETTINGS_MAX_CONCURRENCY, this::getTenantAlbSettings);
+        for (Map<String, List<Map<String, String>>> settingsByTenant : responses) {
+            for (Map.Entry<String, List<Map<String, String>>> tenant : settingsByTenant.entrySet()) {
+                for (Map<String, String> setting : tenant.getValue()) {
+                    LOGGER.info("Caching {} => {}", tenant.getKey() + "/" + setting.get("name"), setting.get("value"));
+                    parameterStore.put(tenant.getKey() + "/" + setting.get("name"), setting.get("value"));
+                }
+            }
         }
 
         if (parameterStore.isEmpty()) {
@@ -721,6 +723,33 @@ public class MetricServiceDAL {
         LOGGER.info("getParams: exec " + totalTimeMillis);
     }
 
+    // The ALB setting for a batch of tenants keyed by tenant id
+    private Map<String, List<Map<String, String>>> getTenantAlbSettings(List<String> tenantIds) {
+        StringBuilder resource = new StringBuilder("settings/tenant?setting=ALB");
+        for (String tenantId : tenantIds) {
+            resource.append("&id=").append(tenantId);
+        }
+        ApiRequest tenantSettings = ApiRequest.builder()
+                .resource(resource.toString())
+                .method("GET")
+                .build();
+        try {
+            SdkHttpFullRequest apiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST, API_GATEWAY_STAGE,
+                    tenantSettings);
+            String responseBody = ApiGatewayHelper.signAndExecuteApiRequest(apiRequest, API_TRUST_ROLE,
+                    "MetricsService-LoadParams");
+            Map<String, List<Map<String, String>>> settingsByTenant = Utils.fromJson(responseBody, HashMap.class);
+            if (null == settingsByTenant) {
+                throw new RuntimeException(("responseBody not valid map of tenant settings"));
+            }
+            return settingsByTenant;
+        } catch (Exception e) {
+            LOGGER.error("Error invoking API settings/tenant?setting=ALB");
+            LOGGER.error(Utils.getFullStackTrace(e));
+            throw new RuntimeException(e);
+        }
+    }
+
     private Map<String, Integer> getTaskMaxCapacity(List<String> tenants) {
 
         String nextToken = null;
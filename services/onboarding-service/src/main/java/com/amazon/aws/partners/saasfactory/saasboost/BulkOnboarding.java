@@ -0,0 +1,111 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Progress of a bulk onboarding request. Every tenant in the batch has its own onboarding record
+ * and the bulk onboarding workflow admits them a few at a time, so a tenant still in the created
+ * state is waiting its turn and one in the provisioning state is holding an admission slot.
+ */
+public class BulkOnboarding {
+
+    private String id;
+    private String status;
+    private Instant started;
+    private Instant stopped;
+    private int total;
+    private Map<String, Integer> progress;
+    private List<Onboarding> onboardings;
+
+    public BulkOnboarding() {
+    }
+
+    public BulkOnboarding(String id, String status, List<Onboarding> onboardings) {
+        this.id = id;
+        this.status = status;
+        this.onboardings = onboardings;
+        this.total = onboardings.size();
+        this.progress = countByStatus(onboardings);
+    }
+
+    public static Map<String, Integer> countByStatus(Collection<Onboarding> onboardings) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (OnboardingStatus status : OnboardingStatus.values()) {
+            counts.put(status.name(), 0);
+        }
+        for (Onboarding onboarding : onboardings) {
+            if (onboarding.getStatus() != null) {
+                counts.merge(onboarding.getStatus().name(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    // Step Functions execution ARNs are the state machine ARN with the execution name on the end
+    public static String executionArn(String stateMachineArn, String executionName) {
+        if (Utils.isBlank(stateMachineArn) || !stateMachineArn.contains(":stateMachine:")) {
+            throw new IllegalArgumentException("Invalid state machine ARN " + stateMachineArn);
+        }
+        return stateMachineArn.replace(":stateMachine:", ":execution:") + ":" + executionName;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Instant getStarted() {
+        return started;
+    }
+
+    public void setStarted(Instant started) {
+        this.started = started;
+    }
+
+    public Instant getStopped() {
+        return stopped;
+    }
+
+    public void setStopped(Instant stopped) {
+        this.stopped = stopped;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public Map<String, Integer> getProgress() {
+        return progress;
+    }
+
+    public List<Onboarding> getOnboardings() {
+        return onboardings;
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Hands out tenant VPC CIDR blocks from the CIDR mapping table without scanning it. Every block
+ * has an allocation attribute that is either "available" or the id of the tenant that claimed
+ * it, and an index on that attribute finds both free blocks and a tenant's block. A block is
+ * claimed with one conditional write that moves it from available to the tenant, and losing a
+ * race to another onboarding just means trying a different block from the index. Blocks written
+ * before the index existed are given their allocation when the stack is updated, so the table is
+ * only scanned while the index is still being built.
+ */
+public class CidrBlockAllocator {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CidrBlockAllocator.class);
+    static final String ALLOCATION_INDEX = "allocation";
+    static final String AVAILABLE = "available";
+    // Available blocks read from the index per query. Picking one at random from a page
+    // keeps a burst of onboardings from all racing for the first free block.
+    static final int CANDIDATES = 25;
+    // Every lost race means another tenant got a block, so this only runs out when a burst is
+    // fighting over the last few blocks or the index is lagging far behind
+    static final int MAX_ATTEMPTS = 100;
+    static final long MAX_DELAY_MILLIS = 200L;
+    private final DynamoDbClient ddb;
+    private final String table;
+    private final DynamoDbIndex allocationIndex;
+
+    public CidrBlockAllocator(DynamoDbClient ddb, String table) {
+        this(ddb, table, new DynamoDbIndex(ddb, table, ALLOCATION_INDEX));
+    }
+
+    CidrBlockAllocator(DynamoDbClient ddb, String table, DynamoDbIndex allocationIndex) {
+        this.ddb = ddb;
+        this.table = table;
+        this.allocationIndex = allocationIndex;
+    }
+
+    /**
+     * Claims a free CIDR block for the tenant. Calling this again for the same tenant returns
+     * the block it already has.
+     */
+    public String assignCidrBlock(String tenantId) {
+        long startTimeMillis = System.currentTimeMillis();
+        String cidrBlock = claimedCidrBlock(tenantId);
+        if (cidrBlock != null) {
+            LOGGER.info("CidrBlockAllocator::assignCidrBlock tenant {} already has {}", tenantId, cidrBlock);
+            return cidrBlock;
+        }
+        List<String> candidates = new ArrayList<>();
+        int attempt = 0;
+        while (cidrBlock == null) {
+            if (candidates.isEmpty()) {
+                candidates.addAll(availableCidrBlocks());
+                if (candidates.isEmpty()) {
+                    // We're out of CIDR blocks that we can assign to tenant VPCs
+                    throw new RuntimeException("No remaining CIDR blocks");
+                }
+            }
+            if (++attempt > MAX_ATTEMPTS) {
+                throw new RuntimeException("Couldn't claim a CIDR block after " + MAX_ATTEMPTS + " attempts");
+            }
+            String candidate = candidates.remove(ThreadLocalRandom.current().nextInt(candidates.size()));
+            if (claim(candidate, tenantId)) {
+                cidrBlock = candidate;
+            } else {
+                LOGGER.info("CidrBlockAllocator::assignCidrBlock lost the race for {}, retrying", candidate);
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(Math.min(MAX_DELAY_MILLIS, 10L * attempt)));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(interrupted);
+                }
+            }
+        }
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("CidrBlockAllocator::assignCidrBlock claimed {} after {} attempts exec {}", cidrBlock, attempt,
+                totalTimeMillis);
+        return cidrBlock;
+    }
+
+    // Sets the tenant and moves the block out of the available partition of the index in the
+    // same write. Returns false if another tenant got there first.
+    boolean claim(String cidrBlock, String tenantId) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put("cidr_block", AttributeValue.builder().s(cidrBlock).build());
+        try {
+            ddb.updateItem(request -> request
+                    .tableName(table)
+                    .key(key)
+                    .updateExpression("SET tenant_id = :tenantId, allocation = :tenantId")
+                    .conditionExpression("attribute_exists(cidr_block) AND attribute_not_exists(tenant_id)")
+                    .expressionAttributeValues(Collections.singletonMap(":tenantId",
+                            AttributeValue.builder().s(tenantId).build()))
+            );
+            return true;
+        } catch (ConditionalCheckFailedException conflict) {
+            return false;
+        }
+    }
+
+    private String claimedCidrBlock(String tenantId) {
+        String cidrBlock = null;
+        if (allocationIndex.isActive()) {
+            List<String> claimed = queryAllocation(tenantId, 1);
+            if (!claimed.isEmpty()) {
+                cidrBlock = claimed.get(0);
+            }
+        } else {
+            cidrBlock = unindexedScan().stream()
+                    .filter(item -> item.containsKey("tenant_id") && tenantId.equals(item.get("tenant_id").s()))
+                    .map(item -> item.get("cidr_block").s())
+                    .findFirst()
+                    .orElse(null);
+        }
+        return cidrBlock;
+    }
+
+    private List<String> availableCidrBlocks() {
+        List<String> available;
+        if (allocationIndex.isActive()) {
+            available = queryAllocation(AVAILABLE, CANDIDATES);
+        } else {
+            available = unindexedScan().stream()
+                    .filter(item -> !item.containsKey("tenant_id"))
+                    .map(item -> item.get("cidr_block").s())
+                    .collect(Collectors.toList());
+        }
+        return available;
+    }
+
+    private List<String> queryAllocation(String allocation, int limit) {
+        return ddb.query(request -> request
+                .tableName(table)
+                .indexName(ALLOCATION_INDEX)
+                .keyConditionExpression("allocation = :allocation")
+                .expressionAttributeValues(Collections.singletonMap(":allocation",
+                        AttributeValue.builder().s(allocation).build()))
+                .limit(limit)
+        ).items().stream().map(item -> item.get("cidr_block").s()).collect(Collectors.toList());
+    }
+
+    private List<Map<String, AttributeValue>> unindexedScan() {
+        LOGGER.info("CidrBlockAllocator::unindexedScan scanning {}", table);
+        return ddb.scanPaginator(request -> request.tableName(table)).items().stream()
+                .collect(Collectors.toList());
+    }
+}
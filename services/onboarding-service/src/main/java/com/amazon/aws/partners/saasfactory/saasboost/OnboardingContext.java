@@ -0,0 +1,70 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The install-wide inputs every tenant onboarding needs before it can create the tenant stack:
+ * the SaaS Boost settings and the Parameter Store reference keys CloudFormation needs to decode
+ * the secure string settings. These don't change from one tenant to the next, so a warm
+ * container reuses them for a short time instead of fetching them for every onboarding.
+ */
+public class OnboardingContext {
+
+    static final long TTL_MILLIS = 60 * 1000L;
+    private final Map<String, String> settings;
+    private final String dbMasterPasswordRef;
+    private final String sslCertArnRef;
+    private final long expiresAt;
+
+    public OnboardingContext(Map<String, String> settings, String dbMasterPasswordRef, String sslCertArnRef) {
+        this(settings, dbMasterPasswordRef, sslCertArnRef, System.currentTimeMillis() + TTL_MILLIS);
+    }
+
+    OnboardingContext(Map<String, String> settings, String dbMasterPasswordRef, String sslCertArnRef,
+                      long expiresAt) {
+        this.settings = Collections.unmodifiableMap(settings);
+        this.dbMasterPasswordRef = dbMasterPasswordRef;
+        this.sslCertArnRef = sslCertArnRef;
+        this.expiresAt = expiresAt;
+    }
+
+    public Map<String, String> getSettings() {
+        return settings;
+    }
+
+    public String getDbMasterPasswordRef() {
+        return dbMasterPasswordRef;
+    }
+
+    public String getSslCertArnRef() {
+        return sslCertArnRef;
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAt;
+    }
+
+    public static boolean usesDatabase(Map<String, String> settings) {
+        return Utils.isNotBlank(settings.get("DB_ENGINE"));
+    }
+
+    public static boolean usesSslCertificate(Map<String, String> settings) {
+        return Utils.isNotBlank(settings.get("SSL_CERT_ARN"));
+    }
+}
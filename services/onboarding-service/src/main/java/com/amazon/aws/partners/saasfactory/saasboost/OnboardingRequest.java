@@ -0,0 +1,180 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A request to onboard a single tenant as sent to the onboarding API, either on its own or as
+ * one entry of a bulk onboarding request.
+ */
+public class OnboardingRequest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OnboardingRequest.class);
+    private String name;
+    private String subdomain;
+    private String computeSize;
+    private Integer memory;
+    private Integer cpu;
+    private Integer minCount;
+    private Integer maxCount;
+    private String planId;
+
+    public static OnboardingRequest fromMap(Map<String, Object> request) {
+        OnboardingRequest onboardingRequest = new OnboardingRequest();
+        try {
+            onboardingRequest.name = (String) request.get("name");
+            onboardingRequest.subdomain = (String) request.get("subdomain");
+            onboardingRequest.computeSize = (String) request.get("computeSize");
+            onboardingRequest.memory = (Integer) request.get("memory");
+            onboardingRequest.cpu = (Integer) request.get("cpu");
+            onboardingRequest.minCount = (Integer) request.get("minCount");
+            onboardingRequest.maxCount = (Integer) request.get("maxCount");
+            onboardingRequest.planId = (String) request.get("planId");
+        } catch (ClassCastException cce) {
+            throw new IllegalArgumentException("Invalid onboarding request");
+        }
+        return onboardingRequest;
+    }
+
+    /**
+     * Returns why this request can't be onboarded, or null if it's valid.
+     */
+    public String validate() {
+        if (Utils.isBlank(name)) {
+            return "Tenant name is required.";
+        }
+        if (Utils.isNotEmpty(computeSize) && getComputeSize() == null) {
+            LOGGER.error("Invalid compute size {}", computeSize);
+            return "Invalid compute size";
+        }
+        if (isOverrideDefaults() && !validateOverrides(getComputeSize(), memory, cpu, minCount, maxCount)) {
+            LOGGER.error("Invalid default overrides. Both compute sizing and min and max counts must be set");
+            return "Invalid default overrides. Both compute sizing and min and max counts must be set.";
+        }
+        return null;
+    }
+
+    public static boolean validateOverrides(ComputeSize computeSize, Integer memory, Integer cpu,
+                                            Integer minCount, Integer maxCount) {
+        boolean computeOverride = (computeSize != null || (memory != null && cpu != null));
+        boolean invalidComputeOverride = (computeSize == null && (memory == null || cpu == null));
+        boolean asgOverride = (minCount != null && maxCount != null);
+        boolean invalidAsgOverride = ((minCount != null && maxCount == null) || (maxCount != null && minCount == null));
+
+        boolean valid;
+        if (invalidComputeOverride || invalidAsgOverride) {
+            valid = false;
+        } else if ((computeOverride && !asgOverride) || (asgOverride && !computeOverride)) {
+            valid = false;
+        } else {
+            valid = (computeOverride && asgOverride);
+        }
+
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("computeSize", computeSize);
+        overrides.put("memory", memory);
+        overrides.put("cpu", cpu);
+        overrides.put("minCount", minCount);
+        overrides.put("maxCount", maxCount);
+        LOGGER.info(Utils.toJson(overrides));
+
+        return valid;
+    }
+
+    /**
+     * The tenant as the onboarding workflow sends it to the tenant service. Only call this for a
+     * request that passed validation.
+     */
+    public Map<String, Object> toTenant(OnboardingStatus status) {
+        Map<String, Object> tenant = new HashMap<>();
+        tenant.put("active", true);
+        tenant.put("onboardingStatus", status.toString());
+        tenant.put("name", name);
+        if (Utils.isNotBlank(subdomain)) {
+            tenant.put("subdomain", subdomain);
+        }
+        boolean overrideDefaults = isOverrideDefaults();
+        tenant.put("overrideDefaults", overrideDefaults);
+        if (overrideDefaults) {
+            ComputeSize size = getComputeSize();
+            if (size != null) {
+                tenant.put("computeSize", size.name());
+                tenant.put("memory", size.getMemory());
+                tenant.put("cpu", size.getCpu());
+            } else {
+                tenant.put("memory", memory);
+                tenant.put("cpu", cpu);
+            }
+            tenant.put("maxCount", maxCount);
+            tenant.put("minCount", minCount);
+        }
+        if (Utils.isNotBlank(planId)) {
+            tenant.put("planId", planId);
+        }
+        return tenant;
+    }
+
+    public boolean isOverrideDefaults() {
+        return (Utils.isNotEmpty(computeSize) || memory != null || cpu != null || minCount != null
+                || maxCount != null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSubdomain() {
+        return subdomain;
+    }
+
+    // Null if no compute size was requested or it isn't one we know about
+    public ComputeSize getComputeSize() {
+        if (Utils.isNotEmpty(computeSize)) {
+            try {
+                return ComputeSize.valueOf(computeSize);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    public Integer getMemory() {
+        return memory;
+    }
+
+    public Integer getCpu() {
+        return cpu;
+    }
+
+    public Integer getMinCount() {
+        return minCount;
+    }
+
+    public Integer getMaxCount() {
+        return maxCount;
+    }
+
+    public String getPlanId() {
+        return planId;
+    }
+}
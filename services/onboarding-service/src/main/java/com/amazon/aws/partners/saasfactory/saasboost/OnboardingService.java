@@ -33,8 +33,6 @@ import software.amazon.awssdk.services.ecr.EcrClient;
 import software.amazon.awssdk.services.ecr.model.ListImagesResponse;
 import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
 import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
-import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
-import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
 import software.amazon.awssdk.services.route53.Route53Client;
 import software.amazon.awssdk.services.route53.model.*;
 import software.amazon.awssdk.services.s3.S3Client;
@@ -42,6 +40,8 @@ import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import software.amazon.awssdk.services.sfn.SfnClient;
+import software.amazon.awssdk.services.sfn.model.DescribeExecutionResponse;
+import software.amazon.awssdk.services.sfn.model.ExecutionDoesNotExistException;
 import software.amazon.awssdk.services.sfn.model.StartExecutionRequest;
 import software.amazon.awssdk.services.sfn.model.StartExecutionResponse;
 
@@ -52,6 +52,8 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -68,20 +70,28 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
     private static final String SAAS_BOOST_EVENT_BUS = System.getenv("SAAS_BOOST_EVENT_BUS");
     private static final String ECR_REPO = System.getenv("ECR_REPO");
     private static final String ONBOARDING_WORKFLOW = System.getenv("ONBOARDING_WORKFLOW");
+    private static final String ONBOARDING_BULK_WORKFLOW = System.getenv("ONBOARDING_BULK_WORKFLOW");
     private static final String API_GATEWAY_HOST = System.getenv("API_GATEWAY_HOST");
     private static final String API_GATEWAY_STAGE = System.getenv("API_GATEWAY_STAGE");
     private static final String API_TRUST_ROLE = System.getenv("API_TRUST_ROLE");
     private static final String SAAS_BOOST_BUCKET = System.getenv("SAAS_BOOST_BUCKET");
+    // Keeps the bulk onboarding workflow input and execution history inside the Step Functions limits
+    static final int MAX_BULK_ONBOARDING = 150;
+    private static final int BULK_MAX_CONCURRENCY = 10;
     // private static final String CLOUDFRONT_DISTRIBUTION =
     // System.getenv("CLOUDFRONT_DISTRIBUTION");
     private final CloudFormationClient cfn;
     private final SfnClient snf;
-    private final EventBridgeClient eventBridge;
+    private final EventPublisher events;
     private final EcrClient ecr;
     private final OnboardingServiceDAL dal;
     private final S3Client s3;
     private final S3Presigner presigner;
     private final Route53Client route53;
+    private volatile OnboardingContext onboardingContext;
+    // Once the workload image is in ECR we don't need to keep asking for a while. The repo can be
+    // emptied, so check again as often as the onboarding context is refreshed.
+    private volatile long workloadImageDeployedUntil;
     private static final String AWS_REGION = System.getenv("AWS_REGION");
 
     public OnboardingService() {
@@ -90,7 +100,7 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
         this.dal = new OnboardingServiceDAL();
         this.cfn = Utils.sdkClient(CloudFormationClient.builder(), CloudFormationClient.SERVICE_NAME);
         this.snf = Utils.sdkClient(SfnClient.builder(), SfnClient.SERVICE_NAME);
-        this.eventBridge = Utils.sdkClient(EventBridgeClient.builder(), EventBridgeClient.SERVICE_NAME);
+        this.events = new EventPublisher(Utils.sdkClient(EventBridgeClient.builder(), EventBridgeClient.SERVICE_NAME));
         this.ecr = Utils.sdkClient(EcrClient.builder(), EcrClient.SERVICE_NAME);
         this.s3 = Utils.sdkClient(S3Client.builder(), S3Client.SERVICE_NAME);
         try {
@@ -187,22 +197,9 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
 
         Utils.logRequestEvent(event);
 
-        // Check to see if there are any images in the ECR repo before allowing
-        // onboarding
-        try {
-            ListImagesResponse dockerImages = ecr.listImages(request -> request.repositoryName(ECR_REPO));
-            // ListImagesResponse::hasImageIds will return true if the imageIds object is
-            // not null
-            if (!dockerImages.hasImageIds() || dockerImages.imageIds().isEmpty()) {
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(400)
-                        .withHeaders(CORS)
-                        .withBody("{\"message\": \"No workload image deployed to ECR.\"}");
-            }
-        } catch (SdkServiceException ecrError) {
-            LOGGER.error("ecr:ListImages error", ecrError.getMessage());
-            LOGGER.error(Utils.getFullStackTrace(ecrError));
-            throw ecrError;
+        APIGatewayProxyResponseEvent noWorkloadImage = checkWorkloadImage();
+        if (noWorkloadImage != null) {
+            return noWorkloadImage;
         }
 
         // Parse the onboarding request
@@ -213,159 +210,67 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
                     .withHeaders(CORS)
                     .withBody("{\"message\": \"Invalid Json in Request.\"}");
         }
-        String tenantName = (String) requestBody.get("name");
-        String subdomain = (String) requestBody.get("subdomain");
-        String tshirt = (String) requestBody.get("computeSize");
-        ComputeSize computeSize = null;
-        Integer memory = (Integer) requestBody.get("memory");
-        Integer cpu = (Integer) requestBody.get("cpu");
-        Integer minCount = (Integer) requestBody.get("minCount");
-        Integer maxCount = (Integer) requestBody.get("maxCount");
-        String planId = (String) requestBody.get("planId");
-
-        // Make sure we're not trying to onboard a tenant to an existing subdomain
-        if (Utils.isNotBlank(subdomain)) {
-            Map<String, String> settings = null;
-            ApiRequest getSettingsRequest = ApiRequest.builder()
-                    .resource("settings?setting=HOSTED_ZONE&setting=DOMAIN_NAME")
-                    .method("GET")
-                    .build();
-            SdkHttpFullRequest getSettingsApiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST,
-                    API_GATEWAY_STAGE, getSettingsRequest);
-            LOGGER.info("Fetching SaaS Boost hosted zone id from Settings Service");
-            try {
-                String getSettingsResponseBody = ApiGatewayHelper.signAndExecuteApiRequest(getSettingsApiRequest,
-                        API_TRUST_ROLE, context.getAwsRequestId());
-                ArrayList<Map<String, String>> getSettingsResponse = Utils.fromJson(getSettingsResponseBody,
-                        ArrayList.class);
-                if (null == getSettingsResponse) {
-                    return new APIGatewayProxyResponseEvent()
-                            .withStatusCode(400)
-                            .withHeaders(CORS)
-                            .withBody("{\"message\": \"Invalid response body.\"}");
-                }
-                settings = getSettingsResponse
-                        .stream()
-                        .collect(Collectors.toMap(
-                                setting -> setting.get("name"), setting -> setting.get("value")));
-                String hostedZoneId = settings.get("HOSTED_ZONE");
-                String domainName = settings.get("DOMAIN_NAME");
-
-                // Ask Route53 for all the records of this hosted zone
-                ListResourceRecordSetsResponse recordSets = route53
-                        .listResourceRecordSets(request -> request.hostedZoneId(hostedZoneId));
-                if (recordSets.hasResourceRecordSets()) {
-                    for (ResourceRecordSet recordSet : recordSets.resourceRecordSets()) {
-                        if (RRType.A == recordSet.type()) {
-                            // Hosted Zone alias for the tenant subdomain
-                            String recordSetName = recordSet.name();
-                            String existingSubdomain = recordSetName.substring(0,
-                                    recordSetName.indexOf(domainName) - 1);
-                            LOGGER.info("Existing tenant subdomain " + existingSubdomain + " for record set "
-                                    + recordSetName);
-                            if (subdomain.equalsIgnoreCase(existingSubdomain)) {
-                                return new APIGatewayProxyResponseEvent()
-                                        .withStatusCode(400)
-                                        .withHeaders(CORS)
-                                        .withBody("{\"message\": \"Tenant subdomain " + subdomain
-                                                + " is already in use.\"}");
-                            }
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                LOGGER.error("Error invoking API settings?setting=HOSTED_ZONE&setting=DOMAIN_NAME");
-                LOGGER.error(Utils.getFullStackTrace(e));
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(400)
-                        .withHeaders(CORS)
-                        .withBody("{\"message\":\"Error invoking settings API\"}");
-            }
+        OnboardingRequest onboardingRequest;
+        try {
+            onboardingRequest = OnboardingRequest.fromMap(requestBody);
+        } catch (IllegalArgumentException e) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"" + Utils.escapeJson(String.valueOf(e.getMessage())) + "\"}");
         }
+        String subdomain = onboardingRequest.getSubdomain();
 
         // Create a new onboarding request record for a tenant
-        if (Utils.isBlank(tenantName)) {
+        String invalid = onboardingRequest.validate();
+        if (invalid != null) {
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(400)
                     .withHeaders(CORS)
-                    .withBody("{\"message\": \"Tenant name is required.\"}");
+                    .withBody("{\"message\":\"" + Utils.escapeJson(invalid) + "\"}");
         }
 
-        if (Utils.isNotEmpty(tshirt)) {
-            try {
-                computeSize = ComputeSize.valueOf(tshirt);
-            } catch (IllegalArgumentException e) {
-                LOGGER.error("Invalid compute size {}", tshirt);
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(400)
-                        .withHeaders(CORS)
-                        .withBody("{\"message\":\"Invalid compute size\"}");
-            }
-        }
+        // The quota check and the subdomain check are independent remote calls, so run them together
+        CompletableFuture<Map<String, Object>> limits = ParallelExecutor.supplyAsync(() -> checkLimits(1));
 
-        Boolean overrideDefaults = (computeSize != null || memory != null || cpu != null || minCount != null
-                || maxCount != null);
-        if (overrideDefaults) {
-            if (!validateTenantOverrides(computeSize, memory, cpu, minCount, maxCount)) {
-                LOGGER.error("Invalid default overrides. Both compute sizing and min and max counts must be set");
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(400)
-                        .withHeaders(CORS)
-                        .withBody(
-                                "{\"message\":\"Invalid default overrides. Both compute sizing and min and max counts must be set.\"}");
-            }
+        // Make sure we're not trying to onboard a tenant to an existing subdomain
+        APIGatewayProxyResponseEvent subdomainError = null;
+        if (Utils.isNotBlank(subdomain)) {
+            subdomainError = checkSubdomain(subdomain, context);
         }
 
         // check if Quotas will be exceeded.
+        Map<String, Object> retMap;
         try {
             LOGGER.info("Check Service Quota Limits");
-            Map<String, Object> retMap = checkLimits();
-            Boolean passed = (Boolean) retMap.get("passed");
-            String message = (String) retMap.get("message");
-            if (!passed) {
-                LOGGER.error("Provisioning will exceed limits. {}", message);
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(400)
-                        .withHeaders(CORS)
-                        .withBody("{\"message\":\"Provisioning will exceed limits. " + message + "\"}");
-            }
-        } catch (Exception e) {
+            retMap = limits.join();
+        } catch (CompletionException e) {
             LOGGER.error((Utils.getFullStackTrace(e)));
             throw new RuntimeException("Error checking Service Quotas with Private API quotas/check");
         }
+        if (subdomainError != null) {
+            return subdomainError;
+        }
+        Boolean passed = (Boolean) retMap.get("passed");
+        String message = (String) retMap.get("message");
+        if (!passed) {
+            LOGGER.error("Provisioning will exceed limits. {}", message);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"Provisioning will exceed limits. " + message + "\"}");
+        }
 
         // *TODO: We should add check for CIDRs here!
 
         UUID onboardingId = UUID.randomUUID();
         Onboarding onboarding = new Onboarding(onboardingId, OnboardingStatus.created);
-        onboarding.setTenantName((String) requestBody.get("name"));
+        onboarding.setTenantName(onboardingRequest.getName());
         onboarding = dal.insertOnboarding(onboarding);
 
         // Collect up the input we need to send to the tenant service via our Step
         // Functions workflow
-        Map<String, Object> tenant = new HashMap<>();
-        tenant.put("active", true);
-        tenant.put("onboardingStatus", onboarding.getStatus().toString());
-        tenant.put("name", tenantName);
-        if (Utils.isNotBlank(subdomain)) {
-            tenant.put("subdomain", subdomain);
-        }
-        tenant.put("overrideDefaults", overrideDefaults);
-        if (overrideDefaults) {
-            if (computeSize != null) {
-                tenant.put("computeSize", computeSize.name());
-                tenant.put("memory", computeSize.getMemory());
-                tenant.put("cpu", computeSize.getCpu());
-            } else {
-                tenant.put("memory", memory);
-                tenant.put("cpu", cpu);
-            }
-            tenant.put("maxCount", maxCount);
-            tenant.put("minCount", minCount);
-        }
-        if (Utils.isNotBlank(planId)) {
-            tenant.put("planId", planId);
-        }
+        Map<String, Object> tenant = onboardingRequest.toTenant(onboarding.getStatus());
 
         // generate a pre-signed url to upload the zip file
         String key = "temp/" + onboarding.getId().toString() + ".zip";
@@ -413,31 +318,353 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
                 .withBody(Utils.toJson(onboarding));
     }
 
-    protected static boolean validateTenantOverrides(ComputeSize computeSize, Integer memory, Integer cpu,
-            Integer minCount, Integer maxCount) {
-        boolean computeOverride = (computeSize != null || (memory != null && cpu != null));
-        boolean invalidComputeOverride = (computeSize == null && (memory == null || cpu == null));
-        boolean asgOverride = (minCount != null && maxCount != null);
-        boolean invalidAsgOverride = ((minCount != null && maxCount == null) || (maxCount != null && minCount == null));
-
-        boolean valid;
-        if (invalidComputeOverride || invalidAsgOverride) {
-            valid = false;
-        } else if ((computeOverride && !asgOverride) || (asgOverride && !computeOverride)) {
-            valid = false;
-        } else {
-            valid = (computeOverride && asgOverride);
+    /**
+     * Onboards a batch of tenants as one operation. Every tenant in the batch is validated before
+     * any of them are accepted, and the quota, workload image and subdomain checks are made once
+     * for the whole batch. The accepted tenants are handed to the bulk onboarding workflow which
+     * admits only a few tenant stacks at a time so a large migration doesn't run into the
+     * CloudFormation limits. Progress is available from getBulkOnboarding.
+     */
+    public APIGatewayProxyResponseEvent startBulkOnboarding(Map<String, Object> event, Context context) {
+        if (Utils.warmup(event)) {
+            // LOGGER.info("Warming up");
+            return new APIGatewayProxyResponseEvent().withHeaders(CORS).withStatusCode(200);
+        }
+        if (Utils.isBlank(ONBOARDING_BULK_WORKFLOW)) {
+            throw new IllegalStateException("Missing required environment variable ONBOARDING_BULK_WORKFLOW");
+        }
+
+        long startTimeMillis = System.currentTimeMillis();
+        LOGGER.info("OnboardingService::startBulkOnboarding");
+
+        Utils.logRequestEvent(event);
+
+        APIGatewayProxyResponseEvent noWorkloadImage = checkWorkloadImage();
+        if (noWorkloadImage != null) {
+            return noWorkloadImage;
+        }
+
+        Map<String, Object> requestBody = Utils.fromJson((String) event.get("body"), HashMap.class);
+        if (null == requestBody) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\": \"Invalid Json in Request.\"}");
+        }
+        Object tenants = requestBody.get("tenants");
+        if (!(tenants instanceof List) || ((List<?>) tenants).isEmpty()) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"A list of tenants to onboard is required.\"}");
+        }
+        List<?> tenantRequests = (List<?>) tenants;
+        if (tenantRequests.size() > MAX_BULK_ONBOARDING) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"At most " + MAX_BULK_ONBOARDING
+                            + " tenants can be onboarded in one request.\"}");
+        }
+
+        // Validate the whole batch so the caller can fix every problem in one go
+        List<OnboardingRequest> requests = new ArrayList<>(tenantRequests.size());
+        Map<Integer, String> errors = new TreeMap<>();
+        Set<String> subdomains = new HashSet<>();
+        for (int i = 0; i < tenantRequests.size(); i++) {
+            Object tenantRequest = tenantRequests.get(i);
+            OnboardingRequest request = null;
+            String error;
+            if (tenantRequest instanceof Map) {
+                try {
+                    request = OnboardingRequest.fromMap((Map<String, Object>) tenantRequest);
+                    error = request.validate();
+                } catch (IllegalArgumentException e) {
+                    error = e.getMessage();
+                }
+            } else {
+                error = "Invalid onboarding request";
+            }
+            if (error == null && Utils.isNotBlank(request.getSubdomain())
+                    && !subdomains.add(request.getSubdomain().toLowerCase())) {
+                error = "Tenant subdomain " + request.getSubdomain() + " is repeated in this request.";
+            }
+            if (error != null) {
+                errors.put(i, error);
+            }
+            requests.add(request);
+        }
+
+        // Subdomains in use are the same for every tenant in the batch, and there has to be room under
+        // the quotas for every tenant in it before any of them are admitted
+        final int batchSize = requests.size();
+        CompletableFuture<Map<String, Object>> limits = ParallelExecutor.supplyAsync(() -> checkLimits(batchSize));
+        Exception subdomainError = null;
+        if (!subdomains.isEmpty()) {
+            try {
+                Set<String> existingSubdomains = existingSubdomains(context);
+                for (int i = 0; i < requests.size(); i++) {
+                    OnboardingRequest request = requests.get(i);
+                    if (!errors.containsKey(i) && Utils.isNotBlank(request.getSubdomain())
+                            && existingSubdomains.contains(request.getSubdomain().toLowerCase())) {
+                        errors.put(i, "Tenant subdomain " + request.getSubdomain() + " is already in use.");
+                    }
+                }
+            } catch (Exception e) {
+                subdomainError = e;
+            }
+        }
+        Map<String, Object> retMap;
+        try {
+            LOGGER.info("Check Service Quota Limits");
+            retMap = limits.join();
+        } catch (CompletionException e) {
+            LOGGER.error((Utils.getFullStackTrace(e)));
+            throw new RuntimeException("Error checking Service Quotas with Private API quotas/check");
+        }
+        if (subdomainError != null) {
+            LOGGER.error("Error invoking API settings?setting=HOSTED_ZONE&setting=DOMAIN_NAME");
+            LOGGER.error(Utils.getFullStackTrace(subdomainError));
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"Error invoking settings API\"}");
+        }
+        if (!errors.isEmpty()) {
+            List<Map<String, Object>> invalid = new ArrayList<>();
+            for (Map.Entry<Integer, String> error : errors.entrySet()) {
+                Map<String, Object> invalidRequest = new LinkedHashMap<>();
+                invalidRequest.put("index", error.getKey());
+                OnboardingRequest request = requests.get(error.getKey());
+                if (request != null) {
+                    invalidRequest.put("name", request.getName());
+                }
+                invalidRequest.put("message", error.getValue());
+                invalid.add(invalidRequest);
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("message", "Invalid onboarding requests. No tenants were onboarded.");
+            body.put("errors", invalid);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody(Utils.toJson(body));
+        }
+        Boolean passed = (Boolean) retMap.get("passed");
+        String message = (String) retMap.get("message");
+        if (!passed) {
+            LOGGER.error("Provisioning will exceed limits. {}", message);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"Provisioning will exceed limits. " + message + "\"}");
+        }
+
+        // Every tenant gets its own onboarding record up front so the ones still waiting to be
+        // admitted show up as created
+        List<Onboarding> onboardings = ParallelExecutor.map(requests, BULK_MAX_CONCURRENCY, request -> {
+            Onboarding onboarding = new Onboarding(UUID.randomUUID(), OnboardingStatus.created);
+            onboarding.setTenantName(request.getName());
+            return dal.insertOnboarding(onboarding);
+        });
+        List<Map<String, Object>> workflowTenants = new ArrayList<>(onboardings.size());
+        for (int i = 0; i < onboardings.size(); i++) {
+            Map<String, Object> workflowTenant = new HashMap<>();
+            workflowTenant.put("onboardingId", onboardings.get(i).getId().toString());
+            workflowTenant.put("tenant", requests.get(i).toTenant(onboardings.get(i).getStatus()));
+            workflowTenants.add(workflowTenant);
+        }
+        Map<String, Object> input = new HashMap<>();
+        input.put("tenants", workflowTenants);
+
+        String bulkId = UUID.randomUUID().toString();
+        BulkOnboarding bulkOnboarding = new BulkOnboarding(bulkId, "RUNNING", onboardings);
+        try {
+            LOGGER.info("OnboardingService::startBulkOnboarding Starting Step Functions execution {} for {} tenants",
+                    bulkId, onboardings.size());
+            StartExecutionResponse response = snf.startExecution(StartExecutionRequest
+                    .builder()
+                    .name(bulkId)
+                    .input(Utils.toJson(input))
+                    .stateMachineArn(ONBOARDING_BULK_WORKFLOW)
+                    .build());
+            bulkOnboarding.setStarted(response.startDate());
+        } catch (SdkServiceException snfError) {
+            LOGGER.error("OnboardingService::startBulkOnboarding Step Functions error " + snfError.getMessage());
+            LOGGER.error(Utils.getFullStackTrace(snfError));
+            ParallelExecutor.map(onboardings, BULK_MAX_CONCURRENCY,
+                    onboarding -> dal.updateStatus(onboarding.getId(), OnboardingStatus.failed));
+            throw snfError;
+        }
+
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("OnboardingService::startBulkOnboarding exec " + totalTimeMillis);
+
+        return new APIGatewayProxyResponseEvent()
+                .withHeaders(CORS)
+                .withStatusCode(200)
+                .withBody(Utils.toJson(bulkOnboarding));
+    }
+
+    public APIGatewayProxyResponseEvent getBulkOnboarding(Map<String, Object> event, Context context) {
+        if (Utils.warmup(event)) {
+            // LOGGER.info("Warming up");
+            return new APIGatewayProxyResponseEvent().withHeaders(CORS).withStatusCode(200);
+        }
+        if (Utils.isBlank(ONBOARDING_BULK_WORKFLOW)) {
+            throw new IllegalStateException("Missing required environment variable ONBOARDING_BULK_WORKFLOW");
+        }
+
+        long startTimeMillis = System.currentTimeMillis();
+        LOGGER.info("OnboardingService::getBulkOnboarding");
+
+        Map<String, String> params = (Map) event.get("pathParameters");
+        String bulkId = params.get("id");
+        try {
+            UUID.fromString(bulkId);
+        } catch (IllegalArgumentException e) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"Invalid bulk onboarding id.\"}");
+        }
+        DescribeExecutionResponse execution;
+        try {
+            execution = snf.describeExecution(request -> request
+                    .executionArn(BulkOnboarding.executionArn(ONBOARDING_BULK_WORKFLOW, bulkId)));
+        } catch (ExecutionDoesNotExistException notFound) {
+            return new APIGatewayProxyResponseEvent().withHeaders(CORS).withStatusCode(404);
         }
 
-        Map<String, Object> overrides = new LinkedHashMap<>();
-        overrides.put("computeSize", computeSize);
-        overrides.put("memory", memory);
-        overrides.put("cpu", cpu);
-        overrides.put("minCount", minCount);
-        overrides.put("maxCount", maxCount);
-        LOGGER.info(Utils.toJson(overrides));
+        // The execution input is the only place the batch is recorded
+        Map<String, Object> input = Utils.fromJson(execution.input(), HashMap.class);
+        List<String> onboardingIds = new ArrayList<>();
+        if (input != null && input.get("tenants") instanceof List) {
+            for (Map<String, Object> workflowTenant : (List<Map<String, Object>>) input.get("tenants")) {
+                onboardingIds.add((String) workflowTenant.get("onboardingId"));
+            }
+        }
+        List<Onboarding> onboardings = ParallelExecutor.map(onboardingIds, BULK_MAX_CONCURRENCY, dal::getOnboarding)
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        BulkOnboarding bulkOnboarding = new BulkOnboarding(bulkId, execution.statusAsString(), onboardings);
+        bulkOnboarding.setStarted(execution.startDate());
+        bulkOnboarding.setStopped(execution.stopDate());
+
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("OnboardingService::getBulkOnboarding exec " + totalTimeMillis);
 
-        return valid;
+        return new APIGatewayProxyResponseEvent()
+                .withHeaders(CORS)
+                .withStatusCode(200)
+                .withBody(Utils.toJson(bulkOnboarding));
+    }
+
+    // Returns the error response if there aren't any images in the ECR repo yet, otherwise null
+    private APIGatewayProxyResponseEvent checkWorkloadImage() {
+        if (System.currentTimeMillis() >= workloadImageDeployedUntil) {
+            try {
+                ListImagesResponse dockerImages = ecr.listImages(request -> request
+                        .repositoryName(ECR_REPO)
+                        .maxResults(1));
+                // ListImagesResponse::hasImageIds will return true if the imageIds object is
+                // not null
+                if (!dockerImages.hasImageIds() || dockerImages.imageIds().isEmpty()) {
+                    return new APIGatewayProxyResponseEvent()
+                            .withStatusCode(400)
+                            .withHeaders(CORS)
+                            .withBody("{\"message\": \"No workload image deployed to ECR.\"}");
+                }
+                workloadImageDeployedUntil = System.currentTimeMillis() + OnboardingContext.TTL_MILLIS;
+            } catch (SdkServiceException ecrError) {
+                LOGGER.error("ecr:ListImages error", ecrError.getMessage());
+                LOGGER.error(Utils.getFullStackTrace(ecrError));
+                throw ecrError;
+            }
+        }
+        return null;
+    }
+
+    // Returns the error response if the subdomain is already in use, otherwise null
+    private APIGatewayProxyResponseEvent checkSubdomain(String subdomain, Context context) {
+        Set<String> existingSubdomains;
+        try {
+            existingSubdomains = existingSubdomains(context);
+        } catch (Exception e) {
+            LOGGER.error("Error invoking API settings?setting=HOSTED_ZONE&setting=DOMAIN_NAME");
+            LOGGER.error(Utils.getFullStackTrace(e));
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"Error invoking settings API\"}");
+        }
+        if (existingSubdomains.contains(subdomain.toLowerCase())) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\": \"Tenant subdomain " + subdomain + " is already in use.\"}");
+        }
+        return null;
+    }
+
+    // The lower case subdomains of the tenant alias records in the SaaS Boost hosted zone
+    private Set<String> existingSubdomains(Context context) throws Exception {
+        ApiRequest getSettingsRequest = ApiRequest.builder()
+                .resource("settings?setting=HOSTED_ZONE&setting=DOMAIN_NAME")
+                .method("GET")
+                .build();
+        SdkHttpFullRequest getSettingsApiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST,
+                API_GATEWAY_STAGE, getSettingsRequest);
+        LOGGER.info("Fetching SaaS Boost hosted zone id from Settings Service");
+        String getSettingsResponseBody = ApiGatewayHelper.signAndExecuteApiRequest(getSettingsApiRequest,
+                API_TRUST_ROLE, context.getAwsRequestId());
+        ArrayList<Map<String, String>> getSettingsResponse = Utils.fromJson(getSettingsResponseBody,
+                ArrayList.class);
+        if (null == getSettingsResponse) {
+            throw new RuntimeException("Invalid response body.");
+        }
+        Map<String, String> settings = getSettingsResponse
+                .stream()
+                .collect(Collectors.toMap(
+                        setting -> setting.get("name"), setting -> setting.get("value")));
+        String hostedZoneId = settings.get("HOSTED_ZONE");
+        String domainName = settings.get("DOMAIN_NAME");
+
+        // Ask Route53 for all the records of this hosted zone. A page holds at most 300 records,
+        // which a large tenant base will outgrow.
+        Set<String> subdomains = new HashSet<>();
+        ListResourceRecordSetsRequest recordSetsRequest = ListResourceRecordSetsRequest.builder()
+                .hostedZoneId(hostedZoneId)
+                .build();
+        ListResourceRecordSetsResponse recordSets;
+        do {
+            recordSets = route53.listResourceRecordSets(recordSetsRequest);
+            if (recordSets.hasResourceRecordSets()) {
+                for (ResourceRecordSet recordSet : recordSets.resourceRecordSets()) {
+                    if (RRType.A == recordSet.type()) {
+                        // Hosted Zone alias for the tenant subdomain
+                        String recordSetName = recordSet.name();
+                        int domainStart = recordSetName.indexOf(domainName);
+                        if (domainStart > 0) {
+                            subdomains.add(recordSetName.substring(0, domainStart - 1).toLowerCase());
+                        }
+                    }
+                }
+            }
+            recordSetsRequest = recordSetsRequest.toBuilder()
+                    .startRecordName(recordSets.nextRecordName())
+                    .startRecordType(recordSets.nextRecordType())
+                    .startRecordIdentifier(recordSets.nextRecordIdentifier())
+                    .build();
+        } while (Boolean.TRUE.equals(recordSets.isTruncated()));
+        LOGGER.info("Found {} existing tenant subdomains", subdomains.size());
+        return subdomains;
+    }
+
+    protected static boolean validateTenantOverrides(ComputeSize computeSize, Integer memory, Integer cpu,
+            Integer minCount, Integer maxCount) {
+        return OnboardingRequest.validateOverrides(computeSize, memory, cpu, minCount, maxCount);
     }
 
     public APIGatewayProxyResponseEvent updateStatus(Map<String, Object> event, Context context) {
@@ -521,39 +748,21 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
             }
             UUID tenantId = UUID.fromString(((String) tenant.get("id")).toLowerCase());
 
-            // Get the settings for this SaaS Boost install for this SaaS Boost
-            // "environment"
-            Map<String, String> settings = null;
-            ApiRequest getSettingsRequest = ApiRequest.builder()
-                    .resource("settings")
-                    .method("GET")
-                    .build();
-            SdkHttpFullRequest getSettingsApiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST,
-                    API_GATEWAY_STAGE, getSettingsRequest);
+            // Get the settings for this SaaS Boost "environment" before claiming a CIDR block
+            // so a failed onboarding doesn't use up a block. They're usually cached.
+            OnboardingContext onboardingContext = null;
             try {
-                String getSettingsResponseBody = ApiGatewayHelper.signAndExecuteApiRequest(getSettingsApiRequest,
-                        API_TRUST_ROLE, context.getAwsRequestId());
-                ArrayList<Map<String, String>> getSettingsResponse = Utils.fromJson(getSettingsResponseBody,
-                        ArrayList.class);
-                if (null == getSettingsResponse) {
-                    return new APIGatewayProxyResponseEvent()
-                            .withStatusCode(400)
-                            .withHeaders(CORS)
-                            .withBody("{\"message\": \"Invalid settings response.\"}");
-                }
-                settings = getSettingsResponse
-                        .stream()
-                        .collect(Collectors.toMap(
-                                setting -> setting.get("name"), setting -> setting.get("value")));
-            } catch (Exception e) {
+                onboardingContext = onboardingContext(context.getAwsRequestId());
+            } catch (Exception settingsError) {
                 LOGGER.error("Error invoking API settings");
                 dal.updateStatus(onboardingId, OnboardingStatus.failed);
-                LOGGER.error(Utils.getFullStackTrace(e));
-                throw new RuntimeException(e);
+                LOGGER.error(Utils.getFullStackTrace(settingsError));
+                throw new RuntimeException(settingsError);
             }
 
             // We can't continue if any of the SaaS Boost settings are blank
-            if (settings == null || settings.isEmpty()) {
+            Map<String, String> settings = onboardingContext.getSettings();
+            if (settings.isEmpty()) {
                 LOGGER.error("One or more required SaaS Boost parameters is missing.");
                 dal.updateStatus(onboardingId, OnboardingStatus.failed);
                 throw new RuntimeException("SaaS Boost parameters are missing.");
@@ -564,7 +773,7 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
             try {
                 String cidrBlock = dal.assignCidrBlock(tenantId.toString());
                 cidrPrefix = cidrBlock.substring(0, cidrBlock.indexOf(".", cidrBlock.indexOf(".") + 1));
-            } catch (Exception e) {
+            } catch (RuntimeException e) {
                 dal.updateStatus(onboardingId, OnboardingStatus.failed);
                 throw e;
             }
@@ -717,34 +926,7 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
                 dbPort = settings.get("DB_PORT");
                 dbDatabase = settings.get("DB_NAME");
                 dbBootstrap = settings.get("DB_BOOTSTRAP_FILE");
-
-                // CloudFormation needs the Parameter Store reference key (version number) to
-                // properly
-                // decode secure string parameters... So we need to call the private API to get
-                // it.
-                ApiRequest paramStoreRef = ApiRequest.builder()
-                        .resource("settings/DB_MASTER_PASSWORD/ref")
-                        .method("GET")
-                        .build();
-                SdkHttpFullRequest paramStoreRefApiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST,
-                        API_GATEWAY_STAGE, paramStoreRef);
-                try {
-                    String paramStoreRefResponseBody = ApiGatewayHelper.signAndExecuteApiRequest(
-                            paramStoreRefApiRequest, API_TRUST_ROLE, context.getAwsRequestId());
-                    Map<String, String> dbPasswordRef = Utils.fromJson(paramStoreRefResponseBody, HashMap.class);
-                    if (null == dbPasswordRef) {
-                        return new APIGatewayProxyResponseEvent()
-                                .withStatusCode(400)
-                                .withHeaders(CORS)
-                                .withBody("{\"message\": \"Invalid response body.\"}");
-                    }
-                    dbMasterPasswordRef = dbPasswordRef.get("reference-key");
-                } catch (Exception e) {
-                    LOGGER.error("Error invoking API settings/DB_MASTER_PASSWORD/ref");
-                    dal.updateStatus(onboardingId, OnboardingStatus.failed);
-                    LOGGER.error(Utils.getFullStackTrace(e));
-                    throw new RuntimeException(e);
-                }
+                dbMasterPasswordRef = onboardingContext.getDbMasterPasswordRef();
             }
 
             // If the tenant is being onboarded into a billing plan, we need to send
@@ -754,36 +936,9 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
                 billingPlan = "";
             }
 
-            // CloudFormation needs the Parameter Store reference key (version number) to
-            // properly
-            // decode secure string parameters... So we need to call the private API to get
-            // it.
-            String sslCertArn = settings.get("SSL_CERT_ARN");
             String sslCertArnRef = "";
-            if (null != sslCertArn && !"".equals(sslCertArn)) {
-                ApiRequest paramStoreRef = ApiRequest.builder()
-                        .resource("settings/SSL_CERT_ARN/ref")
-                        .method("GET")
-                        .build();
-                SdkHttpFullRequest paramStoreRefApiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST,
-                        API_GATEWAY_STAGE, paramStoreRef);
-                try {
-                    String paramStoreRefResponseBody = ApiGatewayHelper.signAndExecuteApiRequest(
-                            paramStoreRefApiRequest, API_TRUST_ROLE, context.getAwsRequestId());
-                    Map<String, String> certRef = Utils.fromJson(paramStoreRefResponseBody, HashMap.class);
-                    if (null == certRef) {
-                        return new APIGatewayProxyResponseEvent()
-                                .withStatusCode(400)
-                                .withHeaders(CORS)
-                                .withBody("{\"message\": \"Invalid response body.\"}");
-                    }
-                    sslCertArnRef = certRef.get("reference-key");
-                } catch (Exception e) {
-                    LOGGER.error("Error invoking API settings/SSL_CERT_ARN/ref");
-                    dal.updateStatus(onboardingId, OnboardingStatus.failed);
-                    LOGGER.error(Utils.getFullStackTrace(e));
-                    throw new RuntimeException(e);
-                }
+            if (OnboardingContext.usesSslCertificate(settings)) {
+                sslCertArnRef = onboardingContext.getSslCertArnRef();
             }
 
             // CloudFormation won't let you use dashes or underscores in Mapping second
@@ -984,16 +1139,7 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
                                     .source(SYSTEM_API_CALL_SOURCE)
                                     .detail(MAPPER.writeValueAsString(systemApiRequest))
                                     .build();
-                            PutEventsResponse eventBridgeResponse = eventBridge.putEvents(r -> r
-                                    .entries(systemApiCallEvent));
-                            for (PutEventsResultEntry entry : eventBridgeResponse.entries()) {
-                                if (entry.eventId() != null && !entry.eventId().isEmpty()) {
-                                    LOGGER.info("Put event success {} {}", entry.toString(),
-                                            systemApiCallEvent.toString());
-                                } else {
-                                    LOGGER.error("Put event failed {}", entry.toString());
-                                }
-                            }
+                            events.publish(systemApiCallEvent);
                         } catch (JsonProcessingException ioe) {
                             LOGGER.error("JSON processing failed");
                             LOGGER.error(Utils.getFullStackTrace(ioe));
@@ -1048,21 +1194,16 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
                             .source(SYSTEM_API_CALL_SOURCE)
                             .detail(MAPPER.writeValueAsString(systemApiRequest))
                             .build();
-                    PutEventsResponse eventBridgeResponse = eventBridge.putEvents(r -> r
-                            .entries(systemApiCallEvent));
-                    for (PutEventsResultEntry entry : eventBridgeResponse.entries()) {
-                        if (entry.eventId() != null && !entry.eventId().isEmpty()) {
-                            LOGGER.info("Put event success {} {}", entry.toString(), systemApiCallEvent.toString());
-                        } else {
-                            LOGGER.error("Put event failed {}", entry.toString());
-                        }
-                    }
+                    // Send the event while we move the config file, they don't depend on each other
+                    events.add(systemApiCallEvent);
+                    CompletableFuture<List<PutEventsRequestEntry>> published = events.flushAsync();
 
                     if (status.equals(OnboardingStatus.provisioned)) {
                         // move the s3 file from the SAAS_BOOST_BUCKET to a key for the tenant and name
                         // it config.zip
                         moveTenantConfigFile(onboarding.getId().toString(), tenantId);
                     }
+                    published.join();
                 } catch (JsonProcessingException ioe) {
                     LOGGER.error("JSON processing failed");
                     LOGGER.error(Utils.getFullStackTrace(ioe));
@@ -1527,11 +1668,83 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
         return settings;
     }
 
+    // Settings and Parameter Store references shared by every onboarding for this install. A
+    // burst of onboardings into a warm container only pays for fetching them once.
+    protected OnboardingContext onboardingContext(String requestId) {
+        OnboardingContext cached = this.onboardingContext;
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+        long startTimeMillis = System.currentTimeMillis();
+        // Whether we need the references depends on the settings, but asking for them at the same
+        // time as the settings means we only wait on the slowest call instead of all three in a row.
+        // CloudFormation needs the Parameter Store reference key (version number) to properly
+        // decode secure string parameters... So we need to call the private API to get it.
+        CompletableFuture<String> settingsResponse = ParallelExecutor.supplyAsync(
+                () -> callApi("settings", requestId));
+        CompletableFuture<String> dbMasterPasswordRef = ParallelExecutor.supplyAsync(
+                () -> parameterRef("DB_MASTER_PASSWORD", requestId));
+        CompletableFuture<String> sslCertArnRef = ParallelExecutor.supplyAsync(
+                () -> parameterRef("SSL_CERT_ARN", requestId));
+        String dbRef = dbMasterPasswordRef.join();
+        String sslRef = sslCertArnRef.join();
+        ArrayList<Map<String, String>> getSettingsResponse = Utils.fromJson(settingsResponse.join(),
+                ArrayList.class);
+        if (null == getSettingsResponse) {
+            throw new IllegalStateException("Invalid settings response.");
+        }
+        Map<String, String> settings = getSettingsResponse
+                .stream()
+                .collect(Collectors.toMap(
+                        setting -> setting.get("name"), setting -> setting.get("value")));
+        if (OnboardingContext.usesDatabase(settings) && dbRef == null) {
+            throw new IllegalStateException("Error invoking API settings/DB_MASTER_PASSWORD/ref");
+        }
+        if (OnboardingContext.usesSslCertificate(settings) && sslRef == null) {
+            throw new IllegalStateException("Error invoking API settings/SSL_CERT_ARN/ref");
+        }
+        OnboardingContext loaded = new OnboardingContext(settings, dbRef, sslRef);
+        // Don't keep an empty result around, the caller fails the onboarding for it
+        if (!settings.isEmpty()) {
+            this.onboardingContext = loaded;
+        }
+        LOGGER.info("OnboardingService::onboardingContext exec {}", System.currentTimeMillis() - startTimeMillis);
+        return loaded;
+    }
+
+    // Null when the parameter has no reference, which is fine as long as the settings don't use it
+    private static String parameterRef(String setting, String requestId) {
+        String ref = null;
+        try {
+            Map<String, String> paramStoreRef = Utils.fromJson(callApi("settings/" + setting + "/ref", requestId),
+                    HashMap.class);
+            if (paramStoreRef != null) {
+                ref = paramStoreRef.get("reference-key");
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error invoking API settings/{}/ref {}", setting, e.getMessage());
+        }
+        return ref;
+    }
+
+    private static String callApi(String resource, String requestId) {
+        ApiRequest apiRequest = ApiRequest.builder()
+                .resource(resource)
+                .method("GET")
+                .build();
+        SdkHttpFullRequest request = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST, API_GATEWAY_STAGE, apiRequest);
+        try {
+            return ApiGatewayHelper.signAndExecuteApiRequest(request, API_TRUST_ROLE, requestId);
+        } catch (Exception e) {
+            throw new RuntimeException("Error invoking API " + resource, e);
+        }
+    }
+
     /*
      * Check deployed services against service quotas to make sure limits will not
-     * be exceeded.
+     * be exceeded by onboarding the given number of tenants.
      */
-    private Map<String, Object> checkLimits() throws Exception {
+    private Map<String, Object> checkLimits(int tenants) {
         if (Utils.isBlank(API_GATEWAY_HOST)) {
             throw new IllegalStateException("Missing environment variable API_GATEWAY_HOST");
         }
@@ -1544,7 +1757,7 @@ public class OnboardingService implements RequestHandler<Map<String, Object>, AP
         long startMillis = System.currentTimeMillis();
         Map<String, Object> valMap;
         ApiRequest tenantsRequest = ApiRequest.builder()
-                .resource("quotas/check")
+                .resource("quotas/check?tenants=" + tenants)
                 .method("GET")
                 .build();
         SdkHttpFullRequest apiRequest = ApiGatewayHelper.getApiRequest(API_GATEWAY_HOST, API_GATEWAY_STAGE,
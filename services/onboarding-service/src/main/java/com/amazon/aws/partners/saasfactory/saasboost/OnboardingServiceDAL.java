@@ -32,7 +32,24 @@ public class OnboardingServiceDAL {
     private final static Logger LOGGER = LoggerFactory.getLogger(OnboardingServiceDAL.class);
     private static final String ONBOARDING_TABLE = System.getenv("ONBOARDING_TABLE");
     private static final String CIDR_BLOCK_TABLE = System.getenv("CIDR_BLOCK_TABLE");
+    // Global secondary index on the first group of the tenant id, which is all a tenant's
+    // CodePipeline name carries, with the full tenant id as the sort key
+    static final String TENANT_INDEX = "tenant";
+    static final int TENANT_SHORT_ID_LENGTH = 8;
+    private static final int UUID_LENGTH = 36;
+    static final int ONBOARDING_CACHE_SIZE = 256;
     private final DynamoDbClient ddb;
+    private final DynamoDbIndex tenantIndex;
+    private final CidrBlockAllocator cidrBlocks;
+    // Tenant id (or pipeline short id) to onboarding id. The mapping never changes once the
+    // stack is created, so repeated pipeline events for a tenant only cost a GetItem.
+    private final Map<String, String> onboardingIds = Collections.synchronizedMap(
+            new LinkedHashMap<String, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > ONBOARDING_CACHE_SIZE;
+                }
+            });
 
     public OnboardingServiceDAL() {
         long startTimeMillis = System.currentTimeMillis();
@@ -40,11 +57,20 @@ public class OnboardingServiceDAL {
             throw new IllegalStateException("Missing required environment variable ONBOARDING_TABLE");
         }
         this.ddb = Utils.sdkClient(DynamoDbClient.builder(), DynamoDbClient.SERVICE_NAME);
+        // Until the index has finished building after a stack update we fall back to filtered scans
+        this.tenantIndex = new DynamoDbIndex(ddb, ONBOARDING_TABLE, TENANT_INDEX);
         // Cold start performance hack -- take the TLS hit for the client in the constructor
-        this.ddb.describeTable(r -> r.tableName(ONBOARDING_TABLE));
+        this.tenantIndex.isActive();
+        this.cidrBlocks = Utils.isBlank(CIDR_BLOCK_TABLE) ? null : new CidrBlockAllocator(ddb, CIDR_BLOCK_TABLE);
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
 
+    OnboardingServiceDAL(DynamoDbClient ddb, DynamoDbIndex tenantIndex) {
+        this.ddb = ddb;
+        this.tenantIndex = tenantIndex;
+        this.cidrBlocks = null;
+    }
+
     public List<Onboarding> getOnboardings() {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("OnboardingServiceDAL::getOnboardings");
@@ -90,32 +116,40 @@ public class OnboardingServiceDAL {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("OnboardingServiceDAL::getOnboardingByTenantId");
         Onboarding onboarding = null;
-        try {
-            final int UUID_LENGTH = 36;
-            String filter = null;
-            if (tenantId.length() < UUID_LENGTH) {
-                filter = "begins_with(tenant_id, :tenantId)";
-            } else {
-                filter = "tenant_id = :tenantId";
+        String onboardingId = onboardingIds.get(tenantId);
+        if (onboardingId != null) {
+            onboarding = getOnboarding(onboardingId);
+            if (onboarding == null || onboarding.getTenantId() == null
+                    || !onboarding.getTenantId().toString().startsWith(tenantId)) {
+                onboardingIds.remove(tenantId);
+                onboarding = null;
             }
-            ScanResponse scan = ddb.scan(ScanRequest.builder()
-                    .tableName(ONBOARDING_TABLE)
-                    .filterExpression(filter)
-                    .expressionAttributeValues(Stream
-                            .of(new AbstractMap.SimpleEntry<String, AttributeValue>(":tenantId", AttributeValue.builder().s(tenantId).build()))
-                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                    )
-                    .build()
-            );
-            if (1 == scan.items().size()) {
-                LOGGER.info("Scanning onboarding for tenant id " + tenantId);
-                onboarding = fromAttributeValueMap(scan.items().get(0));
-            } else {
-                LOGGER.info("Onboarding scan for tenant id " + tenantId + " returned " + scan.items().size() + " results");
+        }
+        if (onboarding == null) {
+            try {
+                List<Map<String, AttributeValue>> items;
+                if (isIndexedLookup(tenantId) && tenantIndex.isActive()) {
+                    // Onboardings written before the index existed are given their short id when the
+                    // stack is updated, so nothing found here means there's nothing to find
+                    items = ddb.queryPaginator(queryRequest(tenantId)).items().stream().collect(Collectors.toList());
+                } else {
+                    // The index is still building or can't answer an arbitrary prefix
+                    items = scanByTenantId(tenantId);
+                    if (items.size() == 1) {
+                        backfillTenantShortId(items.get(0));
+                    }
+                }
+                if (1 == items.size()) {
+                    onboarding = fromAttributeValueMap(items.get(0));
+                    onboardingIds.put(tenantId, onboarding.getId().toString());
+                } else {
+                    LOGGER.info("Onboarding lookup for tenant id " + tenantId + " returned " + items.size()
+                            + " results");
+                }
+            } catch (DynamoDbException e) {
+                LOGGER.error("OnboardingServiceDAL::getOnboardingByTenantId " + Utils.getFullStackTrace(e));
+                throw e;
             }
-        } catch (DynamoDbException e) {
-            LOGGER.error("OnboardingServiceDAL::getOnboardingByTenantId " + Utils.getFullStackTrace(e));
-            throw e;
         }
         long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
 
@@ -123,6 +157,73 @@ public class OnboardingServiceDAL {
         return onboarding;
     }
 
+    // The index can answer a full tenant id or the short id from a pipeline name, but not an
+    // arbitrary prefix
+    static boolean isIndexedLookup(String tenantId) {
+        return tenantId.length() == UUID_LENGTH
+                || (tenantId.length() == TENANT_SHORT_ID_LENGTH && tenantId.indexOf('-') < 0);
+    }
+
+    static String tenantShortId(String tenantId) {
+        int dash = tenantId.indexOf('-');
+        return dash < 0 ? tenantId : tenantId.substring(0, dash);
+    }
+
+    static QueryRequest queryRequest(String tenantId) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":shortId", AttributeValue.builder().s(tenantShortId(tenantId)).build());
+        String keyCondition = "tenant_short_id = :shortId";
+        if (!tenantId.equals(tenantShortId(tenantId))) {
+            keyCondition += " AND tenant_id = :tenantId";
+            values.put(":tenantId", AttributeValue.builder().s(tenantId).build());
+        }
+        return QueryRequest.builder()
+                .tableName(ONBOARDING_TABLE)
+                .indexName(TENANT_INDEX)
+                .keyConditionExpression(keyCondition)
+                .expressionAttributeValues(values)
+                .build();
+    }
+
+    private List<Map<String, AttributeValue>> scanByTenantId(String tenantId) {
+        String filter = null;
+        if (tenantId.length() < UUID_LENGTH) {
+            filter = "begins_with(tenant_id, :tenantId)";
+        } else {
+            filter = "tenant_id = :tenantId";
+        }
+        LOGGER.info("Scanning onboarding for tenant id " + tenantId);
+        return ddb.scanPaginator(ScanRequest.builder()
+                .tableName(ONBOARDING_TABLE)
+                .filterExpression(filter)
+                .expressionAttributeValues(Stream
+                        .of(new AbstractMap.SimpleEntry<String, AttributeValue>(":tenantId", AttributeValue.builder().s(tenantId).build()))
+                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
+                )
+                .build()
+        ).items().stream().collect(Collectors.toList());
+    }
+
+    // Adds the index key to an onboarding written before the index existed so we only scan for it once
+    private void backfillTenantShortId(Map<String, AttributeValue> item) {
+        if (item.containsKey("tenant_id") && !item.containsKey("tenant_short_id")) {
+            try {
+                Map<String, AttributeValue> key = new HashMap<>();
+                key.put("id", item.get("id"));
+                ddb.updateItem(request -> request
+                        .tableName(ONBOARDING_TABLE)
+                        .key(key)
+                        .updateExpression("SET tenant_short_id = :shortId")
+                        .expressionAttributeValues(Collections.singletonMap(":shortId",
+                                AttributeValue.builder().s(tenantShortId(item.get("tenant_id").s())).build()))
+                );
+            } catch (DynamoDbException e) {
+                // Not fatal, we'll just scan for this tenant again next time
+                LOGGER.error("OnboardingServiceDAL::backfillTenantShortId " + Utils.getFullStackTrace(e));
+            }
+        }
+    }
+
     // Choosing to do a replacement update as you might do in a RDBMS by
     // setting columns = NULL when they do not exist in the updated value
     public Onboarding updateOnboarding(Onboarding onboarding) {
@@ -215,54 +316,7 @@ public class OnboardingServiceDAL {
         }
         String cidrBlock = null;
         try {
-            // Do both checks at once
-            long scanStartTimeMillis = System.currentTimeMillis();
-            boolean cidrBlockAvailable = true;
-            List<String> availableCidrBlocks = new ArrayList<>();
-            ScanResponse fullScan = ddb.scan(r -> r.tableName(CIDR_BLOCK_TABLE));
-            if (!fullScan.items().isEmpty()) {
-                for (Map<String, AttributeValue> item : fullScan.items()) {
-                    // Make sure we're not trying to assign a CIDR block to a tenant that already has one
-                    if (item.containsKey("tenant_id") && tenantId.equals(item.get("tenant_id").s())) {
-                        cidrBlockAvailable = false;
-                        break;
-                    }
-                    if (!item.containsKey("tenant_id")) {
-                        availableCidrBlocks.add(item.get("cidr_block").s());
-                    }
-                }
-                // Make sure we have an open CIDR block left to assign
-                if (availableCidrBlocks.isEmpty()) {
-                    cidrBlockAvailable = false;
-                }
-            }
-            if (!cidrBlockAvailable) {
-                // We're out of CIDR blocks that we can assign to tenant VPCs
-                throw new RuntimeException("No remaining CIDR blocks");
-            }
-            long scanTotalTimeMillis = System.currentTimeMillis() - scanStartTimeMillis;
-            LOGGER.info("OnboardingServiceDAL::assignCidrBlock scan " + scanTotalTimeMillis);
-
-            long updateStartTimeMillis = System.currentTimeMillis();
-            String cidr = availableCidrBlocks.get((int) (Math.random() * availableCidrBlocks.size()));
-            // Claim this one for this tenant
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("cidr_block", AttributeValue.builder().s(cidr).build());
-            UpdateItemResponse update = ddb.updateItem(r -> r
-                    .tableName(CIDR_BLOCK_TABLE)
-                    .key(key)
-                    .updateExpression("SET tenant_id = :tenantId")
-                    .expressionAttributeValues(Stream
-                            .of(new AbstractMap.SimpleEntry<String, AttributeValue>(":tenantId", AttributeValue.builder().s(tenantId).build()))
-                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                    )
-                    .conditionExpression("attribute_not_exists(tenant_id)")
-                    .returnValues(ReturnValue.ALL_NEW)
-            );
-            Map<String, AttributeValue> updated = update.attributes();
-            cidrBlock = updated.get("cidr_block").s();
-            long updateTotalTimeMillis = System.currentTimeMillis() - updateStartTimeMillis;
-            LOGGER.info("OnboardingServiceDAL::assignCidrBlock update " + updateTotalTimeMillis);
+            cidrBlock = cidrBlocks.assignCidrBlock(tenantId);
         } catch (DynamoDbException e) {
             LOGGER.error("OnboardingServiceDAL::assignCidrBlock " + Utils.getFullStackTrace(e));
             throw e;
@@ -285,6 +339,7 @@ public class OnboardingServiceDAL {
         }
         if (onboarding.getTenantId() != null) {
             item.put("tenant_id", AttributeValue.builder().s(onboarding.getTenantId().toString()).build());
+            item.put("tenant_short_id", AttributeValue.builder().s(tenantShortId(onboarding.getTenantId().toString())).build());
         }
         if (Utils.isNotBlank(onboarding.getTenantName())) {
             item.put("tenant_name", AttributeValue.builder().s(onboarding.getTenantName()).build());
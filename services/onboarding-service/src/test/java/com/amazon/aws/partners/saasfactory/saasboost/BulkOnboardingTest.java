@@ -0,0 +1,55 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BulkOnboardingTest {
+
+    @Test
+    public void testCountByStatus() {
+        List<Onboarding> onboardings = Arrays.asList(
+                new Onboarding(UUID.randomUUID(), OnboardingStatus.created),
+                new Onboarding(UUID.randomUUID(), OnboardingStatus.created),
+                new Onboarding(UUID.randomUUID(), OnboardingStatus.provisioning),
+                new Onboarding(UUID.randomUUID(), OnboardingStatus.failed)
+        );
+        BulkOnboarding bulkOnboarding = new BulkOnboarding("bulk", "RUNNING", onboardings);
+        Map<String, Integer> progress = bulkOnboarding.getProgress();
+        assertEquals(4, bulkOnboarding.getTotal());
+        assertEquals(OnboardingStatus.values().length, progress.size());
+        assertEquals(Integer.valueOf(2), progress.get("created"));
+        assertEquals(Integer.valueOf(1), progress.get("provisioning"));
+        assertEquals(Integer.valueOf(1), progress.get("failed"));
+        assertEquals(Integer.valueOf(0), progress.get("provisioned"));
+    }
+
+    @Test
+    public void testExecutionArn() {
+        String stateMachine = "arn:aws-cn:states:cn-north-1:111111111111:stateMachine:sb-test-onboarding-bulk";
+        assertEquals("arn:aws-cn:states:cn-north-1:111111111111:execution:sb-test-onboarding-bulk:abc",
+                BulkOnboarding.executionArn(stateMachine, "abc"));
+        try {
+            BulkOnboarding.executionArn("sb-test-onboarding-bulk", "abc");
+            fail("Expected an invalid state machine ARN");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanIterable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class CidrBlockAllocatorTest {
+
+    private static final String TABLE = "cidr-mapping";
+
+    /**
+     * Just enough of DynamoDB to stand in for the CIDR mapping table: the allocation index,
+     * atomic conditional updates, and a single page scan.
+     */
+    static class LocalCidrTable implements DynamoDbClient {
+
+        final Map<String, Map<String, AttributeValue>> items = new ConcurrentSkipListMap<>();
+        final AtomicInteger conflicts = new AtomicInteger();
+        final AtomicInteger scans = new AtomicInteger();
+        volatile boolean indexesActive;
+
+        LocalCidrTable(int blocks, boolean indexed, boolean indexesActive) {
+            this.indexesActive = indexesActive;
+            for (int octet = 0; octet < blocks; octet++) {
+                Map<String, AttributeValue> item = new HashMap<>();
+                String cidr = String.format("10.%d.0.0", octet);
+                item.put("cidr_block", AttributeValue.builder().s(cidr).build());
+                if (indexed) {
+                    item.put("allocation", AttributeValue.builder().s(CidrBlockAllocator.AVAILABLE).build());
+                }
+                items.put(cidr, item);
+            }
+        }
+
+        @Override
+        public DescribeTableResponse describeTable(DescribeTableRequest request) {
+            IndexStatus status = indexesActive ? IndexStatus.ACTIVE : IndexStatus.CREATING;
+            return DescribeTableResponse.builder()
+                    .table(TableDescription.builder()
+                            .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder()
+                                    .indexName(CidrBlockAllocator.ALLOCATION_INDEX)
+                                    .indexStatus(status)
+                                    .build())
+                            .build())
+                    .build();
+        }
+
+        @Override
+        public QueryResponse query(QueryRequest request) {
+            String value = request.expressionAttributeValues().values().iterator().next().s();
+            List<Map<String, AttributeValue>> matches = new ArrayList<>();
+            synchronized (this) {
+                for (Map<String, AttributeValue> item : items.values()) {
+                    if (item.containsKey("allocation") && value.equals(item.get("allocation").s())) {
+                        matches.add(new HashMap<>(item));
+                        if (request.limit() != null && matches.size() == request.limit()) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return QueryResponse.builder().items(matches).count(matches.size()).build();
+        }
+
+        @Override
+        public synchronized UpdateItemResponse updateItem(UpdateItemRequest request) {
+            Map<String, AttributeValue> item = items.get(request.key().get("cidr_block").s());
+            if (item == null || item.containsKey("tenant_id")) {
+                conflicts.incrementAndGet();
+                throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+            }
+            if (request.updateExpression().startsWith("SET tenant_id")) {
+                item.put("tenant_id", request.expressionAttributeValues().get(":tenantId"));
+                item.put("allocation", request.expressionAttributeValues().get(":tenantId"));
+            } else {
+                item.put("allocation", request.expressionAttributeValues().get(":available"));
+            }
+            return UpdateItemResponse.builder().build();
+        }
+
+        @Override
+        public synchronized ScanResponse scan(ScanRequest request) {
+            scans.incrementAndGet();
+            List<Map<String, AttributeValue>> page = items.values().stream()
+                    .map(HashMap::new)
+                    .collect(Collectors.toList());
+            return ScanResponse.builder().items(page).count(page.size()).build();
+        }
+
+        @Override
+        public ScanIterable scanPaginator(ScanRequest request) {
+            return new ScanIterable(this, request);
+        }
+
+        Set<String> claimed() {
+            return items.values().stream()
+                    .filter(item -> item.containsKey("tenant_id"))
+                    .map(item -> item.get("cidr_block").s())
+                    .collect(Collectors.toSet());
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testConcurrentOnboardingBurst() throws Exception {
+        final int blocks = 64;
+        LocalCidrTable ddb = new LocalCidrTable(blocks, true, true);
+        CidrBlockAllocator allocator = new CidrBlockAllocator(ddb, TABLE);
+        ExecutorService onboardings = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> assigned = new ArrayList<>();
+        try {
+            for (int i = 0; i < blocks; i++) {
+                String tenantId = UUID.randomUUID().toString();
+                assigned.add(onboardings.submit(() -> {
+                    start.await();
+                    return allocator.assignCidrBlock(tenantId);
+                }));
+            }
+            start.countDown();
+            Set<String> cidrBlocks = new HashSet<>();
+            for (Future<String> future : assigned) {
+                cidrBlocks.add(future.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals("Every tenant got its own block", blocks, cidrBlocks.size());
+            assertEquals(cidrBlocks, ddb.claimed());
+            assertEquals("No scans with the index active", 0, ddb.scans.get());
+        } finally {
+            onboardings.shutdownNow();
+        }
+        RuntimeException exhausted = assertThrows(RuntimeException.class,
+                () -> allocator.assignCidrBlock(UUID.randomUUID().toString()));
+        assertEquals("No remaining CIDR blocks", exhausted.getMessage());
+    }
+
+    @Test
+    public void testAssignIsIdempotent() {
+        LocalCidrTable ddb = new LocalCidrTable(4, true, true);
+        CidrBlockAllocator allocator = new CidrBlockAllocator(ddb, TABLE);
+        String tenantId = UUID.randomUUID().toString();
+        String cidrBlock = allocator.assignCidrBlock(tenantId);
+        assertEquals(cidrBlock, allocator.assignCidrBlock(tenantId));
+        assertEquals(1, ddb.claimed().size());
+    }
+
+    @Test
+    public void testNoScanWithIndexActive() {
+        // Blocks without an allocation are backfilled on stack update, not by onboarding
+        LocalCidrTable ddb = new LocalCidrTable(8, false, true);
+        CidrBlockAllocator allocator = new CidrBlockAllocator(ddb, TABLE);
+        RuntimeException exhausted = assertThrows(RuntimeException.class,
+                () -> allocator.assignCidrBlock(UUID.randomUUID().toString()));
+        assertEquals("No remaining CIDR blocks", exhausted.getMessage());
+        assertEquals(0, ddb.scans.get());
+    }
+
+    @Test
+    public void testIndexRecheckedUntilActive() {
+        LocalCidrTable ddb = new LocalCidrTable(4, true, false);
+        CidrBlockAllocator allocator = new CidrBlockAllocator(ddb, TABLE,
+                new DynamoDbIndex(ddb, TABLE, CidrBlockAllocator.ALLOCATION_INDEX, 0L));
+        allocator.assignCidrBlock(UUID.randomUUID().toString());
+        int scans = ddb.scans.get();
+        assertTrue(scans > 0);
+
+        // The index finishes building while the container is still warm
+        ddb.indexesActive = true;
+        allocator.assignCidrBlock(UUID.randomUUID().toString());
+        assertEquals(scans, ddb.scans.get());
+        assertEquals(2, ddb.claimed().size());
+    }
+
+    @Test
+    public void testInactiveIndexFallsBackToScan() {
+        LocalCidrTable ddb = new LocalCidrTable(2, false, false);
+        CidrBlockAllocator allocator = new CidrBlockAllocator(ddb, TABLE);
+        allocator.assignCidrBlock(UUID.randomUUID().toString());
+        allocator.assignCidrBlock(UUID.randomUUID().toString());
+        assertEquals(2, ddb.claimed().size());
+        assertThrows(RuntimeException.class, () -> allocator.assignCidrBlock(UUID.randomUUID().toString()));
+    }
+}
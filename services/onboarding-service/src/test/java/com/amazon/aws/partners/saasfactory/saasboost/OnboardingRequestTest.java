@@ -0,0 +1,79 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class OnboardingRequestTest {
+
+    @Test
+    public void testValidate() {
+        Map<String, Object> request = new HashMap<>();
+        assertEquals("Tenant name is required.", OnboardingRequest.fromMap(request).validate());
+
+        request.put("name", "Tenant 1");
+        assertNull(OnboardingRequest.fromMap(request).validate());
+
+        request.put("computeSize", "XXL");
+        assertEquals("Invalid compute size", OnboardingRequest.fromMap(request).validate());
+
+        request.put("computeSize", "M");
+        assertNotNull("Compute size without min and max counts", OnboardingRequest.fromMap(request).validate());
+
+        request.put("minCount", 1);
+        request.put("maxCount", 2);
+        assertNull(OnboardingRequest.fromMap(request).validate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromMapInvalidTypes() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("name", "Tenant 1");
+        request.put("minCount", "one");
+        OnboardingRequest.fromMap(request);
+    }
+
+    @Test
+    public void testToTenant() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("name", "Tenant 1");
+        request.put("subdomain", "tenant1");
+        request.put("planId", "");
+        Map<String, Object> tenant = OnboardingRequest.fromMap(request).toTenant(OnboardingStatus.created);
+        assertEquals("Tenant 1", tenant.get("name"));
+        assertEquals("tenant1", tenant.get("subdomain"));
+        assertEquals("created", tenant.get("onboardingStatus"));
+        assertEquals(Boolean.TRUE, tenant.get("active"));
+        assertEquals(Boolean.FALSE, tenant.get("overrideDefaults"));
+        assertFalse(tenant.containsKey("planId"));
+        assertFalse(tenant.containsKey("memory"));
+
+        request.put("computeSize", "L");
+        request.put("minCount", 1);
+        request.put("maxCount", 3);
+        tenant = OnboardingRequest.fromMap(request).toTenant(OnboardingStatus.created);
+        assertEquals(Boolean.TRUE, tenant.get("overrideDefaults"));
+        assertEquals("L", tenant.get("computeSize"));
+        assertEquals(ComputeSize.L.getMemory(), tenant.get("memory"));
+        assertEquals(ComputeSize.L.getCpu(), tenant.get("cpu"));
+        assertEquals(1, tenant.get("minCount"));
+        assertEquals(3, tenant.get("maxCount"));
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.paginators.QueryIterable;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanIterable;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class OnboardingServiceDALTest {
+
+    private static final String TENANT_ID = "d1c1e3cc-962f-4f03-b4a8-d8a7c1f986c3";
+
+    @Test
+    public void testTenantShortId() {
+        assertEquals("d1c1e3cc", OnboardingServiceDAL.tenantShortId(TENANT_ID));
+        assertEquals("d1c1e3cc", OnboardingServiceDAL.tenantShortId("d1c1e3cc"));
+
+        Onboarding onboarding = new Onboarding(UUID.randomUUID(), OnboardingStatus.created);
+        onboarding.setTenantId(UUID.fromString(TENANT_ID));
+        Map<String, AttributeValue> item = OnboardingServiceDAL.toAttributeValueMap(onboarding);
+        assertEquals("d1c1e3cc", item.get("tenant_short_id").s());
+    }
+
+    @Test
+    public void testIsIndexedLookup() {
+        assertTrue(OnboardingServiceDAL.isIndexedLookup(TENANT_ID));
+        assertTrue(OnboardingServiceDAL.isIndexedLookup("d1c1e3cc"));
+        assertFalse(OnboardingServiceDAL.isIndexedLookup("d1c1"));
+        assertFalse(OnboardingServiceDAL.isIndexedLookup("d1c1e3cc-962f"));
+    }
+
+    @Test
+    public void testQueryRequest() {
+        QueryRequest request = OnboardingServiceDAL.queryRequest(TENANT_ID);
+        assertEquals(OnboardingServiceDAL.TENANT_INDEX, request.indexName());
+        assertEquals("tenant_short_id = :shortId AND tenant_id = :tenantId", request.keyConditionExpression());
+        assertEquals("d1c1e3cc", request.expressionAttributeValues().get(":shortId").s());
+        assertEquals(TENANT_ID, request.expressionAttributeValues().get(":tenantId").s());
+
+        request = OnboardingServiceDAL.queryRequest("d1c1e3cc");
+        assertEquals("tenant_short_id = :shortId", request.keyConditionExpression());
+        assertEquals(1, request.expressionAttributeValues().size());
+    }
+
+    @Test
+    public void testLookupByIndex() {
+        FakeDynamoDb ddb = new FakeDynamoDb();
+        ddb.onboarding(TENANT_ID, true);
+        OnboardingServiceDAL dal = new OnboardingServiceDAL(ddb, index(true));
+
+        Onboarding onboarding = dal.getOnboardingByTenantId("d1c1e3cc");
+        assertEquals(TENANT_ID, onboarding.getTenantId().toString());
+        assertEquals(1, ddb.queries);
+        assertEquals(0, ddb.scans);
+
+        // A tenant without an onboarding is a miss, not a reason to scan the table
+        assertNull(dal.getOnboardingByTenantId("a8e2c0d1-4f1e-4d7b-9d0c-2f3b9e1c7a55"));
+        assertEquals(2, ddb.queries);
+        assertEquals(0, ddb.scans);
+
+        // Prefixes the index can't answer still scan
+        assertEquals(onboarding.getId(), dal.getOnboardingByTenantId("d1c1").getId());
+        assertEquals(1, ddb.scans);
+    }
+
+    @Test
+    public void testLookupWhileIndexBuilding() {
+        FakeDynamoDb ddb = new FakeDynamoDb();
+        ddb.onboarding(TENANT_ID, false);
+        OnboardingServiceDAL dal = new OnboardingServiceDAL(ddb, index(false));
+
+        Onboarding onboarding = dal.getOnboardingByTenantId(TENANT_ID);
+        assertEquals(TENANT_ID, onboarding.getTenantId().toString());
+        assertEquals(0, ddb.queries);
+        assertEquals(1, ddb.scans);
+        // The legacy onboarding is given its short id so the index picks it up
+        assertEquals("d1c1e3cc", ddb.items.get(onboarding.getId().toString()).get("tenant_short_id").s());
+
+        // Later lookups for the same tenant are a single read
+        assertEquals(onboarding.getId(), dal.getOnboardingByTenantId(TENANT_ID).getId());
+        assertEquals(1, ddb.scans);
+        assertEquals(1, ddb.gets);
+    }
+
+    private static DynamoDbIndex index(boolean active) {
+        return new DynamoDbIndex(null, null, OnboardingServiceDAL.TENANT_INDEX) {
+            @Override
+            public boolean isActive() {
+                return active;
+            }
+        };
+    }
+
+    // Holds onboarding items by id and answers tenant index queries and tenant id scans
+    static class FakeDynamoDb implements DynamoDbClient {
+        final Map<String, Map<String, AttributeValue>> items = new LinkedHashMap<>();
+        int queries;
+        int scans;
+        int gets;
+
+        void onboarding(String tenantId, boolean indexed) {
+            Onboarding onboarding = new Onboarding(UUID.randomUUID(), OnboardingStatus.deployed);
+            onboarding.setTenantId(UUID.fromString(tenantId));
+            Map<String, AttributeValue> item = new HashMap<>(OnboardingServiceDAL.toAttributeValueMap(onboarding));
+            if (!indexed) {
+                item.remove("tenant_short_id");
+            }
+            items.put(onboarding.getId().toString(), item);
+        }
+
+        @Override
+        public GetItemResponse getItem(GetItemRequest request) {
+            gets++;
+            return GetItemResponse.builder().item(items.get(request.key().get("id").s())).build();
+        }
+
+        @Override
+        public QueryResponse query(QueryRequest request) {
+            queries++;
+            String shortId = request.expressionAttributeValues().get(":shortId").s();
+            AttributeValue tenantId = request.expressionAttributeValues().get(":tenantId");
+            List<Map<String, AttributeValue>> matches = new ArrayList<>();
+            for (Map<String, AttributeValue> item : items.values()) {
+                if (item.containsKey("tenant_short_id") && shortId.equals(item.get("tenant_short_id").s())
+                        && (tenantId == null || tenantId.equals(item.get("tenant_id")))) {
+                    matches.add(item);
+                }
+            }
+            return QueryResponse.builder().items(matches).count(matches.size()).build();
+        }
+
+        @Override
+        public QueryIterable queryPaginator(QueryRequest request) {
+            return new QueryIterable(this, request);
+        }
+
+        @Override
+        public ScanResponse scan(ScanRequest request) {
+            scans++;
+            String tenantId = request.expressionAttributeValues().get(":tenantId").s();
+            List<Map<String, AttributeValue>> matches = new ArrayList<>();
+            for (Map<String, AttributeValue> item : items.values()) {
+                if (item.get("tenant_id").s().startsWith(tenantId)) {
+                    matches.add(item);
+                }
+            }
+            return ScanResponse.builder().items(matches).count(matches.size()).build();
+        }
+
+        @Override
+        public ScanIterable scanPaginator(ScanRequest request) {
+            return new ScanIterable(this, request);
+        }
+
+        @Override
+        public UpdateItemResponse updateItem(UpdateItemRequest request) {
+            Map<String, AttributeValue> item = items.get(request.key().get("id").s());
+            item.put("tenant_short_id", request.expressionAttributeValues().get(":shortId"));
+            return UpdateItemResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return DynamoDbClient.SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -53,7 +53,23 @@ public class QuotasService implements RequestHandler<Map<String, Object>, APIGat
             return new APIGatewayProxyResponseEvent().withHeaders(CORS).withStatusCode(200);
         }
 
-        QuotasServiceDAL.QuotaCheck quotaCheck = dal.checkQuotas();
+        // Bulk onboarding asks if there's room for a whole batch of tenants with ?tenants=N
+        int tenants = 1;
+        Map<String, String> queryParams = (Map<String, String>) event.get("queryStringParameters");
+        if (queryParams != null && queryParams.get("tenants") != null) {
+            try {
+                tenants = Integer.parseInt(queryParams.get("tenants"));
+            } catch (NumberFormatException e) {
+                tenants = 0;
+            }
+            if (tenants < 1) {
+                return new APIGatewayProxyResponseEvent()
+                        .withHeaders(CORS)
+                        .withStatusCode(400)
+                        .withBody("{\"message\":\"Invalid number of tenants.\"}");
+            }
+        }
+        QuotasServiceDAL.QuotaCheck quotaCheck = dal.checkQuotas(tenants);
 
         long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
         LOGGER.info("SettingsService::getSettings exec " + totalTimeMillis);
@@ -22,24 +22,40 @@ import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.cloudwatch.model.*;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.elasticloadbalancingv2.ElasticLoadBalancingV2Client;
+import software.amazon.awssdk.services.elasticloadbalancingv2.model.LoadBalancerTypeEnum;
 import software.amazon.awssdk.services.rds.RdsClient;
 import software.amazon.awssdk.services.servicequotas.ServiceQuotasClient;
-import software.amazon.awssdk.services.servicequotas.model.ListServiceQuotasRequest;
-import software.amazon.awssdk.services.servicequotas.model.ListServiceQuotasResponse;
 import software.amazon.awssdk.services.servicequotas.model.ServiceQuota;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class QuotasServiceDAL {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(QuotasServiceDAL.class);
+    private static final List<String> SERVICE_CODES = Collections.unmodifiableList(Arrays.asList(
+            "rds", "elasticloadbalancing", "fargate", "vpc", "ec2"));
+    private static final String FARGATE_METRIC = "fargate";
+    private static final String VCPU_METRIC = "vcpu";
+    static final long QUOTAS_TTL_MILLIS = 60 * 60 * 1000L;
+    // Short enough that a burst of onboardings sees each other's resources soon after they launch
+    static final long USAGE_TTL_MILLIS = 30 * 1000L;
+    // What each tenant's stack adds toward the quotas it counts against. The tenant template doesn't
+    // create NAT gateways. Quotas not listed here only need room for one more resource.
+    static final Map<String, Double> TENANT_RESOURCES = Map.of(
+            "VPCs per Region", 1d,
+            "Internet gateways per Region", 1d,
+            "Application Load Balancers per Region", 1d);
     private final ElasticLoadBalancingV2Client elb;
     private final Ec2Client ec2;
     private final ServiceQuotasClient serviceQuotas;
     private final RdsClient rds;
     private final CloudWatchClient cloudWatch;
+    private volatile Snapshot quotaSnapshot;
+    private volatile Snapshot usageSnapshot;
 
     public QuotasServiceDAL() {
         long startTimeMillis = System.currentTimeMillis();
@@ -52,56 +68,49 @@ public class QuotasServiceDAL {
     }
 
     public QuotaCheck checkQuotas() {
+        return checkQuotas(1);
+    }
+
+    /**
+     * Checks that there's room for the given number of new tenants. The resources every tenant adds
+     * are multiplied out so a batch of tenants is refused up front instead of failing part way through.
+     */
+    public QuotaCheck checkQuotas(int tenants) {
+        if (tenants < 1) {
+            throw new IllegalArgumentException("Number of tenants must be greater than 0");
+        }
         boolean reportBackError = false;
-        boolean exceedsLimit = false;
-        String serviceCode;
+        boolean exceedsLimit;
         List<Service> retList = new ArrayList<>();
-        Map<String, Double> deployedCountMap = new LinkedHashMap<>();
-        Map<String, Double> quotasMap = new LinkedHashMap<>();
         StringBuilder builder = new StringBuilder();
 
-        // RDS
-        serviceCode = "rds";
-        deployedCountMap.clear();
-        deployedCountMap.put("DB clusters", Double.valueOf(getRdsClusters()));
-        deployedCountMap.put("DB instances", Double.valueOf(getRdsInstances()));
-        getQuotas(serviceCode);
-        exceedsLimit = compareValues(retList, deployedCountMap, serviceCode, quotasMap, builder);
-        reportBackError = reportBackError || exceedsLimit;
-
-        // load balancers
-        serviceCode = "elasticloadbalancing";
-        deployedCountMap.clear();
-        deployedCountMap.put("Application Load Balancers per Region", Double.valueOf(getAlbs()));
-        quotasMap = getQuotas(serviceCode);
-        exceedsLimit = compareValues(retList, deployedCountMap, serviceCode, quotasMap, builder);
-        reportBackError = reportBackError || exceedsLimit;
-
-        // fargate
-        serviceCode = "fargate";
-        deployedCountMap.clear();
-        deployedCountMap.put("Fargate On-Demand resource count", getFargateResourceCount());
-        quotasMap = getQuotas(serviceCode);
-        exceedsLimit = compareValues(retList, deployedCountMap, serviceCode, quotasMap, builder);
-        reportBackError = reportBackError || exceedsLimit;
-
-        // vpc
-        serviceCode = "vpc";
-        deployedCountMap.clear();
-        deployedCountMap.put("VPCs per Region", Double.valueOf(getVpcs()));
-        deployedCountMap.put("Internet gateways per Region", Double.valueOf(getInternetGateways()));
-        deployedCountMap.put("NAT gateways per Availability Zone", Double.valueOf(getNatGateways()));
-        quotasMap = getQuotas(serviceCode);
-        exceedsLimit = compareValues(retList, deployedCountMap, serviceCode, quotasMap, builder);
-        reportBackError = reportBackError || exceedsLimit;
-
-        // ec2 vCPU
-        serviceCode = "ec2";
-        deployedCountMap.clear();
-        deployedCountMap.put("Running On-Demand Standard (A, C, D, H, I, M, R, T, Z) instances", getVCpuCount());
-        quotasMap = getQuotas(serviceCode);
-        exceedsLimit = compareValues(retList, deployedCountMap, serviceCode, quotasMap, builder);
-        reportBackError = reportBackError || exceedsLimit;
+        // Quota limits rarely change so they're cached much longer than the usage counts. Refresh
+        // them alongside the usage counts when they're stale.
+        Snapshot limits = quotaSnapshot;
+        CompletableFuture<Map<String, Map<String, Double>>> limitsRefresh = null;
+        if (limits == null || limits.isExpired()) {
+            limitsRefresh = ParallelExecutor.supplyAsync(this::getAllQuotas);
+        }
+        Map<String, Map<String, Double>> deployed;
+        try {
+            deployed = usage();
+        } catch (RuntimeException usageError) {
+            // Don't leave the quota requests running once we've returned
+            if (limitsRefresh != null) {
+                limitsRefresh.handle((quotas, quotasError) -> null).join();
+            }
+            throw usageError;
+        }
+        if (limitsRefresh != null) {
+            limits = new Snapshot(join(limitsRefresh), QUOTAS_TTL_MILLIS);
+            quotaSnapshot = limits;
+        }
+
+        for (String serviceCode : SERVICE_CODES) {
+            exceedsLimit = compareValues(retList, deployed.get(serviceCode), serviceCode,
+                    limits.values.get(serviceCode), tenants, builder);
+            reportBackError = reportBackError || exceedsLimit;
+        }
 
         QuotaCheck quotaCheck = new QuotaCheck();
         quotaCheck.setPassed(!reportBackError);
@@ -110,7 +119,53 @@ public class QuotasServiceDAL {
         return quotaCheck;
     }
 
-    private static boolean compareValues(List<Service> retList, Map<String, Double> deployedCountMap, String serviceCode, Map<String, Double> quotasMap, StringBuilder builder) {
+    // What we're currently running against each quota, keyed by service code and then quota name
+    private Map<String, Map<String, Double>> usage() {
+        Snapshot snapshot = usageSnapshot;
+        if (snapshot != null && !snapshot.isExpired()) {
+            return snapshot.values;
+        }
+        CompletableFuture<Integer> rdsClusters = ParallelExecutor.supplyAsync(this::getRdsClusters);
+        CompletableFuture<Integer> rdsInstances = ParallelExecutor.supplyAsync(this::getRdsInstances);
+        CompletableFuture<Integer> albs = ParallelExecutor.supplyAsync(this::getAlbs);
+        CompletableFuture<Integer> vpcs = ParallelExecutor.supplyAsync(this::getVpcs);
+        CompletableFuture<Integer> internetGateways = ParallelExecutor.supplyAsync(this::getInternetGateways);
+        CompletableFuture<Integer> natGateways = ParallelExecutor.supplyAsync(this::getNatGateways);
+        CompletableFuture<Map<String, Double>> usageMetrics = ParallelExecutor.supplyAsync(this::getUsageMetrics);
+        join(CompletableFuture.allOf(rdsClusters, rdsInstances, albs, vpcs, internetGateways, natGateways,
+                usageMetrics));
+
+        Map<String, Map<String, Double>> deployed = new HashMap<>();
+        Map<String, Double> deployedCountMap = new LinkedHashMap<>();
+        deployedCountMap.put("DB clusters", Double.valueOf(rdsClusters.join()));
+        deployedCountMap.put("DB instances", Double.valueOf(rdsInstances.join()));
+        deployed.put("rds", deployedCountMap);
+
+        deployedCountMap = new LinkedHashMap<>();
+        deployedCountMap.put("Application Load Balancers per Region", Double.valueOf(albs.join()));
+        deployed.put("elasticloadbalancing", deployedCountMap);
+
+        deployedCountMap = new LinkedHashMap<>();
+        deployedCountMap.put("Fargate On-Demand resource count", usageMetrics.join().get(FARGATE_METRIC));
+        deployed.put("fargate", deployedCountMap);
+
+        deployedCountMap = new LinkedHashMap<>();
+        deployedCountMap.put("VPCs per Region", Double.valueOf(vpcs.join()));
+        deployedCountMap.put("Internet gateways per Region", Double.valueOf(internetGateways.join()));
+        deployedCountMap.put("NAT gateways per Availability Zone", Double.valueOf(natGateways.join()));
+        deployed.put("vpc", deployedCountMap);
+
+        deployedCountMap = new LinkedHashMap<>();
+        deployedCountMap.put("Running On-Demand Standard (A, C, D, H, I, M, R, T, Z) instances",
+                usageMetrics.join().get(VCPU_METRIC));
+        deployed.put("ec2", deployedCountMap);
+
+        usageSnapshot = new Snapshot(deployed, USAGE_TTL_MILLIS);
+        return deployed;
+    }
+
+    static boolean compareValues(List<Service> retList, Map<String, Double> deployedCountMap, String serviceCode,
+            Map<String, Double> quotasMap, int tenants, StringBuilder builder) {
         //now compare and build list of messages
         boolean exceedsLimit = false;
         for (Map.Entry<String, Double> entry : deployedCountMap.entrySet()) {
@@ -120,11 +175,22 @@ public class QuotasServiceDAL {
                 LOGGER.info("Entry key : {}, Entry value: {}, quotaValue: {}", entry.getKey(), entry.getValue(), quotaValue);
                 service.setQuotaValue(quotaValue);
                 if (null != quotaValue) {
-                    if (quotaValue.compareTo(entry.getValue()) < 1) {
+                    double required = tenants * TENANT_RESOURCES.getOrDefault(entry.getKey(), 0d);
+                    boolean exceeds = required > 0
+                            ? entry.getValue() + required > quotaValue
+                            : quotaValue.compareTo(entry.getValue()) < 1;
+                    if (exceeds) {
                         builder.append("Quota will be exceeded for service ");
                         builder.append(entry.getKey());
                         builder.append(". You are currently consuming ");
                         builder.append(entry.getValue());
+                        if (required > 0) {
+                            builder.append(", onboarding ");
+                            builder.append(tenants);
+                            builder.append(tenants == 1 ? " tenant needs " : " tenants needs ");
+                            builder.append(required);
+                            builder.append(" more");
+                        }
                         builder.append(", and Service Quota is ");
                         builder.append(quotaValue);
                         builder.append(".");
@@ -146,7 +212,7 @@ public class QuotasServiceDAL {
     private int getRdsClusters() {
         int clusters = 0;
         try {
-            clusters = rds.describeDBClusters().dbClusters().size();
+            clusters = (int) rds.describeDBClustersPaginator().dbClusters().stream().count();
         } catch (SdkServiceException rdsError) {
             LOGGER.error("rds::DescribeClusters", rdsError);
             LOGGER.error(Utils.getFullStackTrace(rdsError));
@@ -158,7 +224,7 @@ public class QuotasServiceDAL {
     private int getRdsInstances() {
         int instances = 0;
         try {
-            instances = rds.describeDBInstances().dbInstances().size();
+            instances = (int) rds.describeDBInstancesPaginator().dbInstances().stream().count();
         } catch (SdkServiceException rdsError) {
             LOGGER.error("rds::DescribeDBInstances", rdsError);
             LOGGER.error(Utils.getFullStackTrace(rdsError));
@@ -170,7 +236,10 @@ public class QuotasServiceDAL {
     private int getAlbs() {
         int loadBalancers = 0;
         try {
-            loadBalancers = elb.describeLoadBalancers().loadBalancers().size();
+            // Network and gateway load balancers have their own quotas
+            loadBalancers = (int) elb.describeLoadBalancersPaginator().loadBalancers().stream()
+                    .filter(loadBalancer -> LoadBalancerTypeEnum.APPLICATION == loadBalancer.type())
+                    .count();
         } catch (SdkServiceException elbError) {
             LOGGER.error("elasticloadbalancing::DescribeLoadBalancers", elbError);
             LOGGER.error(Utils.getFullStackTrace(elbError));
@@ -182,7 +251,7 @@ public class QuotasServiceDAL {
     private int getVpcs() {
         int vpcs = 0;
         try {
-            vpcs = ec2.describeVpcs().vpcs().size();
+            vpcs = (int) ec2.describeVpcsPaginator().vpcs().stream().count();
         } catch (SdkServiceException ec2Error) {
             LOGGER.error("ec2::DescribeVpcs", ec2Error);
             LOGGER.error(Utils.getFullStackTrace(ec2Error));
@@ -194,7 +263,7 @@ public class QuotasServiceDAL {
     private int getInternetGateways() {
         int gateways = 0;
         try {
-            gateways = ec2.describeInternetGateways().internetGateways().size();
+            gateways = (int) ec2.describeInternetGatewaysPaginator().internetGateways().stream().count();
         } catch (SdkServiceException ec2Error) {
             LOGGER.error("ec2::DescribeInternetGateways", ec2Error);
             LOGGER.error(Utils.getFullStackTrace(ec2Error));
@@ -206,7 +275,7 @@ public class QuotasServiceDAL {
     private int getNatGateways() {
         int natGateways = 0;
         try {
-            natGateways = ec2.describeNatGateways().natGateways().size();
+            natGateways = (int) ec2.describeNatGatewaysPaginator().natGateways().stream().count();
         } catch (SdkServiceException ec2Error) {
             LOGGER.error("ec2::DescribeNatGateways", ec2Error);
             LOGGER.error(Utils.getFullStackTrace(ec2Error));
@@ -215,32 +284,10 @@ public class QuotasServiceDAL {
         return natGateways;
     }
 
-    private Double getFargateResourceCount() {
-        Double count = 0d;
+    // Fargate tasks and EC2 vCPUs both come from the AWS/Usage namespace, so ask for them together
+    private Map<String, Double> getUsageMetrics() {
+        Map<String, Double> counts = new HashMap<>();
         try {
-            Metric metric = Metric.builder()
-                    .metricName("ResourceCount")
-                    .namespace("AWS/Usage")
-                    .dimensions(Arrays.asList(
-                            Dimension.builder().name("Type").value("Resource").build(),
-                            Dimension.builder().name("Resource").value("OnDemand").build(),
-                            Dimension.builder().name("Service").value("Fargate").build(),
-                            Dimension.builder().name("Class").value("None").build()
-                    ))
-                    .build();
-
-            MetricStat metricStat = MetricStat.builder()
-                    .stat("Maximum")
-                    .period(600)
-                    .metric(metric)
-                    .build();
-
-            MetricDataQuery dataQuery = MetricDataQuery.builder()
-                    .metricStat(metricStat)
-                    .id("fargate")
-                    .returnData(true)
-                    .build();
-
             Instant end = Instant.now();
             Instant start = end.minus(600, ChronoUnit.SECONDS);
 
@@ -249,15 +296,18 @@ public class QuotasServiceDAL {
                     .maxDatapoints(10000)
                     .startTime(start)
                     .endTime(end)
-                    .metricDataQueries(Arrays.asList(dataQuery))
+                    .scanBy(ScanBy.TIMESTAMP_DESCENDING)
+                    .metricDataQueries(Arrays.asList(
+                            usageQuery(FARGATE_METRIC, "OnDemand", "Fargate", "None"),
+                            usageQuery(VCPU_METRIC, "vCPU", "EC2", "Standard/OnDemand")
+                    ))
                     .build();
 
             GetMetricDataResponse response = cloudWatch.getMetricData(getMetricDataRequest);
             for (MetricDataResult item : response.metricDataResults()) {
-                //get the last value as it is the most current
+                //newest first, so the first value is the most current
                 if (!item.values().isEmpty()) {
-                    count = item.values().get(item.values().size() - 1);
-                    break;
+                    counts.put(item.id(), item.values().get(0));
                 }
             }
             LOGGER.info("Time to process: " + (System.currentTimeMillis() - startTime));
@@ -266,87 +316,60 @@ public class QuotasServiceDAL {
             LOGGER.error(Utils.getFullStackTrace(cloudWatchError));
             throw cloudWatchError;
         }
-        return count;
+        counts.putIfAbsent(FARGATE_METRIC, 0d);
+        counts.putIfAbsent(VCPU_METRIC, 0d);
+        return counts;
     }
 
-    private Double getVCpuCount() {
-        Double count = 0d;
-        try {
-            Metric metric = Metric.builder()
-                    .metricName("ResourceCount")
-                    .namespace("AWS/Usage")
-                    .dimensions(Arrays.asList(
-                            Dimension.builder().name("Type").value("Resource").build(),
-                            Dimension.builder().name("Resource").value("vCPU").build(),
-                            Dimension.builder().name("Service").value("EC2").build(),
-                            Dimension.builder().name("Class").value("Standard/OnDemand").build()
-                    ))
-                    .build();
-
-            MetricStat metricStat = MetricStat.builder()
-                    .stat("Maximum")
-                    .period(600)
-                    .metric(metric)
-                    .build();
-
-            MetricDataQuery dataQuery = MetricDataQuery.builder()
-                    .metricStat(metricStat)
-                    .id("vcpu")
-                    .returnData(true)
-                    .build();
-
-            Instant end = Instant.now();
-            Instant start = end.minus(600, ChronoUnit.SECONDS);
-
-            long startTime = System.currentTimeMillis();
-            GetMetricDataRequest getMetricDataRequest = GetMetricDataRequest.builder()
-                    .maxDatapoints(10000)
-                    .startTime(start)
-                    .endTime(end)
-                    .metricDataQueries(Arrays.asList(dataQuery))
-                    .build();
+    private static MetricDataQuery usageQuery(String id, String resource, String service, String resourceClass) {
+        Metric metric = Metric.builder()
+                .metricName("ResourceCount")
+                .namespace("AWS/Usage")
+                .dimensions(Arrays.asList(
+                        Dimension.builder().name("Type").value("Resource").build(),
+                        Dimension.builder().name("Resource").value(resource).build(),
+                        Dimension.builder().name("Service").value(service).build(),
+                        Dimension.builder().name("Class").value(resourceClass).build()
+                ))
+                .build();
+
+        MetricStat metricStat = MetricStat.builder()
+                .stat("Maximum")
+                .period(600)
+                .metric(metric)
+                .build();
+
+        return MetricDataQuery.builder()
+                .metricStat(metricStat)
+                .id(id)
+                .returnData(true)
+                .build();
+    }
 
-            GetMetricDataResponse response = cloudWatch.getMetricData(getMetricDataRequest);
-            for (MetricDataResult item : response.metricDataResults()) {
-                //get the last value as it is the most current
-                if (!item.values().isEmpty()) {
-                    count = item.values().get(item.values().size() - 1);
-                    break;
-                }
-            }
-            LOGGER.info("Time to process: " + (System.currentTimeMillis() - startTime));
-        } catch (CloudWatchException cloudWatchError) {
-            LOGGER.error("cloudwatch::GetMetricData", cloudWatchError);
-            LOGGER.error(Utils.getFullStackTrace(cloudWatchError));
-            throw cloudWatchError;
+    private Map<String, Map<String, Double>> getAllQuotas() {
+        List<Map<String, Double>> quotas = ParallelExecutor.map(SERVICE_CODES, SERVICE_CODES.size(),
+                this::getQuotas);
+        Map<String, Map<String, Double>> quotasByService = new HashMap<>();
+        for (int i = 0; i < SERVICE_CODES.size(); i++) {
+            quotasByService.put(SERVICE_CODES.get(i), quotas.get(i));
         }
-        return count;
+        return quotasByService;
     }
 
     // Get the Quota
     private Map<String, Double> getQuotas(String serviceCode) {
         // Possible language parameters: "en" (English), "ja" (Japanese), "fr" (French), "zh" (Chinese)
         Map<String, Double> retVals = new LinkedHashMap<>();
-        String nextToken = null;
         LOGGER.info("Service: {}", serviceCode);
         try {
-            do {
-                    ListServiceQuotasRequest request = ListServiceQuotasRequest.builder()
-                            .serviceCode(serviceCode)
-                            .nextToken(nextToken)
-                            .build();
-                    ListServiceQuotasResponse response = serviceQuotas.listServiceQuotas(request);
-                    nextToken = response.nextToken();
-
-                    for (ServiceQuota quota : response.quotas()) {
-                        // Do something with check description.
-                        //LOGGER.info("Service: " + quota.serviceName() + " Quota: " + quota.quotaName() + " Value: " + quota.value());
-                        retVals.put(quota.quotaName(), quota.value());
-                        if (null == quota.value()) {
-                            LOGGER.debug(quota.toString());  //this is for permissions error troubleshooting
-                        }
-                    }
-            } while (nextToken != null && !nextToken.isEmpty());
+            for (ServiceQuota quota : serviceQuotas.listServiceQuotasPaginator(request -> request
+                    .serviceCode(serviceCode)).quotas()) {
+                //LOGGER.info("Service: " + quota.serviceName() + " Quota: " + quota.quotaName() + " Value: " + quota.value());
+                retVals.put(quota.quotaName(), quota.value());
+                if (null == quota.value()) {
+                    LOGGER.debug(quota.toString());  //this is for permissions error troubleshooting
+                }
+            }
             return retVals;
         } catch (Exception e) {
             LOGGER.error("Error fetching quota for service {} with message {}", serviceCode, e.getMessage());
@@ -376,6 +399,32 @@ public class QuotasServiceDAL {
         } while (nextToken != null && !nextToken.isEmpty());
     }*/
 
+    // Rethrows the AWS error that failed a concurrent request instead of the CompletionException
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Map<String, Double>> values;
+        private final long expiresAt;
+
+        private Snapshot(Map<String, Map<String, Double>> values, long ttlMillis) {
+            this.values = values;
+            this.expiresAt = System.currentTimeMillis() + ttlMillis;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
     public static class Service {
         private String serviceCode;
         private String serviceName;
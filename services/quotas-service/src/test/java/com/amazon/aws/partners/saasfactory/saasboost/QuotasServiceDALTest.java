@@ -0,0 +1,65 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class QuotasServiceDALTest {
+
+    private static boolean exceeds(String quota, double deployed, double limit, int tenants, StringBuilder message) {
+        return QuotasServiceDAL.compareValues(new ArrayList<>(), Map.of(quota, deployed), "vpc", Map.of(quota, limit),
+                tenants, message);
+    }
+
+    @Test
+    public void testSingleTenantNeedsRoomForOneMore() {
+        assertFalse(exceeds("VPCs per Region", 4, 5, 1, new StringBuilder()));
+        assertTrue(exceeds("VPCs per Region", 5, 5, 1, new StringBuilder()));
+        // Quotas tenants don't add a known amount to keep the usage below the quota check
+        assertFalse(exceeds("DB instances", 39, 40, 1, new StringBuilder()));
+        assertTrue(exceeds("DB instances", 40, 40, 1, new StringBuilder()));
+    }
+
+    @Test
+    public void testBatchOfTenantsCountsEveryTenant() {
+        // Room for one more tenant isn't room for 10
+        StringBuilder message = new StringBuilder();
+        assertTrue(exceeds("VPCs per Region", 4, 5, 10, message));
+        assertTrue(message.toString().contains("onboarding 10 tenants needs 10.0 more"));
+
+        assertFalse(exceeds("Application Load Balancers per Region", 40, 50, 10, new StringBuilder()));
+        assertTrue(exceeds("Application Load Balancers per Region", 41, 50, 10, new StringBuilder()));
+        assertFalse(exceeds("DB instances", 39, 40, 10, new StringBuilder()));
+    }
+
+    @Test
+    public void testEveryQuotaListed() {
+        List<QuotasServiceDAL.Service> results = new ArrayList<>();
+        Map<String, Double> deployed = new LinkedHashMap<>();
+        deployed.put("VPCs per Region", 2d);
+        deployed.put("Internet gateways per Region", 5d);
+        Map<String, Double> quotas = Map.of("VPCs per Region", 5d, "Internet gateways per Region", 5d);
+        StringBuilder message = new StringBuilder();
+        assertTrue(QuotasServiceDAL.compareValues(results, deployed, "vpc", quotas, 3, message));
+        assertEquals(2, results.size());
+        assertTrue(message.toString().contains("Internet gateways per Region"));
+        assertFalse(message.toString().contains("VPCs per Region"));
+    }
+}
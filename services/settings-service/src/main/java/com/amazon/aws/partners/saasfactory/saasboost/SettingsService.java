@@ -112,6 +112,14 @@ public class SettingsService implements RequestHandler<Map<String, Object>, APIG
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
 
+    // For testing with a stub data access layer
+    SettingsService(SettingsServiceDAL dal) {
+        this.dal = dal;
+        this.eventBridge = null;
+        this.s3 = null;
+        this.presigner = null;
+    }
+
     @Override
     public APIGatewayProxyResponseEvent handleRequest(Map<String, Object> event, Context context) {
         // Utils.logRequestEvent(event);
@@ -320,6 +328,56 @@ public class SettingsService implements RequestHandler<Map<String, Object>, APIG
                 .withBody(Utils.toJson(settings));
     }
 
+    public APIGatewayProxyResponseEvent getAllTenantSettings(Map<String, Object> event, Context context) {
+        if (Utils.warmup(event)) {
+            // LOGGER.info("Warming up");
+            return new APIGatewayProxyResponseEvent().withHeaders(CORS).withStatusCode(200);
+        }
+
+        final long startTimeMillis = System.currentTimeMillis();
+        // Utils.logRequestEvent(event);
+
+        // Optionally filter to a set of tenants with ?id=...&id=... and project to a set of
+        // settings with ?setting=...&setting=... Without any filters, returns every tenant's settings.
+        Map<String, List<String>> multiValueQueryParams = (Map<String, List<String>>) event
+                .get("multiValueQueryStringParameters");
+        List<UUID> tenantIds = new ArrayList<>();
+        List<String> settingNames = new ArrayList<>();
+        if (multiValueQueryParams != null) {
+            if (multiValueQueryParams.containsKey("id")) {
+                for (String tenantId : multiValueQueryParams.get("id")) {
+                    try {
+                        tenantIds.add(UUID.fromString(tenantId));
+                    } catch (IllegalArgumentException e) {
+                        return new APIGatewayProxyResponseEvent()
+                                .withHeaders(CORS)
+                                .withStatusCode(400)
+                                .withBody("{\"message\":\"Invalid id for setting.\"}");
+                    }
+                }
+            }
+            if (multiValueQueryParams.containsKey("setting")) {
+                for (String settingName : multiValueQueryParams.get("setting")) {
+                    if (!Setting.isValidSettingName(settingName)) {
+                        return new APIGatewayProxyResponseEvent()
+                                .withHeaders(CORS)
+                                .withStatusCode(400)
+                                .withBody("{\"message\":\"Invalid setting name.\"}");
+                    }
+                    settingNames.add(settingName);
+                }
+            }
+        }
+        Map<UUID, List<Setting>> settings = dal.getAllTenantSettings(tenantIds, settingNames);
+
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("SettingsService::getAllTenantSettings exec " + totalTimeMillis);
+        return new APIGatewayProxyResponseEvent()
+                .withHeaders(CORS)
+                .withStatusCode(200)
+                .withBody(Utils.toJson(settings));
+    }
+
     public APIGatewayProxyResponseEvent getTenantSetting(Map<String, Object> event, Context context) {
         if (Utils.warmup(event)) {
             // LOGGER.info("Warming up");
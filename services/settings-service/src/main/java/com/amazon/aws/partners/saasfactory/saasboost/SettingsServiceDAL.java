@@ -20,6 +20,7 @@ import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
 import software.amazon.awssdk.services.ssm.SsmClient;
 import software.amazon.awssdk.services.ssm.model.*;
@@ -43,9 +44,36 @@ public class SettingsServiceDAL {
     static final Pattern SAAS_BOOST_PARAMETER_PATTERN = Pattern.compile("^\\/" + SAAS_BOOST_PREFIX + "\\/" + SAAS_BOOST_ENV + "\\/(.+)$");
     // e.g. /saas-boost/staging/tenant/00000000-0000-0000-0000-000000000000/DB_HOST
     static final Pattern SAAS_BOOST_TENANT_PATTERN = Pattern.compile("^\\/" + SAAS_BOOST_PREFIX + "\\/" + SAAS_BOOST_ENV + "\\/tenant\\/(\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12})\\/(.+)$");
+    // GetParameters and DeleteParameters accept at most 10 names per call
+    static final int SSM_MAX_BATCH_SIZE = 10;
+    // DescribeParameters only returns names, so it pages 50 at a time
+    static final int SSM_MAX_DESCRIBE_RESULTS = 50;
+    // Stay well under the default Parameter Store throughput quota when fanning out batches
+    static final int SSM_MAX_CONCURRENCY = 8;
+    // PutParameter defaults to a much lower transactions per second quota than the read APIs
+    static final int SSM_PUT_MAX_CONCURRENCY = 3;
+
+    private static final long RDS_OPTIONS_CACHE_TTL_MILLIS = 15 * 60 * 1000L;
+    // The RdsOptions custom resource writes this item last with the version of the catalog it just saved
+    static final String RDS_OPTIONS_VERSION_ENGINE = "CATALOG_VERSION";
+    static final long NO_CATALOG_VERSION = -1L;
+    // Every setting toSettings can write for an AppConfig, so deleteAppConfig doesn't have to read them first
+    static final List<String> APP_CONFIG_PARAMS;
+    static {
+        Set<String> appConfigParams = new LinkedHashSet<>();
+        for (Setting setting : toSettings(AppConfig.builder().build())) {
+            appConfigParams.add(setting.getName());
+        }
+        // Only written when an operating system is chosen
+        appConfigParams.add("CLUSTER_OS");
+        APP_CONFIG_PARAMS = Collections.unmodifiableList(new ArrayList<>(appConfigParams));
+    }
 
     private final SsmClient ssm;
     private DynamoDbClient ddb;
+    private volatile List<Map<String, Object>> rdsOptionsCache;
+    private volatile long rdsOptionsVersion = NO_CATALOG_VERSION;
+    private volatile long rdsOptionsCacheExpiry;
 
     public SettingsServiceDAL() {
         long startTimeMillis = System.currentTimeMillis();
@@ -67,6 +95,12 @@ public class SettingsServiceDAL {
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
 
+    // For testing with stub clients
+    SettingsServiceDAL(SsmClient ssm, DynamoDbClient ddb) {
+        this.ssm = ssm;
+        this.ddb = ddb;
+    }
+
     public List<Setting> getAllSettings() {
         long startTimeMillis = System.currentTimeMillis();
 
@@ -74,13 +108,17 @@ public class SettingsServiceDAL {
         String nextToken = null;
         do {
             try {
-                GetParametersByPathResponse response = ssm.getParametersByPath(GetParametersByPathRequest
-                        .builder()
+                GetParametersByPathRequest request = GetParametersByPathRequest.builder()
                         .path("/" + SAAS_BOOST_PREFIX + "/" + SAAS_BOOST_ENV)
                         .recursive(false) // don't get the tenant params
                         .withDecryption(false) // don't expose secrets by default
+                        .maxResults(SSM_MAX_BATCH_SIZE)
                         .nextToken(nextToken)
-                        .build()
+                        .build();
+                // Each page depends on the previous page's token so we can't fan these out, but we can
+                // ride out throttling instead of failing the whole read
+                GetParametersByPathResponse response = ParallelExecutor.withThrottlingRetry(
+                        () -> ssm.getParametersByPath(request)
                 );
                 nextToken = response.nextToken();
 
@@ -138,34 +176,25 @@ public class SettingsServiceDAL {
     }
 
     public List<Setting> getNamedSettings(List<String> namedSettings) {
-        List<Setting> settings = new ArrayList<>();
-        List<String> batch = new ArrayList<>();
+        long startTimeMillis = System.currentTimeMillis();
 
-        try {
-            Iterator<String> it = namedSettings.iterator();
-            while (it.hasNext()) {
-                if (batch.size() < 10) {
-                    Parameter namedParameter = toParameterStore(Setting.builder().name(it.next()).build());
-                    batch.add(namedParameter.name());
-
-                    // If namedSettings % 10 != 0, then be sure to make a request with the remainder
-                    if (!it.hasNext()) {
-                        GetParametersResponse response = ssm.getParameters(request -> request.names(batch));
-                        for (Parameter parameter : response.parameters()) {
-                            settings.add(fromParameterStore(parameter));
-                        }
-                        // We've reached the end of the request input
-                        break;
-                    }
-                } else {
-                    // Batch has reached max size of 10, make the request
-                    GetParametersResponse response = ssm.getParameters(request -> request.names(batch));
-                    for (Parameter parameter : response.parameters()) {
-                        settings.add(fromParameterStore(parameter));
-                    }
+        // De-dupe the requested names, but keep the order the caller asked for
+        Set<String> parameterNames = new LinkedHashSet<>();
+        for (String namedSetting : namedSettings) {
+            parameterNames.add(toParameterStore(Setting.builder().name(namedSetting).build()).name());
+        }
 
-                    // Clear the batch so we can fill it up for the next request
-                    batch.clear();
+        // GetParameters only takes 10 names per call, so fan the batches out concurrently
+        Map<String, Parameter> parameters = new HashMap<>();
+        try {
+            List<List<Parameter>> responses = ParallelExecutor.map(
+                    ParallelExecutor.partition(parameterNames, SSM_MAX_BATCH_SIZE),
+                    SSM_MAX_CONCURRENCY,
+                    batch -> ssm.getParameters(request -> request.names(batch)).parameters()
+            );
+            for (List<Parameter> response : responses) {
+                for (Parameter parameter : response) {
+                    parameters.put(parameter.name(), parameter);
                 }
             }
         } catch (SdkServiceException ssmError) {
@@ -173,6 +202,20 @@ public class SettingsServiceDAL {
             LOGGER.error(Utils.getFullStackTrace(ssmError));
             throw ssmError;
         }
+
+        // Each batch comes back in whatever order Parameter Store likes, put them back in request order.
+        // Names that don't exist in Parameter Store are skipped just like GetParameters does.
+        List<Setting> settings = new ArrayList<>();
+        for (String parameterName : parameterNames) {
+            Parameter parameter = parameters.get(parameterName);
+            if (parameter != null) {
+                settings.add(fromParameterStore(parameter));
+            }
+        }
+
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("SettingsServiceDAL::getNamedSettings exec " + totalTimeMillis);
+
         return settings;
     }
 
@@ -216,13 +259,15 @@ public class SettingsServiceDAL {
         String nextToken = null;
         do {
             try {
-                GetParametersByPathResponse response = ssm.getParametersByPath(GetParametersByPathRequest
-                        .builder()
+                GetParametersByPathRequest request = GetParametersByPathRequest.builder()
                         .path(parameterStorePath)
                         .recursive(false)
                         .withDecryption(false) // don't expose secrets by default
+                        .maxResults(SSM_MAX_BATCH_SIZE)
                         .nextToken(nextToken)
-                        .build()
+                        .build();
+                GetParametersByPathResponse response = ParallelExecutor.withThrottlingRetry(
+                        () -> ssm.getParametersByPath(request)
                 );
                 nextToken = response.nextToken();
 
@@ -247,6 +292,104 @@ public class SettingsServiceDAL {
         return settings;
     }
 
+    public Map<UUID, List<Setting>> getAllTenantSettings(List<UUID> tenantIds, List<String> settingNames) {
+        long startTimeMillis = System.currentTimeMillis();
+
+        Map<UUID, List<Setting>> tenantSettings = new LinkedHashMap<>();
+        boolean allTenants = tenantIds == null || tenantIds.isEmpty();
+        boolean allSettings = settingNames == null || settingNames.isEmpty();
+        try {
+            if (allTenants) {
+                // Parameter Store can't list the tenant paths, so find the tenants from their parameter names
+                // and then read them concurrently the same as when they're asked for by id
+                tenantIds = getTenantIds();
+            }
+            if (allSettings) {
+                // We don't know the setting names ahead of time, so read each tenant's path concurrently
+                List<List<Setting>> responses = ParallelExecutor.map(
+                        tenantIds, SSM_MAX_CONCURRENCY, this::getTenantSettings
+                );
+                for (int i = 0; i < tenantIds.size(); i++) {
+                    tenantSettings.put(tenantIds.get(i), responses.get(i));
+                }
+            } else {
+                // We know every parameter name, so batch them up into concurrent GetParameters calls
+                List<String> parameterNames = new ArrayList<>();
+                for (UUID tenantId : tenantIds) {
+                    tenantSettings.put(tenantId, new ArrayList<>());
+                    for (String settingName : settingNames) {
+                        Setting setting = Setting.builder().name(settingName).build();
+                        parameterNames.add(toTenantParameterStore(tenantId, setting).name());
+                    }
+                }
+                List<List<Parameter>> responses = ParallelExecutor.map(
+                        ParallelExecutor.partition(parameterNames, SSM_MAX_BATCH_SIZE),
+                        SSM_MAX_CONCURRENCY,
+                        batch -> ssm.getParameters(request -> request.names(batch)).parameters()
+                );
+                Map<String, Parameter> parameters = new HashMap<>();
+                for (List<Parameter> response : responses) {
+                    for (Parameter parameter : response) {
+                        parameters.put(parameter.name(), parameter);
+                    }
+                }
+                for (String parameterName : parameterNames) {
+                    Parameter parameter = parameters.get(parameterName);
+                    if (parameter != null) {
+                        Matcher regex = SAAS_BOOST_TENANT_PATTERN.matcher(parameterName);
+                        if (regex.matches()) {
+                            UUID tenantId = UUID.fromString(regex.group(1));
+                            tenantSettings.get(tenantId).add(fromTenantParameterStore(tenantId, parameter));
+                        }
+                    }
+                }
+            }
+            if (allTenants) {
+                // Only the tenants that have one of the settings
+                tenantSettings.values().removeIf(List::isEmpty);
+            }
+        } catch (SdkServiceException ssmError) {
+            LOGGER.error("ssm:GetParameters error " + ssmError.getMessage());
+            LOGGER.error(Utils.getFullStackTrace(ssmError));
+            throw ssmError;
+        }
+
+        LOGGER.info("SettingsServiceDAL::getAllTenantSettings Loaded " + tenantSettings.size() + " tenants");
+
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("SettingsServiceDAL::getAllTenantSettings exec " + totalTimeMillis);
+
+        return tenantSettings;
+    }
+
+    private List<UUID> getTenantIds() {
+        String parameterStorePath = "/" + SAAS_BOOST_PREFIX + "/" + SAAS_BOOST_ENV + "/tenant";
+        Set<UUID> tenantIds = new TreeSet<>();
+        String nextToken = null;
+        do {
+            DescribeParametersRequest request = DescribeParametersRequest.builder()
+                    .parameterFilters(ParameterStringFilter.builder()
+                            .key("Path")
+                            .option("Recursive")
+                            .values(parameterStorePath)
+                            .build())
+                    .maxResults(SSM_MAX_DESCRIBE_RESULTS)
+                    .nextToken(nextToken)
+                    .build();
+            DescribeParametersResponse response = ParallelExecutor.withThrottlingRetry(
+                    () -> ssm.describeParameters(request)
+            );
+            nextToken = response.nextToken();
+            for (ParameterMetadata parameter : response.parameters()) {
+                Matcher regex = SAAS_BOOST_TENANT_PATTERN.matcher(parameter.name());
+                if (regex.matches()) {
+                    tenantIds.add(UUID.fromString(regex.group(1)));
+                }
+            }
+        } while (nextToken != null && !nextToken.isEmpty());
+        return new ArrayList<>(tenantIds);
+    }
+
     public Setting getTenantSetting(UUID tenantId, String settingName) {
         return getTenantSetting(tenantId, settingName, false);
     }
@@ -279,25 +422,20 @@ public class SettingsServiceDAL {
     }
 
     public void deleteTenantSettings(UUID tenantId) {
-        long startTimeMillis = System.currentTimeMillis();
+        deleteTenantSettings(Collections.singletonList(tenantId));
+    }
 
-        String parameterStorePath = "/" + SAAS_BOOST_PREFIX + "/" + SAAS_BOOST_ENV + "/tenant/" + tenantId.toString();
-        List<String> parametersToDelete = SettingsService.TENANT_PARAMS.stream()
-                .map(s -> parameterStorePath + "/" + s)
-                .collect(Collectors.toList());
+    public void deleteTenantSettings(Collection<UUID> tenantIds) {
+        long startTimeMillis = System.currentTimeMillis();
 
-        try {
-            DeleteParametersResponse response = ssm.deleteParameters(r ->
-                    r.names(parametersToDelete)
-            );
-            LOGGER.info("SettingsServiceDAL::deleteTenantSettings removed " + response.deletedParameters().toString());
-            if (response.hasInvalidParameters() && !response.invalidParameters().isEmpty()) {
-                LOGGER.warn("SettingsServiceDAL::deleteTenantSettings invalid parameters " + response.invalidParameters().toString());
+        List<String> parametersToDelete = new ArrayList<>();
+        for (UUID tenantId : tenantIds) {
+            String parameterStorePath = "/" + SAAS_BOOST_PREFIX + "/" + SAAS_BOOST_ENV + "/tenant/" + tenantId.toString();
+            for (String tenantParam : SettingsService.TENANT_PARAMS) {
+                parametersToDelete.add(parameterStorePath + "/" + tenantParam);
             }
-        } catch (SdkServiceException ssmError) {
-            LOGGER.error("ssm:DeleteParameters error " + ssmError.getMessage());
-            throw ssmError;
         }
+        deleteParameters(parametersToDelete);
 
         long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
         LOGGER.info("SettingsServiceDAL::deleteTenantSettings exec " + totalTimeMillis);
@@ -349,68 +487,114 @@ public class SettingsServiceDAL {
     }
 
     public List<Map<String, Object>> rdsOptions() {
-        List<Map<String, Object>> orderableOptionsByRegion = new ArrayList<>();
-        QueryResponse response = ddb.query(request -> request
+        long startTimeMillis = System.currentTimeMillis();
+        // The options table is only written by the RdsOptions custom resource, so serve the converted and
+        // sorted catalog from memory and only rebuild it when the version stamped on the items changes
+        if (rdsOptionsCache != null && startTimeMillis < rdsOptionsCacheExpiry) {
+            return rdsOptionsCache;
+        }
+        // Once the cache expires a single item read tells us if the catalog has been rebuilt since
+        if (rdsOptionsCache != null && rdsOptionsVersion != NO_CATALOG_VERSION) {
+            long savedVersion = savedCatalogVersion();
+            if (savedVersion != NO_CATALOG_VERSION && savedVersion <= rdsOptionsVersion) {
+                rdsOptionsCacheExpiry = startTimeMillis + RDS_OPTIONS_CACHE_TTL_MILLIS;
+                return rdsOptionsCache;
+            }
+        }
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            final Map<String, AttributeValue> startKey = exclusiveStartKey;
+            QueryResponse response = ddb.query(request -> request
+                    .tableName(OPTIONS_TABLE)
+                    .keyConditionExpression("#region = :region")
+                    .expressionAttributeNames(Stream
+                            .of(new AbstractMap.SimpleEntry<>("#region", "region"))
+                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
+                    )
+                    .expressionAttributeValues(Stream
+                            .of(new AbstractMap.SimpleEntry<>(":region", AttributeValue.builder().s(AWS_REGION).build()))
+                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
+                    )
+                    .exclusiveStartKey(startKey)
+            );
+            items.addAll(response.items());
+            exclusiveStartKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null);
+
+        long version = catalogVersion(items);
+        if (rdsOptionsCache == null || version == NO_CATALOG_VERSION || version != rdsOptionsVersion) {
+            LOGGER.info("SettingsServiceDAL::rdsOptions loading options catalog version {}", version);
+            List<Map<String, Object>> orderableOptionsByRegion = new ArrayList<>();
+            for (Map<String, AttributeValue> item : items) {
+                if (!RDS_OPTIONS_VERSION_ENGINE.equals(item.get("engine").s())) {
+                    orderableOptionsByRegion.add(fromAttributeValueMap(item));
+                }
+            }
+            rdsOptionsCache = Collections.unmodifiableList(orderableOptionsByRegion);
+            rdsOptionsVersion = version;
+        }
+        rdsOptionsCacheExpiry = startTimeMillis + RDS_OPTIONS_CACHE_TTL_MILLIS;
+
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("SettingsServiceDAL::rdsOptions exec " + totalTimeMillis);
+        return rdsOptionsCache;
+    }
+
+    // Catalogs saved before RdsOptions wrote a version item always get the full query
+    private long savedCatalogVersion() {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put("region", AttributeValue.builder().s(AWS_REGION).build());
+        key.put("engine", AttributeValue.builder().s(RDS_OPTIONS_VERSION_ENGINE).build());
+        GetItemResponse response = ddb.getItem(request -> request
                 .tableName(OPTIONS_TABLE)
-                .keyConditionExpression("#region = :region")
-                .expressionAttributeNames(Stream
-                        .of(new AbstractMap.SimpleEntry<>("#region", "region"))
-                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                )
-                .expressionAttributeValues(Stream
-                        .of(new AbstractMap.SimpleEntry<>(":region", AttributeValue.builder().s(AWS_REGION).build()))
-                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                )
-        );
-        response.items().forEach(item ->
-                orderableOptionsByRegion.add(fromAttributeValueMap(item))
+                .key(key)
+                .projectionExpression("#version")
+                .expressionAttributeNames(Collections.singletonMap("#version", "version"))
         );
-        return orderableOptionsByRegion;
-    }
-
-    static final Comparator<Map<String, Object>> INSTANCE_TYPE_COMPARATOR = ((instance1, instance2) -> {
-        // T's before M's before R's
-        int compare = 0;
-        char type1 = ((String) instance1.get("instance")).charAt(0);
-        char type2 = ((String) instance2.get("instance")).charAt(0);
-        if (type1 != type2) {
-            if ('T' == type1) {
-                compare = -1;
-            } else if ('T' == type2) {
-                compare = 1;
-            } else if ('M' == type1) {
-                compare = -1;
-            } else if ('M' == type2) {
-                compare = 1;
+        return response.hasItem() ? catalogVersion(Collections.singletonList(response.item())) : NO_CATALOG_VERSION;
+    }
+
+    // The newest version stamped on any of the items. Items written before RdsOptions stamped a
+    // version don't have one, and if none of them do we can't tell when the catalog changes.
+    static long catalogVersion(List<Map<String, AttributeValue>> items) {
+        long version = NO_CATALOG_VERSION;
+        for (Map<String, AttributeValue> item : items) {
+            AttributeValue stamp = item.get("version");
+            if (stamp != null && stamp.n() != null) {
+                version = Math.max(version, Long.parseLong(stamp.n()));
             }
         }
-        return compare;
-    });
-
-    static final Comparator<Map<String, Object>> INSTANCE_GENERATION_COMPARATOR = ((instance1, instance2) -> {
-        Integer gen1 = Integer.valueOf(((String) instance1.get("instance")).substring(1, 2));
-        Integer gen2 = Integer.valueOf(((String) instance2.get("instance")).substring(1, 2));
-        return gen1.compareTo(gen2);
-    });
-
-    static final Comparator<Map<String, Object>> INSTANCE_SIZE_COMPARATOR = ((instance1, instance2) -> {
-        String size1 = ((String) instance1.get("instance")).substring(3);
-        String size2 = ((String) instance2.get("instance")).substring(3);
-        List<String> sizes = Arrays.asList(
-                "MICRO",
-                "SMALL",
-                "MEDIUM",
-                "LARGE",
-                "XL",
-                "2XL",
-                "4XL",
-                "12XL",
-                "24XL"
-        );
-        return Integer.compare(sizes.indexOf(size1), sizes.indexOf(size2));
-    });
+        return version;
+    }
+
+    // T's before M's before R's, then earlier generations before later, then smaller sizes before larger
+    static final List<String> INSTANCE_SIZES = Collections.unmodifiableList(Arrays.asList(
+            "MICRO",
+            "SMALL",
+            "MEDIUM",
+            "LARGE",
+            "XL",
+            "2XL",
+            "4XL",
+            "12XL",
+            "24XL"
+    ));
+
+    // Collapse the instance name (e.g. T3_MEDIUM) into a single integer so we only parse each name
+    // once per sort instead of on every comparison
+    static int instanceSortKey(String instance) {
+        char type = instance.charAt(0);
+        int typeRank = 'T' == type ? 0 : 'M' == type ? 1 : 2;
+        int generation = Integer.parseInt(instance.substring(1, 2));
+        int size = INSTANCE_SIZES.indexOf(instance.substring(3));
+        return (typeRank * 1000 + generation) * 100 + (size + 1);
+    }
 
-    static final Comparator<Map<String, Object>> RDS_INSTANCE_COMPARATOR = INSTANCE_TYPE_COMPARATOR.thenComparing(INSTANCE_GENERATION_COMPARATOR).thenComparing(INSTANCE_SIZE_COMPARATOR);
+    static final Comparator<Map<String, Object>> RDS_INSTANCE_COMPARATOR = Comparator.comparingInt(
+            instance -> instanceSortKey((String) instance.get("instance"))
+    );
 
     protected static Map<String, Object> fromAttributeValueMap(Map<String, AttributeValue> item) {
         Map<String, Object> option = new LinkedHashMap<>();
@@ -421,6 +605,7 @@ public class SettingsServiceDAL {
         option.put("description", optionAttributes.get("description").s());
 
         List<Map<String, Object>> instances = new ArrayList<>();
+        Map<Map<String, Object>, Integer> sortKeys = new IdentityHashMap<>();
         for (Map.Entry<String, AttributeValue> optionAttribute : optionAttributes.get("instances").m().entrySet()) {
             //build the instance entry
             Map<String, Object> instance = new LinkedHashMap<>(); // Used a linked map so we can sort stuff
@@ -432,55 +617,97 @@ public class SettingsServiceDAL {
             List<Map<String, String>> versions = new ArrayList<>();
             List<AttributeValue> versionAttributes = instanceAttributes.get("versions").l();
             for (AttributeValue versionAttribute : versionAttributes) {
-                versions.add(
+                versions.add(Collections.unmodifiableMap(
                         versionAttribute.m().entrySet().stream()
                                 .collect(Collectors.toMap(
                                         entry -> entry.getKey(),
                                         entry -> entry.getValue().s()
                                 ))
-                );
+                ));
             }
 
-            instance.put("versions", versions);
-            instances.add(instance);
+            instance.put("versions", Collections.unmodifiableList(versions));
+            Map<String, Object> cachedInstance = Collections.unmodifiableMap(instance);
+            instances.add(cachedInstance);
+            sortKeys.put(cachedInstance, instanceSortKey(optionAttribute.getKey()));
         }
-        Collections.sort(instances, RDS_INSTANCE_COMPARATOR);
-        option.put("instances", instances);
+        instances.sort(Comparator.comparingInt(sortKeys::get));
+        option.put("instances", Collections.unmodifiableList(instances));
 
-        return option;
+        // The options are cached and shared by every request so nothing can change them
+        return Collections.unmodifiableMap(option);
     }
 
     public AppConfig setAppConfig(AppConfig appConfig) {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("SettingsServiceDAL::setAppConfig");
-        for (Setting setting : toSettings(appConfig)) {
-            LOGGER.info("Updating setting {} {} in app config", setting.getName(), setting.getValue());
+
+        // Read the current state of every app config setting in one round of concurrent GetParameters
+        // calls so we only have to write the settings that actually changed
+        Map<String, Setting> current = new HashMap<>();
+        for (Setting setting : getNamedSettings(SettingsService.READ_WRITE_PARAMS)) {
+            current.put(setting.getName(), setting);
+        }
+        List<Setting> desired = toSettings(appConfig);
+        List<Setting> changed = changedSettings(current, desired);
+        LOGGER.info("SettingsServiceDAL::setAppConfig {} of {} settings changed", changed.size(), desired.size());
+
+        List<Setting> updated = ParallelExecutor.map(changed, SSM_PUT_MAX_CONCURRENCY, setting -> {
+            LOGGER.info("Calling put parameter {}", setting.getName());
+            return updateSetting(setting);
+        });
+
+        // Merge what we wrote over what we read. Secrets come back from PutParameter as the plaintext
+        // we sent, but the app config has always represented them by their encrypted value so re-read
+        // just the secrets that changed.
+        Map<String, String> appSettings = new HashMap<>();
+        current.values().forEach(setting -> appSettings.put(setting.getName(), setting.getValue()));
+        List<String> updatedSecrets = new ArrayList<>();
+        for (Setting setting : updated) {
             if (setting.isSecure()) {
-                Setting existing = getSetting(setting.getName());
-                if (existing != null) {
-                    LOGGER.info("Existing Secret {} {}", setting.getName(), existing.getValue());
-                } else {
-                    LOGGER.info("Secret {} doesn't exist yet", setting.getName());
-                }
-                // If we were passed the encrypted string for a secret (from the UI),
-                // don't overwrite the secret with that gibberish...
-                if (existing != null && existing.getValue().equals(setting.getValue())) {
-                    // Nothing has changed, don't overwrite the value in Parameter Store
-                    LOGGER.info("Skipping update of secret because encrypted values are the same");
-                    continue;
-                }
+                updatedSecrets.add(setting.getName());
+            } else {
+                appSettings.put(setting.getName(), setting.getValue());
             }
-            LOGGER.info("Calling put parameter {}", setting.getName());
-            updateSetting(setting);
         }
-        // Return a fresh copy of the config object to be sure all the encrypted
-        // values are represented
-        appConfig = getAppConfig();
+        if (!updatedSecrets.isEmpty()) {
+            getNamedSettings(updatedSecrets).forEach(setting -> appSettings.put(setting.getName(), setting.getValue()));
+        }
+
+        // We only need to decrypt the billing API key if we didn't just write it
+        Setting billingApiKey = null;
+        for (Setting setting : updated) {
+            if ("BILLING_API_KEY".equals(setting.getName())) {
+                billingApiKey = fromParameterStore(toParameterStore(setting));
+            }
+        }
+        if (billingApiKey == null) {
+            billingApiKey = getSecret("BILLING_API_KEY");
+        }
+        appConfig = toAppConfig(appSettings, billingApiKey);
+
         long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
         LOGGER.info("SettingsServiceDAL::setAppConfig exec " + totalTimeMillis);
         return appConfig;
     }
 
+    protected static List<Setting> changedSettings(Map<String, Setting> current, List<Setting> desired) {
+        List<Setting> changed = new ArrayList<>();
+        for (Setting setting : desired) {
+            Setting existing = current.get(setting.getName());
+            // Parameter Store can't hold empty values so they're stored as N/A and read back as empty
+            String value = Utils.isEmpty(setting.getValue()) ? "" : setting.getValue();
+            if (existing == null || existing.isSecure() != setting.isSecure() || !value.equals(existing.getValue())) {
+                changed.add(setting);
+            } else if (setting.isSecure()) {
+                // If we were passed the encrypted string for a secret (from the UI),
+                // don't overwrite the secret with that gibberish...
+                LOGGER.info("Skipping update of secret {} because encrypted values are the same", setting.getName());
+            }
+        }
+        return changed;
+    }
+
     public AppConfig getAppConfig() {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("SettingsServiceDAL::getAppConfig");
@@ -577,41 +804,35 @@ public class SettingsServiceDAL {
     public void deleteAppConfig() {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("SettingsServiceDAL::deleteAppConfig");
-        // NOTE: Could also implement this like deleteTenantSettings by combining SettingsService::REQUIRED_PARAMS
-        // and SettingsService::READ_WRITE_PARAMS and building the Parameter Store path by hand to avoid the call(s)
-        // to getParameters before the call to deleteParameters
-        List<String> parametersToDelete = toSettings(getAppConfig()).stream()
-                .map(s -> toParameterStore(s).name())
+        // Build the Parameter Store names by hand instead of reading the current AppConfig first.
+        // Names that were never set just come back as invalid parameters.
+        List<String> parametersToDelete = APP_CONFIG_PARAMS.stream()
+                .map(s -> toParameterStore(Setting.builder().name(s).build()).name())
                 .collect(Collectors.toList());
-        List<String> batch = new ArrayList<>();
+        deleteParameters(parametersToDelete);
+
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("SettingsServiceDAL::deleteAppConfig exec " + totalTimeMillis);
+        return;
+    }
+
+    // DeleteParameters only takes 10 names per call, so fan the batches out concurrently and
+    // report what was removed and what didn't exist once for the whole request
+    private void deleteParameters(List<String> parameterNames) {
+        List<String> deleted = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
         try {
-            Iterator<String> it = parametersToDelete.iterator();
-            while (it.hasNext()) {
-                if (batch.size() < 10) {
-                    batch.add(it.next());
-                    // If parametersToDelete % 10 != 0, then be sure to make a request with the remainder
-                    if (!it.hasNext()) {
-                        DeleteParametersResponse response = ssm.deleteParameters(r ->
-                                r.names(batch)
-                        );
-                        LOGGER.info("SettingsServiceDAL::deleteAppConfig removed " + response.deletedParameters().toString());
-                        if (response.hasInvalidParameters() && !response.invalidParameters().isEmpty()) {
-                            LOGGER.warn("SettingsServiceDAL::deleteAppConfig invalid parameters " + response.invalidParameters().toString());
-                        }
-                        // We've reached the end of the request input
-                        break;
-                    }
-                } else {
-                    // Batch has reached max size of 10, make the request
-                    DeleteParametersResponse response = ssm.deleteParameters(r ->
-                            r.names(batch)
-                    );
-                    LOGGER.info("SettingsServiceDAL::deleteAppConfig removed " + response.deletedParameters().toString());
-                    if (response.hasInvalidParameters() && !response.invalidParameters().isEmpty()) {
-                        LOGGER.warn("SettingsServiceDAL::deleteAppConfig invalid parameters " + response.invalidParameters().toString());
-                    }
-                    // Clear the batch so we can fill it up for the next request
-                    batch.clear();
+            List<DeleteParametersResponse> responses = ParallelExecutor.map(
+                    ParallelExecutor.partition(parameterNames, SSM_MAX_BATCH_SIZE),
+                    SSM_MAX_CONCURRENCY,
+                    batch -> ssm.deleteParameters(request -> request.names(batch))
+            );
+            for (DeleteParametersResponse response : responses) {
+                if (response.hasDeletedParameters()) {
+                    deleted.addAll(response.deletedParameters());
+                }
+                if (response.hasInvalidParameters()) {
+                    invalid.addAll(response.invalidParameters());
                 }
             }
         } catch (SdkServiceException ssmError) {
@@ -619,10 +840,11 @@ public class SettingsServiceDAL {
             LOGGER.error(Utils.getFullStackTrace(ssmError));
             throw ssmError;
         }
-
-        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
-        LOGGER.info("SettingsServiceDAL::deleteAppConfig exec " + totalTimeMillis);
-        return;
+        LOGGER.info("SettingsServiceDAL::deleteParameters removed {} of {} parameters {}", deleted.size(),
+                parameterNames.size(), deleted);
+        if (!invalid.isEmpty()) {
+            LOGGER.warn("SettingsServiceDAL::deleteParameters invalid parameters {}", invalid);
+        }
     }
 
     public static Setting fromParameterStore(Parameter parameter) {
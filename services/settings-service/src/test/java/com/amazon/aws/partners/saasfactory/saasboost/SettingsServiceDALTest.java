@@ -3,13 +3,20 @@ package com.amazon.aws.partners.saasfactory.saasboost;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
-import software.amazon.awssdk.services.ssm.model.Parameter;
-import software.amazon.awssdk.services.ssm.model.ParameterType;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.*;
 
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -618,6 +625,66 @@ public class SettingsServiceDALTest {
                 assertEquals("AppConfig with RDS database equals AppConfig from settings", expected, actual);
         }
 
+        @Test
+        public void testAppConfigParams() {
+                System.out.println("testAppConfigParams");
+                AppConfig appConfig = AppConfig.builder()
+                                .name("test")
+                                .operatingSystem("LINUX")
+                                .database(Database.builder()
+                                                .engine("AURORA_PG")
+                                                .family("aurora-postgresql11")
+                                                .version("11.7")
+                                                .instance("M5_4XL")
+                                                .database("test")
+                                                .username("saasboost")
+                                                .password("foobar")
+                                                .bootstrapFilename("bootstrap.sql")
+                                                .build())
+                                .build();
+                for (Setting setting : SettingsServiceDAL.toSettings(appConfig)) {
+                        assertTrue("AppConfig params include " + setting.getName(),
+                                        SettingsServiceDAL.APP_CONFIG_PARAMS.contains(setting.getName()));
+                }
+                for (String tenantParam : SettingsService.TENANT_PARAMS) {
+                        assertFalse("AppConfig params exclude tenant setting " + tenantParam,
+                                        SettingsServiceDAL.APP_CONFIG_PARAMS.contains(tenantParam));
+                }
+                for (String requiredParam : SettingsService.REQUIRED_PARAMS) {
+                        assertFalse("AppConfig params exclude required setting " + requiredParam,
+                                        SettingsServiceDAL.APP_CONFIG_PARAMS.contains(requiredParam));
+                }
+        }
+
+        @Test
+        public void testChangedSettings() {
+                System.out.println("testChangedSettings");
+                Map<String, Setting> current = new HashMap<>();
+                current.put("APP_NAME", Setting.builder().name("APP_NAME").value("test").readOnly(false).build());
+                current.put("DOMAIN_NAME", Setting.builder().name("DOMAIN_NAME").value("").readOnly(false).build());
+                current.put("TASK_CPU", Setting.builder().name("TASK_CPU").value("512").readOnly(false).build());
+                current.put("DB_MASTER_PASSWORD", Setting.builder().name("DB_MASTER_PASSWORD").value("AQICAHg=")
+                                .secure(true).readOnly(false).build());
+
+                List<Setting> desired = Arrays.asList(
+                                Setting.builder().name("APP_NAME").value("test").readOnly(false).build(),
+                                Setting.builder().name("DOMAIN_NAME").value(null).readOnly(false).build(),
+                                Setting.builder().name("TASK_CPU").value("1024").readOnly(false).build(),
+                                Setting.builder().name("DB_MASTER_PASSWORD").value("AQICAHg=").secure(true)
+                                                .readOnly(false).build(),
+                                Setting.builder().name("MIN_COUNT").value("1").readOnly(false).build()
+                );
+                List<Setting> changed = SettingsServiceDAL.changedSettings(current, desired);
+                assertEquals("Only new and modified settings are written", 2, changed.size());
+                assertEquals("TASK_CPU", changed.get(0).getName());
+                assertEquals("MIN_COUNT", changed.get(1).getName());
+
+                desired = Collections.singletonList(Setting.builder().name("DB_MASTER_PASSWORD").value("secret")
+                                .secure(true).readOnly(false).build());
+                assertEquals("New plaintext secret is written", desired,
+                                SettingsServiceDAL.changedSettings(current, desired));
+        }
+
         @Test
         public void testRdsOptionsSorting() throws Exception {
                 System.out.println("testRdsOptionsSorting");
@@ -799,4 +866,297 @@ public class SettingsServiceDALTest {
                         assertTrue("12XL before 24XL", lastIndexOf2XL < firstIndexOf24XL);
                 }
         }
+
+        @Test
+        public void testGetAllTenantSettingsByName() {
+                StubSsm ssm = new StubSsm();
+                List<UUID> tenantIds = new ArrayList<>();
+                for (int i = 0; i < 25; i++) {
+                        UUID id = UUID.randomUUID();
+                        tenantIds.add(id);
+                        // One tenant hasn't been given a load balancer yet
+                        if (i > 0) {
+                                ssm.put(id, "ALB", "app/tenant-" + i + "/alb");
+                        }
+                        ssm.put(id, "DB_HOST", "db-" + i);
+                }
+                SettingsServiceDAL dal = new SettingsServiceDAL(ssm, null);
+                Map<UUID, List<Setting>> settings = dal.getAllTenantSettings(tenantIds, List.of("ALB"));
+
+                // Only the named parameters are fetched, 10 at a time, without walking any paths
+                assertEquals(3, ssm.getParametersCalls.get());
+                assertEquals(0, ssm.getParametersByPathCalls.get());
+                assertEquals(tenantIds, new ArrayList<>(settings.keySet()));
+                assertTrue(settings.get(tenantIds.get(0)).isEmpty());
+                assertEquals(1, settings.get(tenantIds.get(7)).size());
+                assertEquals("ALB", settings.get(tenantIds.get(7)).get(0).getName());
+                assertEquals("app/tenant-7/alb", settings.get(tenantIds.get(7)).get(0).getValue());
+        }
+
+        @Test
+        public void testGetAllTenantSettingsAllTenants() {
+                StubSsm ssm = new StubSsm();
+                UUID tenant1 = UUID.randomUUID();
+                UUID tenant2 = UUID.randomUUID();
+                ssm.put(tenant1, "ALB", "app/tenant-1/alb");
+                ssm.put(tenant1, "DB_HOST", "db-1");
+                ssm.put(tenant2, "DB_HOST", "db-2");
+                SettingsServiceDAL dal = new SettingsServiceDAL(ssm, null);
+
+                Map<UUID, List<Setting>> settings = dal.getAllTenantSettings(null, List.of("ALB"));
+                assertEquals(Set.of(tenant1), settings.keySet());
+                assertEquals("app/tenant-1/alb", settings.get(tenant1).get(0).getValue());
+                // The named setting is fetched in one batch for both tenants instead of walking their paths
+                assertEquals(1, ssm.describeParametersCalls.get());
+                assertEquals(1, ssm.getParametersCalls.get());
+                assertEquals(0, ssm.getParametersByPathCalls.get());
+
+                settings = dal.getAllTenantSettings(null, null);
+                assertEquals(2, settings.size());
+                assertEquals(2, settings.get(tenant1).size());
+                assertEquals(2, ssm.getParametersByPathCalls.get());
+
+                settings = dal.getAllTenantSettings(List.of(tenant2), null);
+                assertEquals(1, settings.get(tenant2).size());
+                assertEquals("db-2", settings.get(tenant2).get(0).getValue());
+        }
+
+        @Test
+        public void testGetAllTenantSettingsAllTenantsConcurrently() {
+                StubSsm ssm = new StubSsm();
+                List<UUID> tenantIds = new ArrayList<>();
+                for (int i = 0; i < 30; i++) {
+                        UUID id = UUID.randomUUID();
+                        tenantIds.add(id);
+                        ssm.put(id, "ALB", "app/tenant-" + i + "/alb");
+                        ssm.put(id, "DB_HOST", "db-" + i);
+                }
+                Collections.sort(tenantIds);
+                SettingsServiceDAL dal = new SettingsServiceDAL(ssm, null);
+                Map<UUID, List<Setting>> settings = dal.getAllTenantSettings(null, List.of("ALB"));
+
+                // 60 parameter names list the tenants in 2 pages, then the 30 ALB settings are read 10 at a time
+                assertEquals(2, ssm.describeParametersCalls.get());
+                assertEquals(3, ssm.getParametersCalls.get());
+                assertEquals(0, ssm.getParametersByPathCalls.get());
+                assertEquals(tenantIds, new ArrayList<>(settings.keySet()));
+                for (List<Setting> tenantSettings : settings.values()) {
+                        assertEquals(1, tenantSettings.size());
+                        assertEquals("ALB", tenantSettings.get(0).getName());
+                }
+        }
+
+        // Parameter Store for a handful of tenant parameters
+        @Test
+        public void testCatalogVersion() {
+                System.out.println("testCatalogVersion");
+                StubOptionsTable ddb = new StubOptionsTable();
+                ddb.putEngine("AURORA_PG", "9");
+                ddb.putEngine("MYSQL", "10");
+                assertEquals("Newest stamp wins", 10L, SettingsServiceDAL.catalogVersion(ddb.items));
+                ddb.putEngine("POSTGRES", null);
+                assertEquals("Unstamped items are ignored", 10L, SettingsServiceDAL.catalogVersion(ddb.items));
+                assertEquals("No stamps at all", SettingsServiceDAL.NO_CATALOG_VERSION,
+                                SettingsServiceDAL.catalogVersion(ddb.items.subList(2, 3)));
+        }
+
+        @Test
+        public void testRdsOptionsCached() throws Exception {
+                System.out.println("testRdsOptionsCached");
+                StubOptionsTable ddb = new StubOptionsTable();
+                ddb.putEngine("MYSQL", "100");
+                ddb.putEngine("POSTGRES", "100");
+                ddb.putCatalogVersion("100");
+                SettingsServiceDAL dal = new SettingsServiceDAL(new StubSsm(), ddb);
+
+                List<Map<String, Object>> options = dal.rdsOptions();
+                assertEquals("Catalog version item isn't an engine", 2, options.size());
+                assertEquals(1, ddb.queries.get());
+                assertSame("Served from memory before the TTL", options, dal.rdsOptions());
+                assertEquals(1, ddb.queries.get());
+                assertEquals(0, ddb.getItems.get());
+
+                // After the TTL an unchanged catalog only costs a single item read
+                expireRdsOptionsCache(dal);
+                assertSame(options, dal.rdsOptions());
+                assertEquals(1, ddb.queries.get());
+                assertEquals(1, ddb.getItems.get());
+
+                // A rebuilt catalog is loaded again
+                ddb.items.clear();
+                ddb.putEngine("MYSQL", "200");
+                ddb.putCatalogVersion("200");
+                expireRdsOptionsCache(dal);
+                List<Map<String, Object>> rebuilt = dal.rdsOptions();
+                assertEquals(2, ddb.queries.get());
+                assertEquals(1, rebuilt.size());
+                assertEquals("MYSQL", rebuilt.get(0).get("engine"));
+        }
+
+        @Test
+        public void testRdsOptionsUnmodifiable() {
+                System.out.println("testRdsOptionsUnmodifiable");
+                StubOptionsTable ddb = new StubOptionsTable();
+                ddb.putEngine("MYSQL", "100");
+                List<Map<String, Object>> options = new SettingsServiceDAL(new StubSsm(), ddb).rdsOptions();
+                Map<String, Object> option = options.get(0);
+                List<Map<String, Object>> instances = (List<Map<String, Object>>) option.get("instances");
+                List<Map<String, String>> versions = (List<Map<String, String>>) instances.get(0).get("versions");
+                assertThrows(UnsupportedOperationException.class, () -> options.remove(0));
+                assertThrows(UnsupportedOperationException.class, () -> option.put("name", "changed"));
+                assertThrows(UnsupportedOperationException.class, () -> instances.remove(0));
+                assertThrows(UnsupportedOperationException.class, () -> instances.get(0).put("class", "changed"));
+                assertThrows(UnsupportedOperationException.class, () -> versions.clear());
+                assertThrows(UnsupportedOperationException.class, () -> versions.get(0).put("version", "changed"));
+        }
+
+        private static void expireRdsOptionsCache(SettingsServiceDAL dal) throws Exception {
+                java.lang.reflect.Field expiry = SettingsServiceDAL.class.getDeclaredField("rdsOptionsCacheExpiry");
+                expiry.setAccessible(true);
+                expiry.setLong(dal, 0L);
+        }
+
+        // Options table for a single region, counting full queries and single item reads
+        static class StubOptionsTable implements DynamoDbClient {
+                final List<Map<String, AttributeValue>> items = new ArrayList<>();
+                final AtomicInteger queries = new AtomicInteger();
+                final AtomicInteger getItems = new AtomicInteger();
+
+                void putEngine(String engine, String version) {
+                        Map<String, AttributeValue> item = new HashMap<>();
+                        item.put("region", AttributeValue.builder().s(System.getenv("AWS_REGION")).build());
+                        item.put("engine", AttributeValue.builder().s(engine).build());
+                        if (version != null) {
+                                item.put("version", AttributeValue.builder().n(version).build());
+                        }
+                        Map<String, AttributeValue> instanceVersion = new HashMap<>();
+                        instanceVersion.put("version", AttributeValue.builder().s("8.0.20").build());
+                        instanceVersion.put("family", AttributeValue.builder().s("mysql8.0").build());
+                        Map<String, AttributeValue> instance = new HashMap<>();
+                        instance.put("class", AttributeValue.builder().s("db.t3.micro").build());
+                        instance.put("description", AttributeValue.builder().s("T3 Micro").build());
+                        instance.put("versions", AttributeValue.builder()
+                                        .l(AttributeValue.builder().m(instanceVersion).build()).build());
+                        Map<String, AttributeValue> options = new HashMap<>();
+                        options.put("name", AttributeValue.builder().s(engine.toLowerCase()).build());
+                        options.put("description", AttributeValue.builder().s(engine).build());
+                        options.put("instances", AttributeValue.builder()
+                                        .m(Collections.singletonMap("T3_MICRO", AttributeValue.builder()
+                                                        .m(instance).build())).build());
+                        item.put("options", AttributeValue.builder().m(options).build());
+                        items.add(item);
+                }
+
+                void putCatalogVersion(String version) {
+                        Map<String, AttributeValue> item = new HashMap<>();
+                        item.put("region", AttributeValue.builder().s(System.getenv("AWS_REGION")).build());
+                        item.put("engine", AttributeValue.builder()
+                                        .s(SettingsServiceDAL.RDS_OPTIONS_VERSION_ENGINE).build());
+                        item.put("version", AttributeValue.builder().n(version).build());
+                        items.add(item);
+                }
+
+                @Override
+                public QueryResponse query(QueryRequest request) {
+                        queries.incrementAndGet();
+                        return QueryResponse.builder().items(new ArrayList<>(items)).count(items.size()).build();
+                }
+
+                @Override
+                public GetItemResponse getItem(GetItemRequest request) {
+                        getItems.incrementAndGet();
+                        for (Map<String, AttributeValue> item : items) {
+                                if (item.get("engine").equals(request.key().get("engine"))) {
+                                        return GetItemResponse.builder()
+                                                        .item(Collections.singletonMap("version", item.get("version")))
+                                                        .build();
+                                }
+                        }
+                        return GetItemResponse.builder().build();
+                }
+
+                @Override
+                public String serviceName() {
+                        return DynamoDbClient.SERVICE_NAME;
+                }
+
+                @Override
+                public void close() {
+                }
+        }
+
+        static class StubSsm implements SsmClient {
+                final Map<String, Parameter> parameters = new TreeMap<>();
+                final AtomicInteger getParametersCalls = new AtomicInteger();
+                final AtomicInteger getParametersByPathCalls = new AtomicInteger();
+                final AtomicInteger describeParametersCalls = new AtomicInteger();
+
+                void put(UUID tenantId, String name, String value) {
+                        Parameter parameter = SettingsServiceDAL.toTenantParameterStore(tenantId, Setting.builder()
+                                        .name(name)
+                                        .value(value)
+                                        .build());
+                        parameters.put(parameter.name(), parameter.toBuilder().version(1L).build());
+                }
+
+                @Override
+                public GetParametersResponse getParameters(GetParametersRequest request) {
+                        getParametersCalls.incrementAndGet();
+                        assertTrue(request.names().size() <= 10);
+                        List<Parameter> found = new ArrayList<>();
+                        List<String> invalid = new ArrayList<>();
+                        for (String name : request.names()) {
+                                if (parameters.containsKey(name)) {
+                                        found.add(parameters.get(name));
+                                } else {
+                                        invalid.add(name);
+                                }
+                        }
+                        return GetParametersResponse.builder().parameters(found).invalidParameters(invalid).build();
+                }
+
+                @Override
+                public GetParametersByPathResponse getParametersByPath(GetParametersByPathRequest request) {
+                        getParametersByPathCalls.incrementAndGet();
+                        List<Parameter> matches = new ArrayList<>();
+                        for (Parameter parameter : parameters.values()) {
+                                if (parameter.name().startsWith(request.path() + "/")) {
+                                        matches.add(parameter);
+                                }
+                        }
+                        int start = request.nextToken() != null ? Integer.parseInt(request.nextToken()) : 0;
+                        int end = Math.min(start + request.maxResults(), matches.size());
+                        return GetParametersByPathResponse.builder()
+                                        .parameters(matches.subList(start, end))
+                                        .nextToken(end < matches.size() ? String.valueOf(end) : null)
+                                        .build();
+                }
+
+                @Override
+                public DescribeParametersResponse describeParameters(DescribeParametersRequest request) {
+                        describeParametersCalls.incrementAndGet();
+                        String path = request.parameterFilters().get(0).values().get(0);
+                        List<ParameterMetadata> matches = new ArrayList<>();
+                        for (Parameter parameter : parameters.values()) {
+                                if (parameter.name().startsWith(path + "/")) {
+                                        matches.add(ParameterMetadata.builder().name(parameter.name()).build());
+                                }
+                        }
+                        int start = request.nextToken() != null ? Integer.parseInt(request.nextToken()) : 0;
+                        int end = Math.min(start + request.maxResults(), matches.size());
+                        return DescribeParametersResponse.builder()
+                                        .parameters(matches.subList(start, end))
+                                        .nextToken(end < matches.size() ? String.valueOf(end) : null)
+                                        .build();
+                }
+
+                @Override
+                public String serviceName() {
+                        return SsmClient.SERVICE_NAME;
+                }
+
+                @Override
+                public void close() {
+                }
+        }
 }
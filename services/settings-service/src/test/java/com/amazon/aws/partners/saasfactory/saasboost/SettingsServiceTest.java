@@ -0,0 +1,68 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SettingsServiceTest {
+
+    private static Map<String, Object> event(Map<String, List<String>> multiValueQueryParams) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("multiValueQueryStringParameters", multiValueQueryParams);
+        return event;
+    }
+
+    @Test
+    public void testGetAllTenantSettings() {
+        SettingsServiceDALTest.StubSsm ssm = new SettingsServiceDALTest.StubSsm();
+        UUID tenant1 = UUID.randomUUID();
+        UUID tenant2 = UUID.randomUUID();
+        ssm.put(tenant1, "ALB", "app/tenant-1/alb");
+        ssm.put(tenant1, "DB_HOST", "db-1");
+        ssm.put(tenant2, "ALB", "app/tenant-2/alb");
+        SettingsService service = new SettingsService(new SettingsServiceDAL(ssm, null));
+
+        Map<String, List<String>> params = new HashMap<>();
+        params.put("id", List.of(tenant1.toString(), tenant2.toString()));
+        params.put("setting", List.of("ALB"));
+        APIGatewayProxyResponseEvent response = service.getAllTenantSettings(event(params), null);
+        assertEquals(Integer.valueOf(200), response.getStatusCode());
+        Map<String, List<Map<String, Object>>> body = Utils.fromJson(response.getBody(), HashMap.class);
+        assertEquals(Set.of(tenant1.toString(), tenant2.toString()), body.keySet());
+        assertEquals(1, body.get(tenant1.toString()).size());
+        assertEquals("app/tenant-2/alb", body.get(tenant2.toString()).get(0).get("value"));
+        assertEquals(0, ssm.getParametersByPathCalls.get());
+    }
+
+    @Test
+    public void testGetAllTenantSettingsInvalidParams() {
+        SettingsService service = new SettingsService(
+                new SettingsServiceDAL(new SettingsServiceDALTest.StubSsm(), null));
+
+        Map<String, List<String>> params = new HashMap<>();
+        params.put("id", List.of("not-a-tenant"));
+        assertEquals(Integer.valueOf(400), service.getAllTenantSettings(event(params), null).getStatusCode());
+
+        params.clear();
+        params.put("setting", List.of("ALB; DROP"));
+        assertEquals(Integer.valueOf(400), service.getAllTenantSettings(event(params), null).getStatusCode());
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+/**
+ * The outcome of a bulk tenant operation for a single tenant. Status follows HTTP
+ * conventions: 200 when the tenant was updated, 404 when it doesn't exist, and 500
+ * with a message when the update failed.
+ */
+public class BulkTenantResult {
+
+    private final String id;
+    private final int status;
+    private final Tenant tenant;
+    private final String message;
+
+    private BulkTenantResult(String id, int status, Tenant tenant, String message) {
+        this.id = id;
+        this.status = status;
+        this.tenant = tenant;
+        this.message = message;
+    }
+
+    public static BulkTenantResult updated(Tenant tenant) {
+        return new BulkTenantResult(tenant.getId().toString(), 200, tenant, null);
+    }
+
+    public static BulkTenantResult notFound(String id) {
+        return new BulkTenantResult(id, 404, null, "Tenant not found");
+    }
+
+    public static BulkTenantResult failed(String id, String message) {
+        return new BulkTenantResult(id, 500, null, message);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Tenant getTenant() {
+        return tenant;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isUpdated() {
+        return status == 200;
+    }
+}
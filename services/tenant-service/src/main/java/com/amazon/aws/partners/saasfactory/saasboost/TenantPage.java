@@ -0,0 +1,41 @@
+/**
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazon.aws.partners.saasfactory.saasboost;
+
+import java.util.List;
+
+/**
+ * One page of tenants and the opaque cursor to pass back for the next page.
+ * The cursor is null when there are no more tenants to read.
+ */
+public class TenantPage {
+
+    private final List<Tenant> tenants;
+    private final String cursor;
+
+    public TenantPage(List<Tenant> tenants, String cursor) {
+        this.tenants = tenants;
+        this.cursor = cursor;
+    }
+
+    public List<Tenant> getTenants() {
+        return tenants;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+}
@@ -20,13 +20,14 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
 import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
-import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
-import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,14 +35,25 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
 
     private final static Logger LOGGER = LoggerFactory.getLogger(TenantService.class);
     private final static Map<String, String> CORS = Stream
-            .of(new AbstractMap.SimpleEntry<String, String>("Access-Control-Allow-Origin", "*"))
+            .of(
+                    new AbstractMap.SimpleEntry<String, String>("Access-Control-Allow-Origin", "*"),
+                    // Browsers only let the admin console read the ETag for If-None-Match if it's exposed
+                    new AbstractMap.SimpleEntry<String, String>("Access-Control-Expose-Headers", "ETag")
+            )
             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     private static final String SAAS_BOOST_EVENT_BUS = System.getenv("SAAS_BOOST_EVENT_BUS");
     private static final String SYSTEM_API_CALL_DETAIL_TYPE = "System API Call";
     private static final String TENANT_STATUS_CHANGE_DETAIL_TYPE = "Tenant Status Update";
     private static final String EVENT_SOURCE = "saas-boost";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BULK_TENANTS = 1000;
+    static final int STATUS_CHANGE_BATCH_SIZE = 100;
+    // Tenant properties a bulk operation can select tenants by instead of listing their ids
+    static final List<String> BULK_FILTER_FIELDS = Collections.unmodifiableList(
+            Arrays.asList("planId", "active", "onboardingStatus", "provisioned", "overrideDefaults"));
     private final TenantServiceDAL dal;
-    private final EventBridgeClient eventBridge;
+    private final EventPublisher events;
 
     public TenantService() {
         long startTimeMillis = System.currentTimeMillis();
@@ -50,7 +62,7 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
         }
         LOGGER.info("Version Info: {}", Utils.version(this.getClass()));
         this.dal = new TenantServiceDAL();
-        this.eventBridge = Utils.sdkClient(EventBridgeClient.builder(), EventBridgeClient.SERVICE_NAME);
+        this.events = new EventPublisher(Utils.sdkClient(EventBridgeClient.builder(), EventBridgeClient.SERVICE_NAME));
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
 
@@ -69,11 +81,7 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("TenantService::getTenants");
         //Utils.logRequestEvent(event);
-        List<Tenant> tenants = dal.getOnboardedTenants();
-        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent()
-                .withStatusCode(200)
-                .withHeaders(CORS)
-                .withBody(Utils.toJson(tenants));
+        APIGatewayProxyResponseEvent response = listTenants(event, false);
         long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
         LOGGER.info("TenantService::getTenants exec " + totalTimeMillis);
         return response;
@@ -88,24 +96,140 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("TenantService::getProvisionedTenants");
         //Utils.logRequestEvent(event);
+        APIGatewayProxyResponseEvent response = listTenants(event, true);
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("TenantService::getProvisionedTenants exec {}", totalTimeMillis);
+        return response;
+    }
 
-        List<Tenant> tenants;
+    // Shared by GET /tenants and GET /tenants/provisioned. Supports conditional GET with an ETag
+    // built from the version of each tenant returned, fields= to only return some properties of
+    // each tenant, and limit= and cursor= for a page of tenants instead of the whole list.
+    private APIGatewayProxyResponseEvent listTenants(Map<String, Object> event, boolean provisioned) {
         Map<String, String> queryParams = (Map<String, String>) event.get("queryStringParameters");
-        if (queryParams != null && queryParams.containsKey("overrideDefaults")) {
-            Boolean customizedTenants = Boolean.valueOf(queryParams.get("overrideDefaults"));
-            tenants = dal.getProvisionedTenants(customizedTenants);
-        } else {
-            tenants = dal.getProvisionedTenants();
+        if (queryParams == null) {
+            queryParams = new HashMap<>();
+        }
+        APIGatewayProxyResponseEvent response;
+        try {
+            List<String> fields = null;
+            if (Utils.isNotBlank(queryParams.get("fields"))) {
+                fields = Arrays.stream(queryParams.get("fields").split(","))
+                        .map(String::trim)
+                        .filter(Utils::isNotEmpty)
+                        .collect(Collectors.toList());
+            }
+            List<String> attributes = TenantServiceDAL.projectionAttributes(fields);
+            Boolean customizedTenants = null;
+            if (provisioned && queryParams.containsKey("overrideDefaults")) {
+                customizedTenants = Boolean.valueOf(queryParams.get("overrideDefaults"));
+            }
+
+            Object body;
+            String etag;
+            if (queryParams.containsKey("limit") || queryParams.containsKey("cursor")) {
+                int limit = pageSize(queryParams.get("limit"));
+                String cursor = queryParams.get("cursor");
+                TenantPage page = provisioned
+                        ? dal.getProvisionedTenants(customizedTenants, limit, cursor, attributes)
+                        : dal.getOnboardedTenants(limit, cursor, attributes);
+                Map<String, Object> pageBody = new LinkedHashMap<>();
+                pageBody.put("tenants", selectFields(page.getTenants(), fields));
+                pageBody.put("cursor", page.getCursor());
+                body = pageBody;
+                etag = etag(page.getTenants(), page.getCursor());
+            } else {
+                List<Tenant> tenants = provisioned
+                        ? dal.getProvisionedTenants(customizedTenants, attributes)
+                        : dal.getOnboardedTenants(attributes);
+                body = selectFields(tenants, fields);
+                etag = etag(tenants, null);
+            }
+            Map<String, String> headers = new HashMap<>(CORS);
+            headers.put("ETag", etag);
+            if (etag.equals(header(event, "If-None-Match"))) {
+                response = new APIGatewayProxyResponseEvent().withStatusCode(304).withHeaders(headers);
+            } else {
+                response = new APIGatewayProxyResponseEvent()
+                        .withStatusCode(200)
+                        .withHeaders(headers)
+                        .withBody(Utils.toJson(body));
+            }
+        } catch (IllegalArgumentException badRequest) {
+            LOGGER.error("TenantService::listTenants {}", badRequest.getMessage());
+            response = new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"" + Utils.escapeJson(badRequest.getMessage()) + "\"}");
         }
-        APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent()
-                .withStatusCode(200)
-                .withHeaders(CORS)
-                .withBody(Utils.toJson(tenants));
-        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
-        LOGGER.info("TenantService::getProvisionedTenants exec {}", totalTimeMillis);
         return response;
     }
 
+    static int pageSize(String limit) {
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (Utils.isNotBlank(limit)) {
+            try {
+                pageSize = Integer.parseInt(limit.trim());
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid limit " + limit);
+            }
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+        }
+        return pageSize;
+    }
+
+    // Without fields= callers get the whole tenant like they always have
+    static List<?> selectFields(List<Tenant> tenants, List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return tenants;
+        }
+        List<Map<String, Object>> selected = new ArrayList<>(tenants.size());
+        for (Tenant tenant : tenants) {
+            Map<String, Object> properties = Utils.fromJson(Utils.toJson(tenant), LinkedHashMap.class);
+            properties.keySet().retainAll(fields);
+            selected.add(properties);
+        }
+        return selected;
+    }
+
+    // Every tenant write sets the modified time, so a tenant's id and modified time are its version.
+    // The ETag of a list of tenants changes when any of them is written, added or removed.
+    static String etag(List<Tenant> tenants, String cursor) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Tenant tenant : tenants) {
+                digest.update(String.valueOf(tenant.getId()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ' ');
+                digest.update(String.valueOf(tenant.getModified()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            if (cursor != null) {
+                digest.update(cursor.getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // API Gateway passes request headers through as sent, so look them up without regard to case
+    static String header(Map<String, Object> event, String name) {
+        String value = null;
+        Map<String, String> headers = (Map<String, String>) event.get("headers");
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey())) {
+                    value = header.getValue();
+                    break;
+                }
+            }
+        }
+        return value;
+    }
+
     public APIGatewayProxyResponseEvent getTenant(Map<String, Object> event, Context context) {
         if (Utils.warmup(event)) {
             //LOGGER.info("Warming up");
@@ -120,10 +244,17 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
         String tenantId = params.get("id");
         Tenant tenant = dal.getTenant(tenantId);
         if (tenant != null) {
-            response = new APIGatewayProxyResponseEvent()
-                    .withStatusCode(200)
-                    .withHeaders(CORS)
-                    .withBody(Utils.toJson(tenant));
+            Map<String, String> headers = new HashMap<>(CORS);
+            String etag = etag(Collections.singletonList(tenant), null);
+            headers.put("ETag", etag);
+            if (etag.equals(header(event, "If-None-Match"))) {
+                response = new APIGatewayProxyResponseEvent().withStatusCode(304).withHeaders(headers);
+            } else {
+                response = new APIGatewayProxyResponseEvent()
+                        .withStatusCode(200)
+                        .withHeaders(headers)
+                        .withBody(Utils.toJson(tenant));
+            }
         } else {
             response = new APIGatewayProxyResponseEvent().withStatusCode(404).withHeaders(CORS);
         }
@@ -165,7 +296,7 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
                     systemApiRequest.put("resource", "onboarding/update/tenant");
                     systemApiRequest.put("method", "PUT");
                     systemApiRequest.put("body", Utils.toJson(tenant));
-                    fireEvent(SYSTEM_API_CALL_DETAIL_TYPE, systemApiRequest);
+                    publishEvent(systemApiRequest, SYSTEM_API_CALL_DETAIL_TYPE);
                 }
 
                 response = new APIGatewayProxyResponseEvent()
@@ -243,7 +374,7 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
             tenantStatusChangeDetails.put("tenantId", tenantId);
             tenantStatusChangeDetails.put("status", Boolean.TRUE);
             LOGGER.info("Publishing tenant status change event for {} to {}", tenantStatusChangeDetails.get("tenantId"), tenantStatusChangeDetails.get("status"));
-            fireEvent(TENANT_STATUS_CHANGE_DETAIL_TYPE, tenantStatusChangeDetails);
+            publishEvent(tenantStatusChangeDetails, TENANT_STATUS_CHANGE_DETAIL_TYPE);
 
             response = new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
@@ -278,7 +409,7 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
             tenantStatusChangeDetails.put("tenantId", tenantId);
             tenantStatusChangeDetails.put("status", Boolean.FALSE);
             LOGGER.info("Publishing tenant status change event for {} to {}", tenantStatusChangeDetails.get("tenantId"), tenantStatusChangeDetails.get("status"));
-            fireEvent(TENANT_STATUS_CHANGE_DETAIL_TYPE, tenantStatusChangeDetails);
+            publishEvent(tenantStatusChangeDetails, TENANT_STATUS_CHANGE_DETAIL_TYPE);
 
             response = new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
@@ -290,6 +421,185 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
         return response;
     }
 
+    // Enables, disables or updates many tenants at once. The request body names the operation, the
+    // tenants either by id or with a filter, and for updates the changes to apply to all of them:
+    // {"operation": "update", "tenantIds": [...], "changes": {"planId": "..."}}
+    // The response reports the outcome for each tenant so one bad id doesn't fail the whole request.
+    public APIGatewayProxyResponseEvent bulkUpdateTenants(Map<String, Object> event, Context context) {
+        if (Utils.warmup(event)) {
+            //LOGGER.info("Warming up");
+            return new APIGatewayProxyResponseEvent().withHeaders(CORS).withStatusCode(200);
+        }
+
+        long startTimeMillis = System.currentTimeMillis();
+        LOGGER.info("TenantService::bulkUpdateTenants");
+        //Utils.logRequestEvent(event);
+        APIGatewayProxyResponseEvent response;
+        try {
+            Map<String, Object> request = Utils.fromJson((String) event.get("body"), LinkedHashMap.class);
+            if (request == null) {
+                throw new IllegalArgumentException("Missing request body");
+            }
+            String operation = String.valueOf(request.get("operation"));
+            Map<String, Object> changes = bulkChanges(operation, (Map<String, Object>) request.get("changes"));
+            List<String> tenantIds = bulkTenantIds(request);
+
+            List<BulkTenantResult> results = dal.updateTenants(tenantIds, changes);
+            List<PutEventsRequestEntry> entries = new ArrayList<>();
+            List<Map<String, Object>> statusChanges = new ArrayList<>();
+            for (BulkTenantResult result : results) {
+                if (result.isUpdated()) {
+                    Tenant tenant = result.getTenant();
+                    if ("update".equals(operation)) {
+                        if (tenant.isProvisioned()) {
+                            // Same as updateTenant, the onboarding service updates the provisioned resources
+                            Map<String, Object> systemApiRequest = new HashMap<>();
+                            systemApiRequest.put("resource", "onboarding/update/tenant");
+                            systemApiRequest.put("method", "PUT");
+                            systemApiRequest.put("body", Utils.toJson(tenant));
+                            entries.add(event(systemApiRequest, SYSTEM_API_CALL_DETAIL_TYPE));
+                        }
+                    } else {
+                        Map<String, Object> statusChange = new HashMap<>();
+                        statusChange.put("tenantId", result.getId());
+                        statusChange.put("status", "enable".equals(operation));
+                        statusChanges.add(statusChange);
+                    }
+                }
+            }
+            // The listener rule function updates a batch of tenants per status event
+            for (List<Map<String, Object>> batch : ParallelExecutor.partition(statusChanges,
+                    STATUS_CHANGE_BATCH_SIZE)) {
+                Map<String, Object> tenantStatusChangeDetails = new HashMap<>();
+                tenantStatusChangeDetails.put("tenants", batch);
+                entries.add(event(tenantStatusChangeDetails, TENANT_STATUS_CHANGE_DETAIL_TYPE));
+            }
+            // One batched publish for the whole operation. Undelivered events are logged by the publisher.
+            events.publish(entries);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("operation", operation);
+            report.put("requested", results.size());
+            report.put("updated", results.stream().filter(BulkTenantResult::isUpdated).count());
+            report.put("notFound", results.stream().filter(result -> result.getStatus() == 404).count());
+            report.put("failed", results.stream().filter(result -> result.getStatus() == 500).count());
+            report.put("results", results);
+            response = new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(CORS)
+                    .withBody(Utils.toJson(report));
+        } catch (IllegalArgumentException | ClassCastException badRequest) {
+            LOGGER.error("TenantService::bulkUpdateTenants {}", badRequest.getMessage());
+            response = new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withHeaders(CORS)
+                    .withBody("{\"message\":\"" + Utils.escapeJson(String.valueOf(badRequest.getMessage())) + "\"}");
+        }
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("TenantService::bulkUpdateTenants exec {}", totalTimeMillis);
+        return response;
+    }
+
+    static Map<String, Object> bulkChanges(String operation, Map<String, Object> changes) {
+        Map<String, Object> bulkChanges;
+        switch (operation) {
+            case "enable":
+            case "disable":
+                bulkChanges = Collections.singletonMap("active", "enable".equals(operation));
+                break;
+            case "update":
+                if (changes == null || changes.isEmpty()) {
+                    throw new IllegalArgumentException("Missing changes for update");
+                }
+                if (changes.containsKey("active")) {
+                    throw new IllegalArgumentException("Use the enable or disable operation to change active");
+                }
+                bulkChanges = changes;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+        return bulkChanges;
+    }
+
+    // The tenants to operate on, either listed by id or selected with a filter on their properties
+    private List<String> bulkTenantIds(Map<String, Object> request) {
+        List<String> tenantIds;
+        if (request.get("tenantIds") != null) {
+            tenantIds = ((List<Object>) request.get("tenantIds")).stream()
+                    .map(String::valueOf)
+                    .distinct()
+                    .collect(Collectors.toList());
+        } else if (request.get("filter") != null) {
+            Map<String, Object> filter = (Map<String, Object>) request.get("filter");
+            for (String field : filter.keySet()) {
+                if (!BULK_FILTER_FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("Can't filter tenants by " + field);
+                }
+            }
+            List<String> attributes = TenantServiceDAL.projectionAttributes(
+                    Stream.concat(Stream.of("id"), filter.keySet().stream()).collect(Collectors.toList()));
+            // Only read the tenants in the onboarding statuses the filter can match when we know them
+            List<String> statuses = filterStatuses(filter);
+            List<Tenant> candidates = statuses != null
+                    ? dal.getTenantsByOnboardingStatus(statuses, attributes)
+                    : dal.getAllTenants(attributes);
+            tenantIds = candidates.stream()
+                    .filter(tenant -> matchesFilter(tenant, filter))
+                    .map(tenant -> tenant.getId().toString())
+                    .collect(Collectors.toList());
+        } else {
+            throw new IllegalArgumentException("Either tenantIds or filter is required");
+        }
+        if (tenantIds.size() > MAX_BULK_TENANTS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_TENANTS + " tenants per request, got "
+                    + tenantIds.size());
+        }
+        return tenantIds;
+    }
+
+    // The onboarding statuses a bulk filter can match, or null if it could match a tenant in any status
+    static List<String> filterStatuses(Map<String, Object> filter) {
+        List<String> statuses = null;
+        if (filter.get("onboardingStatus") instanceof String) {
+            statuses = Collections.singletonList((String) filter.get("onboardingStatus"));
+        } else if (Boolean.TRUE.equals(filter.get("provisioned"))) {
+            // Tenant::isProvisioned still counts deleted tenants
+            statuses = new ArrayList<>(TenantServiceDAL.PROVISIONED_STATUSES);
+            statuses.add("deleted");
+        }
+        return statuses;
+    }
+
+    static boolean matchesFilter(Tenant tenant, Map<String, Object> filter) {
+        for (Map.Entry<String, Object> criteria : filter.entrySet()) {
+            Object value;
+            switch (criteria.getKey()) {
+                case "planId":
+                    value = tenant.getPlanId();
+                    break;
+                case "active":
+                    value = tenant.getActive();
+                    break;
+                case "onboardingStatus":
+                    value = tenant.getOnboardingStatus();
+                    break;
+                case "provisioned":
+                    value = tenant.isProvisioned();
+                    break;
+                case "overrideDefaults":
+                    value = Boolean.TRUE.equals(tenant.getOverrideDefaults());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Can't filter tenants by " + criteria.getKey());
+            }
+            if (!Objects.equals(value, criteria.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public APIGatewayProxyResponseEvent insertTenant(Map<String, Object> event, Context context) {
         if (Utils.warmup(event)) {
             LOGGER.info("Warming up");
@@ -405,10 +715,13 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
                 LOGGER.info("Triggering tenant stack delete event");
                 Map<String, Object> deleteTenantEventDetail = new HashMap<>();
                 deleteTenantEventDetail.put("tenantId", tenantId);
-                publishEvent(deleteTenantEventDetail, "Delete Tenant");
+                // The event doesn't depend on the disable, so send it while we update the tenant
+                events.add(event(deleteTenantEventDetail, "Delete Tenant"));
+                CompletableFuture<List<PutEventsRequestEntry>> published = events.flushAsync();
 
                 //**TODO set status to deleting or disable?
                 dal.disableTenant(tenantId);
+                published.join();
                 //dal.deleteTenant(tenantId);
                 response = new APIGatewayProxyResponseEvent()
                         .withHeaders(CORS)
@@ -421,28 +734,16 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
     }
 
     private void publishEvent(Map<String, Object> eventBridgeDetail, String detailType) {
-        try {
-            PutEventsRequestEntry systemEvent = PutEventsRequestEntry.builder()
-                    .eventBusName(SAAS_BOOST_EVENT_BUS)
-                    .detailType(detailType)
-                    .source(EVENT_SOURCE)
-                    .detail(Utils.toJson(eventBridgeDetail))
-                    .build();
-            PutEventsResponse eventBridgeResponse = eventBridge.putEvents(r -> r
-                    .entries(systemEvent)
-            );
-            for (PutEventsResultEntry entry : eventBridgeResponse.entries()) {
-                if (entry.eventId() != null && !entry.eventId().isEmpty()) {
-                    LOGGER.info("Put event success {} {}", entry.toString(), systemEvent.toString());
-                } else {
-                    LOGGER.error("Put event failed {}", entry.toString());
-                }
-            }
-        } catch (SdkServiceException eventBridgeError) {
-            LOGGER.error("events::PutEvents", eventBridgeError);
-            LOGGER.error(Utils.getFullStackTrace(eventBridgeError));
-            throw eventBridgeError;
-        }
+        events.publish(event(eventBridgeDetail, detailType));
+    }
+
+    private static PutEventsRequestEntry event(Map<String, Object> eventBridgeDetail, String detailType) {
+        return PutEventsRequestEntry.builder()
+                .eventBusName(SAAS_BOOST_EVENT_BUS)
+                .detailType(detailType)
+                .source(EVENT_SOURCE)
+                .detail(Utils.toJson(eventBridgeDetail))
+                .build();
     }
 
     //handles the event for 'Tenant Update Resources'
@@ -485,29 +786,4 @@ public class TenantService implements RequestHandler<Map<String, Object>, APIGat
         tenant.setResources(resourcesMap);
         return tenant;
     }
-
-    private void fireEvent(String type, Map<String, Object> detail) {
-        try {
-            PutEventsRequestEntry event = PutEventsRequestEntry.builder()
-                    .eventBusName(SAAS_BOOST_EVENT_BUS)
-                    .source("saas-boost")
-                    .detailType(type)
-                    .detail(Utils.toJson(detail))
-                    .build();
-            PutEventsResponse eventBridgeResponse = eventBridge.putEvents(request -> request
-                    .entries(event)
-            );
-            for (PutEventsResultEntry entry : eventBridgeResponse.entries()) {
-                if (entry.eventId() != null && !entry.eventId().isEmpty()) {
-                    LOGGER.info("Put event success {} {}", entry.toString(), event.toString());
-                } else {
-                    LOGGER.error("Put event failed {}", entry.toString());
-                }
-            }
-        } catch (SdkServiceException eventBridgeError) {
-            LOGGER.error("events::PutEvents");
-            LOGGER.error(Utils.getFullStackTrace(eventBridgeError));
-            throw eventBridgeError;
-        }
-    }
-}
\ No newline at end of file
+}
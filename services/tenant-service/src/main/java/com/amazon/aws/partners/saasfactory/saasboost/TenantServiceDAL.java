@@ -20,6 +20,7 @@ import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -31,7 +32,35 @@ public class TenantServiceDAL {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(TenantServiceDAL.class);
     private static final String TENANTS_TABLE = System.getenv("TENANTS_TABLE");
+    // Optional DynamoDB parallel scan for large fleets, defaults to a single sequential scan
+    private static final int SCAN_SEGMENTS = scanSegments(System.getenv("TENANTS_SCAN_SEGMENTS"));
+    // Global secondary index on the onboarding status attribute
+    static final String ONBOARDING_INDEX = "onboarding";
+    static final List<String> ONBOARDED_STATUSES = Collections.unmodifiableList(
+            Arrays.asList("succeeded", "updated"));
+    // Every onboarding status but created, failed and deleted, plus succeeded which only tenants have
+    static final List<String> PROVISIONED_STATUSES = provisionedStatuses();
+    // Tenant JSON properties that can be requested with fields= and the attributes they're read from
+    static final Map<String, String> FIELD_ATTRIBUTES;
+    static {
+        Map<String, String> fieldAttributes = new LinkedHashMap<>();
+        for (String field : Arrays.asList("id", "created", "modified", "active", "name", "subdomain",
+                "overrideDefaults", "computeSize", "memory", "cpu", "minCount", "maxCount", "planId", "resources")) {
+            fieldAttributes.put(field, field);
+        }
+        fieldAttributes.put("onboardingStatus", "onboarding");
+        fieldAttributes.put("provisioned", "onboarding");
+        FIELD_ATTRIBUTES = Collections.unmodifiableMap(fieldAttributes);
+    }
+    private static final List<String> COMPUTE_FIELDS = Arrays.asList("computeSize", "memory", "cpu", "minCount",
+            "maxCount");
+    // Tenant attributes a bulk update is allowed to change. Active is only changed by the enable and
+    // disable operations, which tell the listener rules about it.
+    static final List<String> BULK_UPDATE_ATTRIBUTES = Collections.unmodifiableList(
+            Arrays.asList("planId", "overrideDefaults", "computeSize", "memory", "cpu", "minCount", "maxCount"));
+    static final int BULK_MAX_CONCURRENCY = 10;
     private final DynamoDbClient ddb;
+    private final boolean onboardingIndexActive;
 
     public TenantServiceDAL() {
         long startTimeMillis = System.currentTimeMillis();
@@ -40,28 +69,42 @@ public class TenantServiceDAL {
         }
         this.ddb = Utils.sdkClient(DynamoDbClient.builder(), DynamoDbClient.SERVICE_NAME);
         // Cold start performance hack -- take the TLS hit for the client in the constructor
-        this.ddb.describeTable(request -> request.tableName(TENANTS_TABLE));
+        DescribeTableResponse response = this.ddb.describeTable(request -> request.tableName(TENANTS_TABLE));
+        // Until the index has finished backfilling after a stack update we fall back to filtered scans
+        this.onboardingIndexActive = DynamoDbIndex.isActive(response.table(), ONBOARDING_INDEX);
+        if (!this.onboardingIndexActive) {
+            LOGGER.warn("Index {} on {} is not active, falling back to table scans", ONBOARDING_INDEX, TENANTS_TABLE);
+        }
         LOGGER.info("Constructor init: {}", System.currentTimeMillis() - startTimeMillis);
     }
 
     public List<Tenant> getOnboardedTenants() {
+        return getOnboardedTenants(null);
+    }
+
+    public List<Tenant> getOnboardedTenants(Collection<String> attributes) {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("TenantServiceDAL::getTenants");
         List<Tenant> tenants = new ArrayList<>();
         try {
-            ScanResponse response = ddb.scan(request -> request
-                    .tableName(TENANTS_TABLE)
-                    .filterExpression("attribute_exists(onboarding) AND onboarding IN (:status1, :status2)")
-                    .expressionAttributeValues(Stream
-                            .of(
-                                    new AbstractMap.SimpleEntry<>(":status1", AttributeValue.builder().s("succeeded").build()),
-                                    new AbstractMap.SimpleEntry<>(":status2", AttributeValue.builder().s("updated").build())
-                            )
-                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                    )
-            );
-            LOGGER.info("TenantServiceDAL::getTenants returning " + response.items().size() + " onboarded tenants");
-            response.items().forEach(item ->
+            List<Map<String, AttributeValue>> items;
+            if (onboardingIndexActive) {
+                items = queryByOnboardingStatus(ONBOARDED_STATUSES, null, null, attributes);
+            } else {
+                ScanRequest request = scanRequest(
+                        "attribute_exists(onboarding) AND onboarding IN (:status1, :status2)",
+                        Stream
+                                .of(
+                                        new AbstractMap.SimpleEntry<>(":status1", AttributeValue.builder().s("succeeded").build()),
+                                        new AbstractMap.SimpleEntry<>(":status2", AttributeValue.builder().s("updated").build())
+                                )
+                                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)),
+                        attributes
+                );
+                items = scan(request);
+            }
+            LOGGER.info("TenantServiceDAL::getTenants returning " + items.size() + " onboarded tenants");
+            items.forEach(item ->
                     tenants.add(fromAttributeValueMap(item))
             );
         } catch (DynamoDbException e) {
@@ -78,6 +121,10 @@ public class TenantServiceDAL {
     }
 
     public List<Tenant> getProvisionedTenants(Boolean customizedTenants) {
+        return getProvisionedTenants(customizedTenants, null);
+    }
+
+    public List<Tenant> getProvisionedTenants(Boolean customizedTenants, Collection<String> attributes) {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("TenantServiceDAL::getProvisionedTenants");
 
@@ -96,14 +143,22 @@ public class TenantServiceDAL {
         }
         List<Tenant> tenants = new ArrayList<>();
         try {
-            ScanResponse response = ddb.scan(ScanRequest.builder()
-                    .tableName(TENANTS_TABLE)
-                    .filterExpression(filter)
-                    .expressionAttributeValues(expressions)
-                    .build()
-            );
-            LOGGER.info("TenantServiceDAL::getProvisionedTenants returning {} provisioned{} tenants", response.items().size(), (customizedTenants != null ? (customizedTenants ? " and customized" : " and not customized") : ""));
-            response.items().forEach(item ->
+            List<Map<String, AttributeValue>> items;
+            if (onboardingIndexActive) {
+                // The onboarding status is the index key, so only the compute settings are left to filter on
+                String overrideFilter = null;
+                Map<String, AttributeValue> overrideExpressions = null;
+                if (customizedTenants != null) {
+                    overrideFilter = "attribute_exists(overrideDefaults) AND overrideDefaults = :overrideDefaults";
+                    overrideExpressions = new HashMap<>();
+                    overrideExpressions.put(":overrideDefaults", expressions.get(":overrideDefaults"));
+                }
+                items = queryByOnboardingStatus(PROVISIONED_STATUSES, overrideFilter, overrideExpressions, attributes);
+            } else {
+                items = scan(scanRequest(filter, expressions, attributes));
+            }
+            LOGGER.info("TenantServiceDAL::getProvisionedTenants returning {} provisioned{} tenants", items.size(), (customizedTenants != null ? (customizedTenants ? " and customized" : " and not customized") : ""));
+            items.forEach(item ->
                     tenants.add(fromAttributeValueMap(item))
             );
         } catch (DynamoDbException e) {
@@ -116,12 +171,15 @@ public class TenantServiceDAL {
     }
 
     public List<Tenant> getAllTenants() {
+        return getAllTenants(null);
+    }
+
+    public List<Tenant> getAllTenants(Collection<String> attributes) {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("TenantServiceDAL::getAllTenants");
         List<Tenant> tenants = new ArrayList<>();
         try {
-            ScanResponse response = ddb.scan(request -> request.tableName(TENANTS_TABLE));
-            response.items().forEach(item ->
+            scan(scanRequest(null, null, attributes)).forEach(item ->
                     tenants.add(fromAttributeValueMap(item))
             );
         } catch (DynamoDbException e) {
@@ -133,6 +191,328 @@ public class TenantServiceDAL {
         return tenants;
     }
 
+    // Tenants in any of the given onboarding statuses, read from the onboarding index once it's active
+    public List<Tenant> getTenantsByOnboardingStatus(List<String> statuses, Collection<String> attributes) {
+        long startTimeMillis = System.currentTimeMillis();
+        LOGGER.info("TenantServiceDAL::getTenantsByOnboardingStatus {}", statuses);
+        List<Tenant> tenants = new ArrayList<>();
+        try {
+            List<Map<String, AttributeValue>> items;
+            if (onboardingIndexActive) {
+                items = queryByOnboardingStatus(statuses, null, null, attributes);
+            } else {
+                List<String> placeholders = new ArrayList<>();
+                Map<String, AttributeValue> expressions = new HashMap<>();
+                for (String status : statuses) {
+                    String placeholder = ":status" + placeholders.size();
+                    placeholders.add(placeholder);
+                    expressions.put(placeholder, AttributeValue.builder().s(status).build());
+                }
+                items = scan(scanRequest("attribute_exists(onboarding) AND onboarding IN ("
+                        + String.join(", ", placeholders) + ")", expressions, attributes));
+            }
+            items.forEach(item ->
+                    tenants.add(fromAttributeValueMap(item))
+            );
+        } catch (DynamoDbException e) {
+            LOGGER.error("TenantServiceDAL::getTenantsByOnboardingStatus " + Utils.getFullStackTrace(e));
+            throw new RuntimeException(e);
+        }
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("TenantServiceDAL::getTenantsByOnboardingStatus exec " + totalTimeMillis);
+        return tenants;
+    }
+
+    public TenantPage getOnboardedTenants(int limit, String cursor, Collection<String> attributes) {
+        long startTimeMillis = System.currentTimeMillis();
+        LOGGER.info("TenantServiceDAL::getOnboardedTenants page");
+        TenantPage page;
+        try {
+            page = page(ONBOARDED_STATUSES, null, null,
+                    "attribute_exists(onboarding) AND onboarding IN (:status1, :status2)",
+                    Stream
+                            .of(
+                                    new AbstractMap.SimpleEntry<>(":status1", AttributeValue.builder().s("succeeded").build()),
+                                    new AbstractMap.SimpleEntry<>(":status2", AttributeValue.builder().s("updated").build())
+                            )
+                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)),
+                    limit, cursor, attributes);
+        } catch (DynamoDbException e) {
+            LOGGER.error("TenantServiceDAL::getOnboardedTenants " + Utils.getFullStackTrace(e));
+            throw new RuntimeException(e);
+        }
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("TenantServiceDAL::getOnboardedTenants page exec " + totalTimeMillis);
+        return page;
+    }
+
+    public TenantPage getProvisionedTenants(Boolean customizedTenants, int limit, String cursor,
+                                            Collection<String> attributes) {
+        long startTimeMillis = System.currentTimeMillis();
+        LOGGER.info("TenantServiceDAL::getProvisionedTenants page");
+        String filter = "attribute_exists(onboarding) AND onboarding <> :created AND onboarding <> :failed AND onboarding <> :deleted";
+        Map<String, AttributeValue> expressions = new HashMap<>();
+        expressions.put(":created", AttributeValue.builder().s("created").build());
+        expressions.put(":failed", AttributeValue.builder().s("failed").build());
+        expressions.put(":deleted", AttributeValue.builder().s("deleted").build());
+        String overrideFilter = null;
+        Map<String, AttributeValue> overrideExpressions = null;
+        if (customizedTenants != null) {
+            overrideFilter = "attribute_exists(overrideDefaults) AND overrideDefaults = :overrideDefaults";
+            overrideExpressions = new HashMap<>();
+            overrideExpressions.put(":overrideDefaults", AttributeValue.builder().bool(customizedTenants).build());
+            filter = filter + " AND " + overrideFilter;
+            expressions.putAll(overrideExpressions);
+        }
+        TenantPage page;
+        try {
+            page = page(PROVISIONED_STATUSES, overrideFilter, overrideExpressions, filter, expressions, limit, cursor,
+                    attributes);
+        } catch (DynamoDbException e) {
+            LOGGER.error("TenantServiceDAL::getProvisionedTenants " + Utils.getFullStackTrace(e));
+            throw new RuntimeException(e);
+        }
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("TenantServiceDAL::getProvisionedTenants page exec " + totalTimeMillis);
+        return page;
+    }
+
+    // Reads up to limit tenants starting where the cursor left off. With the onboarding index we walk
+    // the statuses one query at a time, otherwise we fall back to a filtered scan. Either way the cursor
+    // records where we are (status position, or -1 for the scan) and the last key DynamoDB evaluated.
+    private TenantPage page(List<String> statuses, String filter, Map<String, AttributeValue> values,
+                            String scanFilter, Map<String, AttributeValue> scanValues, int limit, String cursor,
+                            Collection<String> attributes) {
+        int position = onboardingIndexActive ? 0 : -1;
+        Map<String, AttributeValue> startKey = null;
+        if (Utils.isNotBlank(cursor)) {
+            Map<String, Object> decoded = decodeCursor(cursor);
+            position = (Integer) decoded.get("position");
+            startKey = (Map<String, AttributeValue>) decoded.get("key");
+        }
+        List<Tenant> tenants = new ArrayList<>();
+        if (position < 0) {
+            do {
+                ScanRequest request = scanRequest(scanFilter, scanValues, attributes).toBuilder()
+                        .limit(limit - tenants.size())
+                        .exclusiveStartKey(startKey)
+                        .build();
+                ScanResponse response = ddb.scan(request);
+                response.items().forEach(item -> tenants.add(fromAttributeValueMap(item)));
+                startKey = lastEvaluatedKey(response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null);
+            } while (startKey != null && tenants.size() < limit);
+        } else {
+            while (position < statuses.size() && tenants.size() < limit) {
+                QueryRequest request = queryRequest(statuses.get(position), filter, values, attributes).toBuilder()
+                        .limit(limit - tenants.size())
+                        .exclusiveStartKey(startKey)
+                        .build();
+                QueryResponse response = ddb.query(request);
+                response.items().forEach(item -> tenants.add(fromAttributeValueMap(item)));
+                startKey = lastEvaluatedKey(response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null);
+                if (startKey == null) {
+                    position++;
+                }
+            }
+        }
+        String next = null;
+        if (position < 0 ? startKey != null : position < statuses.size()) {
+            next = encodeCursor(position, startKey);
+        }
+        return new TenantPage(tenants, next);
+    }
+
+    private static Map<String, AttributeValue> lastEvaluatedKey(Map<String, AttributeValue> key) {
+        return (key != null && !key.isEmpty()) ? key : null;
+    }
+
+    // Table and index keys are all strings, so the cursor is just the position and the key values
+    static String encodeCursor(int position, Map<String, AttributeValue> startKey) {
+        Map<String, Object> cursor = new LinkedHashMap<>();
+        cursor.put("position", position);
+        if (startKey != null) {
+            cursor.put("key", startKey.entrySet()
+                    .stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().s())));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Utils.toJson(cursor).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Map<String, Object> decodeCursor(String cursor) {
+        Map<String, Object> decoded = new HashMap<>();
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> parsed = Utils.fromJson(json, HashMap.class);
+            if (parsed == null || !(parsed.get("position") instanceof Integer)) {
+                throw new IllegalArgumentException("Invalid cursor " + cursor);
+            }
+            decoded.put("position", parsed.get("position"));
+            if (parsed.get("key") instanceof Map) {
+                Map<String, AttributeValue> startKey = new HashMap<>();
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) parsed.get("key")).entrySet()) {
+                    startKey.put(entry.getKey(), AttributeValue.builder().s(String.valueOf(entry.getValue())).build());
+                }
+                decoded.put("key", startKey);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+        }
+        return decoded;
+    }
+
+    // Maps the requested Tenant JSON properties to the attributes to project. Returns null,
+    // meaning every attribute, when no fields are requested.
+    static List<String> projectionAttributes(Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        Set<String> attributes = new LinkedHashSet<>();
+        for (String field : fields) {
+            String attribute = FIELD_ATTRIBUTES.get(field);
+            if (attribute == null) {
+                throw new IllegalArgumentException("Unknown tenant field " + field);
+            }
+            attributes.add(attribute);
+            // fromAttributeValueMap only reads the compute settings for tenants that override the defaults
+            if (COMPUTE_FIELDS.contains(field)) {
+                attributes.add("overrideDefaults");
+            }
+        }
+        // The id and modified time are each tenant's version, which the ETag is built from
+        attributes.add("id");
+        attributes.add("modified");
+        return new ArrayList<>(attributes);
+    }
+
+    // Lazily pages through the tenants table so callers that walk the whole fleet
+    // don't have to hold every tenant in memory at once
+    public Iterator<Tenant> scanTenants(Collection<String> attributes) {
+        LOGGER.info("TenantServiceDAL::scanTenants");
+        Iterator<Map<String, AttributeValue>> items = ddb.scanPaginator(scanRequest(null, null, attributes))
+                .items()
+                .iterator();
+        return new Iterator<Tenant>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public Tenant next() {
+                return fromAttributeValueMap(items.next());
+            }
+        };
+    }
+
+    // Reads every page of the scan. When SCAN_SEGMENTS is more than 1 the table is split
+    // into that many parallel scan segments and each segment is paged through concurrently.
+    private List<Map<String, AttributeValue>> scan(ScanRequest request) {
+        if (SCAN_SEGMENTS < 2) {
+            return scanSegment(request);
+        }
+        List<ScanRequest> segments = new ArrayList<>();
+        for (int segment = 0; segment < SCAN_SEGMENTS; segment++) {
+            segments.add(request.toBuilder().segment(segment).totalSegments(SCAN_SEGMENTS).build());
+        }
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        ParallelExecutor.map(segments, SCAN_SEGMENTS, this::scanSegment).forEach(items::addAll);
+        return items;
+    }
+
+    private List<Map<String, AttributeValue>> scanSegment(ScanRequest request) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (ScanResponse page : ddb.scanPaginator(request)) {
+            items.addAll(page.items());
+        }
+        return items;
+    }
+
+    // One query per status against the onboarding index, run concurrently. Each query
+    // only reads the tenants in that status instead of the whole table.
+    private List<Map<String, AttributeValue>> queryByOnboardingStatus(List<String> statuses, String filter,
+                                                                      Map<String, AttributeValue> values,
+                                                                      Collection<String> attributes) {
+        List<QueryRequest> queries = new ArrayList<>();
+        for (String status : statuses) {
+            queries.add(queryRequest(status, filter, values, attributes));
+        }
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        ParallelExecutor.map(queries, queries.size(), this::querySegment).forEach(items::addAll);
+        return items;
+    }
+
+    private List<Map<String, AttributeValue>> querySegment(QueryRequest request) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (QueryResponse page : ddb.queryPaginator(request)) {
+            items.addAll(page.items());
+        }
+        return items;
+    }
+
+    static ScanRequest scanRequest(String filter, Map<String, AttributeValue> values, Collection<String> attributes) {
+        ScanRequest.Builder request = ScanRequest.builder().tableName(TENANTS_TABLE);
+        if (Utils.isNotBlank(filter)) {
+            request.filterExpression(filter);
+        }
+        if (values != null && !values.isEmpty()) {
+            request.expressionAttributeValues(values);
+        }
+        Map<String, String> names = projectionNames(attributes);
+        if (!names.isEmpty()) {
+            request.projectionExpression(String.join(", ", names.keySet()));
+            request.expressionAttributeNames(names);
+        }
+        return request.build();
+    }
+
+    static QueryRequest queryRequest(String onboardingStatus, String filter, Map<String, AttributeValue> values,
+                                     Collection<String> attributes) {
+        Map<String, AttributeValue> expressionValues = new HashMap<>();
+        if (values != null) {
+            expressionValues.putAll(values);
+        }
+        expressionValues.put(":onboarding", AttributeValue.builder().s(onboardingStatus).build());
+        QueryRequest.Builder request = QueryRequest.builder()
+                .tableName(TENANTS_TABLE)
+                .indexName(ONBOARDING_INDEX)
+                .keyConditionExpression("onboarding = :onboarding")
+                .expressionAttributeValues(expressionValues);
+        if (Utils.isNotBlank(filter)) {
+            request.filterExpression(filter);
+        }
+        Map<String, String> names = projectionNames(attributes);
+        if (!names.isEmpty()) {
+            request.projectionExpression(String.join(", ", names.keySet()));
+            request.expressionAttributeNames(names);
+        }
+        return request.build();
+    }
+
+    private static List<String> provisionedStatuses() {
+        EnumSet<OnboardingStatus> statuses = EnumSet.complementOf(
+                EnumSet.of(OnboardingStatus.created, OnboardingStatus.failed, OnboardingStatus.deleted));
+        List<String> provisioned = new ArrayList<>();
+        for (OnboardingStatus status : statuses) {
+            provisioned.add(status.name());
+        }
+        // The onboarding service marks the tenant succeeded once its onboarding is deployed
+        provisioned.add("succeeded");
+        return Collections.unmodifiableList(provisioned);
+    }
+
+    // Attribute names are always aliased in the projection because some of ours,
+    // like name, are DynamoDB reserved words
+    static Map<String, String> projectionNames(Collection<String> attributes) {
+        Map<String, String> names = new LinkedHashMap<>();
+        if (attributes != null) {
+            for (String attribute : new LinkedHashSet<>(attributes)) {
+                names.put("#p" + names.size(), attribute);
+            }
+        }
+        return names;
+    }
+
     public Tenant getTenant(UUID tenantId) {
         return getTenant(tenantId.toString());
     }
@@ -254,6 +634,115 @@ public class TenantServiceDAL {
         return updated;
     }
 
+    // Applies the same changes to every tenant with concurrent conditional UpdateItem calls. BatchWriteItem
+    // can only replace whole items and can't check that the tenant exists, so it doesn't fit here.
+    public List<BulkTenantResult> updateTenants(List<String> tenantIds, Map<String, Object> changes) {
+        long startTimeMillis = System.currentTimeMillis();
+        LOGGER.info("TenantServiceDAL::updateTenants {} tenants", tenantIds.size());
+        Map<String, AttributeValue> values = new HashMap<>();
+        String updateExpression = bulkUpdateExpression(changes, values);
+        List<BulkTenantResult> results = ParallelExecutor.map(tenantIds, BULK_MAX_CONCURRENCY, tenantId -> {
+            BulkTenantResult result;
+            try {
+                Map<String, AttributeValue> key = new HashMap<>();
+                key.put("id", AttributeValue.builder().s(tenantId).build());
+                UpdateItemResponse response = ParallelExecutor.withThrottlingRetry(() -> ddb.updateItem(
+                        request -> request
+                                .tableName(TENANTS_TABLE)
+                                .key(key)
+                                .conditionExpression("attribute_exists(id)")
+                                .updateExpression(updateExpression)
+                                .expressionAttributeValues(values)
+                                .returnValues(ReturnValue.ALL_NEW)
+                ));
+                result = BulkTenantResult.updated(fromAttributeValueMap(response.attributes()));
+            } catch (ConditionalCheckFailedException notFound) {
+                result = BulkTenantResult.notFound(tenantId);
+            } catch (DynamoDbException e) {
+                LOGGER.error("TenantServiceDAL::updateTenants {} {}", tenantId, Utils.getFullStackTrace(e));
+                result = BulkTenantResult.failed(tenantId, e.getMessage());
+            }
+            return result;
+        });
+        long totalTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        LOGGER.info("TenantServiceDAL::updateTenants exec {}", totalTimeMillis);
+        return results;
+    }
+
+    // Builds the update expression for a bulk update and fills in its values. Compute settings only
+    // mean something while overrideDefaults is true, so they have to be set together and turning
+    // overrideDefaults off removes them just like updateTenant does.
+    static String bulkUpdateExpression(Map<String, Object> changes, Map<String, AttributeValue> values) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("No changes to apply");
+        }
+        for (String attribute : changes.keySet()) {
+            if (!"active".equals(attribute) && !BULK_UPDATE_ATTRIBUTES.contains(attribute)) {
+                throw new IllegalArgumentException("Can't bulk update tenant attribute " + attribute);
+            }
+        }
+        List<String> set = new ArrayList<>();
+        List<String> remove = new ArrayList<>();
+        set.add("modified = :modified");
+        values.put(":modified", AttributeValue.builder()
+                .s(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .build());
+        if (changes.containsKey("active")) {
+            set.add("active = :active");
+            values.put(":active", AttributeValue.builder().bool(booleanChange(changes, "active")).build());
+        }
+        if (changes.containsKey("planId")) {
+            Object planId = changes.get("planId");
+            if (planId == null || Utils.isBlank(planId.toString())) {
+                remove.add("planId");
+            } else {
+                set.add("planId = :planId");
+                values.put(":planId", AttributeValue.builder().s(planId.toString()).build());
+            }
+        }
+        boolean computeChanges = COMPUTE_FIELDS.stream().anyMatch(changes::containsKey);
+        if (changes.containsKey("overrideDefaults")) {
+            boolean overrideDefaults = booleanChange(changes, "overrideDefaults");
+            set.add("overrideDefaults = :overrideDefaults");
+            values.put(":overrideDefaults", AttributeValue.builder().bool(overrideDefaults).build());
+            if (!overrideDefaults) {
+                if (computeChanges) {
+                    throw new IllegalArgumentException("Compute settings require overrideDefaults to be true");
+                }
+                remove.addAll(COMPUTE_FIELDS);
+            }
+        } else if (computeChanges) {
+            throw new IllegalArgumentException("Compute settings require overrideDefaults to be true");
+        }
+        if (changes.containsKey("computeSize")) {
+            set.add("computeSize = :computeSize");
+            values.put(":computeSize", AttributeValue.builder().s(String.valueOf(changes.get("computeSize"))).build());
+        }
+        for (String attribute : Arrays.asList("memory", "cpu", "minCount", "maxCount")) {
+            if (changes.containsKey(attribute)) {
+                if (!(changes.get(attribute) instanceof Number)) {
+                    throw new IllegalArgumentException("Tenant attribute " + attribute + " must be a number");
+                }
+                set.add(attribute + " = :" + attribute);
+                values.put(":" + attribute, AttributeValue.builder()
+                        .n(String.valueOf(((Number) changes.get(attribute)).intValue()))
+                        .build());
+            }
+        }
+        String updateExpression = "SET " + String.join(", ", set);
+        if (!remove.isEmpty()) {
+            updateExpression += " REMOVE " + String.join(", ", remove);
+        }
+        return updateExpression;
+    }
+
+    private static boolean booleanChange(Map<String, Object> changes, String attribute) {
+        if (!(changes.get(attribute) instanceof Boolean)) {
+            throw new IllegalArgumentException("Tenant attribute " + attribute + " must be true or false");
+        }
+        return (Boolean) changes.get(attribute);
+    }
+
     public Tenant insertTenant(Tenant tenant) {
         long startTimeMillis = System.currentTimeMillis();
         LOGGER.info("TenantServiceDAL::insertTenant {}", tenant.getName());
@@ -298,6 +787,18 @@ public class TenantServiceDAL {
         return;
     }
 
+    static int scanSegments(String segments) {
+        int totalSegments = 1;
+        if (Utils.isNotBlank(segments)) {
+            try {
+                totalSegments = Math.max(1, Integer.parseInt(segments.trim()));
+            } catch (NumberFormatException nfe) {
+                LOGGER.error("Invalid TENANTS_SCAN_SEGMENTS value {}, using a sequential scan", segments);
+            }
+        }
+        return totalSegments;
+    }
+
     public static Map<String, AttributeValue> toAttributeValueMap(Tenant tenant) {
         Map<String, AttributeValue> item = new HashMap<>();
         item.put("id", AttributeValue.builder().s(tenant.getId().toString()).build());
@@ -17,7 +17,7 @@ package com.amazon.aws.partners.saasfactory.saasboost;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -101,4 +101,132 @@ public class TenantServiceDALTest {
             assertEquals("Value mismatch for '" + key + "'", expected.get(key), customized.get(key));
         });
     }
+
+    @Test
+    public void testScanRequestProjection() {
+        ScanRequest request = TenantServiceDAL.scanRequest(null, null, Arrays.asList("id", "name", "active", "name"));
+        assertEquals("#p0, #p1, #p2", request.projectionExpression());
+        assertEquals("id", request.expressionAttributeNames().get("#p0"));
+        assertEquals("name", request.expressionAttributeNames().get("#p1"));
+        assertEquals("active", request.expressionAttributeNames().get("#p2"));
+        assertNull(request.filterExpression());
+        assertFalse(request.hasExpressionAttributeValues());
+
+        request = TenantServiceDAL.scanRequest("onboarding = :status",
+                Collections.singletonMap(":status", AttributeValue.builder().s("succeeded").build()), null);
+        assertEquals("onboarding = :status", request.filterExpression());
+        assertEquals("succeeded", request.expressionAttributeValues().get(":status").s());
+        assertNull(request.projectionExpression());
+        assertFalse(request.hasExpressionAttributeNames());
+    }
+
+    @Test
+    public void testScanSegments() {
+        assertEquals(1, TenantServiceDAL.scanSegments(null));
+        assertEquals(1, TenantServiceDAL.scanSegments(""));
+        assertEquals(1, TenantServiceDAL.scanSegments("abc"));
+        assertEquals(1, TenantServiceDAL.scanSegments("0"));
+        assertEquals(4, TenantServiceDAL.scanSegments("4"));
+    }
+
+    @Test
+    public void testQueryRequest() {
+        QueryRequest request = TenantServiceDAL.queryRequest("deployed", "overrideDefaults = :overrideDefaults",
+                Collections.singletonMap(":overrideDefaults", AttributeValue.builder().bool(true).build()),
+                Arrays.asList("id", "name"));
+        assertEquals(TenantServiceDAL.ONBOARDING_INDEX, request.indexName());
+        assertEquals("onboarding = :onboarding", request.keyConditionExpression());
+        assertEquals("deployed", request.expressionAttributeValues().get(":onboarding").s());
+        assertTrue(request.expressionAttributeValues().get(":overrideDefaults").bool());
+        assertEquals("overrideDefaults = :overrideDefaults", request.filterExpression());
+        assertEquals("#p0, #p1", request.projectionExpression());
+    }
+
+    @Test
+    public void testProvisionedStatuses() {
+        assertTrue(TenantServiceDAL.PROVISIONED_STATUSES.containsAll(TenantServiceDAL.ONBOARDED_STATUSES));
+        for (String status : TenantServiceDAL.PROVISIONED_STATUSES) {
+            Tenant tenant = new Tenant();
+            tenant.setOnboardingStatus(status);
+            assertTrue(status + " is provisioned", tenant.isProvisioned());
+        }
+        assertFalse(TenantServiceDAL.PROVISIONED_STATUSES.contains("created"));
+        assertFalse(TenantServiceDAL.PROVISIONED_STATUSES.contains("failed"));
+        assertFalse(TenantServiceDAL.PROVISIONED_STATUSES.contains("deleted"));
+        // New onboarding statuses are picked up without another list to keep in step
+        assertEquals(OnboardingStatus.values().length - 3 + 1, TenantServiceDAL.PROVISIONED_STATUSES.size());
+        assertTrue(TenantServiceDAL.PROVISIONED_STATUSES.contains(OnboardingStatus.deploying.name()));
+        assertTrue(TenantServiceDAL.PROVISIONED_STATUSES.contains("succeeded"));
+    }
+
+    @Test
+    public void testCursor() {
+        Map<String, AttributeValue> startKey = new HashMap<>();
+        startKey.put("id", AttributeValue.builder().s(tenantId.toString()).build());
+        startKey.put("onboarding", AttributeValue.builder().s("deployed").build());
+        String cursor = TenantServiceDAL.encodeCursor(3, startKey);
+        Map<String, Object> decoded = TenantServiceDAL.decodeCursor(cursor);
+        assertEquals(3, decoded.get("position"));
+        assertEquals(startKey, decoded.get("key"));
+
+        decoded = TenantServiceDAL.decodeCursor(TenantServiceDAL.encodeCursor(1, null));
+        assertEquals(1, decoded.get("position"));
+        assertNull(decoded.get("key"));
+
+        assertThrows(IllegalArgumentException.class, () -> TenantServiceDAL.decodeCursor("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> TenantServiceDAL.decodeCursor("e30"));
+    }
+
+    @Test
+    public void testProjectionAttributes() {
+        assertNull(TenantServiceDAL.projectionAttributes(null));
+        assertNull(TenantServiceDAL.projectionAttributes(Collections.emptyList()));
+        assertEquals(Arrays.asList("id", "onboarding", "modified"),
+                TenantServiceDAL.projectionAttributes(Arrays.asList("id", "onboardingStatus", "provisioned")));
+        assertEquals(Arrays.asList("id", "cpu", "overrideDefaults", "modified"),
+                TenantServiceDAL.projectionAttributes(Arrays.asList("id", "cpu")));
+        assertThrows(IllegalArgumentException.class,
+                () -> TenantServiceDAL.projectionAttributes(Arrays.asList("id", "password")));
+    }
+
+    @Test
+    public void testBulkUpdateExpression() {
+        Map<String, AttributeValue> values = new HashMap<>();
+        assertEquals("SET modified = :modified, active = :active",
+                TenantServiceDAL.bulkUpdateExpression(Collections.singletonMap("active", Boolean.FALSE), values));
+        assertEquals(Boolean.FALSE, values.get(":active").bool());
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("planId", "");
+        changes.put("overrideDefaults", Boolean.FALSE);
+        values.clear();
+        assertEquals("SET modified = :modified, overrideDefaults = :overrideDefaults "
+                        + "REMOVE planId, computeSize, memory, cpu, minCount, maxCount",
+                TenantServiceDAL.bulkUpdateExpression(changes, values));
+
+        changes.clear();
+        changes.put("overrideDefaults", Boolean.TRUE);
+        changes.put("memory", 2048);
+        values.clear();
+        assertEquals("SET modified = :modified, overrideDefaults = :overrideDefaults, memory = :memory",
+                TenantServiceDAL.bulkUpdateExpression(changes, values));
+        assertEquals("2048", values.get(":memory").n());
+    }
+
+    @Test
+    public void testBulkUpdateExpressionValidation() {
+        Map<String, AttributeValue> values = new HashMap<>();
+        assertThrows(IllegalArgumentException.class,
+                () -> TenantServiceDAL.bulkUpdateExpression(Collections.emptyMap(), values));
+        assertThrows(IllegalArgumentException.class,
+                () -> TenantServiceDAL.bulkUpdateExpression(Collections.singletonMap("name", "x"), values));
+        assertThrows(IllegalArgumentException.class,
+                () -> TenantServiceDAL.bulkUpdateExpression(Collections.singletonMap("active", "yes"), values));
+        assertThrows(IllegalArgumentException.class,
+                () -> TenantServiceDAL.bulkUpdateExpression(Collections.singletonMap("memory", 1024), values));
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("overrideDefaults", Boolean.TRUE);
+        changes.put("cpu", "lots");
+        assertThrows(IllegalArgumentException.class, () -> TenantServiceDAL.bulkUpdateExpression(changes, values));
+    }
 }
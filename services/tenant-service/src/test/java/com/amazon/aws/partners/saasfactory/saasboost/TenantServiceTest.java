@@ -18,6 +18,7 @@ package com.amazon.aws.partners.saasfactory.saasboost;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.Assert.*;
@@ -95,4 +96,109 @@ public class TenantServiceTest {
         Map<String, Object> m = Utils.fromJson(decoded, HashMap.class);
         System.out.println(m);
     }
+
+    @Test
+    public void testPageSize() {
+        assertEquals(TenantService.DEFAULT_PAGE_SIZE, TenantService.pageSize(null));
+        assertEquals(25, TenantService.pageSize("25"));
+        assertThrows(IllegalArgumentException.class, () -> TenantService.pageSize("0"));
+        assertThrows(IllegalArgumentException.class, () -> TenantService.pageSize("ten"));
+        assertThrows(IllegalArgumentException.class,
+                () -> TenantService.pageSize(String.valueOf(TenantService.MAX_PAGE_SIZE + 1)));
+    }
+
+    @Test
+    public void testSelectFields() {
+        Tenant tenant = new Tenant();
+        tenant.setId(UUID.fromString(tenantId));
+        tenant.setName("Test Tenant");
+        tenant.setOnboardingStatus("deployed");
+        tenant.setResources(resources);
+        List<Tenant> tenants = Collections.singletonList(tenant);
+
+        assertSame(tenants, TenantService.selectFields(tenants, null));
+        Map<String, Object> selected = (Map<String, Object>) TenantService.selectFields(tenants,
+                Arrays.asList("id", "provisioned")).get(0);
+        assertEquals(2, selected.size());
+        assertEquals(tenantId, selected.get("id"));
+        assertEquals(Boolean.TRUE, selected.get("provisioned"));
+    }
+
+    @Test
+    public void testHeader() {
+        Map<String, Object> request = new HashMap<>();
+        assertNull(TenantService.header(request, "If-None-Match"));
+        request.put("headers", Collections.singletonMap("if-none-match", "\"42\""));
+        assertEquals("\"42\"", TenantService.header(request, "If-None-Match"));
+    }
+
+    @Test
+    public void testEtag() {
+        Tenant tenant1 = new Tenant();
+        tenant1.setId(UUID.fromString(tenantId));
+        tenant1.setModified(LocalDateTime.of(2021, 3, 1, 12, 0));
+        Tenant tenant2 = new Tenant();
+        tenant2.setId(UUID.randomUUID());
+        tenant2.setModified(LocalDateTime.of(2021, 3, 2, 12, 0));
+        String etag = TenantService.etag(Arrays.asList(tenant1, tenant2), null);
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, TenantService.etag(Arrays.asList(tenant1, tenant2), null));
+
+        // Each tenant has its own version
+        assertNotEquals(etag, TenantService.etag(Collections.singletonList(tenant1), null));
+        assertNotEquals(TenantService.etag(Collections.singletonList(tenant1), null),
+                TenantService.etag(Collections.singletonList(tenant2), null));
+        assertNotEquals(etag, TenantService.etag(Arrays.asList(tenant1, tenant2), "next"));
+
+        // Writing a tenant changes its version and the ETag of any list it's in
+        tenant2.setModified(LocalDateTime.of(2021, 3, 2, 12, 0, 1));
+        assertNotEquals(etag, TenantService.etag(Arrays.asList(tenant1, tenant2), null));
+    }
+
+    @Test
+    public void testBulkChanges() {
+        assertEquals(Collections.singletonMap("active", Boolean.TRUE), TenantService.bulkChanges("enable", null));
+        assertEquals(Collections.singletonMap("active", Boolean.FALSE), TenantService.bulkChanges("disable", null));
+        Map<String, Object> changes = Collections.singletonMap("planId", "gold");
+        assertSame(changes, TenantService.bulkChanges("update", changes));
+        assertThrows(IllegalArgumentException.class, () -> TenantService.bulkChanges("update", null));
+        assertThrows(IllegalArgumentException.class, () -> TenantService.bulkChanges("delete", changes));
+        // Status changes have to go through enable and disable so the listener rules follow them
+        assertThrows(IllegalArgumentException.class,
+                () -> TenantService.bulkChanges("update", Collections.singletonMap("active", Boolean.FALSE)));
+    }
+
+    @Test
+    public void testFilterStatuses() {
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("planId", "gold");
+        assertNull(TenantService.filterStatuses(filter));
+        filter.put("provisioned", Boolean.FALSE);
+        assertNull(TenantService.filterStatuses(filter));
+        filter.put("provisioned", Boolean.TRUE);
+        List<String> statuses = TenantService.filterStatuses(filter);
+        assertTrue(statuses.containsAll(TenantServiceDAL.PROVISIONED_STATUSES));
+        assertTrue(statuses.contains("deleted"));
+        assertFalse(statuses.contains("created"));
+        filter.put("onboardingStatus", "failed");
+        assertEquals(Collections.singletonList("failed"), TenantService.filterStatuses(filter));
+    }
+
+    @Test
+    public void testMatchesFilter() {
+        Tenant tenant = new Tenant();
+        tenant.setId(UUID.fromString(tenantId));
+        tenant.setActive(Boolean.TRUE);
+        tenant.setOnboardingStatus("deployed");
+        tenant.setPlanId("gold");
+
+        Map<String, Object> filter = new HashMap<>();
+        assertTrue(TenantService.matchesFilter(tenant, filter));
+        filter.put("planId", "gold");
+        filter.put("provisioned", Boolean.TRUE);
+        filter.put("overrideDefaults", Boolean.FALSE);
+        assertTrue(TenantService.matchesFilter(tenant, filter));
+        filter.put("active", Boolean.FALSE);
+        assertFalse(TenantService.matchesFilter(tenant, filter));
+    }
 }